@@ -7,14 +7,17 @@ import com.xreatlabs.xreatoptimizer.commands.ReportCommand;
 import com.xreatlabs.xreatoptimizer.config.ConfigReloader;
 import com.xreatlabs.xreatoptimizer.config.WorldConfig;
 import com.xreatlabs.xreatoptimizer.core.AdaptiveThresholdManager;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
 import com.xreatlabs.xreatoptimizer.listeners.EntityEventListener;
 import com.xreatlabs.xreatoptimizer.listeners.GUIClickListener;
 import com.xreatlabs.xreatoptimizer.listeners.ServerEventListener;
 import com.xreatlabs.xreatoptimizer.managers.*;
+import com.xreatlabs.xreatoptimizer.snapshot.SnapshotPipeline;
 import com.xreatlabs.xreatoptimizer.metrics.Metrics;
 import com.xreatlabs.xreatoptimizer.notifications.NotificationManager;
 import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
 import com.xreatlabs.xreatoptimizer.version.VersionAdapter;
 import com.xreatlabs.xreatoptimizer.web.WebDashboard;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -26,7 +29,15 @@ public class XreatOptimizer extends JavaPlugin {
     private VersionAdapter versionAdapter;
     private OptimizationManager optimizationManager;
     private ThreadPoolManager threadPoolManager;
+    private SubsystemScheduler subsystemScheduler;
+    private com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler subsystemProfiler;
+    private SnapshotPipeline snapshotPipeline;
+    private TimeSeriesStore timeSeriesStore;
     private PerformanceMonitor performanceMonitor;
+    private EntityRegistry entityRegistry;
+    private EntityCountTracker entityCountTracker;
+    private com.xreatlabs.xreatoptimizer.profiling.TickClock tickClock;
+    private SpatialIndexManager spatialIndexManager;
     private AdaptiveThresholdManager adaptiveThresholdManager;
     private AdvancedEntityOptimizer advancedEntityOptimizer;
     private SmartTickDistributor smartTickDistributor;
@@ -52,6 +63,7 @@ public class XreatOptimizer extends JavaPlugin {
     private Metrics metrics;
     private WebDashboard webDashboard;
     private com.xreatlabs.xreatoptimizer.metrics.PrometheusExporter prometheusExporter;
+    private com.xreatlabs.xreatoptimizer.metrics.CollectorEngine collectorEngine;
     private com.xreatlabs.xreatoptimizer.core.PerformanceTrendAnalyzer trendAnalyzer;
     private com.xreatlabs.xreatoptimizer.core.AlertManager alertManager;
     private com.xreatlabs.xreatoptimizer.profiling.JFRIntegration jfrIntegration;
@@ -70,6 +82,14 @@ public class XreatOptimizer extends JavaPlugin {
         getLogger().info("Detected server version: " + versionAdapter.getServerVersion());
 
         threadPoolManager = new ThreadPoolManager();
+        subsystemProfiler = new com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler(this);
+        subsystemScheduler = new SubsystemScheduler(this);
+        snapshotPipeline = new SnapshotPipeline(this);
+        timeSeriesStore = new TimeSeriesStore();
+        entityRegistry = new EntityRegistry(this);
+        entityCountTracker = new EntityCountTracker(this);
+        tickClock = new com.xreatlabs.xreatoptimizer.profiling.TickClock(this);
+        spatialIndexManager = new SpatialIndexManager(this);
         performanceMonitor = new PerformanceMonitor(this);
         optimizationManager = new OptimizationManager(this);
 
@@ -104,6 +124,7 @@ public class XreatOptimizer extends JavaPlugin {
         notificationManager = new NotificationManager(this);
         metrics = new Metrics(this);
         prometheusExporter = new com.xreatlabs.xreatoptimizer.metrics.PrometheusExporter(this);
+        collectorEngine = new com.xreatlabs.xreatoptimizer.metrics.CollectorEngine(this);
         webDashboard = new WebDashboard(this);
 
         registerCommands();
@@ -128,7 +149,7 @@ public class XreatOptimizer extends JavaPlugin {
     @Override
     public void onDisable() {
         if (statisticsStorage != null) {
-            statisticsStorage.saveStatistics();
+            statisticsStorage.close();
             getLogger().info("Statistics saved to disk");
         }
 
@@ -139,6 +160,8 @@ public class XreatOptimizer extends JavaPlugin {
             metrics.shutdown();
         }
 
+        XreatOptimizerAPI.shutdown();
+
         if (threadPoolManager != null) {
             threadPoolManager.shutdown();
         }
@@ -155,12 +178,17 @@ public class XreatOptimizer extends JavaPlugin {
     }
 
     private void registerListeners() {
-        getServer().getPluginManager().registerEvents(new ServerEventListener(this), this);
-        getServer().getPluginManager().registerEvents(new EntityEventListener(this), this);
-        getServer().getPluginManager().registerEvents(new GUIClickListener(this), this);
+        subsystemProfiler.registerEvents(new ServerEventListener(this), "server_listener");
+        subsystemProfiler.registerEvents(new EntityEventListener(this), "entity_listener");
+        subsystemProfiler.registerEvents(new GUIClickListener(this), "gui_listener");
     }
 
     private void startCoreSystems() {
+        subsystemScheduler.start();
+        entityRegistry.start();
+        entityCountTracker.start();
+        tickClock.start();
+        spatialIndexManager.start();
         performanceMonitor.start();
         optimizationManager.start();
         chunkPreGenerator.start();
@@ -195,6 +223,10 @@ public class XreatOptimizer extends JavaPlugin {
             prometheusExporter.start();
         }
 
+        if (collectorEngine != null) {
+            collectorEngine.start();
+        }
+
         if (webDashboard != null && getConfig().getBoolean("web_dashboard.enabled", false)) {
             webDashboard.start();
         }
@@ -205,6 +237,10 @@ public class XreatOptimizer extends JavaPlugin {
             webDashboard.stop();
         }
 
+        if (collectorEngine != null) {
+            collectorEngine.stop();
+        }
+
         if (prometheusExporter != null) {
             prometheusExporter.stop();
         }
@@ -302,6 +338,26 @@ public class XreatOptimizer extends JavaPlugin {
         if (performanceMonitor != null) {
             performanceMonitor.stop();
         }
+
+        if (spatialIndexManager != null) {
+            spatialIndexManager.stop();
+        }
+
+        if (tickClock != null) {
+            tickClock.stop();
+        }
+
+        if (entityCountTracker != null) {
+            entityCountTracker.stop();
+        }
+
+        if (entityRegistry != null) {
+            entityRegistry.stop();
+        }
+
+        if (subsystemScheduler != null) {
+            subsystemScheduler.stop();
+        }
     }
 
     public static XreatOptimizer getInstance() {
@@ -324,6 +380,38 @@ public class XreatOptimizer extends JavaPlugin {
         return performanceMonitor;
     }
 
+    public SubsystemScheduler getSubsystemScheduler() {
+        return subsystemScheduler;
+    }
+
+    public com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler getSubsystemProfiler() {
+        return subsystemProfiler;
+    }
+
+    public SnapshotPipeline getSnapshotPipeline() {
+        return snapshotPipeline;
+    }
+
+    public TimeSeriesStore getTimeSeriesStore() {
+        return timeSeriesStore;
+    }
+
+    public EntityRegistry getEntityRegistry() {
+        return entityRegistry;
+    }
+
+    public EntityCountTracker getEntityCountTracker() {
+        return entityCountTracker;
+    }
+
+    public com.xreatlabs.xreatoptimizer.profiling.TickClock getTickClock() {
+        return tickClock;
+    }
+
+    public SpatialIndexManager getSpatialIndexManager() {
+        return spatialIndexManager;
+    }
+
     public HibernateManager getHibernateManager() {
         return hibernateManager;
     }
@@ -424,6 +512,10 @@ public class XreatOptimizer extends JavaPlugin {
         return prometheusExporter;
     }
 
+    public com.xreatlabs.xreatoptimizer.metrics.CollectorEngine getCollectorEngine() {
+        return collectorEngine;
+    }
+
     public com.xreatlabs.xreatoptimizer.core.PerformanceTrendAnalyzer getTrendAnalyzer() {
         return trendAnalyzer;
     }
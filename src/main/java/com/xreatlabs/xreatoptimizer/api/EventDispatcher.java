@@ -0,0 +1,353 @@
+package com.xreatlabs.xreatoptimizer.api;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers OptimizationEvents to the listeners registered through {@link XreatOptimizerAPI}.
+ *
+ * Listeners live in a copy-on-write array, and the targets for each concrete event class are
+ * resolved once and cached until the next (un)registration, so firing allocates nothing for sync
+ * listeners. Sync listeners run on the firing thread in priority order and are the only ones that
+ * can cancel an event; async listeners get the event afterwards through a bounded ring buffer
+ * drained by a single daemon thread, and deliveries are dropped while it is full. Every call is
+ * timed, and a listener that throws or runs over its limit {@code max_strikes} times in a row is
+ * detached.
+ */
+final class EventDispatcher {
+
+    private static final Registered[] NONE = new Registered[0];
+    private static final Comparator<Registered> BY_PRIORITY =
+        Comparator.comparingInt((Registered registered) -> registered.priority).reversed();
+
+    private static final class Registered {
+        final Plugin owner;
+        final OptimizationEventListener listener;
+        final Class<? extends OptimizationEvent> type;
+        final int priority;
+        final boolean async;
+        final String name;
+        final SubsystemProfiler.Probe probe;
+        final AtomicInteger strikes = new AtomicInteger();
+        final LongAdder failures = new LongAdder();
+        final LongAdder slowCalls = new LongAdder();
+        volatile boolean detached;
+
+        Registered(Plugin owner, OptimizationEventListener listener, SubsystemProfiler.Probe probe, String name) {
+            this.owner = owner;
+            this.listener = listener;
+            Class<? extends OptimizationEvent> declared = listener.getEventType();
+            this.type = declared != null ? declared : OptimizationEvent.class;
+            this.priority = listener.getPriority();
+            this.async = listener.isAsync();
+            this.name = name;
+            this.probe = probe;
+        }
+    }
+
+    /** Listeners interested in one event class, split by delivery mode. */
+    private static final class Targets {
+        final Registered[] sync;
+        final Registered[] async;
+
+        Targets(Registered[] sync, Registered[] async) {
+            this.sync = sync;
+            this.async = async;
+        }
+    }
+
+    /** Everything firing needs, replaced as a whole on every (un)registration. */
+    private static final class Index {
+        final Registered[] all;
+        final Map<Class<?>, Targets> byEventClass = new ConcurrentHashMap<>();
+
+        Index(Registered[] all) {
+            this.all = all;
+        }
+    }
+
+    private static final class Delivery {
+        final Registered target;
+        final OptimizationEvent event;
+
+        Delivery(Registered target, OptimizationEvent event) {
+            this.target = target;
+            this.event = event;
+        }
+    }
+
+    private final Object lock = new Object();
+    private volatile Index index = new Index(NONE);
+    private XreatOptimizer plugin;
+
+    private volatile long syncLimitNanos = 5_000_000L;
+    private volatile long asyncLimitNanos = 100_000_000L;
+    private volatile int maxStrikes = 5;
+    private int queueSize = 1024;
+
+    // Written under lock; fire() reads the queue without it
+    private volatile BlockingQueue<Delivery> queue;
+    private Thread dispatcherThread;
+
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder detachedCount = new LongAdder();
+
+    void configure(XreatOptimizer plugin) {
+        this.plugin = plugin;
+        FileConfiguration config = plugin.getConfig();
+        syncLimitNanos = (long) (config.getDouble("api.events.max_listener_ms", 5.0) * 1_000_000L);
+        asyncLimitNanos = (long) (config.getDouble("api.events.max_async_listener_ms", 100.0) * 1_000_000L);
+        maxStrikes = Math.max(1, config.getInt("api.events.max_strikes", 5));
+        queueSize = Math.max(16, config.getInt("api.events.queue_size", 1024));
+    }
+
+    void register(Plugin owner, OptimizationEventListener listener) {
+        SubsystemProfiler profiler = plugin != null ? plugin.getSubsystemProfiler() : null;
+        synchronized (lock) {
+            Registered[] current = index.all;
+            String name = uniqueName(current, owner.getName() + ":" + listenerName(listener));
+            Registered registered = new Registered(owner, listener,
+                profiler != null ? profiler.probe("api_listener", name) : null, name);
+            Registered[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = registered;
+            // Stable, so equal priorities keep registration order
+            Arrays.sort(next, BY_PRIORITY);
+            index = new Index(next);
+            if (registered.async) {
+                startDispatcher();
+            }
+        }
+    }
+
+    /** Remove every listener registered by {@code owner}. Returns how many were removed. */
+    int unregister(Plugin owner) {
+        synchronized (lock) {
+            Registered[] current = index.all;
+            List<Registered> kept = new ArrayList<>(current.length);
+            for (Registered registered : current) {
+                if (registered.owner == owner) {
+                    registered.detached = true;
+                } else {
+                    kept.add(registered);
+                }
+            }
+            int removed = current.length - kept.size();
+            if (removed > 0) {
+                index = new Index(kept.toArray(NONE));
+            }
+            return removed;
+        }
+    }
+
+    void fire(OptimizationEvent event) {
+        Targets targets = targets(event.getClass());
+        if (targets.sync.length == 0 && targets.async.length == 0) {
+            return;
+        }
+        fired.increment();
+
+        for (Registered target : targets.sync) {
+            if (!target.detached) {
+                deliver(target, event, syncLimitNanos);
+            }
+        }
+        if (targets.async.length > 0) {
+            BlockingQueue<Delivery> deliveries = queue;
+            for (Registered target : targets.async) {
+                if (!target.detached && (deliveries == null || !deliveries.offer(new Delivery(target, event)))) {
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    private Targets targets(Class<?> eventClass) {
+        Index current = index;
+        Targets targets = current.byEventClass.get(eventClass);
+        if (targets != null) {
+            return targets;
+        }
+
+        List<Registered> sync = new ArrayList<>();
+        List<Registered> async = new ArrayList<>();
+        for (Registered registered : current.all) {
+            if (registered.type.isAssignableFrom(eventClass)) {
+                (registered.async ? async : sync).add(registered);
+            }
+        }
+        targets = new Targets(sync.toArray(NONE), async.toArray(NONE));
+        current.byEventClass.put(eventClass, targets);
+        return targets;
+    }
+
+    private void deliver(Registered target, OptimizationEvent event, long limitNanos) {
+        long start = System.nanoTime();
+        Exception error = null;
+        try {
+            target.listener.onEvent(event);
+        } catch (Exception e) {
+            error = e;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (target.probe != null) {
+            target.probe.record(elapsed);
+        }
+
+        if (error == null && elapsed <= limitNanos) {
+            if (target.strikes.get() != 0) {
+                target.strikes.set(0);
+            }
+            return;
+        }
+
+        String reason;
+        if (error != null) {
+            target.failures.increment();
+            reason = "threw " + error.getClass().getSimpleName() + (error.getMessage() != null ? ": " + error.getMessage() : "");
+            LoggerUtils.warn("Error firing " + event.getClass().getSimpleName() + " to listener " + target.name + ": " + error.getMessage());
+        } else {
+            target.slowCalls.increment();
+            reason = String.format("took %.2fms (limit %.1fms)", elapsed / 1_000_000.0, limitNanos / 1_000_000.0);
+        }
+        if (target.strikes.incrementAndGet() >= maxStrikes) {
+            detach(target, reason);
+        }
+    }
+
+    private void detach(Registered target, String reason) {
+        synchronized (lock) {
+            if (target.detached) {
+                return;
+            }
+            target.detached = true;
+            Registered[] current = index.all;
+            List<Registered> kept = new ArrayList<>(current.length);
+            for (Registered registered : current) {
+                if (registered != target) {
+                    kept.add(registered);
+                }
+            }
+            index = new Index(kept.toArray(NONE));
+        }
+        detachedCount.increment();
+        LoggerUtils.warn("Detached event listener " + target.name + " after " + target.strikes.get()
+            + " consecutive failures or slow calls; last " + reason);
+    }
+
+    /** Start the async delivery thread if it is not running. Caller holds lock. */
+    private void startDispatcher() {
+        if (dispatcherThread != null) {
+            return;
+        }
+        BlockingQueue<Delivery> deliveries = new ArrayBlockingQueue<>(queueSize);
+        Thread thread = new Thread(() -> drain(deliveries), "XreatOpt-Event-Dispatcher");
+        thread.setDaemon(true);
+        queue = deliveries;
+        dispatcherThread = thread;
+        thread.start();
+    }
+
+    private void drain(BlockingQueue<Delivery> deliveries) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Delivery delivery;
+            try {
+                delivery = deliveries.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!delivery.target.detached) {
+                deliver(delivery.target, delivery.event, asyncLimitNanos);
+            }
+        }
+    }
+
+    /** Stop the async delivery thread. Queued deliveries are discarded. */
+    void shutdown() {
+        synchronized (lock) {
+            if (dispatcherThread != null) {
+                dispatcherThread.interrupt();
+                dispatcherThread = null;
+            }
+            queue = null;
+        }
+    }
+
+    List<OptimizationEventListener> getListeners() {
+        Registered[] current = index.all;
+        List<OptimizationEventListener> result = new ArrayList<>(current.length);
+        for (Registered registered : current) {
+            result.add(registered.listener);
+        }
+        return result;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("events_fired", fired.sum());
+        stats.put("async_dropped", dropped.sum());
+        BlockingQueue<Delivery> deliveries = queue;
+        stats.put("async_queued", deliveries != null ? deliveries.size() : 0);
+        stats.put("listeners_detached", detachedCount.sum());
+
+        Map<String, Object> listeners = new LinkedHashMap<>();
+        for (Registered registered : index.all) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("event", registered.type.getSimpleName());
+            entry.put("async", registered.async);
+            entry.put("priority", registered.priority);
+            entry.put("failures", registered.failures.sum());
+            entry.put("slow_calls", registered.slowCalls.sum());
+            if (registered.probe != null) {
+                entry.put("calls", registered.probe.getCount());
+                entry.put("p99_ms", String.format("%.3f", registered.probe.getPercentileMs(99)));
+                entry.put("max_ms", String.format("%.3f", registered.probe.getMaxMs()));
+            }
+            listeners.put(registered.name, entry);
+        }
+        stats.put("listeners", listeners);
+        return stats;
+    }
+
+    private static String listenerName(OptimizationEventListener listener) {
+        if (listener instanceof XreatOptimizerAPI.TypedListener) {
+            return listener.getEventType().getSimpleName() + "Handler";
+        }
+        String simple = listener.getClass().getSimpleName();
+        // Lambdas and anonymous classes
+        return simple.isEmpty() || simple.contains("$$Lambda") ? listener.getClass().getName() : simple;
+    }
+
+    /** {@code base}, or {@code base#2}, {@code base#3}... when another listener already uses it. */
+    private static String uniqueName(Registered[] registered, String base) {
+        String name = base;
+        for (int suffix = 2; ; suffix++) {
+            boolean taken = false;
+            for (Registered other : registered) {
+                if (other.name.equals(name)) {
+                    taken = true;
+                    break;
+                }
+            }
+            if (!taken) {
+                return name;
+            }
+            name = base + "#" + suffix;
+        }
+    }
+}
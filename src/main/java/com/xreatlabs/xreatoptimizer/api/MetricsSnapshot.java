@@ -0,0 +1,66 @@
+package com.xreatlabs.xreatoptimizer.api;
+
+/**
+ * Server metrics from one PerformanceMonitor sample.
+ *
+ * Immutable and published through a single volatile reference, so it can be read from any thread
+ * and every field belongs to the same sample. Obtain it with {@link XreatOptimizerAPI#getMetricsSnapshot()}.
+ */
+public final class MetricsSnapshot {
+
+    /** Placeholder until the first sample is taken. */
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(0L, 20.0, 50.0, 0.0, 0.0, 0.0,
+        0L, 0L, 0.0, 0, 0, 0);
+
+    private final long timestamp;
+    private final double tps;
+    private final double avgTickTimeMs;
+    private final double msptP50;
+    private final double msptP95;
+    private final double msptP99;
+    private final long usedMemoryMb;
+    private final long maxMemoryMb;
+    private final double memoryPercent;
+    private final int entityCount;
+    private final int chunkCount;
+    private final int playerCount;
+
+    public MetricsSnapshot(long timestamp, double tps, double avgTickTimeMs,
+                           double msptP50, double msptP95, double msptP99,
+                           long usedMemoryMb, long maxMemoryMb, double memoryPercent,
+                           int entityCount, int chunkCount, int playerCount) {
+        this.timestamp = timestamp;
+        this.tps = tps;
+        this.avgTickTimeMs = avgTickTimeMs;
+        this.msptP50 = msptP50;
+        this.msptP95 = msptP95;
+        this.msptP99 = msptP99;
+        this.usedMemoryMb = usedMemoryMb;
+        this.maxMemoryMb = maxMemoryMb;
+        this.memoryPercent = memoryPercent;
+        this.entityCount = entityCount;
+        this.chunkCount = chunkCount;
+        this.playerCount = playerCount;
+    }
+
+    /** Copy with a new player count, for join and quit events between samples. */
+    public MetricsSnapshot withPlayerCount(int playerCount) {
+        return new MetricsSnapshot(timestamp, tps, avgTickTimeMs, msptP50, msptP95, msptP99,
+            usedMemoryMb, maxMemoryMb, memoryPercent, entityCount, chunkCount, playerCount);
+    }
+
+    /** Epoch milliseconds of the sample, 0 for {@link #EMPTY}. */
+    public long getTimestamp() { return timestamp; }
+    public double getTps() { return tps; }
+    public double getAvgTickTimeMs() { return avgTickTimeMs; }
+    /** Tick duration percentiles over the last minute, 0 when the tick clock is not running. */
+    public double getMsptP50() { return msptP50; }
+    public double getMsptP95() { return msptP95; }
+    public double getMsptP99() { return msptP99; }
+    public long getUsedMemoryMb() { return usedMemoryMb; }
+    public long getMaxMemoryMb() { return maxMemoryMb; }
+    public double getMemoryPercent() { return memoryPercent; }
+    public int getEntityCount() { return entityCount; }
+    public int getChunkCount() { return chunkCount; }
+    public int getPlayerCount() { return playerCount; }
+}
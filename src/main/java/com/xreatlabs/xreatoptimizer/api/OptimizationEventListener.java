@@ -9,7 +9,13 @@ public interface OptimizationEventListener {
         return 0;
     }
 
+    /** Delivered on a dispatcher thread after the sync listeners, so it cannot cancel the event. */
     default boolean isAsync() {
         return false;
     }
+
+    /** Only events of this class or a subclass are delivered. */
+    default Class<? extends OptimizationEvent> getEventType() {
+        return OptimizationEvent.class;
+    }
 }
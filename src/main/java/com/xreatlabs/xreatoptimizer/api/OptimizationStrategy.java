@@ -68,6 +68,10 @@ public interface OptimizationStrategy {
             return new OptimizationResult(true, message, executionTimeMs);
         }
 
+        public static OptimizationResult failure(String message, long executionTimeMs) {
+            return new OptimizationResult(false, message, executionTimeMs);
+        }
+
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
         public long getExecutionTimeMs() { return executionTimeMs; }
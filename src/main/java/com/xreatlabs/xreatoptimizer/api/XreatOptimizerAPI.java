@@ -5,6 +5,8 @@ import org.bukkit.plugin.Plugin;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /** Public API */
 public class XreatOptimizerAPI {
@@ -12,10 +14,16 @@ public class XreatOptimizerAPI {
     private static XreatOptimizer plugin;
     private static final Map<Plugin, List<OptimizationStrategy>> strategies = new ConcurrentHashMap<>();
     private static final Map<Plugin, List<MetricsCollector>> collectors = new ConcurrentHashMap<>();
-    private static final Map<Plugin, List<OptimizationEventListener>> listeners = new ConcurrentHashMap<>();
+    private static final EventDispatcher events = new EventDispatcher();
 
     public static void initialize(XreatOptimizer plugin) {
         XreatOptimizerAPI.plugin = plugin;
+        events.configure(plugin);
+    }
+
+    /** Stop async event delivery. Called when the plugin disables. */
+    public static void shutdown() {
+        events.shutdown();
     }
 
     public static XreatOptimizer getPlugin() {
@@ -27,7 +35,7 @@ public class XreatOptimizerAPI {
             return false;
         }
 
-        strategies.computeIfAbsent(owner, k -> new ArrayList<>()).add(strategy);
+        strategies.computeIfAbsent(owner, k -> new CopyOnWriteArrayList<>()).add(strategy);
         plugin.getLogger().info("Registered optimization strategy: " + strategy.getName() +
             " from " + owner.getName());
         return true;
@@ -52,15 +60,24 @@ public class XreatOptimizerAPI {
             return false;
         }
 
-        collectors.computeIfAbsent(owner, k -> new ArrayList<>()).add(collector);
+        collectors.computeIfAbsent(owner, k -> new CopyOnWriteArrayList<>()).add(collector);
+        collector.onRegister();
         plugin.getLogger().info("Registered metrics collector: " + collector.getName() +
-            " from " + owner.getName());
+            " from " + owner.getName() + " (polled every " + Math.max(1, collector.getCollectionIntervalSeconds()) + "s"
+            + (collector.isAsync() ? "" : " on the main thread") + ")");
         return true;
     }
 
     public static void unregisterMetricsCollectors(Plugin owner) {
         List<MetricsCollector> removed = collectors.remove(owner);
         if (removed != null) {
+            for (MetricsCollector collector : removed) {
+                try {
+                    collector.onUnregister();
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Error unregistering metrics collector " + collector.getName() + ": " + e.getMessage());
+                }
+            }
             plugin.getLogger().info("Unregistered " + removed.size() +
                 " metrics collectors from " + owner.getName());
         }
@@ -77,33 +94,50 @@ public class XreatOptimizerAPI {
             return false;
         }
 
-        listeners.computeIfAbsent(owner, k -> new ArrayList<>()).add(listener);
-        plugin.getLogger().info("Registered event listener from " + owner.getName());
+        events.register(owner, listener);
+        plugin.getLogger().info("Registered event listener from " + owner.getName() +
+            (listener.isAsync() ? " (async)" : ""));
         return true;
     }
 
+    /** Register a handler for one event type. Returns the listener, or null if an argument is null. */
+    public static <T extends OptimizationEvent> OptimizationEventListener registerEventListener(
+            Plugin owner, Class<T> type, boolean async, Consumer<? super T> handler) {
+        if (type == null || handler == null) {
+            return null;
+        }
+        OptimizationEventListener listener = new TypedListener<>(type, async, handler);
+        return registerEventListener(owner, listener) ? listener : null;
+    }
+
     public static void unregisterEventListeners(Plugin owner) {
-        List<OptimizationEventListener> removed = listeners.remove(owner);
-        if (removed != null) {
-            plugin.getLogger().info("Unregistered " + removed.size() +
+        int removed = events.unregister(owner);
+        if (removed > 0) {
+            plugin.getLogger().info("Unregistered " + removed +
                 " event listeners from " + owner.getName());
         }
     }
 
     public static List<OptimizationEventListener> getEventListeners() {
-        List<OptimizationEventListener> allListeners = new ArrayList<>();
-        listeners.values().forEach(allListeners::addAll);
-        return allListeners;
+        return events.getListeners();
     }
 
+    /** Deliver to sync listeners now and queue it for async ones. Listeners that keep failing are detached. */
     public static void fireEvent(OptimizationEvent event) {
-        for (OptimizationEventListener listener : getEventListeners()) {
-            try {
-                listener.onEvent(event);
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error firing event to listener: " + e.getMessage());
-            }
+        events.fire(event);
+    }
+
+    /** Delivery counters and per-listener timings. */
+    public static Map<String, Object> getEventStats() {
+        return events.getStats();
+    }
+
+    /** Latest server metrics sample; safe to call from any thread. */
+    public static MetricsSnapshot getMetricsSnapshot() {
+        if (plugin == null || plugin.getPerformanceMonitor() == null) {
+            return MetricsSnapshot.EMPTY;
         }
+        return plugin.getPerformanceMonitor().getSnapshot();
     }
 
     public static void unregisterAll(Plugin owner) {
@@ -112,6 +146,34 @@ public class XreatOptimizerAPI {
         unregisterEventListeners(owner);
     }
 
+    /** Listener built by the typed registerEventListener overload. */
+    static final class TypedListener<T extends OptimizationEvent> implements OptimizationEventListener {
+        private final Class<T> type;
+        private final boolean async;
+        private final Consumer<? super T> handler;
+
+        TypedListener(Class<T> type, boolean async, Consumer<? super T> handler) {
+            this.type = type;
+            this.async = async;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onEvent(OptimizationEvent event) {
+            handler.accept(type.cast(event));
+        }
+
+        @Override
+        public boolean isAsync() {
+            return async;
+        }
+
+        @Override
+        public Class<? extends OptimizationEvent> getEventType() {
+            return type;
+        }
+    }
+
     public static String getAPIVersion() {
         return "1.2.0";
     }
@@ -3,40 +3,53 @@ package com.xreatlabs.xreatoptimizer.async;
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
-/** Async execution utility */
+/** Async execution utility, backed by the thread pool manager's async lane */
 public class AsyncExecutor {
-    private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
-        Thread t = new Thread(r, "XreatOpt-AsyncExecutor");
-        t.setDaemon(true);
-        return t;
-    });
+
+    private static Executor executor() {
+        XreatOptimizer plugin = XreatOptimizer.getInstance();
+        if (plugin == null || plugin.getThreadPoolManager() == null) {
+            return ForkJoinPool.commonPool();
+        }
+        return plugin.getThreadPoolManager().getAsyncPool();
+    }
     
+    /** Run a task on the async lane. Completes exceptionally if the lane is full or shut down. */
     public static CompletableFuture<Void> executeAsync(Runnable task) {
-        return CompletableFuture.runAsync(task, executor);
+        try {
+            return CompletableFuture.runAsync(task, executor());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
     
     public static <T> CompletableFuture<T> executeAsyncWithResult(java.util.concurrent.Callable<T> task) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return task.call();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }, executor);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, executor());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
     
     public static CompletableFuture<Void> executeAsyncWithErrorHandler(Runnable task, java.util.function.Consumer<Throwable> errorHandler) {
-        return CompletableFuture.runAsync(task, executor)
+        return executeAsync(task)
             .exceptionally(throwable -> {
                 errorHandler.accept(throwable);
                 return null;
             });
     }
     
+    /** Pools are owned and shut down by ThreadPoolManager; kept for API compatibility. */
     public static void shutdown() {
-        executor.shutdown();
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.xreatlabs.xreatoptimizer.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Executors for blocking IO: virtual-thread-per-task on Java 21+, fixed platform pools before that */
+public final class IoExecutors {
+
+    private IoExecutors() {
+    }
+
+    public static ExecutorService newIoExecutor(String namePrefix, int platformThreads) {
+        ExecutorService virtual = VirtualThreads.newThreadPerTaskExecutor(namePrefix);
+        if (virtual != null) {
+            return virtual;
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), r -> {
+            Thread t = new Thread(r, namePrefix + "-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
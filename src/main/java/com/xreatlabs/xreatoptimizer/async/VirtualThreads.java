@@ -0,0 +1,26 @@
+package com.xreatlabs.xreatoptimizer.async;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual thread support for blocking IO work.
+ *
+ * This is the Java 11-20 build, which reports virtual threads as unavailable. The jar is
+ * multi-release: on Java 21+ the JVM loads the copy under META-INF/versions/21 instead (source in
+ * src/main/java21), which returns virtual-thread-per-task executors. Both copies must keep the
+ * same public API.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    /** Executor that starts one virtual thread per task, or null when virtual threads are unavailable. */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        return null;
+    }
+}
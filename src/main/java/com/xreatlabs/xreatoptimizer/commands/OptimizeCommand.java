@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.commands;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
 import com.xreatlabs.xreatoptimizer.managers.OptimizationManager;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.MessageUtils;
@@ -92,8 +93,9 @@ public class OptimizeCommand implements CommandExecutor {
         long usedMemory = MemoryUtils.getUsedMemoryMB();
         long maxMemory = MemoryUtils.getMaxMemoryMB();
         double memoryPercent = MemoryUtils.getMemoryUsagePercentage();
-        int entityCount = plugin.getPerformanceMonitor().getCurrentEntityCount();
-        int chunkCount = plugin.getPerformanceMonitor().getCurrentChunkCount();
+        MetricsSnapshot snapshot = plugin.getPerformanceMonitor().getSnapshot();
+        int entityCount = snapshot.getEntityCount();
+        int chunkCount = snapshot.getChunkCount();
         int playerCount = Bukkit.getOnlinePlayers().size();
 
         MessageUtils.sendHeader(sender, "Server Statistics");
@@ -119,6 +121,7 @@ public class OptimizeCommand implements CommandExecutor {
         MessageUtils.sendStat(sender, "Predictive Loading", plugin.getConfig().getBoolean("predictive_loading.enabled", false) ? ChatColor.YELLOW + "Enabled" : ChatColor.GREEN + "Disabled");
         MessageUtils.sendStat(sender, "AI Throttling", plugin.getConfig().getBoolean("advanced_entity_optimizer.ai_throttling", false) ? ChatColor.YELLOW + "Enabled" : ChatColor.GREEN + "Disabled");
         MessageUtils.sendStat(sender, "Low-Power Mode", plugin.getEmptyServerOptimizer().isInEmptyMode() ? ChatColor.YELLOW + "Active" : ChatColor.GREEN + "Standby");
+        MessageUtils.sendStat(sender, "Subsystem Peak Load", String.format("%.2fms/tick", plugin.getSubsystemScheduler().getProjectedPeakLoadMs()));
         MessageUtils.sendFooter(sender);
         return true;
     }
@@ -130,15 +133,21 @@ public class OptimizeCommand implements CommandExecutor {
         }
 
         MessageUtils.sendInfo(sender, "Running a safe manual optimization pass...");
-        int cleared = plugin.getAutoClearTask().immediateClear();
         plugin.getMemorySaver().clearCache();
         if (plugin.getOptimizationManager() != null) {
             plugin.getOptimizationManager().forceOptimizationCycle();
         }
 
-        MessageUtils.sendSuccess(sender, "Optimization pass finished.");
-        MessageUtils.sendStat(sender, "Arrows Cleared", String.valueOf(cleared));
-        MessageUtils.sendStat(sender, "Cache State", "Chunk cache refreshed");
+        // The arrow clear is spread over ticks and completes on the main thread
+        plugin.getAutoClearTask().asyncClear().whenComplete((cleared, error) -> {
+            if (error != null) {
+                MessageUtils.sendError(sender, "Arrow clear failed: " + error.getMessage());
+                return;
+            }
+            MessageUtils.sendSuccess(sender, "Optimization pass finished.");
+            MessageUtils.sendStat(sender, "Arrows Cleared", String.valueOf(cleared));
+            MessageUtils.sendStat(sender, "Cache State", "Chunk cache refreshed");
+        });
         return true;
     }
 
@@ -216,11 +225,16 @@ public class OptimizeCommand implements CommandExecutor {
 
         MessageUtils.sendInfo(sender, "Refreshing runtime caches and cleanup systems...");
         plugin.getMemorySaver().clearCache();
-        int cleared = plugin.getAutoClearTask().immediateClear();
 
-        MessageUtils.sendSuccess(sender, "Purge pass complete.");
-        MessageUtils.sendStat(sender, "Arrows Cleared", String.valueOf(cleared));
-        MessageUtils.sendStat(sender, "Chunk Cache", "Cleared");
+        plugin.getAutoClearTask().asyncClear().whenComplete((cleared, error) -> {
+            if (error != null) {
+                MessageUtils.sendError(sender, "Arrow clear failed: " + error.getMessage());
+                return;
+            }
+            MessageUtils.sendSuccess(sender, "Purge pass complete.");
+            MessageUtils.sendStat(sender, "Arrows Cleared", String.valueOf(cleared));
+            MessageUtils.sendStat(sender, "Chunk Cache", "Cleared");
+        });
         return true;
     }
 
@@ -256,8 +270,9 @@ public class OptimizeCommand implements CommandExecutor {
 
         double tps = TPSUtils.getTPS();
         double memoryPercent = MemoryUtils.getMemoryUsagePercentage();
-        int entityCount = plugin.getPerformanceMonitor().getCurrentEntityCount();
-        int chunkCount = plugin.getPerformanceMonitor().getCurrentChunkCount();
+        MetricsSnapshot snapshot = plugin.getPerformanceMonitor().getSnapshot();
+        int entityCount = snapshot.getEntityCount();
+        int chunkCount = snapshot.getChunkCount();
 
         MessageUtils.sendHeader(sender, "Performance Snapshot");
         MessageUtils.sendStatWithStatus(sender, "TPS", String.format("%.2f", tps), MessageUtils.getTpsStatus(tps));
@@ -1,7 +1,7 @@
 package com.xreatlabs.xreatoptimizer.commands;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
-import com.xreatlabs.xreatoptimizer.managers.PerformanceMonitor;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -56,16 +56,16 @@ public class ReportCommand implements CommandExecutor {
                 writer.write(report);
             } else {
                 // Fallback to current metrics
-                PerformanceMonitor monitor = plugin.getPerformanceMonitor();
+                MetricsSnapshot snapshot = plugin.getPerformanceMonitor().getSnapshot();
                 writer.write("XreatOptimizer Manual Performance Report\n");
                 writer.write("Generated at: " + java.time.LocalDateTime.now() + "\n");
                 writer.write("========================================\n\n");
                 writer.write("Current Metrics:\n");
-                writer.write("- TPS: " + String.format("%.2f", monitor.getCurrentTPS()) + "\n");
-                writer.write("- Memory Usage: " + String.format("%.1f", monitor.getCurrentMemoryPercentage()) + "%\n");
-                writer.write("- Entities: " + monitor.getCurrentEntityCount() + "\n");
-                writer.write("- Chunks: " + monitor.getCurrentChunkCount() + "\n");
-                writer.write("- Players: " + monitor.getCurrentPlayerCount() + "\n");
+                writer.write("- TPS: " + String.format("%.2f", snapshot.getTps()) + "\n");
+                writer.write("- Memory Usage: " + String.format("%.1f", snapshot.getMemoryPercent()) + "%\n");
+                writer.write("- Entities: " + snapshot.getEntityCount() + "\n");
+                writer.write("- Chunks: " + snapshot.getChunkCount() + "\n");
+                writer.write("- Players: " + snapshot.getPlayerCount() + "\n");
             }
             
             writer.close();
@@ -76,6 +76,10 @@ public class ConfigReloader {
             plugin.getPredictiveChunkLoader().start();
         }
 
+        if (plugin.getWebDashboard() != null) {
+            plugin.getWebDashboard().onConfigReloaded();
+        }
+
         plugin.getLogger().info(ChatColor.GREEN + "Configuration reloaded successfully.");
         plugin.getLogger().info("Feature summary: item_removal=" + plugin.getConfig().getBoolean("item_removal.enabled", false)
             + ", predictive_loading=" + plugin.getConfig().getBoolean("predictive_loading.enabled", false)
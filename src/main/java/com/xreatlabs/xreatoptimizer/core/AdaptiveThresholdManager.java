@@ -4,14 +4,13 @@ import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class AdaptiveThresholdManager {
     private final XreatOptimizer plugin;
-    private BukkitTask tuningTask;
+    private SubsystemScheduler.Registration tuningTask;
     private volatile boolean isRunning = false;
     
     private double adjustedTPSLightThreshold;
@@ -39,12 +38,7 @@ public class AdaptiveThresholdManager {
     
     public void start() {
         if (plugin.getConfig().getBoolean("auto_tune", true)) {
-            tuningTask = plugin.getServer().getScheduler().runTaskTimer(
-                plugin,
-                this::runAdjustmentCycle,
-                18000L,
-                18000L
-            );
+            tuningTask = plugin.getSubsystemScheduler().schedule("adaptive_thresholds", 18000L, 0.5, this::runAdjustmentCycle);
             
             isRunning = true;
             LoggerUtils.info("Adaptive threshold manager started.");
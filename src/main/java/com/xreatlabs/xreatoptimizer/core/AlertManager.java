@@ -3,22 +3,23 @@ package com.xreatlabs.xreatoptimizer.core;
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 import com.xreatlabs.xreatoptimizer.api.OptimizationEvent;
 import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
+import com.xreatlabs.xreatoptimizer.timeseries.DoubleRingBuffer;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class AlertManager {
 
     private final XreatOptimizer plugin;
-    private BukkitTask detectionTask;
+    private SubsystemScheduler.Registration detectionTask;
     private volatile boolean isRunning = false;
 
-    private final Deque<MetricSnapshot> history = new ConcurrentLinkedDeque<>();
+    // Detection windows over the shared per-second series
     private static final int MAX_HISTORY = 300;
+    private static final int OSCILLATION_WINDOW = 120;
+    private final double[] oscillationScratch = new double[OSCILLATION_WINDOW];
 
     private static final double Z_SCORE_THRESHOLD = 2.5;
 
@@ -30,24 +31,6 @@ public class AlertManager {
     private final Map<AlertType, Long> lastReportedTime = new ConcurrentHashMap<>();
     private static final long REPORT_COOLDOWN_MS = 30000;
 
-    private static class MetricSnapshot {
-        final long timestamp;
-        final double tps;
-        final double memory;
-        final int entities;
-        final int chunks;
-        final int players;
-
-        MetricSnapshot(long timestamp, double tps, double memory, int entities, int chunks, int players) {
-            this.timestamp = timestamp;
-            this.tps = tps;
-            this.memory = memory;
-            this.entities = entities;
-            this.chunks = chunks;
-            this.players = players;
-        }
-    }
-
     public static class Alert {
         public final AlertType type;
         public final String description;
@@ -94,12 +77,7 @@ public class AlertManager {
 
         isRunning = true;
 
-        detectionTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runDetectionCycle,
-            20L,
-            20L
-        );
+        detectionTask = plugin.getSubsystemScheduler().schedule("alert_detection", 20L, 0.3, this::runDetectionCycle);
 
         LoggerUtils.info("Alert manager started");
     }
@@ -116,25 +94,11 @@ public class AlertManager {
         if (!isRunning) return;
 
         try {
-            long now = System.currentTimeMillis();
-            double tps = plugin.getPerformanceMonitor().getCurrentTPS();
-            double memory = plugin.getPerformanceMonitor().getCurrentMemoryPercentage();
-            int entities = plugin.getPerformanceMonitor().getCurrentEntityCount();
-            int chunks = plugin.getPerformanceMonitor().getCurrentChunkCount();
-            int players = plugin.getPerformanceMonitor().getCurrentPlayerCount();
-
-            MetricSnapshot snapshot = new MetricSnapshot(now, tps, memory, entities, chunks, players);
-            history.addLast(snapshot);
-
-            while (history.size() > MAX_HISTORY) {
-                history.removeFirst();
-            }
-
-            if (history.size() < 60) {
+            if (series(TimeSeriesStore.TPS).size() < 60) {
                 return;
             }
 
-            List<Alert> alerts = detectAlerts(snapshot);
+            List<Alert> alerts = detectAlerts();
 
             for (Alert alert : alerts) {
                 reportAlert(alert);
@@ -145,31 +109,35 @@ public class AlertManager {
         }
     }
 
-    private List<Alert> detectAlerts(MetricSnapshot current) {
+    private DoubleRingBuffer series(String name) {
+        return plugin.getTimeSeriesStore().get(name);
+    }
+
+    private List<Alert> detectAlerts() {
         List<Alert> alerts = new ArrayList<>();
 
-        Alert memoryLeak = detectMemoryLeak(current);
+        Alert memoryLeak = detectMemoryLeak();
         if (memoryLeak != null) alerts.add(memoryLeak);
 
-        Alert tpsDrop = detectSuddenTPSDrop(current);
+        Alert tpsDrop = detectSuddenTPSDrop();
         if (tpsDrop != null) alerts.add(tpsDrop);
 
-        Alert entityExplosion = detectEntityExplosion(current);
+        Alert entityExplosion = detectEntityExplosion();
         if (entityExplosion != null) alerts.add(entityExplosion);
 
-        Alert chunkThrashing = detectChunkThrashing(current);
+        Alert chunkThrashing = detectChunkThrashing();
         if (chunkThrashing != null) alerts.add(chunkThrashing);
 
-        Alert memorySpike = detectMemorySpike(current);
+        Alert memorySpike = detectMemorySpike();
         if (memorySpike != null) alerts.add(memorySpike);
 
-        Alert tpsOscillation = detectTPSOscillation(current);
+        Alert tpsOscillation = detectTPSOscillation();
         if (tpsOscillation != null) alerts.add(tpsOscillation);
 
         return alerts;
     }
 
-    private Alert detectMemoryLeak(MetricSnapshot current) {
+    private Alert detectMemoryLeak() {
         long now = System.currentTimeMillis();
 
         if (now - lastMemoryCheck < 30000) {
@@ -177,12 +145,13 @@ public class AlertManager {
         }
         lastMemoryCheck = now;
 
-        if (current.memory > lastMemoryValue + 0.5) {
+        double memory = series(TimeSeriesStore.MEMORY_PERCENT).latest(0.0);
+        if (memory > lastMemoryValue + 0.5) {
             consecutiveMemoryIncreases++;
         } else {
             consecutiveMemoryIncreases = 0;
         }
-        lastMemoryValue = current.memory;
+        lastMemoryValue = memory;
 
         if (consecutiveMemoryIncreases >= 10) {
             double severity = Math.min(1.0, consecutiveMemoryIncreases / 20.0);
@@ -199,24 +168,19 @@ public class AlertManager {
         return null;
     }
 
-    private Alert detectSuddenTPSDrop(MetricSnapshot current) {
-        if (history.size() < 30) return null;
-
-        Iterator<MetricSnapshot> iter = history.descendingIterator();
-        for (int i = 0; i < 30 && iter.hasNext(); i++) {
-            iter.next();
-        }
+    private Alert detectSuddenTPSDrop() {
+        DoubleRingBuffer tps = series(TimeSeriesStore.TPS);
+        double pastTps = tps.valueAgo(30, Double.NaN);
+        if (Double.isNaN(pastTps)) return null;
 
-        if (!iter.hasNext()) return null;
-        MetricSnapshot past = iter.next();
-
-        double tpsDrop = past.tps - current.tps;
+        double currentTps = tps.latest(20.0);
+        double tpsDrop = pastTps - currentTps;
         if (tpsDrop > 5.0) {
             double severity = Math.min(1.0, tpsDrop / 10.0);
 
             return new Alert(
                 AlertType.SUDDEN_TPS_DROP,
-                String.format("Sudden TPS drop: %.2f -> %.2f", past.tps, current.tps),
+                String.format("Sudden TPS drop: %.2f -> %.2f", pastTps, currentTps),
                 severity,
                 "TPS dropped by " + String.format("%.2f", tpsDrop) + " in 30 seconds",
                 "Check for plugin conflicts or chunk generation issues"
@@ -226,7 +190,7 @@ public class AlertManager {
         return null;
     }
 
-    private Alert detectEntityExplosion(MetricSnapshot current) {
+    private Alert detectEntityExplosion() {
         long now = System.currentTimeMillis();
 
         if (now - lastEntityCheck < 10000) {
@@ -234,12 +198,11 @@ public class AlertManager {
         }
         lastEntityCheck = now;
 
-        if (history.size() < 60) return null;
-
-        MetricSnapshot past = history.peekFirst();
-        if (past == null) return null;
+        DoubleRingBuffer entities = series(TimeSeriesStore.ENTITIES);
+        int samples = Math.min(entities.size(), MAX_HISTORY);
+        if (samples < 60) return null;
 
-        int entityIncrease = current.entities - past.entities;
+        int entityIncrease = (int) (entities.latest(0.0) - entities.valueAgo(samples - 1, 0.0));
         if (entityIncrease > 500) {
             double severity = Math.min(1.0, entityIncrease / 1000.0);
 
@@ -255,15 +218,11 @@ public class AlertManager {
         return null;
     }
 
-    private Alert detectChunkThrashing(MetricSnapshot current) {
-        if (history.size() < 60) return null;
+    private Alert detectChunkThrashing() {
+        DoubleRingBuffer chunks = series(TimeSeriesStore.CHUNKS);
+        if (chunks.size() < 60) return null;
 
-        List<Integer> chunkCounts = new ArrayList<>();
-        for (MetricSnapshot snapshot : history) {
-            chunkCounts.add(snapshot.chunks);
-        }
-
-        double variance = calculateVariance(chunkCounts);
+        double variance = chunks.variance(MAX_HISTORY);
         double stdDev = Math.sqrt(variance);
 
         if (stdDev > 100) {
@@ -281,25 +240,22 @@ public class AlertManager {
         return null;
     }
 
-    private Alert detectMemorySpike(MetricSnapshot current) {
-        if (history.size() < 60) return null;
-
-        List<Double> memoryValues = new ArrayList<>();
-        for (MetricSnapshot snapshot : history) {
-            memoryValues.add(snapshot.memory);
-        }
+    private Alert detectMemorySpike() {
+        DoubleRingBuffer memory = series(TimeSeriesStore.MEMORY_PERCENT);
+        if (memory.size() < 60) return null;
 
-        double mean = calculateMean(memoryValues);
-        double stdDev = Math.sqrt(calculateVariance(memoryValues));
+        double mean = memory.average(MAX_HISTORY);
+        double stdDev = memory.stdDev(MAX_HISTORY);
 
-        double zScore = (current.memory - mean) / stdDev;
+        double currentMemory = memory.latest(0.0);
+        double zScore = (currentMemory - mean) / stdDev;
 
         if (zScore > Z_SCORE_THRESHOLD) {
             double severity = Math.min(1.0, (zScore - Z_SCORE_THRESHOLD) / 2.0);
 
             return new Alert(
                 AlertType.MEMORY_SPIKE,
-                String.format("Memory spike: %.1f%% (Z-score: %.2f)", current.memory, zScore),
+                String.format("Memory spike: %.1f%% (Z-score: %.2f)", currentMemory, zScore),
                 severity,
                 "Memory is " + String.format("%.1f", zScore) + " std deviations above normal",
                 "Run garbage collection"
@@ -309,19 +265,17 @@ public class AlertManager {
         return null;
     }
 
-    private Alert detectTPSOscillation(MetricSnapshot current) {
-        if (history.size() < 120) return null;
+    private Alert detectTPSOscillation() {
+        DoubleRingBuffer tps = series(TimeSeriesStore.TPS);
+        if (tps.size() < OSCILLATION_WINDOW) return null;
 
-        List<Double> recentTps = new ArrayList<>();
-        Iterator<MetricSnapshot> iter = history.descendingIterator();
-        for (int i = 0; i < 120 && iter.hasNext(); i++) {
-            recentTps.add(iter.next().tps);
-        }
+        // Scratch is oldest-first; walk it newest-first
+        int samples = tps.copyLast(OSCILLATION_WINDOW, null, oscillationScratch);
 
         int oscillations = 0;
         boolean wasIncreasing = false;
-        for (int i = 1; i < recentTps.size(); i++) {
-            boolean isIncreasing = recentTps.get(i) > recentTps.get(i - 1);
+        for (int i = 1; i < samples; i++) {
+            boolean isIncreasing = oscillationScratch[samples - 1 - i] > oscillationScratch[samples - i];
             if (i > 1 && isIncreasing != wasIncreasing) {
                 oscillations++;
             }
@@ -380,26 +334,6 @@ public class AlertManager {
         }
     }
 
-    private double calculateMean(List<? extends Number> values) {
-        if (values.isEmpty()) return 0.0;
-        double sum = 0.0;
-        for (Number value : values) {
-            sum += value.doubleValue();
-        }
-        return sum / values.size();
-    }
-
-    private double calculateVariance(List<? extends Number> values) {
-        if (values.isEmpty()) return 0.0;
-        double mean = calculateMean(values);
-        double sumSquaredDiff = 0.0;
-        for (Number value : values) {
-            double diff = value.doubleValue() - mean;
-            sumSquaredDiff += diff * diff;
-        }
-        return sumSquaredDiff / values.size();
-    }
-
     public boolean isRunning() {
         return isRunning;
     }
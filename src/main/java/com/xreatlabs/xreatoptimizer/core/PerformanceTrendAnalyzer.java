@@ -1,26 +1,27 @@
 package com.xreatlabs.xreatoptimizer.core;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
 import com.xreatlabs.xreatoptimizer.managers.OptimizationManager;
+import com.xreatlabs.xreatoptimizer.timeseries.DoubleRingBuffer;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class PerformanceTrendAnalyzer {
 
     private final XreatOptimizer plugin;
-    private BukkitTask analysisTask;
+    private SubsystemScheduler.Registration analysisTask;
     private volatile boolean isRunning = false;
 
-    private final Deque<DataPoint> tpsTimeSeries = new ConcurrentLinkedDeque<>();
-    private final Deque<DataPoint> memoryTimeSeries = new ConcurrentLinkedDeque<>();
-    private final Deque<DataPoint> playerTimeSeries = new ConcurrentLinkedDeque<>();
+    // Forecasts run over the last 10 minutes of the shared per-second series
+    private static final int FORECAST_WINDOW = 600;
+    private final double[] forecastScratch = new double[FORECAST_WINDOW];
 
     private final Map<DayOfWeek, Map<Integer, SeasonalData>> seasonalPatterns = new ConcurrentHashMap<>();
 
@@ -37,16 +38,6 @@ public class PerformanceTrendAnalyzer {
     private double lastTrend = 0.0;
     private long lastProfileSwitch = 0;
 
-    private static class DataPoint {
-        final long timestamp;
-        final double value;
-
-        DataPoint(long timestamp, double value) {
-            this.timestamp = timestamp;
-            this.value = value;
-        }
-    }
-
     private static class SeasonalData {
         double avgTps = 20.0;
         double avgMemory = 50.0;
@@ -100,12 +91,7 @@ public class PerformanceTrendAnalyzer {
 
         isRunning = true;
 
-        analysisTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runAnalysisCycle,
-            20L,
-            20L
-        );
+        analysisTask = plugin.getSubsystemScheduler().schedule("trend_analyzer", 20L, 0.3, this::runAnalysisCycle);
 
         LoggerUtils.info("Performance trend analyzer started");
     }
@@ -122,16 +108,13 @@ public class PerformanceTrendAnalyzer {
         if (!isRunning) return;
 
         try {
-            double currentTps = plugin.getPerformanceMonitor().getCurrentTPS();
-            double currentMemory = plugin.getPerformanceMonitor().getCurrentMemoryPercentage();
-            int currentPlayers = plugin.getPerformanceMonitor().getCurrentPlayerCount();
+            MetricsSnapshot snapshot = plugin.getPerformanceMonitor().getSnapshot();
+            double currentTps = snapshot.getTps();
+            double currentMemory = snapshot.getMemoryPercent();
+            int currentPlayers = snapshot.getPlayerCount();
 
             long now = System.currentTimeMillis();
 
-            addDataPoint(tpsTimeSeries, now, currentTps);
-            addDataPoint(memoryTimeSeries, now, currentMemory);
-            addDataPoint(playerTimeSeries, now, currentPlayers);
-
             updateSeasonalPatterns(currentTps, currentMemory, currentPlayers);
 
             TrendPrediction prediction = predictFuture(30);
@@ -155,13 +138,6 @@ public class PerformanceTrendAnalyzer {
         }
     }
 
-    private void addDataPoint(Deque<DataPoint> series, long timestamp, double value) {
-        series.addLast(new DataPoint(timestamp, value));
-        while (series.size() > 600) {
-            series.removeFirst();
-        }
-    }
-
     private void updateSeasonalPatterns(double tps, double memory, int players) {
         LocalDateTime now = LocalDateTime.now();
         DayOfWeek day = now.getDayOfWeek();
@@ -172,6 +148,8 @@ public class PerformanceTrendAnalyzer {
     }
 
     public TrendPrediction predictFuture(int secondsAhead) {
+        DoubleRingBuffer tpsTimeSeries = plugin.getTimeSeriesStore().get(TimeSeriesStore.TPS);
+        DoubleRingBuffer memoryTimeSeries = plugin.getTimeSeriesStore().get(TimeSeriesStore.MEMORY_PERCENT);
         if (tpsTimeSeries.size() < 60 || memoryTimeSeries.size() < 60) {
             return new TrendPrediction(20.0, 50.0, 0.0, false, "Insufficient data");
         }
@@ -190,15 +168,16 @@ public class PerformanceTrendAnalyzer {
         return new TrendPrediction(predictedTps, predictedMemory, confidence, lagSpikeExpected, recommendation);
     }
 
-    private double forecastWithTrend(Deque<DataPoint> series, int stepsAhead) {
-        if (series.isEmpty()) return 0.0;
+    /** Synchronized: placeholder lookups may forecast off the main thread and share the scratch buffer. */
+    private synchronized double forecastWithTrend(DoubleRingBuffer series, int stepsAhead) {
+        int samples = series.copyLast(FORECAST_WINDOW, null, forecastScratch);
+        if (samples == 0) return 0.0;
 
-        Iterator<DataPoint> iter = series.iterator();
-        double level = iter.next().value;
+        double level = forecastScratch[0];
         double trend = 0.0;
 
-        while (iter.hasNext()) {
-            double value = iter.next().value;
+        for (int i = 1; i < samples; i++) {
+            double value = forecastScratch[i];
             double prevLevel = level;
 
             level = ALPHA * value + (1 - ALPHA) * (level + trend);
@@ -211,22 +190,10 @@ public class PerformanceTrendAnalyzer {
         return level + stepsAhead * trend;
     }
 
-    private double calculateConfidence(Deque<DataPoint> series) {
+    private double calculateConfidence(DoubleRingBuffer series) {
         if (series.size() < 30) return 0.5;
 
-        List<Double> recent = new ArrayList<>();
-        Iterator<DataPoint> iter = series.descendingIterator();
-        for (int i = 0; i < 30 && iter.hasNext(); i++) {
-            recent.add(iter.next().value);
-        }
-
-        double mean = recent.stream().mapToDouble(d -> d).average().orElse(0.0);
-        double variance = recent.stream()
-            .mapToDouble(d -> Math.pow(d - mean, 2))
-            .average()
-            .orElse(0.0);
-
-        double stdDev = Math.sqrt(variance);
+        double stdDev = series.stdDev(30);
         return Math.max(0.0, Math.min(1.0, 1.0 - (stdDev / 5.0)));
     }
 
@@ -0,0 +1,291 @@
+package com.xreatlabs.xreatoptimizer.core;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single per-tick loop that runs every periodic main-thread subsystem.
+ *
+ * Each subsystem registers with a period and a cost estimate and is given a phase (tick offset
+ * within its period) that keeps the projected plugin time per tick as flat as possible, so
+ * subsystems with round periods no longer all fire on the same tick. Measured costs replace the
+ * estimates as they come in and phases are rebalanced periodically. Every run is also recorded as
+ * the {@code cycle} phase of its subsystem in the SubsystemProfiler.
+ */
+public class SubsystemScheduler {
+
+    // Load projection horizon; divisible by all the usual periods (20, 40, 100, 200, 600, 1200)
+    private static final int SLOT_COUNT = 1200;
+    private static final long REBALANCE_INTERVAL_TICKS = 6000L;
+    private static final double COST_EWMA_ALPHA = 0.2;
+
+    private final XreatOptimizer plugin;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final double[] projectedLoad = new double[SLOT_COUNT];
+    private BukkitTask loopTask;
+    private volatile boolean isRunning = false;
+    private long currentTick = 0L;
+    private long lastRebalanceTick = 0L;
+
+    /** Handle for one registered subsystem task. */
+    public final class Registration {
+        private final String name;
+        private final long period;
+        private final Runnable task;
+        private final SubsystemProfiler.Probe probe;
+        private volatile double estimatedCostMs;
+        private int phase;
+        private long nextRunTick;
+        private volatile boolean cancelled = false;
+
+        // Measured cost, main thread writes only
+        private volatile long runs = 0;
+        private volatile double averageMs = 0.0;
+        private volatile double maxMs = 0.0;
+        private volatile double totalMs = 0.0;
+
+        private Registration(String name, long period, double estimatedCostMs, Runnable task) {
+            this.name = name;
+            this.period = period;
+            this.estimatedCostMs = estimatedCostMs;
+            this.task = task;
+            SubsystemProfiler profiler = plugin.getSubsystemProfiler();
+            this.probe = profiler != null ? profiler.probe(name, "cycle") : null;
+        }
+
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            if (registrations.remove(this)) {
+                synchronized (projectedLoad) {
+                    applyLoad(this, phase, -estimatedCostMs);
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+
+        public int getPhase() {
+            return phase;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public double getAverageMs() {
+            return averageMs;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+
+        public double getTotalMs() {
+            return totalMs;
+        }
+    }
+
+    public SubsystemScheduler(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (isRunning) {
+            return;
+        }
+
+        loopTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        isRunning = true;
+        LoggerUtils.info("Subsystem scheduler started.");
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (loopTask != null) {
+            loopTask.cancel();
+            loopTask = null;
+        }
+        LoggerUtils.info("Subsystem scheduler stopped.");
+    }
+
+    /** Register a task that first runs after one period. */
+    public Registration schedule(String name, long periodTicks, double estimatedCostMs, Runnable task) {
+        return schedule(name, periodTicks, periodTicks, estimatedCostMs, task);
+    }
+
+    /**
+     * Register a task running every {@code periodTicks}. The first run happens no earlier than
+     * {@code initialDelayTicks}, on the tick matching the phase chosen for it.
+     */
+    public Registration schedule(String name, long periodTicks, long initialDelayTicks, double estimatedCostMs, Runnable task) {
+        Registration registration = new Registration(name, Math.max(1L, periodTicks), Math.max(0.0, estimatedCostMs), task);
+        synchronized (projectedLoad) {
+            registration.phase = choosePhase(registration);
+            applyLoad(registration, registration.phase, registration.estimatedCostMs);
+        }
+        registration.nextRunTick = alignToPhase(currentTick + Math.max(1L, initialDelayTicks), registration);
+        registrations.add(registration);
+        return registration;
+    }
+
+    private void tick() {
+        if (!isRunning) return;
+        currentTick++;
+
+        for (Registration registration : registrations) {
+            if (registration.cancelled || currentTick < registration.nextRunTick) {
+                continue;
+            }
+            registration.nextRunTick = currentTick + registration.period;
+            run(registration);
+        }
+
+        if (currentTick - lastRebalanceTick >= REBALANCE_INTERVAL_TICKS) {
+            lastRebalanceTick = currentTick;
+            rebalance();
+        }
+    }
+
+    private void run(Registration registration) {
+        long start = System.nanoTime();
+        try {
+            registration.task.run();
+        } catch (Exception e) {
+            LoggerUtils.error("Error running subsystem task " + registration.name, e);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (registration.probe != null) {
+            registration.probe.record(elapsedNanos);
+        }
+        double elapsedMs = elapsedNanos / 1_000_000.0;
+
+        registration.runs++;
+        registration.totalMs += elapsedMs;
+        registration.maxMs = Math.max(registration.maxMs, elapsedMs);
+        registration.averageMs = registration.runs == 1
+            ? elapsedMs
+            : registration.averageMs + COST_EWMA_ALPHA * (elapsedMs - registration.averageMs);
+    }
+
+    /** Re-place every subsystem using measured costs, most expensive per tick first. */
+    private void rebalance() {
+        List<Registration> ordered = new ArrayList<>(registrations);
+        ordered.sort(Comparator.comparingDouble((Registration r) -> costOf(r) / Math.min(r.period, SLOT_COUNT)).reversed());
+
+        synchronized (projectedLoad) {
+            Arrays.fill(projectedLoad, 0.0);
+            for (Registration registration : ordered) {
+                registration.estimatedCostMs = costOf(registration);
+                int phase = choosePhase(registration);
+                applyLoad(registration, phase, registration.estimatedCostMs);
+                if (phase != registration.phase) {
+                    registration.phase = phase;
+                    registration.nextRunTick = alignToPhase(registration.nextRunTick, registration);
+                }
+            }
+        }
+    }
+
+    private double costOf(Registration registration) {
+        return registration.runs > 0 ? registration.averageMs : registration.estimatedCostMs;
+    }
+
+    /** Phase whose slots have the lowest peak projected load; ties go to the lowest total. */
+    private int choosePhase(Registration registration) {
+        int candidates = (int) Math.min(registration.period, SLOT_COUNT);
+        int step = (int) Math.min(registration.period, SLOT_COUNT);
+        int bestPhase = 0;
+        double bestPeak = Double.MAX_VALUE;
+        double bestTotal = Double.MAX_VALUE;
+
+        for (int phase = 0; phase < candidates; phase++) {
+            double peak = 0.0;
+            double total = 0.0;
+            for (int slot = phase; slot < SLOT_COUNT; slot += step) {
+                peak = Math.max(peak, projectedLoad[slot]);
+                total += projectedLoad[slot];
+            }
+            if (peak < bestPeak || (peak == bestPeak && total < bestTotal)) {
+                bestPeak = peak;
+                bestTotal = total;
+                bestPhase = phase;
+            }
+        }
+        return bestPhase;
+    }
+
+    private void applyLoad(Registration registration, int phase, double costMs) {
+        int step = (int) Math.min(registration.period, SLOT_COUNT);
+        for (int slot = phase; slot < SLOT_COUNT; slot += step) {
+            projectedLoad[slot] += costMs;
+        }
+    }
+
+    /** First tick at or after {@code tick} that falls on the registration's phase. */
+    private long alignToPhase(long tick, Registration registration) {
+        long period = registration.period;
+        long offset = Math.floorMod(registration.phase - tick, period);
+        return tick + offset;
+    }
+
+    public List<Registration> getRegistrations() {
+        return new ArrayList<>(registrations);
+    }
+
+    /** Highest projected plugin time on any tick of the projection horizon, in ms. */
+    public double getProjectedPeakLoadMs() {
+        synchronized (projectedLoad) {
+            double peak = 0.0;
+            for (double load : projectedLoad) {
+                peak = Math.max(peak, load);
+            }
+            return peak;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subsystems", registrations.size());
+        stats.put("projected_peak_ms", String.format("%.2f", getProjectedPeakLoadMs()));
+
+        Map<String, Map<String, Object>> subsystemStats = new LinkedHashMap<>();
+        for (Registration registration : registrations) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("period_ticks", registration.period);
+            entry.put("phase", registration.phase);
+            entry.put("runs", registration.runs);
+            entry.put("avg_ms", String.format("%.3f", registration.averageMs));
+            entry.put("max_ms", String.format("%.3f", registration.maxMs));
+            entry.put("total_ms", String.format("%.1f", registration.totalMs));
+            subsystemStats.put(registration.name, entry);
+        }
+        stats.put("subsystem_costs", subsystemStats);
+        return stats;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+}
@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.hooks;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.profiling.TickClock;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
@@ -196,6 +197,12 @@ public class XreatPlaceholderExpansion extends me.clip.placeholderapi.expansion.
             return color + String.format("%.2fms", mspt);
         }
 
+        // Tick duration percentiles: mspt_p50, mspt_p95, mspt_p99 (1m window), or with a
+        // window suffix such as mspt_p99_5m
+        if (params.toLowerCase().startsWith("mspt_p")) {
+            return getTickPercentile(params.substring("mspt_p".length()).toLowerCase());
+        }
+
         // Lag score (0-100, higher = worse)
         if (params.equalsIgnoreCase("lag_score")) {
             double tps = TPSUtils.getTPS();
@@ -286,4 +293,25 @@ public class XreatPlaceholderExpansion extends me.clip.placeholderapi.expansion.
 
         return null;
     }
+
+    private String getTickPercentile(String spec) {
+        TickClock.Window window = TickClock.Window.MINUTE_1;
+        int split = spec.indexOf('_');
+        if (split >= 0) {
+            window = TickClock.Window.fromLabel(spec.substring(split + 1));
+            spec = spec.substring(0, split);
+        }
+        if (window == null) {
+            return null;
+        }
+
+        TickClock clock = plugin.getTickClock();
+        TickClock.TickStats stats = clock != null ? clock.getStats(window) : TickClock.EMPTY;
+        switch (spec) {
+            case "50": return String.format("%.2f", stats.p50);
+            case "95": return String.format("%.2f", stats.p95);
+            case "99": return String.format("%.2f", stats.p99);
+            default: return null;
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.xreatlabs.xreatoptimizer.listeners;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.managers.EntityCountTracker;
 import com.xreatlabs.xreatoptimizer.utils.ProtectedEntities;
+import org.bukkit.World;
 import org.bukkit.entity.EntityType;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -44,7 +46,7 @@ public class EntityEventListener implements Listener {
             return;
         }
 
-        int currentEntities = event.getLocation().getWorld().getEntities().size();
+        int currentEntities = getWorldEntityCount(event.getLocation().getWorld());
         String worldName = event.getLocation().getWorld().getName();
         int maxEntities = plugin.getWorldConfig() != null
             ? plugin.getWorldConfig().getMaxEntities(worldName)
@@ -55,8 +57,15 @@ public class EntityEventListener implements Listener {
         }
     }
 
-    @EventHandler(priority = EventPriority.NORMAL)
+    // Last chance to cancel: merging into a neighbour is only safe once no other plugin will cancel the spawn
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onItemSpawn(ItemSpawnEvent event) {
+        if (plugin.getAdvancedEntityOptimizer() != null
+            && plugin.getAdvancedEntityOptimizer().mergeSpawnedItem(event.getEntity())) {
+            event.setCancelled(true);
+            return;
+        }
+
         if (plugin.getItemDropTracker() != null) {
             plugin.getItemDropTracker().trackItem(event.getEntity());
         }
@@ -83,7 +92,7 @@ public class EntityEventListener implements Listener {
         }
 
         if (reason == CreatureSpawnEvent.SpawnReason.NATURAL) {
-            int currentEntities = event.getLocation().getWorld().getEntities().size();
+            int currentEntities = getWorldEntityCount(event.getLocation().getWorld());
             String worldName = event.getLocation().getWorld().getName();
             int maxEntities = plugin.getWorldConfig() != null
                 ? plugin.getWorldConfig().getMaxEntities(worldName)
@@ -95,6 +104,14 @@ public class EntityEventListener implements Listener {
         }
     }
 
+    private int getWorldEntityCount(World world) {
+        EntityCountTracker tracker = plugin.getEntityCountTracker();
+        if (tracker != null && tracker.isRunning()) {
+            return tracker.getWorldEntityCount(world);
+        }
+        return world.getEntities().size();
+    }
+
     private boolean isPlayerTriggeredSpawn(CreatureSpawnEvent.SpawnReason reason) {
         if (reason == null) return false;
 
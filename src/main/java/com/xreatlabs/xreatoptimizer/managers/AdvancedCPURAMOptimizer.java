@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
@@ -16,7 +17,7 @@ import java.lang.management.OperatingSystemMXBean;
  */
 public class AdvancedCPURAMOptimizer {
     private final XreatOptimizer plugin;
-    private org.bukkit.scheduler.BukkitTask optimizationTask;
+    private SubsystemScheduler.Registration optimizationTask;
     private volatile boolean isRunning = false;
 
     private double peakCPUUsage = 0.0;
@@ -33,12 +34,7 @@ public class AdvancedCPURAMOptimizer {
             return;
         }
 
-        optimizationTask = org.bukkit.Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runAdvancedOptimizations,
-            40L,
-            40L
-        );
+        optimizationTask = plugin.getSubsystemScheduler().schedule("cpu_ram_optimizer", 40L, 1.0, this::runAdvancedOptimizations);
 
         isRunning = true;
         LoggerUtils.info("Advanced CPU/RAM optimizer started.");
@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.ProtectedEntities;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
@@ -8,14 +9,15 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.*;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class AdvancedEntityOptimizer {
+    private static final int MERGE_CELL_SHIFT = 1;
+
     private final XreatOptimizer plugin;
-    private BukkitTask optimizationTask;
+    private SubsystemScheduler.Registration optimizationTask;
     private final Set<UUID> throttledEntities = ConcurrentHashMap.newKeySet();
     private final Map<UUID, EntityImportance> entityImportanceCache = new ConcurrentHashMap<>();
     private volatile boolean isRunning = false;
@@ -45,12 +47,7 @@ public class AdvancedEntityOptimizer {
         }
 
         loadConfig();
-        optimizationTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runAdvancedOptimizations,
-            200L,
-            200L
-        );
+        optimizationTask = plugin.getSubsystemScheduler().schedule("advanced_entity_optimizer", 200L, 3.0, this::runAdvancedOptimizations);
 
         isRunning = true;
         LoggerUtils.info("Advanced entity optimizer started.");
@@ -112,109 +109,176 @@ public class AdvancedEntityOptimizer {
     }
 
     private void mergeWorldItems(World world) {
-        List<Item> items = new ArrayList<>();
+        // Buckets keyed by stack signature, then by merge cell; only neighbouring cells are compared
+        Map<Integer, Map<Long, List<Item>>> buckets = new HashMap<>();
+
         for (Entity entity : world.getEntities()) {
-            if (entity instanceof Item) {
-                Item item = (Item) entity;
-                if (item.getPickupDelay() > 0 || item.getTicksLived() < 60) {
-                    continue;
-                }
-                items.add(item);
+            if (!(entity instanceof Item)) {
+                continue;
             }
-        }
 
-        Set<UUID> merged = new HashSet<>();
-        for (int i = 0; i < items.size(); i++) {
-            Item base = items.get(i);
-            if (!base.isValid() || merged.contains(base.getUniqueId())) {
+            Item item = (Item) entity;
+            if (item.getPickupDelay() > 0 || item.getTicksLived() < 60 || !isMergeable(item)) {
                 continue;
             }
 
-            for (int j = i + 1; j < items.size(); j++) {
-                Item candidate = items.get(j);
-                if (!candidate.isValid() || merged.contains(candidate.getUniqueId())) {
-                    continue;
-                }
+            Location loc = item.getLocation();
+            if (isNearPlayer(loc, 4.0)) {
+                continue;
+            }
 
-                if (!canMerge(base, candidate)) {
+            Map<Long, List<Item>> cells = buckets.computeIfAbsent(stackSignature(item.getItemStack()), k -> new HashMap<>());
+            if (mergeIntoNeighbour(item, loc, cells)) {
+                continue;
+            }
+            cells.computeIfAbsent(mergeCellKey(loc), k -> new ArrayList<>()).add(item);
+        }
+    }
+
+    /** Merge the item into a compatible stack in a neighbouring cell. Returns true if it was fully absorbed. */
+    private boolean mergeIntoNeighbour(Item item, Location loc, Map<Long, List<Item>> cells) {
+        int cellX = mergeCell(loc.getX());
+        int cellZ = mergeCell(loc.getZ());
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                List<Item> bucket = cells.get(EntityCountTracker.chunkKey(cellX + dx, cellZ + dz));
+                if (bucket == null) {
                     continue;
                 }
 
-                int remaining = mergeIntoBase(base, candidate);
-                if (remaining <= 0) {
-                    merged.add(candidate.getUniqueId());
-                    candidate.remove();
+                for (Item base : bucket) {
+                    if (!base.isValid() || !canMerge(base, item)) {
+                        continue;
+                    }
+
+                    if (mergeIntoBase(base, item) <= 0) {
+                        item.remove();
+                        return true;
+                    }
                 }
             }
         }
+        return false;
     }
 
     private void mergeWorldExperience(World world) {
-        List<ExperienceOrb> orbs = new ArrayList<>();
+        Map<Long, List<ExperienceOrb>> cells = new HashMap<>();
+
         for (Entity entity : world.getEntities()) {
-            if (entity instanceof ExperienceOrb) {
-                ExperienceOrb orb = (ExperienceOrb) entity;
-                if (orb.getTicksLived() < 40) {
-                    continue;
-                }
-                orbs.add(orb);
+            if (!(entity instanceof ExperienceOrb)) {
+                continue;
             }
-        }
 
-        Set<UUID> merged = new HashSet<>();
-        for (int i = 0; i < orbs.size(); i++) {
-            ExperienceOrb base = orbs.get(i);
-            if (!base.isValid() || merged.contains(base.getUniqueId())) {
+            ExperienceOrb orb = (ExperienceOrb) entity;
+            if (orb.getTicksLived() < 40) {
                 continue;
             }
 
-            for (int j = i + 1; j < orbs.size(); j++) {
-                ExperienceOrb candidate = orbs.get(j);
-                if (!candidate.isValid() || merged.contains(candidate.getUniqueId())) {
-                    continue;
-                }
+            Location loc = orb.getLocation();
+            if (isNearPlayer(loc, 4.0)) {
+                continue;
+            }
 
-                if (!sameWorldAndNearby(base.getLocation(), candidate.getLocation(), 2.0)) {
-                    continue;
-                }
+            ExperienceOrb target = findNeighbourOrb(orb, loc, cells);
+            if (target != null) {
+                target.setExperience(Math.min(32767, target.getExperience() + orb.getExperience()));
+                orb.remove();
+                continue;
+            }
+            cells.computeIfAbsent(mergeCellKey(loc), k -> new ArrayList<>()).add(orb);
+        }
+    }
+
+    private ExperienceOrb findNeighbourOrb(ExperienceOrb orb, Location loc, Map<Long, List<ExperienceOrb>> cells) {
+        int cellX = mergeCell(loc.getX());
+        int cellZ = mergeCell(loc.getZ());
 
-                if (isNearPlayer(base.getLocation(), 4.0) || isNearPlayer(candidate.getLocation(), 4.0)) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                List<ExperienceOrb> bucket = cells.get(EntityCountTracker.chunkKey(cellX + dx, cellZ + dz));
+                if (bucket == null) {
                     continue;
                 }
 
-                base.setExperience(Math.min(32767, base.getExperience() + candidate.getExperience()));
-                merged.add(candidate.getUniqueId());
-                candidate.remove();
+                for (ExperienceOrb base : bucket) {
+                    if (base.isValid() && base.getExperience() < 32767
+                        && sameWorldAndNearby(base.getLocation(), loc, 2.0)) {
+                        return base;
+                    }
+                }
             }
         }
+        return null;
     }
 
-    private boolean canMerge(Item first, Item second) {
-        if (!sameWorldAndNearby(first.getLocation(), second.getLocation(), 2.25)) {
+    /**
+     * Merge a freshly spawned item into a compatible stack already on the ground.
+     * Returns true if the new item was fully absorbed and its spawn should be cancelled.
+     */
+    public boolean mergeSpawnedItem(Item item) {
+        if (!isRunning || !stackFusionEnabled || !isMergeable(item)) {
             return false;
         }
 
-        if (ProtectedEntities.isProtected(first) || ProtectedEntities.isProtected(second)) {
-            return false;
-        }
+        Location loc = item.getLocation();
+        SpatialIndexManager spatialIndex = plugin.getSpatialIndexManager();
+        Collection<Entity> nearby = spatialIndex != null && spatialIndex.isRunning()
+            ? spatialIndex.getNearbyEntities(loc, 1.5)
+            : item.getNearbyEntities(1.5, 1.5, 1.5);
 
-        if (first.getCustomName() != null || second.getCustomName() != null) {
-            return false;
+        for (Entity entity : nearby) {
+            if (!(entity instanceof Item) || entity == item || !entity.isValid()) {
+                continue;
+            }
+
+            Item base = (Item) entity;
+            if (!isMergeable(base) || !base.getItemStack().isSimilar(item.getItemStack())) {
+                continue;
+            }
+
+            if (mergeIntoBase(base, item) <= 0) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        if (isNearPlayer(first.getLocation(), 4.0) || isNearPlayer(second.getLocation(), 4.0)) {
+    private boolean isMergeable(Item item) {
+        return item.getCustomName() == null && !ProtectedEntities.isProtected(item);
+    }
+
+    private boolean canMerge(Item first, Item second) {
+        if (!sameWorldAndNearby(first.getLocation(), second.getLocation(), 2.25)) {
             return false;
         }
 
         return first.getItemStack().isSimilar(second.getItemStack());
     }
 
+    private static int stackSignature(org.bukkit.inventory.ItemStack stack) {
+        return stack.getType().ordinal() * 31 + (stack.hasItemMeta() ? stack.getItemMeta().hashCode() : 0);
+    }
+
+    private static int mergeCell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> MERGE_CELL_SHIFT;
+    }
+
+    private static long mergeCellKey(Location loc) {
+        return EntityCountTracker.chunkKey(mergeCell(loc.getX()), mergeCell(loc.getZ()));
+    }
+
     private boolean sameWorldAndNearby(Location first, Location second, double maxDistanceSquared) {
         return first.getWorld() != null && first.getWorld().equals(second.getWorld())
             && first.distanceSquared(second) <= maxDistanceSquared;
     }
 
     private boolean isNearPlayer(Location location, double radius) {
+        SpatialIndexManager spatialIndex = plugin.getSpatialIndexManager();
+        if (spatialIndex != null && spatialIndex.isRunning()) {
+            return spatialIndex.isPlayerNearby(location, radius);
+        }
+
         double radiusSquared = radius * radius;
         for (Player player : location.getWorld().getPlayers()) {
             if (player.getLocation().distanceSquared(location) <= radiusSquared) {
@@ -264,8 +328,13 @@ public class AdvancedEntityOptimizer {
         double mediumDistance = getDistanceTier("medium", currentTPS);
         double farDistance = getDistanceTier("far", currentTPS);
 
-        for (Entity entity : world.getEntities()) {
-            if (!(entity instanceof LivingEntity) || entity instanceof Player) {
+        SpatialIndexManager spatialIndex = plugin.getSpatialIndexManager();
+        List<Entity> entities = spatialIndex != null && spatialIndex.isRunning()
+            ? spatialIndex.getEntities(world)
+            : world.getEntities();
+
+        for (Entity entity : entities) {
+            if (!(entity instanceof LivingEntity) || entity instanceof Player || !entity.isValid()) {
                 continue;
             }
 
@@ -278,16 +347,7 @@ public class AdvancedEntityOptimizer {
                 continue;
             }
 
-            double closestDistanceSq = Double.MAX_VALUE;
-            for (Player player : players) {
-                if (!player.getWorld().equals(entity.getWorld())) {
-                    continue;
-                }
-                double distSq = entity.getLocation().distanceSquared(player.getLocation());
-                if (distSq < closestDistanceSq) {
-                    closestDistanceSq = distSq;
-                }
-            }
+            double closestDistanceSq = getClosestPlayerDistanceSquared(entity, players, farDistance);
 
             boolean shouldThrottle = shouldThrottleEntity(closestDistanceSq, importance, nearDistance, mediumDistance, farDistance);
             boolean isThrottled = throttledEntities.contains(entityId);
@@ -304,6 +364,27 @@ public class AdvancedEntityOptimizer {
         }
     }
 
+    /** Nearest player distance; anything past the far tier is throttled the same, so the search stops there. */
+    private double getClosestPlayerDistanceSquared(Entity entity, List<Player> players, double searchRadius) {
+        SpatialIndexManager spatialIndex = plugin.getSpatialIndexManager();
+        if (spatialIndex != null && spatialIndex.isRunning()) {
+            return spatialIndex.getNearestPlayerDistanceSquared(entity.getLocation(), searchRadius);
+        }
+
+        double closestDistanceSq = Double.MAX_VALUE;
+        Location entityLoc = entity.getLocation();
+        for (Player player : players) {
+            if (!player.getWorld().equals(entity.getWorld())) {
+                continue;
+            }
+            double distSq = entityLoc.distanceSquared(player.getLocation());
+            if (distSq < closestDistanceSq) {
+                closestDistanceSq = distSq;
+            }
+        }
+        return closestDistanceSq;
+    }
+
     private boolean shouldThrottleEntity(double distanceSq, EntityImportance importance,
                                          double nearDist, double mediumDist, double farDist) {
         double nearDistSq = nearDist * nearDist;
@@ -1,19 +1,25 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.EntityUtils;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import com.xreatlabs.xreatoptimizer.utils.ProtectedEntities;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
-import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /** Manages automatic clearing of excess projectile entities with safe defaults. */
 public class AutoClearTask {
     private final XreatOptimizer plugin;
-    private BukkitTask clearTask;
+    private SubsystemScheduler.Registration clearTask;
+    private ExcessClearTask activeClear;
     private volatile boolean isRunning = false;
     private boolean enabled = false;
     private long intervalTicks = 600L * 20L;
@@ -43,12 +49,7 @@ public class AutoClearTask {
             return;
         }
 
-        clearTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runClearCycle,
-            intervalTicks,
-            intervalTicks
-        );
+        clearTask = plugin.getSubsystemScheduler().schedule("auto_clear", intervalTicks, 0.5, this::runClearCycle);
 
         isRunning = true;
         LoggerUtils.info("Auto clear task started. Will run every " + (intervalTicks / 20L) + " seconds.");
@@ -60,6 +61,10 @@ public class AutoClearTask {
             clearTask.cancel();
             clearTask = null;
         }
+        if (activeClear != null) {
+            activeClear.cancel();
+            activeClear = null;
+        }
         LoggerUtils.info("Auto clear task stopped.");
     }
 
@@ -68,52 +73,31 @@ public class AutoClearTask {
             return;
         }
 
-        LoggerUtils.debug("Running auto clear cycle...");
-
-        int totalRemoved = 0;
-        for (World world : Bukkit.getWorlds()) {
-            int removed = clearExcessEntitiesInWorld(world);
-            totalRemoved += removed;
-
-            if (removed > 0) {
-                LoggerUtils.debug("Cleared " + removed + " excess entities in world: " + world.getName());
-            }
-        }
-
-        if (totalRemoved > 0) {
-            LoggerUtils.info("Auto clear task completed. Removed " + totalRemoved + " excess entities across all worlds.");
-        }
-    }
-
-    /** Clear excess entities conservatively (arrows only, protected entities skipped). */
-    private int clearExcessEntitiesInWorld(World world) {
-        if (!enabled) {
-            return 0;
+        if (activeClear != null && !activeClear.isDone()) {
+            LoggerUtils.debug("Previous auto clear cycle still running, skipping.");
+            return;
         }
 
-        int totalRemoved = 0;
-        if (arrowLimit > 0) {
-            totalRemoved += EntityUtils.removeExcessEntities(world, EntityType.ARROW, arrowLimit);
-            totalRemoved += EntityUtils.removeExcessEntities(world, EntityType.SPECTRAL_ARROW, arrowLimit);
-        }
+        LoggerUtils.debug("Running auto clear cycle...");
 
-        return totalRemoved;
+        submitClear().thenAccept(totalRemoved -> {
+            if (totalRemoved > 0) {
+                LoggerUtils.info("Auto clear task completed. Removed " + totalRemoved + " excess entities across all worlds.");
+            }
+        });
     }
 
-    public int immediateClear() {
-        loadConfig();
-        if (!enabled) {
-            LoggerUtils.info("Immediate clear skipped because auto_clear is disabled.");
-            return 0;
-        }
-
-        int totalRemoved = 0;
-        for (World world : Bukkit.getWorlds()) {
-            totalRemoved += clearExcessEntitiesInWorld(world);
+    /**
+     * Spread the scan over ticks through the tick budget manager. While a clear is still running,
+     * its future is returned instead of starting another one. Main thread only.
+     */
+    private CompletableFuture<Integer> submitClear() {
+        if (activeClear != null && !activeClear.isDone()) {
+            return activeClear.getFuture();
         }
-
-        LoggerUtils.info("Immediate clear completed. Removed " + totalRemoved + " entities.");
-        return totalRemoved;
+        activeClear = new ExcessClearTask();
+        return plugin.getTickBudgetManager().submitSliced(
+            activeClear, TickBudgetManager.Priority.LOW, "entity_processing");
     }
 
     public int clearSpecificType(World world, EntityType type, int limit) {
@@ -124,14 +108,26 @@ public class AutoClearTask {
         return removed;
     }
 
+    /**
+     * Clear excess arrows now, sliced across ticks like the scheduled cycle, joining the clear
+     * already in progress if there is one. Completes on the main thread with the number removed,
+     * or 0 when auto_clear is disabled.
+     */
     public CompletableFuture<Integer> asyncClear() {
         CompletableFuture<Integer> future = new CompletableFuture<>();
         Bukkit.getScheduler().runTask(plugin, () -> {
-            try {
-                future.complete(immediateClear());
-            } catch (Exception e) {
-                future.completeExceptionally(e);
+            loadConfig();
+            if (!enabled) {
+                future.complete(0);
+                return;
             }
+            submitClear().whenComplete((removed, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(removed);
+                }
+            });
         });
         return future;
     }
@@ -158,6 +154,88 @@ public class AutoClearTask {
     }
 
     public void clearEntities() {
-        immediateClear();
+        asyncClear().thenAccept(removed ->
+            LoggerUtils.info("Immediate clear completed. Removed " + removed + " entities."));
+    }
+
+    /**
+     * Sliced version of the per-world arrow clear: scans a snapshot of each world's entities,
+     * then removes the excess beyond the limit, oldest-listed first like removeExcessEntities.
+     */
+    private class ExcessClearTask extends SlicedTask<Integer> {
+        private final List<World> worlds = new ArrayList<>(Bukkit.getWorlds());
+        private final List<Entity> arrows = new ArrayList<>();
+        private final List<Entity> spectralArrows = new ArrayList<>();
+        private int worldIndex = 0;
+        private List<Entity> snapshot;
+        private int scanIndex = 0;
+        private Iterator<Entity> removals;
+        private int removedInWorld = 0;
+        private int totalRemoved = 0;
+
+        ExcessClearTask() {
+            super("auto_clear");
+        }
+
+        @Override
+        protected boolean step(Deadline deadline) {
+            while (worldIndex < worlds.size()) {
+                World world = worlds.get(worldIndex);
+                if (snapshot == null) {
+                    snapshot = arrowLimit > 0 ? world.getEntities() : new ArrayList<>();
+                }
+
+                while (scanIndex < snapshot.size()) {
+                    if (deadline.isExpired()) return false;
+                    Entity entity = snapshot.get(scanIndex++);
+                    if (ProtectedEntities.isProtected(entity)) continue;
+                    if (entity.getType() == EntityType.ARROW && !ProtectedEntities.isProtectedType(EntityType.ARROW)) {
+                        arrows.add(entity);
+                    } else if (entity.getType() == EntityType.SPECTRAL_ARROW
+                            && !ProtectedEntities.isProtectedType(EntityType.SPECTRAL_ARROW)) {
+                        spectralArrows.add(entity);
+                    }
+                }
+
+                if (removals == null) {
+                    List<Entity> excess = new ArrayList<>();
+                    excess.addAll(arrows.subList(0, Math.max(0, arrows.size() - arrowLimit)));
+                    excess.addAll(spectralArrows.subList(0, Math.max(0, spectralArrows.size() - arrowLimit)));
+                    removals = excess.iterator();
+                }
+
+                while (removals.hasNext()) {
+                    if (deadline.isExpired()) return false;
+                    Entity entity = removals.next();
+                    if (entity.isValid()) {
+                        entity.remove();
+                        removedInWorld++;
+                    }
+                }
+
+                if (removedInWorld > 0) {
+                    LoggerUtils.debug("Cleared " + removedInWorld + " excess entities in world: " + world.getName());
+                }
+                totalRemoved += removedInWorld;
+                nextWorld();
+                setProgress(worldIndex, worlds.size());
+            }
+            return true;
+        }
+
+        private void nextWorld() {
+            worldIndex++;
+            snapshot = null;
+            scanIndex = 0;
+            arrows.clear();
+            spectralArrows.clear();
+            removals = null;
+            removedInWorld = 0;
+        }
+
+        @Override
+        protected Integer getResult() {
+            return totalRemoved;
+        }
     }
 }
@@ -1,13 +1,13 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.lang.reflect.Method;
 import java.util.Map;
@@ -16,7 +16,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class DynamicViewDistance {
     private final XreatOptimizer plugin;
-    private BukkitTask adjustmentTask;
+    private SubsystemScheduler.Registration adjustmentTask;
     private final Map<String, Integer> originalViewDistances = new ConcurrentHashMap<>();
     private final Map<Player, Integer> playerViewDistances = new WeakHashMap<>();
     private final Map<String, Integer> worldViewDistances = new ConcurrentHashMap<>();
@@ -62,12 +62,7 @@ public class DynamicViewDistance {
             originalViewDistances.put(world.getName(), world.getViewDistance());
         }
 
-        adjustmentTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::adjustViewDistances,
-            600L,
-            600L
-        );
+        adjustmentTask = plugin.getSubsystemScheduler().schedule("dynamic_view_distance", 600L, 0.5, this::adjustViewDistances);
 
         isRunning = true;
         LoggerUtils.info("Dynamic view distance system started.");
@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import org.bukkit.Bukkit;
@@ -15,6 +16,8 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -23,8 +26,9 @@ public class EmptyServerOptimizer implements Listener {
     private final XreatOptimizer plugin;
     private boolean serverIsEmpty = false;
     private boolean optimizationActive = false;
-    private BukkitTask monitorTask;
+    private SubsystemScheduler.Registration monitorTask;
     private BukkitTask pendingOptimizationTask;
+    private WorldCleanupTask cleanupTask;
     private final Map<String, Integer> originalViewDistances = new ConcurrentHashMap<>();
     private final Map<String, Integer> originalSimulationDistances = new ConcurrentHashMap<>();
     private final Map<String, Long> originalTimes = new ConcurrentHashMap<>();
@@ -65,8 +69,8 @@ public class EmptyServerOptimizer implements Listener {
             return;
         }
 
-        Bukkit.getPluginManager().registerEvents(this, plugin);
-        monitorTask = Bukkit.getScheduler().runTaskTimer(plugin, this::checkServerStatus, emptyCheckIntervalTicks, emptyCheckIntervalTicks);
+        plugin.getSubsystemProfiler().registerEvents(this, "empty_server");
+        monitorTask = plugin.getSubsystemScheduler().schedule("empty_server_check", emptyCheckIntervalTicks, 0.1, this::checkServerStatus);
         LoggerUtils.info("Empty Server Optimizer started - will reduce RAM/CPU when no players are online");
     }
 
@@ -126,8 +130,6 @@ public class EmptyServerOptimizer implements Listener {
         optimizationActive = true;
 
         long startTime = System.currentTimeMillis();
-        int chunksUnloaded = 0;
-        int itemsRemoved = 0;
 
         for (World world : Bukkit.getWorlds()) {
             try {
@@ -135,14 +137,6 @@ public class EmptyServerOptimizer implements Listener {
                 setWorldViewDistance(world, minViewDistance);
                 setWorldSimulationDistance(world, minSimulationDistance);
 
-                if (removeItems) {
-                    itemsRemoved += removeDroppedItems(world);
-                }
-
-                if (unloadFarChunks) {
-                    chunksUnloaded += unloadFarChunks(world);
-                }
-
                 if (freezeTime) {
                     world.setTime(6000);
                     world.setStorm(false);
@@ -153,9 +147,33 @@ public class EmptyServerOptimizer implements Listener {
             }
         }
 
-        plugin.getThreadPoolManager().executeIoTask(MemoryUtils::suggestGarbageCollection);
         pauseNonCriticalSystems();
 
+        if (!removeItems && !unloadFarChunks) {
+            finishEmptyServerOptimizations(startTime, 0, 0);
+            return;
+        }
+
+        // Item removal and chunk unloading touch every loaded entity and chunk, so spread them over ticks
+        WorldCleanupTask task = new WorldCleanupTask();
+        cleanupTask = task;
+        plugin.getTickBudgetManager().submitSliced(task, TickBudgetManager.Priority.BACKGROUND, "chunk_processing")
+            .whenComplete((result, error) -> {
+                if (cleanupTask == task) {
+                    cleanupTask = null;
+                }
+                if (error == null) {
+                    finishEmptyServerOptimizations(startTime, task.chunksUnloaded, task.itemsRemoved);
+                }
+            });
+    }
+
+    private void finishEmptyServerOptimizations(long startTime, int chunksUnloaded, int itemsRemoved) {
+        // Only a hint, and never worth a GC on the main thread; skip it when the IO lane is full
+        if (!plugin.getThreadPoolManager().executeIoTask(MemoryUtils::suggestGarbageCollection)) {
+            LoggerUtils.debug("IO queue is full; skipped the garbage collection hint");
+        }
+
         long duration = System.currentTimeMillis() - startTime;
         long usedMemoryMB = MemoryUtils.getUsedMemoryMB();
 
@@ -170,6 +188,11 @@ public class EmptyServerOptimizer implements Listener {
         LoggerUtils.info("=== PLAYERS DETECTED - Restoring normal operation ===");
         optimizationActive = false;
 
+        if (cleanupTask != null) {
+            cleanupTask.cancel();
+            cleanupTask = null;
+        }
+
         for (World world : Bukkit.getWorlds()) {
             try {
                 Integer originalView = originalViewDistances.remove(world.getName());
@@ -233,37 +256,90 @@ public class EmptyServerOptimizer implements Listener {
         }
     }
 
-    private int removeDroppedItems(World world) {
-        int removed = 0;
-        for (Entity entity : world.getEntities()) {
-            if (entity instanceof Item && entity.getTicksLived() > 200) {
-                entity.remove();
-                removed++;
-            }
-        }
-        return removed;
-    }
-
-    private int unloadFarChunks(World world) {
+    /** Removes old dropped items and unloads idle chunks far from spawn, world by world across ticks */
+    private class WorldCleanupTask extends SlicedTask<Void> {
+        private final List<World> worlds = new ArrayList<>(Bukkit.getWorlds());
+        private int worldIndex = 0;
+        private List<Entity> entities;
+        private Chunk[] chunks;
+        private int index = 0;
+        int itemsRemoved = 0;
         int chunksUnloaded = 0;
-        int spawnX = world.getSpawnLocation().getChunk().getX();
-        int spawnZ = world.getSpawnLocation().getChunk().getZ();
 
-        for (Chunk chunk : world.getLoadedChunks()) {
-            int deltaX = Math.abs(chunk.getX() - spawnX);
-            int deltaZ = Math.abs(chunk.getZ() - spawnZ);
+        WorldCleanupTask() {
+            super("empty_server_cleanup");
+        }
 
-            if (deltaX > 4 || deltaZ > 4) {
-                if (chunk.isForceLoaded() || chunk.getTileEntities().length > 0 || chunk.getEntities().length > 0) {
-                    continue;
+        @Override
+        protected boolean step(Deadline deadline) {
+            while (worldIndex < worlds.size()) {
+                World world = worlds.get(worldIndex);
+
+                if (removeItems && chunks == null) {
+                    if (entities == null) {
+                        entities = world.getEntities();
+                    }
+                    while (index < entities.size()) {
+                        if (deadline.isExpired()) return false;
+                        if (removeDroppedItem(entities.get(index++))) {
+                            itemsRemoved++;
+                        }
+                    }
                 }
-                if (chunk.unload(true)) {
-                    chunksUnloaded++;
+
+                if (unloadFarChunks) {
+                    if (chunks == null) {
+                        chunks = world.getLoadedChunks();
+                        index = 0;
+                    }
+                    int spawnX = world.getSpawnLocation().getBlockX() >> 4;
+                    int spawnZ = world.getSpawnLocation().getBlockZ() >> 4;
+                    while (index < chunks.length) {
+                        if (deadline.isExpired()) return false;
+                        if (unloadFarChunk(chunks[index++], spawnX, spawnZ)) {
+                            chunksUnloaded++;
+                        }
+                    }
                 }
+
+                worldIndex++;
+                entities = null;
+                chunks = null;
+                index = 0;
+                setProgress(worldIndex, worlds.size());
             }
+            return true;
         }
 
-        return chunksUnloaded;
+        @Override
+        protected Void getResult() {
+            return null;
+        }
+    }
+
+    private boolean removeDroppedItem(Entity entity) {
+        if (entity instanceof Item && entity.isValid() && entity.getTicksLived() > 200) {
+            entity.remove();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean unloadFarChunk(Chunk chunk, int spawnX, int spawnZ) {
+        if (!chunk.isLoaded()) {
+            return false;
+        }
+
+        int deltaX = Math.abs(chunk.getX() - spawnX);
+        int deltaZ = Math.abs(chunk.getZ() - spawnZ);
+
+        if (deltaX > 4 || deltaZ > 4) {
+            if (chunk.isForceLoaded() || chunk.getTileEntities().length > 0 || chunk.getEntities().length > 0) {
+                return false;
+            }
+            return chunk.unload(true);
+        }
+        return false;
     }
 
     private void pauseNonCriticalSystems() {
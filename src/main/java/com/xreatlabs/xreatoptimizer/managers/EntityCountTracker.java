@@ -0,0 +1,299 @@
+package com.xreatlabs.xreatoptimizer.managers;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import com.xreatlabs.xreatoptimizer.utils.LongIntHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.entity.*;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Incremental per-world, per-chunk and per-category entity counters.
+ *
+ * Counts follow the adds, moves and removals of the shared {@link EntityRegistry} on the main
+ * thread and can be read from any thread in constant time. Each removal or move decrements the
+ * chunk the registry last saw the entity in. A slow reconcile pass (one world per run) re-reads
+ * the world from the server to correct drift from removals no event reported.
+ */
+public class EntityCountTracker implements EntityRegistry.Observer {
+
+    public enum Category {
+        PLAYER,
+        HOSTILE,
+        PASSIVE,
+        ITEM,
+        EXPERIENCE,
+        PROJECTILE,
+        VEHICLE,
+        OTHER;
+
+        private static final Category[] VALUES = values();
+    }
+
+    private final XreatOptimizer plugin;
+    private final Map<String, WorldCounts> worldCounts = new ConcurrentHashMap<>();
+    private final Map<EntityType, Category> categoryCache = new EnumMap<>(EntityType.class);
+    private SubsystemScheduler.Registration reconcileTask;
+    private volatile boolean isRunning = false;
+
+    private int reconcileCursor = 0;
+    private long reconcileIntervalTicks = 1200L;
+
+    private static final class WorldCounts {
+        final AtomicInteger total = new AtomicInteger();
+        final AtomicIntegerArray categories = new AtomicIntegerArray(Category.VALUES.length);
+        final AtomicInteger loadedChunks = new AtomicInteger();
+        // Only touched on the main thread
+        final LongIntHashMap chunkEntities = new LongIntHashMap(256);
+    }
+
+    public EntityCountTracker(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (isRunning) {
+            return;
+        }
+
+        reconcileIntervalTicks = Math.max(10, plugin.getConfig().getInt("entity_counter.reconcile_interval_seconds", 60)) * 20L;
+
+        for (World world : Bukkit.getWorlds()) {
+            getCounts(world).loadedChunks.set(world.getLoadedChunks().length);
+        }
+        plugin.getEntityRegistry().addObserver(this);
+
+        reconcileTask = plugin.getSubsystemScheduler().schedule("entity_count_reconcile", reconcileIntervalTicks, 1.0, this::reconcileNextWorld);
+
+        isRunning = true;
+        LoggerUtils.info("Entity counter started (" + (isUsingPaperEvents() ? "Paper world events" : "Bukkit events + reconcile") + ").");
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (reconcileTask != null) {
+            reconcileTask.cancel();
+            reconcileTask = null;
+        }
+        plugin.getEntityRegistry().removeObserver(this);
+        worldCounts.clear();
+        LoggerUtils.info("Entity counter stopped.");
+    }
+
+    @Override
+    public void onAdded(EntityRegistry.Entry entry) {
+        adjust(entry.getWorld(), entry.getChunk(), classify(entry.getEntity().getType()), 1);
+    }
+
+    @Override
+    public void onMoved(EntityRegistry.Entry entry, String fromWorld, long fromChunk) {
+        if (fromWorld.equals(entry.getWorld())) {
+            LongIntHashMap chunks = getCounts(fromWorld).chunkEntities;
+            chunks.addTo(fromChunk, -1);
+            chunks.addTo(entry.getChunk(), 1);
+        } else {
+            Category category = classify(entry.getEntity().getType());
+            adjust(fromWorld, fromChunk, category, -1);
+            adjust(entry.getWorld(), entry.getChunk(), category, 1);
+        }
+    }
+
+    @Override
+    public void onRemoved(EntityRegistry.Entry entry) {
+        adjust(entry.getWorld(), entry.getChunk(), classify(entry.getEntity().getType()), -1);
+    }
+
+    @Override
+    public void onChunkLoaded(Chunk chunk) {
+        getCounts(chunk.getWorld()).loadedChunks.incrementAndGet();
+    }
+
+    @Override
+    public void onChunkUnloaded(Chunk chunk) {
+        decrementFloor(getCounts(chunk.getWorld()).loadedChunks);
+    }
+
+    @Override
+    public void onWorldSynced(World world) {
+        getCounts(world).loadedChunks.set(world.getLoadedChunks().length);
+    }
+
+    @Override
+    public void onWorldUnloaded(String world) {
+        worldCounts.remove(world);
+    }
+
+    private void adjust(String world, long key, Category category, int delta) {
+        WorldCounts counts = getCounts(world);
+
+        if (delta > 0) {
+            counts.total.incrementAndGet();
+            counts.categories.incrementAndGet(category.ordinal());
+            counts.chunkEntities.addTo(key, 1);
+        } else {
+            decrementFloor(counts.total);
+            if (counts.categories.get(category.ordinal()) > 0) {
+                counts.categories.decrementAndGet(category.ordinal());
+            }
+            counts.chunkEntities.addTo(key, -1);
+        }
+    }
+
+    private static void decrementFloor(AtomicInteger value) {
+        if (value.get() > 0) {
+            value.decrementAndGet();
+        }
+    }
+
+    private WorldCounts getCounts(World world) {
+        return getCounts(world.getName());
+    }
+
+    private WorldCounts getCounts(String world) {
+        return worldCounts.computeIfAbsent(world, k -> new WorldCounts());
+    }
+
+    private void reconcileNextWorld() {
+        if (!isRunning) return;
+
+        List<World> worlds = Bukkit.getWorlds();
+        if (worlds.isEmpty()) return;
+
+        reconcileCursor = (reconcileCursor + 1) % worlds.size();
+        World world = worlds.get(reconcileCursor);
+        int before = getWorldEntityCount(world);
+        plugin.getEntityRegistry().syncWorld(world);
+        int drift = before - getWorldEntityCount(world);
+        if (drift != 0) {
+            LoggerUtils.debug("Entity counter reconciled world " + world.getName() + " (drift " + drift + ")");
+        }
+    }
+
+    /** Classify an entity type once and cache the result. */
+    public Category classify(EntityType type) {
+        if (type == null) return Category.OTHER;
+        Category cached = categoryCache.get(type);
+        if (cached == null) {
+            cached = computeCategory(type);
+            categoryCache.put(type, cached);
+        }
+        return cached;
+    }
+
+    private static Category computeCategory(EntityType type) {
+        Class<? extends Entity> clazz = type.getEntityClass();
+        if (clazz == null) return Category.OTHER;
+
+        if (Player.class.isAssignableFrom(clazz)) return Category.PLAYER;
+        if (Item.class.isAssignableFrom(clazz)) return Category.ITEM;
+        if (ExperienceOrb.class.isAssignableFrom(clazz)) return Category.EXPERIENCE;
+        if (Projectile.class.isAssignableFrom(clazz)) return Category.PROJECTILE;
+        if (ArmorStand.class.isAssignableFrom(clazz)) return Category.OTHER;
+
+        if (Monster.class.isAssignableFrom(clazz) || Slime.class.isAssignableFrom(clazz)
+            || Ghast.class.isAssignableFrom(clazz) || Flying.class.isAssignableFrom(clazz)
+            || EnderDragon.class.isAssignableFrom(clazz) || "SHULKER".equals(type.name())) {
+            return Category.HOSTILE;
+        }
+
+        if (LivingEntity.class.isAssignableFrom(clazz)) return Category.PASSIVE;
+        if (Vehicle.class.isAssignableFrom(clazz)) return Category.VEHICLE;
+        return Category.OTHER;
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public int getWorldEntityCount(World world) {
+        WorldCounts counts = worldCounts.get(world.getName());
+        return counts != null ? counts.total.get() : 0;
+    }
+
+    public int getWorldCategoryCount(World world, Category category) {
+        return getWorldCategoryCount(world.getName(), category);
+    }
+
+    /** Same as {@link #getWorldCategoryCount(World, Category)} by world name, for use off the main thread. */
+    public int getWorldCategoryCount(String worldName, Category category) {
+        WorldCounts counts = worldCounts.get(worldName);
+        return counts != null ? counts.categories.get(category.ordinal()) : 0;
+    }
+
+    public int getWorldChunkCount(World world) {
+        return getWorldChunkCount(world.getName());
+    }
+
+    public int getWorldChunkCount(String worldName) {
+        WorldCounts counts = worldCounts.get(worldName);
+        return counts != null ? counts.loadedChunks.get() : 0;
+    }
+
+    /** Names of the worlds currently counted. */
+    public Set<String> getTrackedWorlds() {
+        return new HashSet<>(worldCounts.keySet());
+    }
+
+    /** Entities last counted in a chunk. Main thread only. */
+    public int getChunkEntityCount(World world, int chunkX, int chunkZ) {
+        WorldCounts counts = worldCounts.get(world.getName());
+        return counts != null ? counts.chunkEntities.get(chunkKey(chunkX, chunkZ)) : 0;
+    }
+
+    /** Receives one tracked world's counters. */
+    public interface WorldCountsVisitor {
+        void visit(String world, int entities, int loadedChunks, int players);
+    }
+
+    /** Visit every tracked world's counters. Safe from any thread. */
+    public void forEachWorld(WorldCountsVisitor visitor) {
+        for (Map.Entry<String, WorldCounts> entry : worldCounts.entrySet()) {
+            WorldCounts counts = entry.getValue();
+            visitor.visit(entry.getKey(), counts.total.get(), counts.loadedChunks.get(),
+                counts.categories.get(Category.PLAYER.ordinal()));
+        }
+    }
+
+    public int getTotalEntityCount() {
+        int total = 0;
+        for (WorldCounts counts : worldCounts.values()) {
+            total += counts.total.get();
+        }
+        return total;
+    }
+
+    public int getTotalCategoryCount(Category category) {
+        int total = 0;
+        for (WorldCounts counts : worldCounts.values()) {
+            total += counts.categories.get(category.ordinal());
+        }
+        return total;
+    }
+
+    public int getTotalChunkCount() {
+        int total = 0;
+        for (WorldCounts counts : worldCounts.values()) {
+            total += counts.loadedChunks.get();
+        }
+        return total;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public boolean isUsingPaperEvents() {
+        return plugin.getEntityRegistry().isUsingPaperEvents();
+    }
+}
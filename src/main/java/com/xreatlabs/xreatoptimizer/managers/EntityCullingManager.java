@@ -1,13 +1,13 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 
@@ -15,7 +15,7 @@ public class EntityCullingManager {
     private final XreatOptimizer plugin;
     private final Map<UUID, Set<UUID>> playerVisibleEntities = new HashMap<>();
     private volatile boolean isRunning = false;
-    private BukkitTask cullingTask;
+    private SubsystemScheduler.Registration cullingTask;
 
     public EntityCullingManager(XreatOptimizer plugin) {
         this.plugin = plugin;
@@ -23,17 +23,12 @@ public class EntityCullingManager {
 
     public void start() {
         isRunning = true;
-        cullingTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            () -> {
-                if (!isRunning) return;
-                for (World world : Bukkit.getWorlds()) {
-                    processWorldVisibility(world);
-                }
-            },
-            100L,
-            100L
-        );
+        cullingTask = plugin.getSubsystemScheduler().schedule("entity_culling", 100L, 2.0, () -> {
+            if (!isRunning) return;
+            for (World world : Bukkit.getWorlds()) {
+                processWorldVisibility(world);
+            }
+        });
         LoggerUtils.info("Entity culling manager started.");
     }
 
@@ -126,6 +121,17 @@ public class EntityCullingManager {
         double maxDistance = plugin.getConfig().getDouble("entity_culling.max_distance", 64.0);
         double maxDistanceSquared = maxDistance * maxDistance;
 
+        SpatialIndexManager spatialIndex = plugin.getSpatialIndexManager();
+        if (spatialIndex != null && spatialIndex.isRunning()) {
+            for (Entity entity : spatialIndex.getNearbyEntities(playerLoc, maxDistance)) {
+                if (entity.getCustomName() == null) {
+                    visibleEntities.add(entity.getUniqueId());
+                }
+            }
+            playerVisibleEntities.put(player.getUniqueId(), visibleEntities);
+            return;
+        }
+
         for (Entity entity : player.getWorld().getEntities()) {
             if (entity instanceof Player || entity.getCustomName() != null) {
                 continue;
@@ -0,0 +1,456 @@
+package com.xreatlabs.xreatoptimizer.managers;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.EventExecutor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Every loaded entity, with the world and chunk it was last seen in, shared by the
+ * EntityCountTracker and the SpatialIndexManager.
+ *
+ * On Paper the exact add/remove-from-world events are used; elsewhere entities follow spawn,
+ * death, despawn, merge, join/quit and chunk (or 1.17+ entity) load/unload events. Bukkit has no
+ * entity move event, so every entry is re-checked once per {@code entity_registry.refresh_ticks},
+ * a slice per tick, to follow chunk crossings and drop entities removed without an event.
+ * Observers hear about every add, move and removal. Main thread only.
+ */
+public class EntityRegistry implements Listener {
+
+    private static final String PAPER_ADD_EVENT = "com.destroystokyo.paper.event.entity.EntityAddToWorldEvent";
+    private static final String PAPER_REMOVE_EVENT = "com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent";
+    private static final String ENTITIES_LOAD_EVENT = "org.bukkit.event.world.EntitiesLoadEvent";
+    private static final String ENTITIES_UNLOAD_EVENT = "org.bukkit.event.world.EntitiesUnloadEvent";
+
+    /** Receives every change to the registry, on the main thread. */
+    public interface Observer {
+        void onAdded(Entry entry);
+
+        /** The entry's world or chunk changed; {@code fromWorld}/{@code fromChunk} are where it was. */
+        void onMoved(Entry entry, String fromWorld, long fromChunk);
+
+        void onRemoved(Entry entry);
+
+        default void onChunkLoaded(Chunk chunk) {
+        }
+
+        default void onChunkUnloaded(Chunk chunk) {
+        }
+
+        /** A world was (re)read from the server; its entries are up to date. */
+        default void onWorldSynced(World world) {
+        }
+
+        /** A world unloaded; its entries were removed before this call. */
+        default void onWorldUnloaded(String world) {
+        }
+    }
+
+    /** One tracked entity and where it was last seen. */
+    public static final class Entry {
+        private Entity entity;
+        private String world;
+        private long chunk;
+        private int position;
+        private long syncMark;
+        // Positions in the spatial index's cell and world lists, maintained by SpatialIndexManager
+        int cellPosition;
+        int worldPosition;
+
+        private Entry(Entity entity) {
+            this.entity = entity;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        /** Packed chunk coordinates, see {@link EntityCountTracker#chunkKey(int, int)}. */
+        public long getChunk() {
+            return chunk;
+        }
+    }
+
+    private final XreatOptimizer plugin;
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final List<Entry> entryList = new ArrayList<>();
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private SubsystemScheduler.Registration sweepTask;
+    private volatile boolean isRunning = false;
+
+    private boolean paperWorldEvents = false;
+    private boolean separateEntityLoading = false;
+    private Method entitiesEventGetEntities;
+    private int refreshTicks = 20;
+    private int sweepCursor = 0;
+    private long syncCounter = 0;
+
+    public EntityRegistry(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (isRunning) {
+            return;
+        }
+
+        refreshTicks = Math.max(1, plugin.getConfig().getInt("entity_registry.refresh_ticks", 20));
+
+        plugin.getSubsystemProfiler().registerEvents(this, "entity_registry");
+        registerOptionalEvents();
+
+        for (World world : Bukkit.getWorlds()) {
+            syncWorld(world);
+        }
+
+        sweepTask = plugin.getSubsystemScheduler().schedule("entity_registry_sweep", 1L, 0.5, this::sweepTick);
+
+        isRunning = true;
+        LoggerUtils.info("Entity registry started (" + (paperWorldEvents ? "Paper world events" : "Bukkit events")
+            + ", positions re-checked every " + refreshTicks + " ticks).");
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+        HandlerList.unregisterAll(this);
+        entries.clear();
+        entryList.clear();
+        observers.clear();
+        LoggerUtils.info("Entity registry stopped.");
+    }
+
+    /** Add an observer and replay every current entry to it as added. */
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+        for (Entry entry : entryList) {
+            observer.onAdded(entry);
+        }
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /** Hook Paper's exact add/remove events and 1.17+ separate entity loading when present. */
+    private void registerOptionalEvents() {
+        Class<? extends Event> addEvent = findEventClass(PAPER_ADD_EVENT);
+        Class<? extends Event> removeEvent = findEventClass(PAPER_REMOVE_EVENT);
+        if (addEvent != null && removeEvent != null) {
+            EventExecutor executor = plugin.getSubsystemProfiler().timed("entity_registry", "onEntityAddRemove", (listener, event) -> {
+                if (!(event instanceof EntityEvent)) return;
+                Entity entity = ((EntityEvent) event).getEntity();
+                if (addEvent.isInstance(event)) {
+                    add(entity, entity.getLocation());
+                } else if (removeEvent.isInstance(event)) {
+                    remove(entity);
+                }
+            });
+            Bukkit.getPluginManager().registerEvent(addEvent, this, EventPriority.MONITOR, executor, plugin, true);
+            Bukkit.getPluginManager().registerEvent(removeEvent, this, EventPriority.MONITOR, executor, plugin, true);
+            paperWorldEvents = true;
+            return;
+        }
+
+        Class<? extends Event> loadEvent = findEventClass(ENTITIES_LOAD_EVENT);
+        Class<? extends Event> unloadEvent = findEventClass(ENTITIES_UNLOAD_EVENT);
+        if (loadEvent != null && unloadEvent != null) {
+            try {
+                entitiesEventGetEntities = loadEvent.getMethod("getEntities");
+            } catch (NoSuchMethodException e) {
+                return;
+            }
+            EventExecutor executor = plugin.getSubsystemProfiler().timed("entity_registry", "onEntitiesLoadUnload", (listener, event) -> {
+                boolean loading = loadEvent.isInstance(event);
+                for (Entity entity : getEventEntities(event)) {
+                    if (loading) {
+                        add(entity, entity.getLocation());
+                    } else {
+                        remove(entity);
+                    }
+                }
+            });
+            Bukkit.getPluginManager().registerEvent(loadEvent, this, EventPriority.MONITOR, executor, plugin, true);
+            Bukkit.getPluginManager().registerEvent(unloadEvent, this, EventPriority.MONITOR, executor, plugin, true);
+            separateEntityLoading = true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Event> findEventClass(String name) {
+        try {
+            Class<?> clazz = Class.forName(name);
+            return Event.class.isAssignableFrom(clazz) ? (Class<? extends Event>) clazz : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entity> getEventEntities(Event event) {
+        try {
+            Object result = entitiesEventGetEntities.invoke(event);
+            if (result instanceof List) {
+                return (List<Entity>) result;
+            }
+        } catch (Exception ignored) {
+        }
+        return Collections.emptyList();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        if (paperWorldEvents) return;
+        add(event.getEntity(), event.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityDeath(EntityDeathEvent event) {
+        if (paperWorldEvents || event.getEntity() instanceof Player) return;
+        remove(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDespawn(ItemDespawnEvent event) {
+        if (paperWorldEvents) return;
+        remove(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemMerge(ItemMergeEvent event) {
+        if (paperWorldEvents) return;
+        remove(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        if (paperWorldEvents) return;
+        add(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        if (paperWorldEvents) return;
+        remove(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        if (paperWorldEvents) return;
+        add(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        for (Observer observer : observers) {
+            observer.onChunkLoaded(chunk);
+        }
+
+        // With 1.17+ separate entity loading the chunk has no entities yet; EntitiesLoadEvent adds them
+        if (paperWorldEvents || separateEntityLoading) return;
+        for (Entity entity : chunk.getEntities()) {
+            add(entity, entity.getLocation());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        if (!paperWorldEvents && !separateEntityLoading) {
+            // Only what is in the chunk now; entities that walked out since their last check stay
+            for (Entity entity : chunk.getEntities()) {
+                if (!(entity instanceof Player)) {
+                    remove(entity);
+                }
+            }
+        }
+        for (Observer observer : observers) {
+            observer.onChunkUnloaded(chunk);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        syncWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        String name = event.getWorld().getName();
+        for (int i = entryList.size() - 1; i >= 0; i--) {
+            Entry entry = entryList.get(i);
+            if (entry.world.equals(name)) {
+                remove(entry);
+            }
+        }
+        for (Observer observer : observers) {
+            observer.onWorldUnloaded(name);
+        }
+    }
+
+    /**
+     * Bring one world's entries in line with the server's entity list: entities that were missed
+     * are added, entities that moved in from another world are moved, and entries of this world
+     * the server no longer has are removed.
+     */
+    public void syncWorld(World world) {
+        long mark = ++syncCounter;
+        String name = world.getName();
+        for (Entity entity : world.getEntities()) {
+            Entry entry = add(entity, entity.getLocation());
+            if (entry != null) {
+                entry.syncMark = mark;
+            }
+        }
+        for (int i = entryList.size() - 1; i >= 0; i--) {
+            Entry entry = entryList.get(i);
+            if (entry.world.equals(name) && entry.syncMark != mark) {
+                remove(entry);
+            }
+        }
+        for (Observer observer : observers) {
+            observer.onWorldSynced(world);
+        }
+    }
+
+    /** Track an entity at location. An entity tracked before is moved, never tracked twice. */
+    private Entry add(Entity entity, Location location) {
+        if (location == null || location.getWorld() == null) return null;
+
+        String world = location.getWorld().getName();
+        long chunk = chunkKey(location);
+        Entry entry = entries.get(entity.getUniqueId());
+        if (entry != null) {
+            // The same entity may come back as a new object after its chunk reloads
+            entry.entity = entity;
+            move(entry, world, chunk);
+            return entry;
+        }
+
+        entry = new Entry(entity);
+        entry.world = world;
+        entry.chunk = chunk;
+        entry.position = entryList.size();
+        entryList.add(entry);
+        entries.put(entity.getUniqueId(), entry);
+        for (Observer observer : observers) {
+            observer.onAdded(entry);
+        }
+        return entry;
+    }
+
+    private void remove(Entity entity) {
+        Entry entry = entries.get(entity.getUniqueId());
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.entity.getUniqueId(), entry);
+        int last = entryList.size() - 1;
+        Entry tail = entryList.remove(last);
+        if (entry.position < last) {
+            entryList.set(entry.position, tail);
+            tail.position = entry.position;
+        }
+        for (Observer observer : observers) {
+            observer.onRemoved(entry);
+        }
+    }
+
+    private void move(Entry entry, String world, long chunk) {
+        if (chunk == entry.chunk && world.equals(entry.world)) {
+            return;
+        }
+        String fromWorld = entry.world;
+        long fromChunk = entry.chunk;
+        entry.world = world;
+        entry.chunk = chunk;
+        for (Observer observer : observers) {
+            observer.onMoved(entry, fromWorld, fromChunk);
+        }
+    }
+
+    /** Re-check a slice of the entries for chunk crossings and silent removal. */
+    private void sweepTick() {
+        if (!isRunning) return;
+
+        int slice = (entryList.size() + refreshTicks - 1) / refreshTicks;
+        for (int i = 0; i < slice && !entryList.isEmpty(); i++) {
+            if (sweepCursor >= entryList.size()) {
+                sweepCursor = 0;
+            }
+            Entry entry = entryList.get(sweepCursor);
+            Entity entity = entry.entity;
+            boolean present = entity.isValid() || (entity instanceof Player && ((Player) entity).isOnline());
+            if (!present) {
+                // The last entry is swapped into this position; check it next
+                remove(entry);
+                continue;
+            }
+
+            Location location = entity.getLocation();
+            if (location.getWorld() != null) {
+                move(entry, location.getWorld().getName(), chunkKey(location));
+            }
+            sweepCursor++;
+        }
+    }
+
+    private static long chunkKey(Location location) {
+        return EntityCountTracker.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    public int size() {
+        return entryList.size();
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public boolean isUsingPaperEvents() {
+        return paperWorldEvents;
+    }
+}
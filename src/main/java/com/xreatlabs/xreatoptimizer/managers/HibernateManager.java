@@ -1,18 +1,21 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.snapshot.WorldSnapshot;
+import com.xreatlabs.xreatoptimizer.utils.LongIntHashMap;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.ProtectedEntities;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import org.bukkit.Chunk;
-import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -26,9 +29,10 @@ import java.util.concurrent.ConcurrentHashMap;
 public class HibernateManager {
 
     private final XreatOptimizer plugin;
-    private BukkitTask hibernateTask;
+    private SubsystemScheduler.Registration hibernateTask;
     private final Set<String> hibernatedChunks = ConcurrentHashMap.newKeySet();
     private volatile boolean isRunning = false;
+    private volatile boolean cycleInFlight = false;
     private int configuredRadius = 64;
     private Integer runtimeRadiusOverride = null;
 
@@ -44,11 +48,6 @@ public class HibernateManager {
         }
     }
 
-    /** Check if entity should be protected. */
-    private boolean isEntityProtected(Entity entity) {
-        return ProtectedEntities.isProtected(entity);
-    }
-
     public void start() {
         loadConfig();
         if (!plugin.getConfig().getBoolean("hibernate.enabled", false)) {
@@ -60,12 +59,7 @@ public class HibernateManager {
             return;
         }
 
-        hibernateTask = plugin.getServer().getScheduler().runTaskTimer(
-            plugin,
-            this::runHibernateCycle,
-            200L,
-            400L
-        );
+        hibernateTask = plugin.getSubsystemScheduler().schedule("hibernate", 400L, 200L, 2.0, this::runHibernateCycle);
 
         isRunning = true;
         LoggerUtils.info("Hibernate manager started in safe tracking mode.");
@@ -83,35 +77,57 @@ public class HibernateManager {
     }
 
     private void runHibernateCycle() {
-        if (!isRunning || TPSUtils.isTPSBelow(10.0)) {
+        if (!isRunning || cycleInFlight || TPSUtils.isTPSBelow(10.0)) {
             return;
         }
 
-        for (World world : plugin.getServer().getWorlds()) {
-            processWorldForHibernate(world);
-        }
+        int radiusInChunks = (int) Math.ceil(getActiveRadius() / 16.0);
+        cycleInFlight = true;
+        plugin.getSnapshotPipeline()
+            .submit("hibernate", WorldSnapshot.ENTITIES | WorldSnapshot.CHUNKS,
+                (snapshots, commands) -> processSnapshots(snapshots, radiusInChunks))
+            .whenComplete((result, error) -> cycleInFlight = false);
     }
 
-    private void processWorldForHibernate(World world) {
-        int hibernateRadius = getActiveRadius();
+    /** Runs on the analytics pool; only touches the snapshots and the concurrent chunk set. */
+    private void processSnapshots(List<WorldSnapshot> snapshots, int radiusInChunks) {
+        if (!isRunning) return;
 
-        Set<Chunk> activeChunks = new HashSet<>();
-        for (Player player : world.getPlayers()) {
-            Chunk playerChunk = player.getLocation().getChunk();
-            activeChunks.add(playerChunk);
+        Set<String> worldNames = new HashSet<>();
+        for (WorldSnapshot snapshot : snapshots) {
+            worldNames.add(snapshot.getWorldName());
+            processWorldForHibernate(snapshot, radiusInChunks);
+        }
 
-            int radiusInChunks = (int) Math.ceil(hibernateRadius / 16.0);
-            for (int x = -radiusInChunks; x <= radiusInChunks; x++) {
-                for (int z = -radiusInChunks; z <= radiusInChunks; z++) {
-                    activeChunks.add(world.getChunkAt(playerChunk.getX() + x, playerChunk.getZ() + z));
-                }
+        // Chunks of unloaded worlds wake up
+        hibernatedChunks.removeIf(chunkKey -> !worldNames.contains(chunkKey.substring(0, chunkKey.indexOf(':'))));
+    }
+
+    private void processWorldForHibernate(WorldSnapshot snapshot, int radiusInChunks) {
+        String prefix = snapshot.getWorldName() + ":";
+
+        // Per-chunk occupancy: 1 = player present, 2 = unprotected non-player entity present
+        LongIntHashMap occupancy = new LongIntHashMap();
+        List<int[]> playerChunks = new ArrayList<>();
+        for (int i = 0; i < snapshot.getEntityCount(); i++) {
+            int chunkX = snapshot.getEntityChunkX(i);
+            int chunkZ = snapshot.getEntityChunkZ(i);
+            long key = EntityCountTracker.chunkKey(chunkX, chunkZ);
+            if (snapshot.hasEntityFlag(i, WorldSnapshot.FLAG_PLAYER)) {
+                playerChunks.add(new int[]{chunkX, chunkZ});
+                occupancy.put(key, occupancy.get(key) | 1);
+            } else if (!snapshot.hasEntityFlag(i, WorldSnapshot.FLAG_PROTECTED)) {
+                occupancy.put(key, occupancy.get(key) | 2);
             }
         }
 
         Set<String> trackedThisCycle = new HashSet<>();
-        for (Chunk chunk : world.getLoadedChunks()) {
-            if (!activeChunks.contains(chunk) && shouldMarkChunk(chunk)) {
-                String chunkKey = getChunkKey(chunk);
+        for (int i = 0; i < snapshot.getChunkCount(); i++) {
+            long key = snapshot.getChunkKey(i);
+            int chunkX = (int) (key >> 32);
+            int chunkZ = (int) key;
+            if (occupancy.get(key) == 2 && !isActive(chunkX, chunkZ, playerChunks, radiusInChunks)) {
+                String chunkKey = prefix + chunkX + ":" + chunkZ;
                 trackedThisCycle.add(chunkKey);
                 hibernatedChunks.add(chunkKey);
             }
@@ -120,52 +136,26 @@ public class HibernateManager {
         Iterator<String> iterator = hibernatedChunks.iterator();
         while (iterator.hasNext()) {
             String chunkKey = iterator.next();
-            if (!chunkKey.startsWith(world.getName() + ":")) {
+            if (!chunkKey.startsWith(prefix) || trackedThisCycle.contains(chunkKey)) {
                 continue;
             }
-            if (!trackedThisCycle.contains(chunkKey) && shouldWakeChunk(chunkKey, activeChunks)) {
+            String[] parts = chunkKey.split(":");
+            if (parts.length < 3
+                    || isActive(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), playerChunks, radiusInChunks)) {
                 iterator.remove();
             }
         }
     }
 
-    private boolean shouldMarkChunk(Chunk chunk) {
-        for (Entity entity : chunk.getEntities()) {
-            if (entity instanceof Player) {
-                return false;
-            }
-
-            if (!isEntityProtected(entity)) {
+    private boolean isActive(int chunkX, int chunkZ, List<int[]> playerChunks, int radiusInChunks) {
+        for (int[] player : playerChunks) {
+            if (Math.abs(player[0] - chunkX) <= radiusInChunks && Math.abs(player[1] - chunkZ) <= radiusInChunks) {
                 return true;
             }
         }
-
         return false;
     }
 
-    private boolean shouldWakeChunk(String chunkKey, Set<Chunk> activeChunks) {
-        String[] parts = chunkKey.split(":");
-        if (parts.length < 3) {
-            return false;
-        }
-
-        String worldName = parts[0];
-        int x = Integer.parseInt(parts[1]);
-        int z = Integer.parseInt(parts[2]);
-
-        World world = org.bukkit.Bukkit.getWorld(worldName);
-        if (world == null) {
-            return true;
-        }
-
-        Chunk chunk = world.getChunkAt(x, z);
-        return activeChunks.contains(chunk);
-    }
-
-    private String getChunkKey(Chunk chunk) {
-        return chunk.getWorld().getName() + ":" + chunk.getX() + ":" + chunk.getZ();
-    }
-
     public int getHibernatedChunkCount() {
         return hibernatedChunks.size();
     }
@@ -179,11 +169,13 @@ public class HibernateManager {
             }
 
             World world = org.bukkit.Bukkit.getWorld(parts[0]);
-            if (world == null) {
+            int chunkX = Integer.parseInt(parts[1]);
+            int chunkZ = Integer.parseInt(parts[2]);
+            if (world == null || !world.isChunkLoaded(chunkX, chunkZ)) {
                 continue;
             }
 
-            Chunk chunk = world.getChunkAt(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            Chunk chunk = world.getChunkAt(chunkX, chunkZ);
             for (Entity entity : chunk.getEntities()) {
                 if (!(entity instanceof Player) && !ProtectedEntities.isProtected(entity)) {
                     count++;
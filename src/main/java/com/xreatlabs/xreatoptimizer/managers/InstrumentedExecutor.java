@@ -0,0 +1,299 @@
+package com.xreatlabs.xreatoptimizer.managers;
+
+import com.xreatlabs.xreatoptimizer.timeseries.WindowedHistogram;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, instrumented lane on top of a shared worker pool.
+ *
+ * Tasks wait in the lane's own queue and workers pull the oldest one, so the lane decides what
+ * happens when it is full instead of the pool throwing. Queue wait and run time are recorded per
+ * lane over the last minute, together with rejected, dropped and coalesced counts.
+ */
+public class InstrumentedExecutor implements Executor {
+
+    /** What happens to a submission once the lane already holds {@code maxPending} tasks. */
+    public enum BackpressurePolicy {
+        /** Run the task on the submitting thread. */
+        CALLER_RUNS,
+        /** Discard the oldest pending task to make room. */
+        DROP_OLDEST,
+        /** Keyed submissions replace the pending task with the same key; overflow drops the oldest. */
+        COALESCE,
+        /** Refuse the task with RejectedExecutionException; counted as rejected. */
+        REJECT
+    }
+
+    private final String name;
+    private final ExecutorService workers;
+    private final int maxPending;
+    private final BackpressurePolicy policy;
+
+    private final ConcurrentLinkedDeque<PendingTask> queue = new ConcurrentLinkedDeque<>();
+    private final Map<String, PendingTask> pendingByKey = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile boolean shutdown = false;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    // Microseconds over the last minute, guarded by themselves
+    private final WindowedHistogram queueWaitMicros = new WindowedHistogram(1, TimeUnit.MINUTES, 6);
+    private final WindowedHistogram runTimeMicros = new WindowedHistogram(1, TimeUnit.MINUTES, 6);
+
+    public InstrumentedExecutor(String name, ExecutorService workers, int maxPending, BackpressurePolicy policy) {
+        this.name = name;
+        this.workers = workers;
+        this.maxPending = Math.max(1, maxPending);
+        this.policy = policy;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(null, task);
+    }
+
+    /**
+     * Queue a task. The future completes when it has run and is cancelled if the task is dropped
+     * or coalesced away before running. Throws RejectedExecutionException after shutdown, and on a
+     * full {@link BackpressurePolicy#REJECT} lane.
+     */
+    public CompletableFuture<Void> submit(String key, Runnable runnable) {
+        if (shutdown) {
+            rejected.increment();
+            throw new RejectedExecutionException(name + " executor is shut down");
+        }
+        submitted.increment();
+
+        String coalesceKey = policy == BackpressurePolicy.COALESCE ? key : null;
+        PendingTask task = new PendingTask(coalesceKey, runnable);
+        if (coalesceKey != null) {
+            PendingTask previous = pendingByKey.put(coalesceKey, task);
+            if (previous != null && previous.discard()) {
+                pending.decrementAndGet();
+                coalesced.increment();
+            }
+        }
+
+        if (pending.incrementAndGet() > maxPending) {
+            if (policy == BackpressurePolicy.CALLER_RUNS) {
+                pending.decrementAndGet();
+                callerRuns.increment();
+                task.claim();
+                runTask(task);
+                return task.future;
+            }
+            if (policy == BackpressurePolicy.REJECT) {
+                pending.decrementAndGet();
+                rejected.increment();
+                task.discard();
+                throw new RejectedExecutionException(name + " executor is full (" + maxPending + " pending)");
+            }
+            dropOldest();
+        }
+
+        queue.offer(task);
+        try {
+            workers.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            if (task.discard()) {
+                pending.decrementAndGet();
+                if (coalesceKey != null) {
+                    pendingByKey.remove(coalesceKey, task);
+                }
+            }
+            rejected.increment();
+            throw e;
+        }
+        return task.future;
+    }
+
+    private void dropOldest() {
+        PendingTask oldest;
+        while ((oldest = queue.poll()) != null) {
+            if (oldest.discard()) {
+                pending.decrementAndGet();
+                if (oldest.key != null) {
+                    pendingByKey.remove(oldest.key, oldest);
+                }
+                dropped.increment();
+                return;
+            }
+        }
+    }
+
+    /** Worker side: run the oldest task still pending. Entries already discarded are skipped. */
+    private void runNext() {
+        PendingTask task;
+        while ((task = queue.poll()) != null) {
+            if (task.claim()) {
+                pending.decrementAndGet();
+                if (task.key != null) {
+                    pendingByKey.remove(task.key, task);
+                }
+                runTask(task);
+                return;
+            }
+        }
+    }
+
+    private void runTask(PendingTask task) {
+        long start = System.nanoTime();
+        running.incrementAndGet();
+        try {
+            task.runnable.run();
+            completed.increment();
+            task.future.complete(null);
+        } catch (Throwable t) {
+            failed.increment();
+            LoggerUtils.error("Task failed in " + name + " executor", t);
+            task.future.completeExceptionally(t);
+        } finally {
+            running.decrementAndGet();
+            long end = System.nanoTime();
+            synchronized (queueWaitMicros) {
+                queueWaitMicros.record((start - task.enqueuedAt) / 1_000L);
+            }
+            synchronized (runTimeMicros) {
+                runTimeMicros.record((end - start) / 1_000L);
+            }
+        }
+    }
+
+    /** Stop accepting work and cancel everything still queued. Workers are shut down by the owner. */
+    public void shutdown() {
+        shutdown = true;
+        PendingTask task;
+        while ((task = queue.poll()) != null) {
+            if (task.discard()) {
+                pending.decrementAndGet();
+            }
+        }
+        pendingByKey.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /** Queue wait percentile (0-100) over the last minute, in milliseconds. */
+    public double getQueueWaitMs(double percentile) {
+        synchronized (queueWaitMicros) {
+            return queueWaitMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    /** Run time percentile (0-100) over the last minute, in milliseconds. */
+    public double getRunTimeMs(double percentile) {
+        synchronized (runTimeMicros) {
+            return runTimeMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("policy", policy.name().toLowerCase());
+        stats.put("pending", pending.get());
+        stats.put("max_pending", maxPending);
+        stats.put("running", running.get());
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("caller_runs", callerRuns.sum());
+        stats.put("queue_wait_p50_ms", String.format("%.2f", getQueueWaitMs(50)));
+        stats.put("queue_wait_p99_ms", String.format("%.2f", getQueueWaitMs(99)));
+        stats.put("run_time_p50_ms", String.format("%.2f", getRunTimeMs(50)));
+        stats.put("run_time_p99_ms", String.format("%.2f", getRunTimeMs(99)));
+        return stats;
+    }
+
+    private static final class PendingTask {
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int DISCARDED = 2;
+
+        final String key;
+        final Runnable runnable;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        PendingTask(String key, Runnable runnable) {
+            this.key = key;
+            this.runnable = runnable;
+        }
+
+        boolean claim() {
+            return state.compareAndSet(PENDING, CLAIMED);
+        }
+
+        boolean discard() {
+            if (state.compareAndSet(PENDING, DISCARDED)) {
+                future.cancel(false);
+                return true;
+            }
+            return false;
+        }
+    }
+}
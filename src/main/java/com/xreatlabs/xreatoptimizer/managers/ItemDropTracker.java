@@ -1,28 +1,30 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /** Tracks and removes old dropped items with warnings */
 public class ItemDropTracker {
     private final XreatOptimizer plugin;
     private final Map<UUID, Long> itemSpawnTimes = new ConcurrentHashMap<>();
-    private BukkitTask checkTask;
-    private BukkitTask countdownTask;
-    private BukkitTask cleanupTask;
+    private SubsystemScheduler.Registration checkTask;
+    private SubsystemScheduler.Registration countdownTask;
+    private SubsystemScheduler.Registration cleanupTask;
     private volatile boolean isRunning = false;
     private boolean enabled = false;
 
@@ -55,26 +57,11 @@ public class ItemDropTracker {
             return;
         }
 
-        checkTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::checkAndRemoveExpiredItems,
-            20L,
-            20L
-        );
+        checkTask = plugin.getSubsystemScheduler().schedule("item_expiry_check", 20L, 0.5, this::checkAndRemoveExpiredItems);
 
-        countdownTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::showCountdownWarnings,
-            20L,
-            20L
-        );
+        countdownTask = plugin.getSubsystemScheduler().schedule("item_countdown", 20L, 0.5, this::showCountdownWarnings);
 
-        cleanupTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::cleanupPickedUpItems,
-            600L,
-            600L
-        );
+        cleanupTask = plugin.getSubsystemScheduler().schedule("item_tracker_cleanup", 600L, 0.5, this::cleanupPickedUpItems);
 
         isRunning = true;
         LoggerUtils.info("Item drop tracker started. Items will be removed after " + itemLifetime + " seconds.");
@@ -189,42 +176,79 @@ public class ItemDropTracker {
                 String warningMessage = ChatColor.YELLOW + "\u26A0 Items despawning in " +
                                       ChatColor.RED + timeRemaining + ChatColor.YELLOW + " seconds!";
 
-                item.getWorld().getNearbyEntities(item.getLocation(), 20, 20, 20).stream()
-                    .filter(nearby -> nearby instanceof Player)
-                    .map(nearby -> (Player) nearby)
-                    .forEach(player -> {
-                        sendActionBar(player, warningMessage);
-                        if (timeRemaining == 10 || timeRemaining == 5 ||
-                            timeRemaining == 3 || timeRemaining == 2 || timeRemaining == 1) {
-                            player.sendMessage(ChatColor.RED + "[XreatOptimizer] " +
-                                             ChatColor.YELLOW + "Items will disappear in " +
-                                             ChatColor.RED + timeRemaining +
-                                             ChatColor.YELLOW + " second" +
-                                             (timeRemaining == 1 ? "" : "s") + "!");
-                        }
-                    });
+                getNearbyPlayers(item).forEach(player -> {
+                    sendActionBar(player, warningMessage);
+                    if (timeRemaining == 10 || timeRemaining == 5 ||
+                        timeRemaining == 3 || timeRemaining == 2 || timeRemaining == 1) {
+                        player.sendMessage(ChatColor.RED + "[XreatOptimizer] " +
+                                         ChatColor.YELLOW + "Items will disappear in " +
+                                         ChatColor.RED + timeRemaining +
+                                         ChatColor.YELLOW + " second" +
+                                         (timeRemaining == 1 ? "" : "s") + "!");
+                    }
+                });
             }
         }
     }
 
-    public int removeAllItems() {
-        int removed = 0;
+    private List<Player> getNearbyPlayers(Item item) {
+        SpatialIndexManager spatialIndex = plugin.getSpatialIndexManager();
+        if (spatialIndex != null && spatialIndex.isRunning()) {
+            return spatialIndex.getNearbyPlayers(item.getLocation(), 20.0);
+        }
 
-        for (UUID itemId : itemSpawnTimes.keySet()) {
-            Bukkit.getWorlds().forEach(world -> {
-                world.getEntities().stream()
-                    .filter(entity -> entity.getUniqueId().equals(itemId))
-                    .filter(entity -> entity instanceof Item)
-                    .forEach(entity -> {
-                        entity.remove();
-                    });
+        List<Player> players = new ArrayList<>();
+        for (org.bukkit.entity.Entity nearby : item.getWorld().getNearbyEntities(item.getLocation(), 20, 20, 20)) {
+            if (nearby instanceof Player) {
+                players.add((Player) nearby);
+            }
+        }
+        return players;
+    }
+
+    /** Remove every tracked item, spread across ticks. Completes with the number of items removed. */
+    public CompletableFuture<Integer> removeAllItems() {
+        RemoveTrackedItemsTask task = new RemoveTrackedItemsTask(new ArrayList<>(itemSpawnTimes.keySet()));
+        return plugin.getTickBudgetManager()
+            .submitSliced(task, TickBudgetManager.Priority.NORMAL, "entity_processing")
+            .thenApply(removed -> {
+                LoggerUtils.info("Manually removed " + removed + " tracked items.");
+                return removed;
             });
-            removed++;
+    }
+
+    private class RemoveTrackedItemsTask extends SlicedTask<Integer> {
+        private final List<UUID> itemIds;
+        private int index = 0;
+        private int removed = 0;
+
+        RemoveTrackedItemsTask(List<UUID> itemIds) {
+            super("remove_tracked_items");
+            this.itemIds = itemIds;
         }
 
-        itemSpawnTimes.clear();
-        LoggerUtils.info("Manually removed " + removed + " tracked items.");
-        return removed;
+        @Override
+        protected boolean step(Deadline deadline) {
+            while (index < itemIds.size()) {
+                if (deadline.isExpired()) {
+                    setProgress(index, itemIds.size());
+                    return false;
+                }
+                UUID itemId = itemIds.get(index++);
+                itemSpawnTimes.remove(itemId);
+                Entity entity = Bukkit.getEntity(itemId);
+                if (entity instanceof Item && entity.isValid()) {
+                    entity.remove();
+                    removed++;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected Integer getResult() {
+            return removed;
+        }
     }
 
     public int getTrackedItemCount() {
@@ -3,23 +3,25 @@ package com.xreatlabs.xreatoptimizer.managers;
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 import com.xreatlabs.xreatoptimizer.api.OptimizationEvent;
 import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
+import com.xreatlabs.xreatoptimizer.timeseries.DoubleRingBuffer;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class LagSpikeDetector {
     
     private final XreatOptimizer plugin;
-    private final Deque<TickData> tickHistory = new ConcurrentLinkedDeque<>();
+    private final DoubleRingBuffer tickHistory;
     private final List<LagSpike> detectedSpikes = new ArrayList<>();
     private BukkitTask monitorTask;
     private volatile boolean isRunning = false;
     
-    private final int HISTORY_SIZE = 600;
+    private final long[] spikeTimestamps = new long[TimeSeriesStore.TICK_CAPACITY];
+    private final double[] spikeTickTimes = new double[TimeSeriesStore.TICK_CAPACITY];
     private final double LAG_SPIKE_THRESHOLD = 100.0;
     private final double SEVERE_LAG_THRESHOLD = 200.0;
     private final int CONSECUTIVE_LAG_THRESHOLD = 3;
@@ -28,20 +30,6 @@ public class LagSpikeDetector {
     private int consecutiveLagTicks = 0;
     private boolean inLagSpike = false;
     
-    private static class TickData {
-        final long timestamp;
-        final double tickTime; // milliseconds
-        final double tps;
-        final long memoryUsed;
-        
-        public TickData(long timestamp, double tickTime, double tps, long memoryUsed) {
-            this.timestamp = timestamp;
-            this.tickTime = tickTime;
-            this.tps = tps;
-            this.memoryUsed = memoryUsed;
-        }
-    }
-    
     private static class LagSpike {
         final long startTime;
         long endTime;
@@ -70,6 +58,7 @@ public class LagSpikeDetector {
     
     public LagSpikeDetector(XreatOptimizer plugin) {
         this.plugin = plugin;
+        this.tickHistory = plugin.getTimeSeriesStore().get(TimeSeriesStore.TICK_MS);
     }
     
     public void start() {
@@ -84,7 +73,7 @@ public class LagSpikeDetector {
         // Monitor task - runs every tick
         monitorTask = Bukkit.getScheduler().runTaskTimer(
             plugin,
-            this::monitorTick,
+            plugin.getSubsystemProfiler().timed("lag_spike_detector", "cycle", this::monitorTick),
             1L,
             1L
         );
@@ -112,18 +101,8 @@ public class LagSpikeDetector {
         double tickTime = (now - lastTickTime) / 1_000_000.0; // Convert to milliseconds
         lastTickTime = now;
         
-        // Get current TPS and memory
-        double tps = TPSUtils.getTPS();
-        long memoryUsed = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-        
-        // Store tick data
-        TickData tickData = new TickData(System.currentTimeMillis(), tickTime, tps, memoryUsed);
-        tickHistory.addFirst(tickData);
-        
-        // Maintain history size
-        while (tickHistory.size() > HISTORY_SIZE) {
-            tickHistory.removeLast();
-        }
+        // Store tick time (ms) in the shared per-tick series
+        tickHistory.append(System.currentTimeMillis(), tickTime);
         
         // Detect lag spike
         if (tickTime > LAG_SPIKE_THRESHOLD) {
@@ -192,9 +171,10 @@ public class LagSpikeDetector {
             // Calculate average
             double sum = 0;
             int count = 0;
-            for (TickData data : tickHistory) {
-                if (data.timestamp >= spike.startTime && data.timestamp <= spike.endTime) {
-                    sum += data.tickTime;
+            int samples = tickHistory.copyLast(tickHistory.countSince(spike.startTime), spikeTimestamps, spikeTickTimes);
+            for (int i = 0; i < samples; i++) {
+                if (spikeTimestamps[i] <= spike.endTime) {
+                    sum += spikeTickTimes[i];
                     count++;
                 }
             }
@@ -274,7 +254,9 @@ public class LagSpikeDetector {
             if (plugin.getConfig().getBoolean("notifications.enabled", false)) {
                 String webhook = plugin.getConfig().getString("notifications.discord_webhook", "");
                 if (!webhook.isEmpty()) {
-                    sendDiscordNotification(webhook, spike);
+                    if (!plugin.getThreadPoolManager().executeIoTask(() -> sendDiscordNotification(webhook, spike))) {
+                        LoggerUtils.warn("IO queue is full; skipped the Discord notification for this lag spike");
+                    }
                 }
             }
             
@@ -325,10 +307,7 @@ public class LagSpikeDetector {
         stats.put("consecutive_lag_ticks", consecutiveLagTicks);
         
         if (!tickHistory.isEmpty()) {
-            double avgTickTime = tickHistory.stream()
-                .mapToDouble(t -> t.tickTime)
-                .average()
-                .orElse(0.0);
+            double avgTickTime = tickHistory.average(tickHistory.capacity());
             stats.put("avg_tick_time_ms", String.format("%.2f", avgTickTime));
         }
         
@@ -3,13 +3,13 @@ package com.xreatlabs.xreatoptimizer.managers;
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 import com.xreatlabs.xreatoptimizer.api.OptimizationEvent;
 import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.World;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.lang.ref.SoftReference;
 import java.util.Iterator;
@@ -20,7 +20,7 @@ import java.util.zip.Deflater;
 
 public class MemorySaver {
     private final XreatOptimizer plugin;
-    private BukkitTask memoryTask;
+    private SubsystemScheduler.Registration memoryTask;
     private final Map<String, SoftReference<CachedChunkData>> chunkCache = new ConcurrentHashMap<>();
     private final Set<String> recentlyAccessedChunks = ConcurrentHashMap.newKeySet();
     private volatile boolean isRunning = false;
@@ -82,12 +82,7 @@ public class MemorySaver {
             return;
         }
 
-        memoryTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runMemoryOptimization,
-            600L,
-            600L
-        );
+        memoryTask = plugin.getSubsystemScheduler().schedule("memory_saver", 600L, 1.0, this::runMemoryOptimization);
 
         isRunning = true;
         LoggerUtils.info("Memory saver system started.");
@@ -1,18 +1,18 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.Map;
 import java.util.WeakHashMap;
 
 public class NetworkOptimizer {
     private final XreatOptimizer plugin;
-    private BukkitTask optimizationTask;
+    private SubsystemScheduler.Registration optimizationTask;
     private final Map<Player, PlayerNetworkStats> playerStats = new WeakHashMap<>();
     private volatile boolean isRunning = false;
     private boolean featureEnabled = true;
@@ -45,12 +45,7 @@ public class NetworkOptimizer {
             return;
         }
 
-        optimizationTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::runNetworkOptimizations,
-            100L,
-            100L
-        );
+        optimizationTask = plugin.getSubsystemScheduler().schedule("network_optimizer", 100L, 1.0, this::runNetworkOptimizations);
 
         isRunning = true;
         LoggerUtils.info("Network optimizer started.");
@@ -2,16 +2,20 @@ package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 import com.xreatlabs.xreatoptimizer.core.AdaptiveThresholdManager;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.profiling.TickClock;
 import com.xreatlabs.xreatoptimizer.api.OptimizationEvent;
+import com.xreatlabs.xreatoptimizer.api.OptimizationStrategy;
 import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.Bukkit;
 
 public class OptimizationManager {
     private final XreatOptimizer plugin;
-    private BukkitTask optimizationTask;
+    private final StrategyPipeline strategyPipeline;
+    private SubsystemScheduler.Registration optimizationTask;
     private OptimizationProfile currentProfile = OptimizationProfile.AUTO;
     private OptimizationProfile effectiveProfile = OptimizationProfile.NORMAL;
     private volatile boolean isRunning = false;
@@ -33,17 +37,14 @@ public class OptimizationManager {
     
     public OptimizationManager(XreatOptimizer plugin) {
         this.plugin = plugin;
+        this.strategyPipeline = new StrategyPipeline(plugin);
         String initialProfile = plugin.getConfig().getString("general.initial_profile", "AUTO");
         this.currentProfile = OptimizationProfile.valueOf(initialProfile.toUpperCase());
     }
     
     public void start() {
-        optimizationTask = plugin.getServer().getScheduler().runTaskTimer(
-            plugin,
-            this::runOptimizationCycle,
-            20L,
-            100L
-        );
+        strategyPipeline.start();
+        optimizationTask = plugin.getSubsystemScheduler().schedule("optimization_manager", 100L, 20L, 1.0, this::runOptimizationCycle);
         isRunning = true;
         LoggerUtils.info("Optimization manager started with profile: " + currentProfile);
     }
@@ -53,6 +54,7 @@ public class OptimizationManager {
         if (optimizationTask != null) {
             optimizationTask.cancel();
         }
+        strategyPipeline.stop();
         LoggerUtils.info("Optimization manager stopped.");
     }
     
@@ -104,12 +106,23 @@ public class OptimizationManager {
             }
         }
 
+        // Third-party strategies run last so they see the profile this cycle settled on
+        strategyPipeline.runCycle(buildContext(currentTPS, memoryUsage));
+
         long executionTime = System.currentTimeMillis() - startTime;
         OptimizationEvent.AfterOptimizationEvent afterEvent =
             new OptimizationEvent.AfterOptimizationEvent(effectiveProfile.name(), executionTime, true);
         XreatOptimizerAPI.fireEvent(afterEvent);
     }
     
+    private OptimizationStrategy.OptimizationContext buildContext(double tps, double memoryPercent) {
+        EntityCountTracker tracker = plugin.getEntityCountTracker();
+        int entities = tracker != null ? tracker.getTotalEntityCount() : 0;
+        int chunks = tracker != null ? tracker.getTotalChunkCount() : 0;
+        return new OptimizationStrategy.OptimizationContext(tps, memoryPercent, entities, chunks,
+            Bukkit.getOnlinePlayers().size(), effectiveProfile.name());
+    }
+
     private void adjustProfileAutomatically() {
         double currentTPS = TPSUtils.getTPS();
         double memoryUsage = MemoryUtils.getMemoryUsagePercentage();
@@ -136,9 +149,47 @@ public class OptimizationManager {
                 newProfile = OptimizationProfile.AGGRESSIVE;
             }
         }
+
+        // Escalate on tail latency: stutters show up in p95/p99 long before average TPS drops
+        OptimizationProfile latencyProfile = getTailLatencyProfile();
+        if (latencyProfile != null && latencyProfile.ordinal() > newProfile.ordinal()) {
+            newProfile = latencyProfile;
+        }
         
         effectiveProfile = newProfile;
     }
+
+    /** Profile demanded by tick duration percentiles, or null when not applicable */
+    private OptimizationProfile getTailLatencyProfile() {
+        if (!plugin.getConfig().getBoolean("optimization.tail_latency.enabled", true)) {
+            return null;
+        }
+        TickClock clock = plugin.getTickClock();
+        // Scheduler-interval samples include idle time, so only real tick durations are usable
+        if (clock == null || !clock.isRunning() || !clock.isMeasuringTickDuration()) {
+            return null;
+        }
+
+        TickClock.Window window = TickClock.Window.fromLabel(
+            plugin.getConfig().getString("optimization.tail_latency.window", "1m"));
+        if (window == null) {
+            window = TickClock.Window.MINUTE_1;
+        }
+        TickClock.TickStats stats = clock.getStats(window);
+        if (stats.count == 0) {
+            return null;
+        }
+
+        double mspt = stats.getPercentile(plugin.getConfig().getDouble("optimization.tail_latency.percentile", 95));
+        if (mspt > plugin.getConfig().getDouble("optimization.tail_latency.thresholds_ms.emergency", 100)) {
+            return OptimizationProfile.EMERGENCY;
+        } else if (mspt > plugin.getConfig().getDouble("optimization.tail_latency.thresholds_ms.aggressive", 50)) {
+            return OptimizationProfile.AGGRESSIVE;
+        } else if (mspt > plugin.getConfig().getDouble("optimization.tail_latency.thresholds_ms.normal", 40)) {
+            return OptimizationProfile.NORMAL;
+        }
+        return null;
+    }
     
     /** Get TPS threshold */
     private double getThreshold(String level, double defaultValue) {
@@ -278,6 +329,7 @@ public class OptimizationManager {
     public void reloadConfig() {
         String profileName = plugin.getConfig().getString("general.initial_profile", "AUTO");
         this.currentProfile = OptimizationProfile.valueOf(profileName.toUpperCase());
+        strategyPipeline.reloadConfig();
         LoggerUtils.info("Configuration reloaded. Profile set to: " + currentProfile);
     }
 
@@ -286,6 +338,10 @@ public class OptimizationManager {
         LoggerUtils.info("Forced optimization cycle executed");
     }
 
+    public StrategyPipeline getStrategyPipeline() {
+        return strategyPipeline;
+    }
+
     public int getMaxEntityLimit() {
         return plugin.getConfig().getInt("entity_limiter.max_entities_per_chunk", 50);
     }
@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import org.bukkit.Location;
 import org.bukkit.util.Vector;
@@ -13,7 +14,7 @@ public class PathfindingCache {
     private final XreatOptimizer plugin;
     private final Map<PathKey, CachedPath> pathCache = new ConcurrentHashMap<>();
     private final Map<String, Long> worldModifications = new ConcurrentHashMap<>();
-    private org.bukkit.scheduler.BukkitTask cleanupTask;
+    private SubsystemScheduler.Registration cleanupTask;
     private boolean enabled;
 
     private static final int MAX_CACHE_SIZE = 10000;
@@ -89,12 +90,7 @@ public class PathfindingCache {
             return;
         }
 
-        cleanupTask = org.bukkit.Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::cleanupCache,
-            1200L,
-            1200L
-        );
+        cleanupTask = plugin.getSubsystemScheduler().schedule("pathfinding_cache_cleanup", 1200L, 0.5, this::cleanupCache);
 
         LoggerUtils.info("Pathfinding cache started - reducing repeated path calculations");
     }
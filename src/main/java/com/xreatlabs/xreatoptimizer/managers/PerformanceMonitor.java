@@ -1,59 +1,64 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.profiling.TickClock;
+import com.xreatlabs.xreatoptimizer.storage.RollupEngine;
 import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage;
+import com.xreatlabs.xreatoptimizer.timeseries.DoubleRingBuffer;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
 import com.xreatlabs.xreatoptimizer.utils.EntityUtils;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
+import com.xreatlabs.xreatoptimizer.web.WebDashboard;
 import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PerformanceMonitor {
     private final XreatOptimizer plugin;
-    private BukkitTask monitorTask;
-    private final Map<String, Object> metrics = new ConcurrentHashMap<>();
-
-    private static final int MAX_HISTORY = 720;
-    private final ConcurrentLinkedDeque<Double> tpsHistory = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Double> memoryHistory = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Integer> entityHistory = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Integer> chunkHistory = new ConcurrentLinkedDeque<>();
+    private SubsystemScheduler.Registration monitorTask;
+    // Replaced as a whole each sample; readers on any thread see one consistent sample
+    private volatile MetricsSnapshot snapshot = MetricsSnapshot.EMPTY;
+    // Chunk loads minus unloads since the last sample, which recounts and resets it. Written on the
+    // main thread, read by placeholders that may run off it
+    private final AtomicInteger chunkDelta = new AtomicInteger();
+
+    // Samples are taken every second; reports, storage and statistics run every fifth sample
+    private static final int SAMPLES_PER_CYCLE = 5;
+    private final DoubleRingBuffer tpsSeries;
+    private final DoubleRingBuffer memorySeries;
+    private final DoubleRingBuffer memoryUsedSeries;
+    private final DoubleRingBuffer memoryMaxSeries;
+    private final DoubleRingBuffer entitySeries;
+    private final DoubleRingBuffer chunkSeries;
+    private final DoubleRingBuffer playerSeries;
+    private int sampleCounter = 0;
 
     private double minTps = 20.0;
     private double maxTps = 20.0;
-    private double sumTps = 0.0;
-    private int tpsCount = 0;
-
-    private double minMemory = 100.0;
-    private double maxMemory = 0.0;
-    private double sumMemory = 0.0;
-    private int memoryCount = 0;
-
-    private int maxEntities = 0;
-    private int maxChunks = 0;
-    private int maxPlayers = 0;
 
     public PerformanceMonitor(XreatOptimizer plugin) {
         this.plugin = plugin;
-        metrics.put("tps", 20.0);
-        metrics.put("used_memory_mb", 0L);
-        metrics.put("max_memory_mb", 0L);
-        metrics.put("memory_percentage", 0.0);
-        metrics.put("avg_tick_time_ms", 50.0);
-        metrics.put("entity_count", 0);
-        metrics.put("chunk_count", 0);
-        metrics.put("player_count", 0);
+        TimeSeriesStore store = plugin.getTimeSeriesStore();
+        this.tpsSeries = store.get(TimeSeriesStore.TPS);
+        this.memorySeries = store.get(TimeSeriesStore.MEMORY_PERCENT);
+        this.memoryUsedSeries = store.get(TimeSeriesStore.MEMORY_USED_MB);
+        this.memoryMaxSeries = store.get(TimeSeriesStore.MEMORY_MAX_MB);
+        this.entitySeries = store.get(TimeSeriesStore.ENTITIES);
+        this.chunkSeries = store.get(TimeSeriesStore.CHUNKS);
+        this.playerSeries = store.get(TimeSeriesStore.PLAYERS);
     }
 
     public void start() {
@@ -61,12 +66,7 @@ public class PerformanceMonitor {
             return;
         }
 
-        monitorTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::updateMetrics,
-            100L,
-            100L
-        );
+        monitorTask = plugin.getSubsystemScheduler().schedule("performance_monitor", 20L, 0.5, this::updateMetrics);
         LoggerUtils.info("Performance monitoring started.");
     }
 
@@ -80,32 +80,42 @@ public class PerformanceMonitor {
 
     private void updateMetrics() {
         double currentTPS = TPSUtils.getTPS();
-        metrics.put("tps", currentTPS);
 
         long usedMemory = MemoryUtils.getUsedMemoryMB();
         long maxMemory = MemoryUtils.getMaxMemoryMB();
         double memoryPercentage = MemoryUtils.getMemoryUsagePercentage();
-        metrics.put("used_memory_mb", usedMemory);
-        metrics.put("max_memory_mb", maxMemory);
-        metrics.put("memory_percentage", memoryPercentage);
 
         double avgTickTime = TPSUtils.getAverageTickTime();
-        metrics.put("avg_tick_time_ms", avgTickTime);
+
+        TickClock.TickStats tickStats = getTickStats(TickClock.Window.MINUTE_1);
 
         int entityCount = EntityUtils.getTotalEntityCount();
-        metrics.put("entity_count", entityCount);
 
         int chunkCount = 0;
-        for (org.bukkit.World world : Bukkit.getWorlds()) {
-            chunkCount += world.getLoadedChunks().length;
+        EntityCountTracker tracker = plugin.getEntityCountTracker();
+        if (tracker != null && tracker.isRunning()) {
+            chunkCount = tracker.getTotalChunkCount();
+        } else {
+            for (org.bukkit.World world : Bukkit.getWorlds()) {
+                chunkCount += world.getLoadedChunks().length;
+            }
         }
-        metrics.put("chunk_count", chunkCount);
 
         int playerCount = Bukkit.getOnlinePlayers().size();
-        metrics.put("player_count", playerCount);
 
-        addToHistory(currentTPS, memoryPercentage, entityCount, chunkCount);
-        updateStatistics(currentTPS, memoryPercentage, entityCount, chunkCount, playerCount);
+        chunkDelta.set(0);
+        snapshot = new MetricsSnapshot(System.currentTimeMillis(), currentTPS, avgTickTime,
+            tickStats.p50, tickStats.p95, tickStats.p99, usedMemory, maxMemory, memoryPercentage,
+            entityCount, chunkCount, playerCount);
+
+        addToHistory(currentTPS, memoryPercentage, usedMemory, maxMemory, entityCount, chunkCount, playerCount);
+
+        if (++sampleCounter < SAMPLES_PER_CYCLE) {
+            return;
+        }
+        sampleCounter = 0;
+
+        updateStatistics(currentTPS);
 
         if (System.currentTimeMillis() % 60000 < 5000) {
             LoggerUtils.debug("Performance Metrics - TPS: " + String.format("%.2f", currentTPS) +
@@ -114,44 +124,43 @@ public class PerformanceMonitor {
                 ", Chunks: " + chunkCount);
         }
 
-        feedStatisticsStorage(currentTPS, memoryPercentage, entityCount, chunkCount);
+        feedStatisticsStorage(currentTPS, memoryPercentage, entityCount, chunkCount, avgTickTime);
         maybeGenerateReport();
     }
 
-    private void addToHistory(double tps, double memory, int entities, int chunks) {
-        tpsHistory.addLast(tps);
-        memoryHistory.addLast(memory);
-        entityHistory.addLast(entities);
-        chunkHistory.addLast(chunks);
+    private void addToHistory(double tps, double memory, long usedMemory, long maxMemory,
+                              int entities, int chunks, int players) {
+        long now = System.currentTimeMillis();
+        tpsSeries.append(now, tps);
+        memorySeries.append(now, memory);
+        memoryUsedSeries.append(now, usedMemory);
+        memoryMaxSeries.append(now, maxMemory);
+        entitySeries.append(now, entities);
+        chunkSeries.append(now, chunks);
+        playerSeries.append(now, players);
 
-        while (tpsHistory.size() > MAX_HISTORY) tpsHistory.removeFirst();
-        while (memoryHistory.size() > MAX_HISTORY) memoryHistory.removeFirst();
-        while (entityHistory.size() > MAX_HISTORY) entityHistory.removeFirst();
-        while (chunkHistory.size() > MAX_HISTORY) chunkHistory.removeFirst();
+        StatisticsStorage storage = plugin.getStatisticsStorage();
+        if (storage != null) {
+            storage.recordSample(now, tps, memory, entities, chunks, players);
+        }
+
+        WebDashboard dashboard = plugin.getWebDashboard();
+        if (dashboard != null && dashboard.isRunning()) {
+            dashboard.publishSample(now, tps, memory, usedMemory, maxMemory, entities, chunks, players);
+        }
     }
 
-    private void updateStatistics(double tps, double memory, int entities, int chunks, int players) {
+    private void updateStatistics(double tps) {
         minTps = Math.min(minTps, tps);
         maxTps = Math.max(maxTps, tps);
-        sumTps += tps;
-        tpsCount++;
-
-        minMemory = Math.min(minMemory, memory);
-        maxMemory = Math.max(maxMemory, memory);
-        sumMemory += memory;
-        memoryCount++;
-
-        maxEntities = Math.max(maxEntities, entities);
-        maxChunks = Math.max(maxChunks, chunks);
-        maxPlayers = Math.max(maxPlayers, players);
     }
 
-    private void feedStatisticsStorage(double tps, double memory, int entities, int chunks) {
+    private void feedStatisticsStorage(double tps, double memory, int entities, int chunks, double mspt) {
         StatisticsStorage storage = plugin.getStatisticsStorage();
         if (storage != null) {
             String profile = plugin.getOptimizationManager() != null ?
                 plugin.getOptimizationManager().getEffectiveProfile().name() : "NORMAL";
-            storage.recordSnapshot(tps, memory, entities, chunks, profile);
+            storage.recordSnapshot(tps, memory, entities, chunks, profile, mspt);
         }
     }
 
@@ -172,150 +181,170 @@ public class PerformanceMonitor {
     }
 
     private void generateHourlyReport(LocalDateTime time) {
-        try {
-            String fileName = "hourly_report_" + time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH")) + ".txt";
-            File reportFile = new File(plugin.getDataFolder(), "reports/" + fileName);
-
-            try (FileWriter writer = new FileWriter(reportFile)) {
-                writer.write("XreatOptimizer Hourly Performance Report\n");
-                writer.write("Generated at: " + time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
-                writer.write("========================================\n\n");
-
-                writer.write("TPS Average: " + getAverageTPS() + "\n");
-                writer.write("Memory Usage Peak: " + getPeakMemoryUsage() + "%\n");
-                writer.write("Max Entities: " + getMaxEntityCount() + "\n");
-                writer.write("Max Chunks Loaded: " + getMaxChunkCount() + "\n");
-                writer.write("Max Players Online: " + getMaxPlayerCount() + "\n");
-            }
-        } catch (IOException e) {
-            LoggerUtils.error("Could not generate hourly report", e);
-        }
+        RollupEngine.Summary hour = getSummary(1);
+        String fileName = "hourly_report_" + time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH")) + ".txt";
+        StringBuilder report = new StringBuilder();
+        report.append("XreatOptimizer Hourly Performance Report\n");
+        report.append("Generated at: ").append(time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+        report.append("========================================\n\n");
+
+        report.append("TPS Average: ").append(getAverageTPS(hour)).append("\n");
+        report.append("Memory Usage Peak: ").append(hour.getMax(RollupEngine.Metric.MEMORY)).append("%\n");
+        report.append("Max Entities: ").append((int) hour.getMax(RollupEngine.Metric.ENTITIES)).append("\n");
+        report.append("Max Chunks Loaded: ").append((int) hour.getMax(RollupEngine.Metric.CHUNKS)).append("\n");
+        report.append("Max Players Online: ").append((int) hour.getMax(RollupEngine.Metric.PLAYERS)).append("\n");
+
+        writeReport(new File(plugin.getDataFolder(), "reports/" + fileName), report.toString(), "hourly");
     }
 
     private void generateDailyReport(LocalDateTime time) {
-        try {
-            String fileName = "daily_report_" + time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".txt";
-            File reportFile = new File(plugin.getDataFolder(), "reports/" + fileName);
+        RollupEngine.Summary day = getSummary(24);
+        List<RollupEngine.Row> minutes = getMinuteRows(24);
+        String fileName = "daily_report_" + time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".txt";
+        StringBuilder report = new StringBuilder();
+        report.append("XreatOptimizer Daily Performance Report\n");
+        report.append("Generated at: ").append(time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))).append("\n");
+        report.append("========================================\n\n");
+
+        report.append("Average TPS: ").append(getAverageTPS(day)).append("\n");
+        report.append("Memory Usage Average: ").append(day.getAverage(RollupEngine.Metric.MEMORY)).append("%\n");
+        report.append("Memory Usage Peak: ").append(day.getMax(RollupEngine.Metric.MEMORY)).append("%\n");
+        report.append("Average Entities: ").append((int) day.getAverage(RollupEngine.Metric.ENTITIES)).append("\n");
+        report.append("Max Entities: ").append((int) day.getMax(RollupEngine.Metric.ENTITIES)).append("\n");
+        report.append("Average Chunks Loaded: ").append((int) day.getAverage(RollupEngine.Metric.CHUNKS)).append("\n");
+        report.append("Peak Players: ").append((int) day.getMax(RollupEngine.Metric.PLAYERS)).append("\n");
+
+        report.append("\nPerformance Statistics:\n");
+        report.append("- Time spent under 15 TPS: ").append(getTimeUnderTPSThreshold(minutes, 15.0)).append(" minutes\n");
+        report.append("- Time spent under 10 TPS: ").append(getTimeUnderTPSThreshold(minutes, 10.0)).append(" minutes\n");
+        report.append("- Memory pressure incidents: ").append(getMemoryPressureEvents(minutes)).append("\n");
+
+        writeReport(new File(plugin.getDataFolder(), "reports/" + fileName), report.toString(), "daily");
+    }
 
+    /** Report content is gathered on the main thread; the file write happens on the IO pool. */
+    private void writeReport(File reportFile, String content, String kind) {
+        boolean queued = plugin.getThreadPoolManager().executeIoTask(() -> {
             try (FileWriter writer = new FileWriter(reportFile)) {
-                writer.write("XreatOptimizer Daily Performance Report\n");
-                writer.write("Generated at: " + time.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + "\n");
-                writer.write("========================================\n\n");
-
-                writer.write("Average TPS: " + getAverageTPS() + "\n");
-                writer.write("Memory Usage Average: " + getAverageMemoryUsage() + "%\n");
-                writer.write("Memory Usage Peak: " + getPeakMemoryUsage() + "%\n");
-                writer.write("Average Entities: " + getAverageEntityCount() + "\n");
-                writer.write("Max Entities: " + getMaxEntityCount() + "\n");
-                writer.write("Average Chunks Loaded: " + getAverageChunkCount() + "\n");
-                writer.write("Peak Players: " + getMaxPlayerCount() + "\n");
-
-                writer.write("\nPerformance Statistics:\n");
-                writer.write("- Time spent under 15 TPS: " + getTimeUnderTPSThreshold(15.0) + " minutes\n");
-                writer.write("- Time spent under 10 TPS: " + getTimeUnderTPSThreshold(10.0) + " minutes\n");
-                writer.write("- Memory pressure incidents: " + getMemoryPressureEvents() + "\n");
+                writer.write(content);
+            } catch (IOException e) {
+                LoggerUtils.error("Could not generate " + kind + " report", e);
             }
-        } catch (IOException e) {
-            LoggerUtils.error("Could not generate daily report", e);
+        });
+        if (!queued) {
+            LoggerUtils.warn("IO queue is full; skipped writing the " + kind + " report " + reportFile.getName());
         }
     }
 
+    /** Latest sample. Prefer this over the individual getters when reading several values. */
+    public MetricsSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /** The latest sample as a map keyed by metric name. */
     public Map<String, Object> getMetrics() {
-        return new HashMap<>(metrics);
+        MetricsSnapshot current = snapshot;
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("tps", current.getTps());
+        metrics.put("used_memory_mb", current.getUsedMemoryMb());
+        metrics.put("max_memory_mb", current.getMaxMemoryMb());
+        metrics.put("memory_percentage", current.getMemoryPercent());
+        metrics.put("avg_tick_time_ms", current.getAvgTickTimeMs());
+        metrics.put("mspt_p50", current.getMsptP50());
+        metrics.put("mspt_p95", current.getMsptP95());
+        metrics.put("mspt_p99", current.getMsptP99());
+        metrics.put("entity_count", current.getEntityCount());
+        metrics.put("chunk_count", current.getChunkCount());
+        metrics.put("player_count", current.getPlayerCount());
+        return metrics;
     }
 
     public Object getMetric(String key) {
-        Object value = metrics.get(key);
-        if (value == null) {
-            switch (key) {
-                case "tps":
-                case "memory_percentage":
-                case "avg_tick_time_ms":
-                    return 20.0;
-                case "entity_count":
-                case "chunk_count":
-                case "player_count":
-                    return 0;
-                case "used_memory_mb":
-                case "max_memory_mb":
-                    return 0L;
-                default:
-                    return 0.0;
-            }
+        MetricsSnapshot current = snapshot;
+        switch (key) {
+            case "tps": return current.getTps();
+            case "used_memory_mb": return current.getUsedMemoryMb();
+            case "max_memory_mb": return current.getMaxMemoryMb();
+            case "memory_percentage": return current.getMemoryPercent();
+            case "avg_tick_time_ms": return current.getAvgTickTimeMs();
+            case "mspt_p50": return current.getMsptP50();
+            case "mspt_p95": return current.getMsptP95();
+            case "mspt_p99": return current.getMsptP99();
+            case "entity_count": return current.getEntityCount();
+            case "chunk_count": return current.getChunkCount();
+            case "player_count": return current.getPlayerCount();
+            default: return 0.0;
+        }
+    }
+
+    /** Rolling tick-duration percentiles from the tick clock. */
+    public TickClock.TickStats getTickStats(TickClock.Window window) {
+        TickClock tickClock = plugin.getTickClock();
+        if (tickClock == null) {
+            return TickClock.EMPTY;
         }
-        return value;
+        return tickClock.getStats(window);
     }
 
     public double getCurrentTPS() {
-        return (double) metrics.getOrDefault("tps", 20.0);
+        return snapshot.getTps();
     }
 
     public double getCurrentMemoryPercentage() {
-        return (double) metrics.getOrDefault("memory_percentage", 0.0);
+        return snapshot.getMemoryPercent();
     }
 
     public int getCurrentEntityCount() {
-        return (int) metrics.getOrDefault("entity_count", 0);
+        return snapshot.getEntityCount();
     }
 
+    /** Chunk count of the last sample plus loads and unloads seen since. */
     public int getCurrentChunkCount() {
-        return (int) metrics.getOrDefault("chunk_count", 0);
+        return Math.max(0, snapshot.getChunkCount() + chunkDelta.get());
     }
 
     public int getCurrentPlayerCount() {
-        return (int) metrics.getOrDefault("player_count", 0);
-    }
-
-    private double getAverageTPS() {
-        return tpsCount > 0 ? sumTps / tpsCount : 20.0;
-    }
-
-    private double getPeakMemoryUsage() {
-        return maxMemory;
-    }
-
-    private int getMaxEntityCount() {
-        return maxEntities;
+        return snapshot.getPlayerCount();
     }
 
-    private int getMaxChunkCount() {
-        return maxChunks;
-    }
-
-    private int getMaxPlayerCount() {
-        return maxPlayers;
-    }
-
-    private double getAverageMemoryUsage() {
-        return memoryCount > 0 ? sumMemory / memoryCount : 0.0;
+    private RollupEngine.Summary getSummary(int hours) {
+        StatisticsStorage storage = plugin.getStatisticsStorage();
+        if (storage == null) {
+            return RollupEngine.Summary.of(Collections.emptyList());
+        }
+        return storage.getSummary(hours);
     }
 
-    private int getAverageEntityCount() {
-        if (entityHistory.isEmpty()) return 0;
-        long sum = 0;
-        for (int v : entityHistory) sum += v;
-        return (int) (sum / entityHistory.size());
+    private List<RollupEngine.Row> getMinuteRows(int hours) {
+        StatisticsStorage storage = plugin.getStatisticsStorage();
+        if (storage == null) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        return storage.getRollups().query(RollupEngine.Tier.MINUTE, now - hours * 3600000L, now + 1);
     }
 
-    private int getAverageChunkCount() {
-        if (chunkHistory.isEmpty()) return 0;
-        long sum = 0;
-        for (int v : chunkHistory) sum += v;
-        return (int) (sum / chunkHistory.size());
+    private double getAverageTPS(RollupEngine.Summary summary) {
+        return summary.getCount() > 0 ? summary.getAverage(RollupEngine.Metric.TPS) : 20.0;
     }
 
-    private int getTimeUnderTPSThreshold(double threshold) {
+    /** Minutes whose average TPS was below the threshold. */
+    private int getTimeUnderTPSThreshold(List<RollupEngine.Row> minutes, double threshold) {
         int count = 0;
-        for (double tps : tpsHistory) {
-            if (tps < threshold) count++;
+        for (RollupEngine.Row row : minutes) {
+            if (row.getAverage(RollupEngine.Metric.TPS) < threshold) {
+                count++;
+            }
         }
-        return (count * 5) / 60;
+        return count;
     }
 
-    private int getMemoryPressureEvents() {
+    /** Runs of consecutive minutes whose peak memory was above 80%. */
+    private int getMemoryPressureEvents(List<RollupEngine.Row> minutes) {
         int events = 0;
         boolean inPressure = false;
-        for (double mem : memoryHistory) {
+        for (RollupEngine.Row row : minutes) {
+            double mem = row.getMax(RollupEngine.Metric.MEMORY);
             if (mem > 80.0 && !inPressure) {
                 events++;
                 inPressure = true;
@@ -329,20 +358,18 @@ public class PerformanceMonitor {
     public double getMinTps() { return minTps; }
     public double getMaxTps() { return maxTps; }
 
+    // Event updates between samples run on the main thread, like updateMetrics, so they cannot race
+
     public void updatePlayerCount() {
-        metrics.put("player_count", Bukkit.getOnlinePlayers().size());
+        snapshot = snapshot.withPlayerCount(Bukkit.getOnlinePlayers().size());
     }
 
     public void incrementChunkLoads() {
-        int current = (int) metrics.getOrDefault("chunk_count", 0);
-        metrics.put("chunk_count", current + 1);
+        chunkDelta.incrementAndGet();
     }
 
     public void decrementChunkLoads() {
-        int current = (int) metrics.getOrDefault("chunk_count", 0);
-        if (current > 0) {
-            metrics.put("chunk_count", current - 1);
-        }
+        chunkDelta.decrementAndGet();
     }
 
     public void incrementEntityCount() {
@@ -1,6 +1,7 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -10,7 +11,6 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
-import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.util.Vector;
 
 import java.util.*;
@@ -21,7 +21,7 @@ public class PredictiveChunkLoader implements Listener {
     private final XreatOptimizer plugin;
     private final Map<UUID, PlayerMovementData> playerMovement = new ConcurrentHashMap<>();
     private final Map<String, Set<ChunkCoord>> preloadedChunks = new ConcurrentHashMap<>();
-    private BukkitTask predictionTask;
+    private SubsystemScheduler.Registration predictionTask;
     private volatile boolean isRunning = false;
 
     private int predictionDistance = 5;
@@ -130,14 +130,9 @@ public class PredictiveChunkLoader implements Listener {
         }
 
         isRunning = true;
-        Bukkit.getPluginManager().registerEvents(this, plugin);
+        plugin.getSubsystemProfiler().registerEvents(this, "predictive_chunk_loader");
 
-        predictionTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::processPredictions,
-            20L,
-            10L
-        );
+        predictionTask = plugin.getSubsystemScheduler().schedule("predictive_chunk_loader", 10L, 20L, 1.0, this::processPredictions);
 
         LoggerUtils.info("Predictive chunk loader started - will preload chunks based on player movement");
     }
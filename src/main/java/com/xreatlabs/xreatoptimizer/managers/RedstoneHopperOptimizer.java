@@ -1,23 +1,27 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.snapshot.WorldSnapshot;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import com.xreatlabs.xreatoptimizer.utils.LongIntHashMap;
 import org.bukkit.Bukkit;
-import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.BlockState;
 import org.bukkit.block.Hopper;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockRedstoneEvent;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
-import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class RedstoneHopperOptimizer implements Listener {
@@ -26,7 +30,7 @@ public class RedstoneHopperOptimizer implements Listener {
     private final Map<Location, Long> redstoneUpdateCache = new ConcurrentHashMap<>();
     private final Map<Location, HopperData> hopperCache = new ConcurrentHashMap<>();
     private final Set<Location> optimizedHoppers = ConcurrentHashMap.newKeySet();
-    private BukkitTask cleanupTask;
+    private SubsystemScheduler.Registration cleanupTask;
     private volatile boolean isRunning = false;
 
     private final int MAX_HOPPERS_PER_CHUNK = 16;
@@ -61,14 +65,9 @@ public class RedstoneHopperOptimizer implements Listener {
         }
 
         isRunning = true;
-        Bukkit.getPluginManager().registerEvents(this, plugin);
+        plugin.getSubsystemProfiler().registerEvents(this, "redstone_hopper");
 
-        cleanupTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::cleanupCaches,
-            100L,
-            100L
-        );
+        cleanupTask = plugin.getSubsystemScheduler().schedule("redstone_hopper_cleanup", 100L, 0.5, this::cleanupCaches);
 
         Bukkit.getScheduler().runTaskLater(plugin, this::scanAndOptimizeHoppers, 100L);
         LoggerUtils.info("Redstone/Hopper optimizer started - monitoring high-density redstone and hopper activity");
@@ -105,29 +104,32 @@ public class RedstoneHopperOptimizer implements Listener {
         data.markMove();
     }
 
+    /** Tile entities are captured a slice per tick; density is analyzed on the analytics pool. */
     private void scanAndOptimizeHoppers() {
-        plugin.getThreadPoolManager().executeAnalyticsTask(() -> {
+        if (!isRunning) return;
+
+        plugin.getSnapshotPipeline().submit("hopper_scan", WorldSnapshot.TILE_ENTITIES, (snapshots, commands) -> {
             int totalHoppers = 0;
             int optimizedCount = 0;
 
-            for (World world : Bukkit.getWorlds()) {
-                try {
-                    for (Chunk chunk : world.getLoadedChunks()) {
-                        Map<Location, Integer> hopperDensity = new HashMap<>();
-                        for (BlockState state : chunk.getTileEntities()) {
-                            if (state instanceof Hopper) {
-                                totalHoppers++;
-                                Location loc = state.getLocation();
-                                hopperDensity.put(loc, hopperDensity.getOrDefault(loc, 0) + 1);
-                                if (hopperDensity.size() > MAX_HOPPERS_PER_CHUNK) {
-                                    optimizedHoppers.add(loc);
-                                    optimizedCount++;
-                                }
-                            }
-                        }
+            for (WorldSnapshot snapshot : snapshots) {
+                LongIntHashMap hoppersPerChunk = new LongIntHashMap();
+                List<Long> denseHoppers = new ArrayList<>();
+                for (int i = 0; i < snapshot.getTileCount(); i++) {
+                    if (snapshot.getTileMaterial(i) != Material.HOPPER) continue;
+                    totalHoppers++;
+                    long position = snapshot.getTilePosition(i);
+                    long chunkKey = EntityCountTracker.chunkKey(
+                        WorldSnapshot.unpackX(position) >> 4, WorldSnapshot.unpackZ(position) >> 4);
+                    if (hoppersPerChunk.addTo(chunkKey, 1) > MAX_HOPPERS_PER_CHUNK) {
+                        denseHoppers.add(position);
                     }
-                } catch (Exception e) {
-                    LoggerUtils.warn("Error scanning world " + world.getName() + ": " + e.getMessage());
+                }
+
+                if (!denseHoppers.isEmpty()) {
+                    optimizedCount += denseHoppers.size();
+                    UUID worldId = snapshot.getWorldId();
+                    commands.add(() -> markHoppers(worldId, denseHoppers));
                 }
             }
 
@@ -140,6 +142,15 @@ public class RedstoneHopperOptimizer implements Listener {
         });
     }
 
+    private void markHoppers(UUID worldId, List<Long> positions) {
+        World world = Bukkit.getWorld(worldId);
+        if (world == null || !isRunning) return;
+        for (long position : positions) {
+            optimizedHoppers.add(new Location(world,
+                WorldSnapshot.unpackX(position), WorldSnapshot.unpackY(position), WorldSnapshot.unpackZ(position)));
+        }
+    }
+
     private void cleanupCaches() {
         long now = System.currentTimeMillis();
         long cacheExpiry = 5000;
@@ -0,0 +1,97 @@
+package com.xreatlabs.xreatoptimizer.managers;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Long-running main-thread job that TickBudgetManager runs in slices across ticks.
+ *
+ * step() processes items until the deadline expires and returns true once all work is done. State
+ * lives in the task itself, so the next slice resumes where the previous one stopped. Cancelling
+ * the task (or its future) drops it before the next slice.
+ */
+public abstract class SlicedTask<T> {
+
+    private final String id;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private volatile double progress = 0.0;
+    private volatile int slicesRun = 0;
+
+    protected SlicedTask(String id) {
+        this.id = id;
+    }
+
+    /** Process work until done or the deadline expires. Return true when finished. */
+    protected abstract boolean step(Deadline deadline) throws Exception;
+
+    /** Value the future completes with once step() reports completion. */
+    protected abstract T getResult();
+
+    protected final void setProgress(long done, long total) {
+        progress = total > 0 ? Math.min(1.0, (double) done / total) : 0.0;
+    }
+
+    /** Run one slice. Returns true when the task is finished, failed or cancelled. */
+    final boolean runSlice(Deadline deadline) {
+        if (future.isDone()) {
+            return true;
+        }
+        slicesRun++;
+        try {
+            if (step(deadline)) {
+                progress = 1.0;
+                future.complete(getResult());
+                return true;
+            }
+            return false;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return true;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public CompletableFuture<T> getFuture() {
+        return future;
+    }
+
+    public boolean cancel() {
+        return future.cancel(false);
+    }
+
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /** Fraction of work done (0-1) as reported by the task. */
+    public double getProgress() {
+        return progress;
+    }
+
+    public int getSlicesRun() {
+        return slicesRun;
+    }
+
+    /** Time budget for one slice. Reused between slices, so do not keep a reference. */
+    public static final class Deadline {
+        private long endNanos;
+
+        void reset(long endNanos) {
+            this.endNanos = endNanos;
+        }
+
+        public boolean isExpired() {
+            return System.nanoTime() >= endNanos;
+        }
+
+        public long remainingNanos() {
+            return Math.max(0L, endNanos - System.nanoTime());
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -12,7 +11,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 public class SmartTickDistributor {
     private final XreatOptimizer plugin;
     private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
-    private BukkitTask distributorTask;
+    private SubsystemScheduler.Registration distributorTask;
     private volatile boolean isRunning = false;
     private int tasksPerTick = 5;
     private boolean enabled = true;
@@ -38,26 +37,22 @@ public class SmartTickDistributor {
             return;
         }
 
-        distributorTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!isRunning) {
-                    cancel();
-                    return;
-                }
+        distributorTask = plugin.getSubsystemScheduler().schedule("smart_tick_distributor", 1L, 0.5, () -> {
+            if (!isRunning) {
+                return;
+            }
 
-                for (int i = 0; i < tasksPerTick && !taskQueue.isEmpty(); i++) {
-                    Runnable task = taskQueue.poll();
-                    if (task != null) {
-                        try {
-                            task.run();
-                        } catch (Exception e) {
-                            LoggerUtils.error("Error executing distributed task", e);
-                        }
+            for (int i = 0; i < tasksPerTick && !taskQueue.isEmpty(); i++) {
+                Runnable task = taskQueue.poll();
+                if (task != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        LoggerUtils.error("Error executing distributed task", e);
                     }
                 }
             }
-        }.runTaskTimer(plugin, 1L, 1L);
+        });
 
         isRunning = true;
         LoggerUtils.info("Smart tick distributor started (" + tasksPerTick + " tasks per tick).");
@@ -0,0 +1,439 @@
+package com.xreatlabs.xreatoptimizer.managers;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import com.xreatlabs.xreatoptimizer.utils.LongIntHashMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Per-world uniform grid of players and entities, one cell per chunk.
+ *
+ * Cells are keyed by packed chunk coordinates in a {@link LongIntHashMap}, so lookups do not box.
+ * Entities follow the adds, moves and removals of the shared {@link EntityRegistry}, which also
+ * re-checks their positions since Bukkit has no entity move event. Players are additionally
+ * re-bucketed from movement events as soon as they cross a cell border. Queries always check
+ * exact distances against current locations. Main thread only.
+ */
+public class SpatialIndexManager implements Listener, EntityRegistry.Observer {
+
+    private static final int CELL_SHIFT = 4;
+
+    private final XreatOptimizer plugin;
+    private final Map<String, WorldIndex> worlds = new HashMap<>();
+    private final Map<UUID, PlayerCell> playerCells = new HashMap<>();
+    private volatile boolean isRunning = false;
+
+    /** Lists of values keyed by packed cell coordinates. Slots of emptied cells are reused. */
+    private static final class CellGrid<T> {
+        // key -> slot + 1, since LongIntHashMap returns 0 for missing keys
+        private final LongIntHashMap slots = new LongIntHashMap();
+        private final List<List<T>> cells = new ArrayList<>();
+        private int[] freeSlots = new int[16];
+        private int freeCount = 0;
+
+        List<T> get(long key) {
+            int slot = slots.get(key);
+            return slot != 0 ? cells.get(slot - 1) : null;
+        }
+
+        List<T> getOrCreate(long key) {
+            int slot = slots.get(key);
+            if (slot != 0) {
+                return cells.get(slot - 1);
+            }
+            List<T> cell = new ArrayList<>(4);
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+                cells.set(slot, cell);
+            } else {
+                slot = cells.size();
+                cells.add(cell);
+            }
+            slots.put(key, slot + 1);
+            return cell;
+        }
+
+        void remove(long key) {
+            int slot = slots.remove(key);
+            if (slot == 0) return;
+            cells.set(slot - 1, null);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot - 1;
+        }
+
+        /** Occupied cells, appended to {@code out}. */
+        void collect(List<List<T>> out) {
+            for (List<T> cell : cells) {
+                if (cell != null) {
+                    out.add(cell);
+                }
+            }
+        }
+
+        int size() {
+            return slots.size();
+        }
+
+        boolean isEmpty() {
+            return slots.isEmpty();
+        }
+    }
+
+    private static final class WorldIndex {
+        final CellGrid<Player> players = new CellGrid<>();
+        final CellGrid<EntityRegistry.Entry> entities = new CellGrid<>();
+        // Every non-player entity of the world
+        final List<EntityRegistry.Entry> tracked = new ArrayList<>();
+    }
+
+    private static final class PlayerCell {
+        final String world;
+        final long key;
+
+        PlayerCell(String world, long key) {
+            this.world = world;
+            this.key = key;
+        }
+    }
+
+    public SpatialIndexManager(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (isRunning) {
+            return;
+        }
+
+        plugin.getSubsystemProfiler().registerEvents(this, "spatial_index");
+        plugin.getEntityRegistry().addObserver(this);
+
+        isRunning = true;
+        LoggerUtils.info("Spatial index started.");
+    }
+
+    public void stop() {
+        isRunning = false;
+        plugin.getEntityRegistry().removeObserver(this);
+        HandlerList.unregisterAll(this);
+        worlds.clear();
+        playerCells.clear();
+        LoggerUtils.info("Spatial index stopped.");
+    }
+
+    @Override
+    public void onAdded(EntityRegistry.Entry entry) {
+        Entity entity = entry.getEntity();
+        if (entity instanceof Player) {
+            relocatePlayer((Player) entity, entry.getWorld(), entry.getChunk());
+            return;
+        }
+        WorldIndex index = getIndex(entry.getWorld());
+        entry.worldPosition = index.tracked.size();
+        index.tracked.add(entry);
+        addToCell(index, entry);
+    }
+
+    @Override
+    public void onMoved(EntityRegistry.Entry entry, String fromWorld, long fromChunk) {
+        Entity entity = entry.getEntity();
+        if (entity instanceof Player) {
+            relocatePlayer((Player) entity, entry.getWorld(), entry.getChunk());
+            return;
+        }
+        WorldIndex from = worlds.get(fromWorld);
+        if (from == null) {
+            onAdded(entry);
+            return;
+        }
+        removeFromCell(from, entry, fromChunk);
+        if (fromWorld.equals(entry.getWorld())) {
+            addToCell(from, entry);
+        } else {
+            swapRemove(from.tracked, entry.worldPosition, moved -> moved.worldPosition = entry.worldPosition);
+            onAdded(entry);
+        }
+    }
+
+    @Override
+    public void onRemoved(EntityRegistry.Entry entry) {
+        Entity entity = entry.getEntity();
+        if (entity instanceof Player) {
+            removePlayer((Player) entity);
+            return;
+        }
+        WorldIndex index = worlds.get(entry.getWorld());
+        if (index == null) return;
+        removeFromCell(index, entry, entry.getChunk());
+        swapRemove(index.tracked, entry.worldPosition, moved -> moved.worldPosition = entry.worldPosition);
+    }
+
+    @Override
+    public void onWorldUnloaded(String world) {
+        worlds.remove(world);
+    }
+
+    private static void addToCell(WorldIndex index, EntityRegistry.Entry entry) {
+        List<EntityRegistry.Entry> cell = index.entities.getOrCreate(entry.getChunk());
+        entry.cellPosition = cell.size();
+        cell.add(entry);
+    }
+
+    private static void removeFromCell(WorldIndex index, EntityRegistry.Entry entry, long key) {
+        CellGrid<EntityRegistry.Entry> grid = index.entities;
+        List<EntityRegistry.Entry> cell = grid.get(key);
+        if (cell == null) return;
+        swapRemove(cell, entry.cellPosition, moved -> moved.cellPosition = entry.cellPosition);
+        if (cell.isEmpty()) {
+            grid.remove(key);
+        }
+    }
+
+    /** Remove the element at position by moving the last one into it; {@code moved} gets the moved element. */
+    private static void swapRemove(List<EntityRegistry.Entry> list, int position, Consumer<EntityRegistry.Entry> moved) {
+        int last = list.size() - 1;
+        EntityRegistry.Entry tail = list.remove(last);
+        if (position < last) {
+            list.set(position, tail);
+            moved.accept(tail);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null) return;
+
+        if ((from.getBlockX() >> CELL_SHIFT) == (to.getBlockX() >> CELL_SHIFT)
+            && (from.getBlockZ() >> CELL_SHIFT) == (to.getBlockZ() >> CELL_SHIFT)
+            && from.getWorld() == to.getWorld()) {
+            return;
+        }
+        relocatePlayer(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (event.getTo() != null) {
+            relocatePlayer(event.getPlayer(), event.getTo());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        relocatePlayer(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    private void relocatePlayer(Player player, Location location) {
+        if (location == null || location.getWorld() == null) return;
+        relocatePlayer(player, location.getWorld().getName(), cellKey(location));
+    }
+
+    private void relocatePlayer(Player player, String worldName, long key) {
+        PlayerCell current = playerCells.get(player.getUniqueId());
+        if (current != null && current.key == key && current.world.equals(worldName)) {
+            return;
+        }
+
+        removePlayer(player);
+        getIndex(worldName).players.getOrCreate(key).add(player);
+        playerCells.put(player.getUniqueId(), new PlayerCell(worldName, key));
+    }
+
+    private void removePlayer(Player player) {
+        PlayerCell previous = playerCells.remove(player.getUniqueId());
+        if (previous == null) return;
+
+        WorldIndex index = worlds.get(previous.world);
+        if (index == null) return;
+
+        List<Player> bucket = index.players.get(previous.key);
+        if (bucket != null) {
+            bucket.removeIf(p -> p.getUniqueId().equals(player.getUniqueId()));
+            if (bucket.isEmpty()) {
+                index.players.remove(previous.key);
+            }
+        }
+    }
+
+    private WorldIndex getIndex(String world) {
+        return worlds.computeIfAbsent(world, k -> new WorldIndex());
+    }
+
+    private static long cellKey(Location location) {
+        return EntityCountTracker.chunkKey(location.getBlockX() >> CELL_SHIFT, location.getBlockZ() >> CELL_SHIFT);
+    }
+
+    private static double distanceSquared(Location a, Location b) {
+        double dx = a.getX() - b.getX();
+        double dy = a.getY() - b.getY();
+        double dz = a.getZ() - b.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /** Nearest player within maxRadius, or null. */
+    public Player getNearestPlayer(Location location, double maxRadius) {
+        if (location.getWorld() == null) return null;
+        WorldIndex index = worlds.get(location.getWorld().getName());
+        if (index == null || index.players.isEmpty()) return null;
+
+        double bestSq = maxRadius * maxRadius;
+        Player best = null;
+        for (List<Player> bucket : playerBuckets(index, location, maxRadius)) {
+            for (Player player : bucket) {
+                double distSq = distanceSquared(player.getLocation(), location);
+                if (distSq <= bestSq) {
+                    bestSq = distSq;
+                    best = player;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Squared distance to the nearest player within maxRadius, or Double.MAX_VALUE. */
+    public double getNearestPlayerDistanceSquared(Location location, double maxRadius) {
+        Player nearest = getNearestPlayer(location, maxRadius);
+        return nearest != null ? distanceSquared(nearest.getLocation(), location) : Double.MAX_VALUE;
+    }
+
+    public boolean isPlayerNearby(Location location, double radius) {
+        if (location.getWorld() == null) return false;
+        WorldIndex index = worlds.get(location.getWorld().getName());
+        if (index == null || index.players.isEmpty()) return false;
+
+        double radiusSq = radius * radius;
+        for (List<Player> bucket : playerBuckets(index, location, radius)) {
+            for (Player player : bucket) {
+                if (distanceSquared(player.getLocation(), location) <= radiusSq) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<Player> getNearbyPlayers(Location location, double radius) {
+        List<Player> result = new ArrayList<>();
+        if (location.getWorld() == null) return result;
+        WorldIndex index = worlds.get(location.getWorld().getName());
+        if (index == null || index.players.isEmpty()) return result;
+
+        double radiusSq = radius * radius;
+        for (List<Player> bucket : playerBuckets(index, location, radius)) {
+            for (Player player : bucket) {
+                if (distanceSquared(player.getLocation(), location) <= radiusSq) {
+                    result.add(player);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Non-player entities within radius, by current location. */
+    public List<Entity> getNearbyEntities(Location location, double radius) {
+        List<Entity> result = new ArrayList<>();
+        if (location.getWorld() == null) return result;
+        WorldIndex index = worlds.get(location.getWorld().getName());
+        if (index == null) return result;
+
+        double radiusSq = radius * radius;
+        int minX = floorCell(location.getX() - radius);
+        int maxX = floorCell(location.getX() + radius);
+        int minZ = floorCell(location.getZ() - radius);
+        int maxZ = floorCell(location.getZ() + radius);
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<EntityRegistry.Entry> bucket = index.entities.get(EntityCountTracker.chunkKey(cx, cz));
+                if (bucket == null) continue;
+                for (EntityRegistry.Entry entry : bucket) {
+                    Entity entity = entry.getEntity();
+                    if (entity.isValid() && distanceSquared(entity.getLocation(), location) <= radiusSq) {
+                        result.add(entity);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Entities last indexed in the given cell (chunk coordinates). May include entities that have since moved. */
+    public List<Entity> getEntitiesInCell(World world, int cellX, int cellZ) {
+        WorldIndex index = worlds.get(world.getName());
+        if (index == null) return Collections.emptyList();
+        List<EntityRegistry.Entry> bucket = index.entities.get(EntityCountTracker.chunkKey(cellX, cellZ));
+        return bucket != null ? entitiesOf(bucket) : Collections.emptyList();
+    }
+
+    /** Every non-player entity indexed in a world, without asking the server for its entity list. */
+    public List<Entity> getEntities(World world) {
+        WorldIndex index = worlds.get(world.getName());
+        return index != null ? entitiesOf(index.tracked) : Collections.emptyList();
+    }
+
+    private static List<Entity> entitiesOf(List<EntityRegistry.Entry> entries) {
+        List<Entity> result = new ArrayList<>(entries.size());
+        for (EntityRegistry.Entry entry : entries) {
+            result.add(entry.getEntity());
+        }
+        return result;
+    }
+
+    public boolean hasPlayers(World world) {
+        WorldIndex index = worlds.get(world.getName());
+        return index != null && !index.players.isEmpty();
+    }
+
+    /**
+     * Player buckets that may hold players within radius. Walks the covered cells, or every
+     * occupied cell when that is fewer lookups (typical for large radii and few players).
+     */
+    private List<List<Player>> playerBuckets(WorldIndex index, Location location, double radius) {
+        int minX = floorCell(location.getX() - radius);
+        int maxX = floorCell(location.getX() + radius);
+        int minZ = floorCell(location.getZ() - radius);
+        int maxZ = floorCell(location.getZ() + radius);
+
+        List<List<Player>> buckets = new ArrayList<>();
+        long coveredCells = (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+        if (coveredCells >= index.players.size()) {
+            index.players.collect(buckets);
+            return buckets;
+        }
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<Player> bucket = index.players.get(EntityCountTracker.chunkKey(cx, cz));
+                if (bucket != null) {
+                    buckets.add(bucket);
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private static int floorCell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+}
@@ -0,0 +1,290 @@
+package com.xreatlabs.xreatoptimizer.managers;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.OptimizationStrategy;
+import com.xreatlabs.xreatoptimizer.api.OptimizationStrategy.OptimizationContext;
+import com.xreatlabs.xreatoptimizer.api.OptimizationStrategy.OptimizationResult;
+import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
+import com.xreatlabs.xreatoptimizer.async.IoExecutors;
+import com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the OptimizationStrategies registered through {@link XreatOptimizerAPI} as the last stage of
+ * every optimization cycle.
+ *
+ * All strategies of a cycle see the same OptimizationContext. Sync strategies are queued on the
+ * TickBudgetManager, one task each, so they run within its per-tick budget instead of inside the
+ * cycle; async strategies run on a small worker pool. Each strategy has at most one call in flight,
+ * and every call is timed and kept as its last result. A strategy that overruns its budget
+ * ({@code main_thread_budget_ms} or {@code async_budget_ms}) {@code max_overruns} times in a row is
+ * disabled until it is registered again or the config is reloaded.
+ */
+public class StrategyPipeline {
+
+    private static final Comparator<StrategyStatus> BY_PRIORITY =
+        Comparator.comparingInt((StrategyStatus status) -> status.strategy.getPriority()).reversed();
+
+    private final XreatOptimizer plugin;
+    private final Map<OptimizationStrategy, StrategyStatus> statuses = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private ExecutorService workers;
+    private volatile boolean isRunning = false;
+    private boolean enabled;
+    private double mainThreadBudgetMs;
+    private double asyncBudgetMs;
+    private int maxOverruns;
+
+    /** Last result and run counters for one strategy. */
+    public static final class StrategyStatus {
+        private final OptimizationStrategy strategy;
+        private final SubsystemProfiler.Probe probe;
+
+        private volatile boolean inFlight;
+        private volatile boolean disabled;
+        private volatile int consecutiveOverruns;
+
+        private volatile OptimizationResult lastResult;
+        private volatile long lastRunAt;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder overruns = new LongAdder();
+
+        private StrategyStatus(OptimizationStrategy strategy, SubsystemProfiler.Probe probe) {
+            this.strategy = strategy;
+            this.probe = probe;
+        }
+
+        public String getName() {
+            return strategy.getName();
+        }
+
+        public boolean isAsync() {
+            return strategy.isAsync();
+        }
+
+        public boolean isDisabled() {
+            return disabled;
+        }
+
+        /** Result of the last execute() call, carrying the measured execution time. Null before the first. */
+        public OptimizationResult getLastResult() {
+            return lastResult;
+        }
+
+        public long getLastRunAt() {
+            return lastRunAt;
+        }
+
+        public long getRuns() {
+            return runs.sum();
+        }
+
+        /** Cycles where shouldExecute() returned false. */
+        public long getSkipped() {
+            return skipped.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getOverruns() {
+            return overruns.sum();
+        }
+    }
+
+    public StrategyPipeline(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        loadConfig();
+        workers = IoExecutors.newIoExecutor("XreatOpt-Strategy", 2);
+        isRunning = true;
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+        statuses.clear();
+    }
+
+    /** Re-read the budgets and give disabled strategies another chance. */
+    public void reloadConfig() {
+        loadConfig();
+        for (StrategyStatus status : snapshot()) {
+            status.disabled = false;
+            status.consecutiveOverruns = 0;
+        }
+    }
+
+    private void loadConfig() {
+        enabled = plugin.getConfig().getBoolean("api.strategies.enabled", true);
+        mainThreadBudgetMs = plugin.getConfig().getDouble("api.strategies.main_thread_budget_ms", 5.0);
+        asyncBudgetMs = plugin.getConfig().getDouble("api.strategies.async_budget_ms", 250.0);
+        maxOverruns = Math.max(1, plugin.getConfig().getInt("api.strategies.max_overruns", 3));
+    }
+
+    /** Main thread: hand every enabled strategy that is not still running to its executor. */
+    public void runCycle(OptimizationContext context) {
+        if (!isRunning || !enabled) return;
+
+        List<StrategyStatus> due = new ArrayList<>();
+        for (StrategyStatus status : refreshStrategies()) {
+            if (!status.disabled && !status.inFlight) {
+                due.add(status);
+            }
+        }
+        due.sort(BY_PRIORITY);
+
+        TickBudgetManager budget = plugin.getTickBudgetManager();
+        for (StrategyStatus status : due) {
+            status.inFlight = true;
+            if (status.strategy.isAsync()) {
+                try {
+                    workers.execute(() -> run(status, context, asyncBudgetMs));
+                } catch (RejectedExecutionException e) {
+                    status.inFlight = false;
+                }
+            } else if (budget != null) {
+                budget.scheduleTask("strategy:" + status.getName(), () -> run(status, context, mainThreadBudgetMs),
+                    taskPriority(status.strategy), "general", mainThreadBudgetMs);
+            } else {
+                run(status, context, mainThreadBudgetMs);
+            }
+        }
+    }
+
+    private void run(StrategyStatus status, OptimizationContext context, double budgetMs) {
+        long start = System.nanoTime();
+        try {
+            if (!status.strategy.shouldExecute(context)) {
+                status.skipped.increment();
+                return;
+            }
+
+            OptimizationResult result;
+            try {
+                result = status.strategy.execute(context);
+            } catch (Exception e) {
+                result = OptimizationResult.failure(e.getClass().getSimpleName()
+                    + (e.getMessage() != null ? ": " + e.getMessage() : ""));
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            long elapsedMs = elapsedNanos / 1_000_000L;
+
+            status.runs.increment();
+            status.lastRunAt = System.currentTimeMillis();
+            if (status.probe != null) {
+                status.probe.record(elapsedNanos);
+            }
+            if (result == null || !result.isSuccess()) {
+                status.failures.increment();
+                String message = result != null ? result.getMessage() : "No result";
+                status.lastResult = OptimizationResult.failure(message, elapsedMs);
+                LoggerUtils.debug("Optimization strategy " + status.getName() + " failed: " + message);
+            } else {
+                status.lastResult = OptimizationResult.success(result.getMessage(), elapsedMs);
+            }
+
+            checkBudget(status, elapsedNanos / 1_000_000.0, budgetMs);
+        } catch (Exception e) {
+            // shouldExecute() threw
+            status.failures.increment();
+            LoggerUtils.debug("Optimization strategy " + status.getName() + " failed in shouldExecute: " + e.getMessage());
+        } finally {
+            status.inFlight = false;
+        }
+    }
+
+    private void checkBudget(StrategyStatus status, double elapsedMs, double budgetMs) {
+        if (elapsedMs <= budgetMs) {
+            status.consecutiveOverruns = 0;
+            return;
+        }
+        status.overruns.increment();
+        if (++status.consecutiveOverruns >= maxOverruns && !status.disabled) {
+            status.disabled = true;
+            LoggerUtils.warn(String.format("Optimization strategy %s disabled: exceeded its %.1fms budget %d times in a row (last %.2fms)",
+                status.getName(), budgetMs, status.consecutiveOverruns, elapsedMs));
+        }
+    }
+
+    /** Match the tracked strategies with the ones currently registered through the API. */
+    private List<StrategyStatus> refreshStrategies() {
+        List<OptimizationStrategy> registered = XreatOptimizerAPI.getStrategies();
+        synchronized (statuses) {
+            Map<OptimizationStrategy, StrategyStatus> current = new IdentityHashMap<>();
+            SubsystemProfiler profiler = plugin.getSubsystemProfiler();
+            for (OptimizationStrategy strategy : registered) {
+                StrategyStatus status = statuses.get(strategy);
+                if (status == null) {
+                    status = new StrategyStatus(strategy,
+                        profiler != null ? profiler.probe("api_strategy", strategy.getName()) : null);
+                }
+                current.put(strategy, status);
+            }
+            statuses.clear();
+            statuses.putAll(current);
+            return new ArrayList<>(current.values());
+        }
+    }
+
+    private static TickBudgetManager.Priority taskPriority(OptimizationStrategy strategy) {
+        int priority = strategy.getPriority();
+        if (priority > 0) return TickBudgetManager.Priority.HIGH;
+        if (priority < 0) return TickBudgetManager.Priority.LOW;
+        return TickBudgetManager.Priority.NORMAL;
+    }
+
+    private List<StrategyStatus> snapshot() {
+        synchronized (statuses) {
+            return new ArrayList<>(statuses.values());
+        }
+    }
+
+    public List<StrategyStatus> getStatuses() {
+        return snapshot();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (StrategyStatus status : snapshot()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("async", status.isAsync());
+            entry.put("disabled", status.disabled);
+            entry.put("runs", status.getRuns());
+            entry.put("skipped", status.getSkipped());
+            entry.put("failures", status.getFailures());
+            entry.put("overruns", status.getOverruns());
+            OptimizationResult last = status.lastResult;
+            if (last != null) {
+                entry.put("last_success", last.isSuccess());
+                entry.put("last_message", last.getMessage());
+                entry.put("last_execution_ms", last.getExecutionTimeMs());
+            }
+            stats.put(status.getName(), entry);
+        }
+        return stats;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+}
@@ -1,136 +1,156 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
+import com.xreatlabs.xreatoptimizer.async.VirtualThreads;
+import com.xreatlabs.xreatoptimizer.managers.InstrumentedExecutor.BackpressurePolicy;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Owns the plugin's worker threads.
+ *
+ * CPU work (chunk, entity and analytics tasks) shares one work-stealing ForkJoinPool; blocking
+ * work (file and network IO, AsyncExecutor) shares a bounded elastic pool whose threads time out
+ * when idle, or virtual threads on Java 21+. Each kind of work goes through its own
+ * {@link InstrumentedExecutor} lane with a queue bound and a backpressure policy. The blocking
+ * lanes refuse work once full rather than running it on the caller, which is usually the main
+ * thread; refusals show up in the lane's rejected count.
+ */
 public class ThreadPoolManager {
-    private final ThreadPoolExecutor chunkTaskPool;
-    private final ThreadPoolExecutor entityCleanupPool;
-    private final ThreadPoolExecutor analyticsPool;
-    private final ThreadPoolExecutor ioPool;
-    
+    private final ForkJoinPool cpuPool;
+    private final ExecutorService ioPool;
+
+    private final InstrumentedExecutor chunkTaskExecutor;
+    private final InstrumentedExecutor entityCleanupExecutor;
+    private final InstrumentedExecutor analyticsExecutor;
+    private final InstrumentedExecutor ioExecutor;
+    private final InstrumentedExecutor asyncExecutor;
+
     public ThreadPoolManager() {
         int cores = Runtime.getRuntime().availableProcessors();
-        
-        int chunkPoolSize = Math.min(cores, 4);
-        this.chunkTaskPool = new ThreadPoolExecutor(
-            Math.max(1, chunkPoolSize / 2),
-            chunkPoolSize,
-            60L, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(100),
-            new ThreadFactory() {
-                private int counter = 0;
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread t = new Thread(r, "XreatOpt-ChunkTask-" + counter++);
-                    t.setPriority(Thread.NORM_PRIORITY);
-                    return t;
-                }
-            }
-        );
-        
-        int entityPoolSize = Math.max(1, cores / 2);
-        this.entityCleanupPool = new ThreadPoolExecutor(
-            1,
-            entityPoolSize,
-            30L, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(50),
-            new ThreadFactory() {
-                private int counter = 0;
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread t = new Thread(r, "XreatOpt-EntityCleanup-" + counter++);
-                    t.setPriority(Thread.NORM_PRIORITY);
-                    return t;
-                }
-            }
-        );
-        
-        this.analyticsPool = new ThreadPoolExecutor(
-            1,
-            2,
-            30L, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(20),
-            new ThreadFactory() {
-                private int counter = 0;
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread t = new Thread(r, "XreatOpt-Analytics-" + counter++);
-                    t.setPriority(Thread.MIN_PRIORITY);
-                    return t;
-                }
-            }
+
+        // Leave a core for the server thread
+        int cpuParallelism = Math.max(1, Math.min(cores - 1, 4));
+        AtomicInteger cpuCounter = new AtomicInteger();
+        this.cpuPool = new ForkJoinPool(
+            cpuParallelism,
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("XreatOpt-Worker-" + cpuCounter.getAndIncrement());
+                t.setPriority(Thread.NORM_PRIORITY - 1);
+                return t;
+            },
+            (thread, error) -> LoggerUtils.error("Uncaught error in " + thread.getName(), error),
+            true
         );
-        
-        int ioPoolSize = Math.max(1, cores / 2);
-        this.ioPool = new ThreadPoolExecutor(
-            1,
-            ioPoolSize,
+
+        int ioPoolSize = Math.max(2, cores / 2);
+        ExecutorService virtualIo = VirtualThreads.newThreadPerTaskExecutor("XreatOpt-IO");
+        this.ioPool = virtualIo != null ? virtualIo : createElasticIoPool(ioPoolSize);
+
+        this.chunkTaskExecutor = new InstrumentedExecutor("chunk", cpuPool, 100, BackpressurePolicy.CALLER_RUNS);
+        this.entityCleanupExecutor = new InstrumentedExecutor("entity", cpuPool, 50, BackpressurePolicy.DROP_OLDEST);
+        this.analyticsExecutor = new InstrumentedExecutor("analytics", cpuPool, 32, BackpressurePolicy.COALESCE);
+        this.ioExecutor = new InstrumentedExecutor("io", ioPool, 1024, BackpressurePolicy.REJECT);
+        this.asyncExecutor = new InstrumentedExecutor("async", ioPool, 1024, BackpressurePolicy.REJECT);
+
+        LoggerUtils.info("Thread pool manager initialized with " + cores + " CPU cores detected");
+        LoggerUtils.info("CPU Pool: " + cpuParallelism + " work-stealing threads (chunk, entity, analytics)");
+        LoggerUtils.info(VirtualThreads.isAvailable()
+            ? "I/O Pool: virtual threads (io, async)"
+            : "I/O Pool: up to " + ioPoolSize + " threads (io, async)");
+    }
+
+    private static ThreadPoolExecutor createElasticIoPool(int size) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            size,
+            size,
             60L, TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>(100),
-            new ThreadFactory() {
-                private int counter = 0;
-                @Override
-                public Thread newThread(Runnable r) {
-                    Thread t = new Thread(r, "XreatOpt-IO-" + counter++);
-                    t.setPriority(Thread.NORM_PRIORITY);
-                    return t;
-                }
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread t = new Thread(r, "XreatOpt-IO-" + counter.getAndIncrement());
+                t.setDaemon(true);
+                return t;
             }
         );
-        
-        LoggerUtils.info("Thread pool manager initialized with " + cores + " CPU cores detected");
-        LoggerUtils.info("Chunk Pool: " + chunkPoolSize + " threads");
-        LoggerUtils.info("Entity Pool: " + entityPoolSize + " threads");
-        LoggerUtils.info("Analytics Pool: 2 threads");
-        LoggerUtils.info("I/O Pool: " + ioPoolSize + " threads");
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public InstrumentedExecutor getChunkTaskPool() {
+        return chunkTaskExecutor;
+    }
+
+    public InstrumentedExecutor getEntityCleanupPool() {
+        return entityCleanupExecutor;
     }
-    
-    public ThreadPoolExecutor getChunkTaskPool() {
-        return chunkTaskPool;
+
+    public InstrumentedExecutor getAnalyticsPool() {
+        return analyticsExecutor;
     }
-    
-    public ThreadPoolExecutor getEntityCleanupPool() {
-        return entityCleanupPool;
+
+    public InstrumentedExecutor getIoPool() {
+        return ioExecutor;
     }
-    
-    public ThreadPoolExecutor getAnalyticsPool() {
-        return analyticsPool;
+
+    /** Lane behind {@link com.xreatlabs.xreatoptimizer.async.AsyncExecutor}. */
+    public InstrumentedExecutor getAsyncPool() {
+        return asyncExecutor;
     }
-    
-    public ThreadPoolExecutor getIoPool() {
-        return ioPool;
+
+    public List<InstrumentedExecutor> getExecutors() {
+        return Arrays.asList(chunkTaskExecutor, entityCleanupExecutor, analyticsExecutor, ioExecutor, asyncExecutor);
     }
-    
+
     public void executeChunkTask(Runnable task) {
-        chunkTaskPool.execute(task);
+        chunkTaskExecutor.execute(task);
     }
-    
+
     public void executeEntityCleanupTask(Runnable task) {
-        entityCleanupPool.execute(task);
+        entityCleanupExecutor.execute(task);
     }
-    
+
     public void executeAnalyticsTask(Runnable task) {
-        analyticsPool.execute(task);
+        analyticsExecutor.execute(task);
     }
-    
-    public void executeIoTask(Runnable task) {
-        ioPool.execute(task);
+
+    /**
+     * Queue an analytics task that supersedes any pending task with the same key. The returned
+     * future is cancelled if this task is itself superseded or dropped before running.
+     */
+    public CompletableFuture<Void> submitAnalyticsTask(String key, Runnable task) {
+        return analyticsExecutor.submit(key, task);
     }
-    
+
+    /** Queue blocking work. Returns false, without running it, when the lane is full or shut down. */
+    public boolean executeIoTask(Runnable task) {
+        try {
+            ioExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
     public void shutdown() {
         LoggerUtils.info("Shutting down thread pools...");
-        
-        shutdownPool(chunkTaskPool, "Chunk Task Pool");
-        shutdownPool(entityCleanupPool, "Entity Cleanup Pool");
-        shutdownPool(analyticsPool, "Analytics Pool");
+
+        for (InstrumentedExecutor executor : getExecutors()) {
+            executor.shutdown();
+        }
+        shutdownPool(cpuPool, "CPU Pool");
         shutdownPool(ioPool, "I/O Pool");
-        
+
         LoggerUtils.info("All thread pools have been shut down.");
     }
-    
-    private void shutdownPool(ThreadPoolExecutor pool, String name) {
+
+    private void shutdownPool(ExecutorService pool, String name) {
         pool.shutdown();
         try {
             if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
@@ -148,16 +168,31 @@ public class ThreadPoolManager {
     }
 
     public int getActiveThreadCount() {
-        return chunkTaskPool.getActiveCount() +
-               entityCleanupPool.getActiveCount() +
-               analyticsPool.getActiveCount() +
-               ioPool.getActiveCount();
+        int active = 0;
+        for (InstrumentedExecutor executor : getExecutors()) {
+            active += executor.getRunningCount();
+        }
+        return active;
     }
 
     public int getQueuedTaskCount() {
-        return chunkTaskPool.getQueue().size() +
-               entityCleanupPool.getQueue().size() +
-               analyticsPool.getQueue().size() +
-               ioPool.getQueue().size();
+        int queued = 0;
+        for (InstrumentedExecutor executor : getExecutors()) {
+            queued += executor.getPendingCount();
+        }
+        return queued;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cpu_parallelism", cpuPool.getParallelism());
+        stats.put("cpu_steals", cpuPool.getStealCount());
+        stats.put("io_threads", ioPool instanceof ThreadPoolExecutor
+            ? String.valueOf(((ThreadPoolExecutor) ioPool).getPoolSize())
+            : "virtual");
+        for (InstrumentedExecutor executor : getExecutors()) {
+            stats.put(executor.getName(), executor.getStats());
+        }
+        return stats;
     }
 }
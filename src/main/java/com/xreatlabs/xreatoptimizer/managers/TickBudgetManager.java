@@ -1,97 +1,166 @@
 package com.xreatlabs.xreatoptimizer.managers;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.timeseries.LogHistogram;
+import com.xreatlabs.xreatoptimizer.timeseries.WindowedHistogram;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TickBudgetManager {
-    
+
+    // Turns a category gets per round, indexed by the effective priority of its head task
+    private static final int[] PRIORITY_WEIGHTS = {16, 8, 4, 2, 1};
+    private static final double COST_EWMA_ALPHA = 0.3;
+    private static final int MAX_TRACKED_COSTS = 512;
+    // Smallest slice worth starting, and the slice used when the manager is disabled
+    private static final double MIN_SLICE_MS = 0.5;
+    private static final double UNMANAGED_SLICE_MS = 5.0;
+
     private final XreatOptimizer plugin;
-    private final PriorityBlockingQueue<ScheduledTask> taskQueue = new PriorityBlockingQueue<>();
     private final Map<String, TaskCategory> categories = new ConcurrentHashMap<>();
-    private BukkitTask processorTask;
+    private final Set<SlicedTask<?>> activeSlicedTasks = ConcurrentHashMap.newKeySet();
+    private final SlicedTask.Deadline sliceDeadline = new SlicedTask.Deadline();
+    // Unfinished sliced tasks wait here until the next tick so each gets one slice per tick
+    private final Queue<ScheduledTask> deferredSlices = new ConcurrentLinkedQueue<>();
+    private volatile TaskCategory[] categoryOrder = new TaskCategory[0];
+    private int roundRobinCursor = 0;
+    private SubsystemScheduler.Registration processorTask;
     private volatile boolean isRunning = false;
-    
+
+    // Learned per-task-id execution cost in ms (main thread only)
+    private final Map<String, Double> learnedCosts = new LinkedHashMap<String, Double>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_TRACKED_COSTS;
+        }
+    };
+
     private double maxTickBudget = 40.0;
     private double currentBudget = maxTickBudget;
-    
+    private long agingNanos = 2_000_000_000L;
+
     public enum Priority {
         CRITICAL(0),
         HIGH(1),
         NORMAL(2),
         LOW(3),
         BACKGROUND(4);
-        
+
         private final int value;
-        
+
         Priority(int value) {
             this.value = value;
         }
-        
+
         public int getValue() {
             return value;
         }
     }
-    
+
     private static class TaskCategory {
         final String name;
+        final Queue<ScheduledTask>[] levels;
+        final AtomicInteger pending = new AtomicInteger();
+        // Last minute in 10s slots, so the stats follow current load
+        final WindowedHistogram latencyMicros = new WindowedHistogram(1, TimeUnit.MINUTES, 6);
+        final WindowedHistogram backlog = new WindowedHistogram(1, TimeUnit.MINUTES, 6);
         double budgetUsed = 0;
         double budgetLimit = 10.0; // ms per tick
         int tasksExecuted = 0;
         int tasksQueued = 0;
-        
+        boolean exhausted = false;
+
+        @SuppressWarnings("unchecked")
         public TaskCategory(String name) {
             this.name = name;
+            this.levels = new Queue[Priority.values().length];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new ConcurrentLinkedQueue<>();
+            }
         }
-        
+
         public boolean hasbudgetRemaining() {
             return budgetUsed < budgetLimit;
         }
-        
+
         public void reset() {
             budgetUsed = 0;
             tasksExecuted = 0;
+            exhausted = false;
+        }
+
+        void offer(ScheduledTask task) {
+            levels[task.priority.getValue()].offer(task);
+            pending.incrementAndGet();
+        }
+
+        ScheduledTask poll(int level) {
+            ScheduledTask task = levels[level].poll();
+            if (task != null) {
+                pending.decrementAndGet();
+            }
+            return task;
+        }
+
+        void clear() {
+            for (Queue<ScheduledTask> level : levels) {
+                ScheduledTask task;
+                while ((task = level.poll()) != null) {
+                    pending.decrementAndGet();
+                    if (task.sliced != null) {
+                        task.sliced.cancel();
+                    }
+                }
+            }
         }
     }
-    
-    private static class ScheduledTask implements Comparable<ScheduledTask> {
+
+    private static class ScheduledTask {
         final String id;
         final Runnable task;
+        final SlicedTask<?> sliced;
         final Priority priority;
-        final String category;
-        final long scheduledTime;
-        final double estimatedTime; // estimated execution time in ms
-        
-        public ScheduledTask(String id, Runnable task, Priority priority, String category, double estimatedTime) {
+        final double estimatedTime; // caller's estimate in ms, used until a cost is learned
+        long scheduledNanos;
+        TaskCategory category; // set while deferred to the next tick
+
+        public ScheduledTask(String id, Runnable task, Priority priority, double estimatedTime) {
+            this(id, task, null, priority, estimatedTime);
+        }
+
+        public ScheduledTask(SlicedTask<?> sliced, Priority priority) {
+            this(sliced.getId(), null, sliced, priority, MIN_SLICE_MS);
+        }
+
+        private ScheduledTask(String id, Runnable task, SlicedTask<?> sliced, Priority priority, double estimatedTime) {
             this.id = id;
             this.task = task;
+            this.sliced = sliced;
             this.priority = priority;
-            this.category = category;
-            this.scheduledTime = System.currentTimeMillis();
+            this.scheduledNanos = System.nanoTime();
             this.estimatedTime = estimatedTime;
         }
-        
-        @Override
-        public int compareTo(ScheduledTask other) {
-            // Higher priority first
-            int priorityComp = Integer.compare(this.priority.getValue(), other.priority.getValue());
-            if (priorityComp != 0) return priorityComp;
-            
-            // Then by scheduled time (older first)
-            return Long.compare(this.scheduledTime, other.scheduledTime);
+
+        /** Priority after aging: one level better per aging interval spent waiting */
+        int effectivePriority(long now, long agingNanos) {
+            long promoted = agingNanos > 0 ? (now - scheduledNanos) / agingNanos : 0;
+            return (int) Math.max(0, priority.getValue() - promoted);
         }
     }
-    
+
     public TickBudgetManager(XreatOptimizer plugin) {
         this.plugin = plugin;
         initializeCategories();
     }
-    
+
     private void initializeCategories() {
         registerCategory("entity_processing", 15.0);
         registerCategory("chunk_processing", 10.0);
@@ -100,130 +169,291 @@ public class TickBudgetManager {
         registerCategory("physics_processing", 7.0);
         registerCategory("general", 10.0);
     }
-    
+
     public void registerCategory(String name, double budgetLimit) {
-        TaskCategory category = new TaskCategory(name);
+        TaskCategory category = categories.computeIfAbsent(name, TaskCategory::new);
         category.budgetLimit = budgetLimit;
-        categories.put(name, category);
+        categoryOrder = categories.values().toArray(new TaskCategory[0]);
     }
-    
+
     public void start() {
         if (!plugin.getConfig().getBoolean("tick_budget.enabled", true)) {
             LoggerUtils.info("Tick budget manager is disabled in config.");
             return;
         }
-        
+
+        agingNanos = plugin.getConfig().getLong("tick_budget.aging_ms", 2000L) * 1_000_000L;
         isRunning = true;
-        
+
         // Process tasks every tick
-        processorTask = Bukkit.getScheduler().runTaskTimer(
-            plugin,
-            this::processTick,
-            1L,
-            1L
-        );
-        
+        processorTask = plugin.getSubsystemScheduler().schedule("tick_budget", 1L, 1.0, this::processTick);
+
         LoggerUtils.info("Tick budget manager started - distributing load across ticks");
     }
-    
+
     public void stop() {
         isRunning = false;
-        
+
         if (processorTask != null) {
             processorTask.cancel();
         }
-        
-        taskQueue.clear();
-        categories.values().forEach(TaskCategory::reset);
-        
+
+        clearDeferredSlices();
+        for (TaskCategory category : categoryOrder) {
+            category.clear();
+            category.reset();
+            synchronized (category) {
+                category.latencyMicros.clear();
+                category.backlog.clear();
+            }
+        }
+
         LoggerUtils.info("Tick budget manager stopped");
     }
-    
+
+    /**
+     * Queue a task. The estimate is only used until the task id has been measured; after that the
+     * learned average cost decides whether it fits in the remaining budget.
+     */
     public void scheduleTask(String id, Runnable task, Priority priority, String category, double estimatedTimeMs) {
         if (!isRunning) {
             // If not running, execute immediately
             task.run();
             return;
         }
-        
+
         TaskCategory cat = categories.getOrDefault(category, categories.get("general"));
         cat.tasksQueued++;
-        
-        ScheduledTask scheduledTask = new ScheduledTask(id, task, priority, category, estimatedTimeMs);
-        taskQueue.offer(scheduledTask);
+        cat.offer(new ScheduledTask(id, task, priority, estimatedTimeMs));
     }
-    
+
     public void scheduleTask(String id, Runnable task, Priority priority) {
         scheduleTask(id, task, priority, "general", 1.0);
     }
-    
+
+    /**
+     * Queue a resumable task. Each tick it gets a slice bounded by the remaining tick and category
+     * budget, and it is re-queued until step() reports completion. Main thread only.
+     */
+    public <T> CompletableFuture<T> submitSliced(SlicedTask<T> task, Priority priority, String category) {
+        activeSlicedTasks.add(task);
+        task.getFuture().whenComplete((result, error) -> activeSlicedTasks.remove(task));
+
+        if (!isRunning) {
+            runUnmanaged(task);
+            return task.getFuture();
+        }
+
+        TaskCategory cat = categories.getOrDefault(category, categories.get("general"));
+        cat.tasksQueued++;
+        cat.offer(new ScheduledTask(task, priority));
+        return task.getFuture();
+    }
+
+    /** Drive a sliced task with a fixed slice per tick when the budget manager is disabled */
+    private void runUnmanaged(SlicedTask<?> task) {
+        new BukkitRunnable() {
+            private final SlicedTask.Deadline deadline = new SlicedTask.Deadline();
+
+            @Override
+            public void run() {
+                deadline.reset(System.nanoTime() + (long) (UNMANAGED_SLICE_MS * 1_000_000L));
+                if (task.runSlice(deadline)) {
+                    logSliceFailure(task);
+                    cancel();
+                }
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
     private void processTick() {
         if (!isRunning) return;
-        
+
         long tickStart = System.nanoTime();
         double tickBudgetUsed = 0;
-        
+
         // Adjust budget based on current TPS
         adjustBudgetBasedOnTPS();
-        
-        // Reset category budgets
-        categories.values().forEach(TaskCategory::reset);
-        
-        // Process tasks until budget exhausted
-        while (!taskQueue.isEmpty() && tickBudgetUsed < currentBudget) {
-            ScheduledTask task = taskQueue.peek();
-            if (task == null) break;
-            
-            // Check category budget
-            TaskCategory category = categories.get(task.category);
-            if (category != null && !category.hasbudgetRemaining()) {
-                // This category exhausted, skip
-                break;
-            }
-            
-            // Check if we have enough budget for estimated task time
-            if (tickBudgetUsed + task.estimatedTime > currentBudget && task.priority != Priority.CRITICAL) {
-                break; // Save for next tick
+
+        // Sliced tasks that yielded last tick go back to the end of their queues
+        ScheduledTask deferred;
+        while ((deferred = deferredSlices.poll()) != null) {
+            deferred.scheduledNanos = tickStart;
+            deferred.category.levels[deferred.priority.getValue()].offer(deferred);
+        }
+
+        // Reset category budgets and sample backlogs
+        TaskCategory[] order = categoryOrder;
+        for (TaskCategory category : order) {
+            category.reset();
+            synchronized (category) {
+                category.backlog.record(category.pending.get());
             }
-            
-            // Execute task
-            task = taskQueue.poll();
-            if (task != null) {
-                long taskStart = System.nanoTime();
-                
-                try {
-                    task.task.run();
-                } catch (Exception e) {
-                    LoggerUtils.error("Error executing budgeted task " + task.id, e);
-                }
-                
-                long taskTime = System.nanoTime() - taskStart;
-                double taskTimeMs = taskTime / 1_000_000.0;
-                
-                // Update budgets
-                tickBudgetUsed += taskTimeMs;
-                if (category != null) {
-                    category.budgetUsed += taskTimeMs;
-                    category.tasksExecuted++;
+        }
+
+        // Weighted round-robin over the categories: a saturated category only drops out itself
+        int count = order.length;
+        boolean progressed = true;
+        while (progressed && tickBudgetUsed < currentBudget) {
+            progressed = false;
+            for (int i = 0; i < count && tickBudgetUsed < currentBudget; i++) {
+                TaskCategory category = order[(roundRobinCursor + i) % count];
+                if (category.exhausted) continue;
+
+                int turns = 0;
+                int allowance = 0;
+                while (tickBudgetUsed < currentBudget) {
+                    long now = System.nanoTime();
+                    int level = selectLevel(category, now);
+                    if (level < 0) {
+                        category.exhausted = true;
+                        break;
+                    }
+
+                    ScheduledTask head = category.levels[level].peek();
+                    if (turns == 0) {
+                        allowance = PRIORITY_WEIGHTS[head.effectivePriority(now, agingNanos)];
+                    }
+
+                    double estimate = estimateCost(head);
+                    if (head.priority != Priority.CRITICAL) {
+                        // Each category may always run one task per tick, otherwise it has to fit
+                        if (category.tasksExecuted > 0 && category.budgetUsed + estimate > category.budgetLimit) {
+                            category.exhausted = true;
+                            break;
+                        }
+                        // Does not fit the rest of this tick; smaller tasks elsewhere still might
+                        if (tickBudgetUsed > 0 && tickBudgetUsed + estimate > currentBudget) {
+                            category.exhausted = true;
+                            break;
+                        }
+                    }
+
+                    ScheduledTask task = category.poll(level);
+                    if (task == null) break;
+                    if (task.sliced != null && task.sliced.isDone()) {
+                        continue; // cancelled while queued
+                    }
+
+                    double taskTimeMs = task.sliced != null
+                        ? executeSlice(category, task, currentBudget - tickBudgetUsed)
+                        : execute(category, task);
+                    tickBudgetUsed += taskTimeMs;
+                    progressed = true;
+
+                    if (++turns >= allowance) break;
                 }
             }
         }
-        
+
+        if (count > 0) {
+            roundRobinCursor = (roundRobinCursor + 1) % count;
+        }
+
         long tickTime = System.nanoTime() - tickStart;
         double tickTimeMs = tickTime / 1_000_000.0;
-        
+
         // Warn if over budget
         if (tickTimeMs > currentBudget) {
             LoggerUtils.warn(String.format(
                 "Tick budget exceeded: %.2fms used / %.2fms budget | Queue: %d tasks",
-                tickTimeMs, currentBudget, taskQueue.size()
+                tickTimeMs, currentBudget, getQueueSize()
             ));
         }
     }
-    
+
+    /** Priority level whose head task has the best effective priority, or -1 if all are empty */
+    private int selectLevel(TaskCategory category, long now) {
+        int bestLevel = -1;
+        int bestPriority = Integer.MAX_VALUE;
+        for (int level = 0; level < category.levels.length; level++) {
+            ScheduledTask head = category.levels[level].peek();
+            if (head == null) continue;
+            int effective = head.effectivePriority(now, agingNanos);
+            if (effective < bestPriority) {
+                bestPriority = effective;
+                bestLevel = level;
+            }
+        }
+        return bestLevel;
+    }
+
+    private double execute(TaskCategory category, ScheduledTask task) {
+        long taskStart = System.nanoTime();
+
+        try {
+            task.task.run();
+        } catch (Exception e) {
+            LoggerUtils.error("Error executing budgeted task " + task.id, e);
+        }
+
+        long taskTime = System.nanoTime() - taskStart;
+        double taskTimeMs = taskTime / 1_000_000.0;
+
+        learnCost(task.id, taskTimeMs);
+        category.budgetUsed += taskTimeMs;
+        category.tasksExecuted++;
+        synchronized (category) {
+            category.latencyMicros.record((taskStart - task.scheduledNanos) / 1000L);
+        }
+
+        return taskTimeMs;
+    }
+
+    private double executeSlice(TaskCategory category, ScheduledTask task, double tickRemainingMs) {
+        long sliceStart = System.nanoTime();
+        double sliceMs = Math.max(MIN_SLICE_MS, Math.min(tickRemainingMs, category.budgetLimit - category.budgetUsed));
+        sliceDeadline.reset(sliceStart + (long) (sliceMs * 1_000_000L));
+        synchronized (category) {
+            category.latencyMicros.record((sliceStart - task.scheduledNanos) / 1000L);
+        }
+
+        boolean finished;
+        try {
+            finished = task.sliced.runSlice(sliceDeadline);
+        } catch (Exception e) {
+            LoggerUtils.error("Error executing sliced task " + task.id, e);
+            finished = true;
+        }
+
+        double taskTimeMs = (System.nanoTime() - sliceStart) / 1_000_000.0;
+        category.budgetUsed += taskTimeMs;
+        category.tasksExecuted++;
+
+        if (finished) {
+            logSliceFailure(task.sliced);
+        } else {
+            // Still counted as pending while deferred
+            task.category = category;
+            category.pending.incrementAndGet();
+            deferredSlices.offer(task);
+        }
+        return taskTimeMs;
+    }
+
+    private void logSliceFailure(SlicedTask<?> task) {
+        task.getFuture().whenComplete((result, error) -> {
+            if (error != null && !task.isCancelled()) {
+                LoggerUtils.error("Error executing sliced task " + task.getId(), error);
+            }
+        });
+    }
+
+    private double estimateCost(ScheduledTask task) {
+        Double learned = learnedCosts.get(task.id);
+        return learned != null ? learned : task.estimatedTime;
+    }
+
+    private void learnCost(String id, double measuredMs) {
+        Double previous = learnedCosts.get(id);
+        learnedCosts.put(id, previous == null
+            ? measuredMs
+            : previous + COST_EWMA_ALPHA * (measuredMs - previous));
+    }
+
     private void adjustBudgetBasedOnTPS() {
         double tps = getTPS();
-        
+
         if (tps >= 19.5) {
             // Server running well, can use more budget
             currentBudget = Math.min(maxTickBudget, currentBudget + 0.5);
@@ -235,7 +465,7 @@ public class TickBudgetManager {
             currentBudget = Math.max(30.0, currentBudget - 0.5);
         }
     }
-    
+
     private double getTPS() {
         try {
             return com.xreatlabs.xreatoptimizer.utils.TPSUtils.getTPS();
@@ -243,13 +473,13 @@ public class TickBudgetManager {
             return 20.0;
         }
     }
-    
+
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("queue_size", taskQueue.size());
+        stats.put("queue_size", getQueueSize());
         stats.put("current_budget_ms", String.format("%.2f", currentBudget));
         stats.put("max_budget_ms", String.format("%.2f", maxTickBudget));
-        
+
         Map<String, Map<String, Object>> categoryStats = new HashMap<>();
         for (Map.Entry<String, TaskCategory> entry : categories.entrySet()) {
             TaskCategory cat = entry.getValue();
@@ -258,19 +488,57 @@ public class TickBudgetManager {
             catStats.put("budget_limit_ms", String.format("%.2f", cat.budgetLimit));
             catStats.put("tasks_executed", cat.tasksExecuted);
             catStats.put("tasks_queued", cat.tasksQueued);
+            catStats.put("backlog", cat.pending.get());
+            synchronized (cat) {
+                catStats.put("latency_ms", histogramStats(cat.latencyMicros.getWindow(), 1000.0));
+                catStats.put("backlog_histogram", histogramStats(cat.backlog.getWindow(), 1.0));
+            }
             categoryStats.put(entry.getKey(), catStats);
         }
         stats.put("categories", categoryStats);
-        
+
+        Map<String, Object> slicedStats = new HashMap<>();
+        for (SlicedTask<?> task : activeSlicedTasks) {
+            slicedStats.put(task.getId(), String.format("%.1f%% (%d slices)", task.getProgress() * 100.0, task.getSlicesRun()));
+        }
+        stats.put("sliced_tasks", slicedStats);
+
         return stats;
     }
-    
+
+    private Map<String, Object> histogramStats(LogHistogram histogram, double divisor) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", "1m");
+        result.put("samples", histogram.getCount());
+        result.put("mean", String.format("%.2f", histogram.getMean() / divisor));
+        result.put("p50", String.format("%.2f", histogram.getValueAtPercentile(50.0) / divisor));
+        result.put("p95", String.format("%.2f", histogram.getValueAtPercentile(95.0) / divisor));
+        result.put("p99", String.format("%.2f", histogram.getValueAtPercentile(99.0) / divisor));
+        result.put("max", String.format("%.2f", histogram.getMaxValue() / divisor));
+        return result;
+    }
+
+    private void clearDeferredSlices() {
+        ScheduledTask task;
+        while ((task = deferredSlices.poll()) != null) {
+            task.category.pending.decrementAndGet();
+            task.sliced.cancel();
+        }
+    }
+
     public int getQueueSize() {
-        return taskQueue.size();
+        int total = 0;
+        for (TaskCategory category : categoryOrder) {
+            total += category.pending.get();
+        }
+        return total;
     }
-    
+
     public void clearQueue() {
-        taskQueue.clear();
+        clearDeferredSlices();
+        for (TaskCategory category : categoryOrder) {
+            category.clear();
+        }
         LoggerUtils.info("Cleared tick budget task queue");
     }
 }
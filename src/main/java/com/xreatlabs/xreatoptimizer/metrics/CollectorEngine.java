@@ -0,0 +1,435 @@
+package com.xreatlabs.xreatoptimizer.metrics;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsCollector;
+import com.xreatlabs.xreatoptimizer.api.XreatOptimizerAPI;
+import com.xreatlabs.xreatoptimizer.async.IoExecutors;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler;
+import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import io.micrometer.core.instrument.Meter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls the MetricsCollectors registered through {@link XreatOptimizerAPI} on their own intervals.
+ *
+ * Async collectors run on a small worker pool, one call in flight per collector; a call still
+ * running after {@code timeout_ms} is interrupted and its result dropped. Sync collectors share
+ * one main-thread slot every second, capped at {@code main_thread_budget_ms} per slot; a collector
+ * that takes longer than {@code max_collector_ms} has its interval doubled (up to 16x) until it
+ * fits again. Numeric results become {@code xreat_collector_value} gauges, are listed on the
+ * dashboard and are appended to the statistics store. Only the keys of the latest result keep a
+ * gauge, at most {@code MAX_VALUES_PER_COLLECTOR} per collector; a key the collector stops
+ * reporting has its gauge removed.
+ */
+public class CollectorEngine {
+
+    private static final int MAX_VALUES_PER_COLLECTOR = 64;
+    private static final int MAX_BACKOFF = 16;
+
+    private final XreatOptimizer plugin;
+    private final Map<MetricsCollector, CollectorStatus> statuses = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicLong generation = new AtomicLong();
+
+    private ScheduledExecutorService clock;
+    private ExecutorService workers;
+    private SubsystemScheduler.Registration syncTask;
+    private volatile boolean isRunning = false;
+    private long timeoutMs;
+    private long mainThreadBudgetNanos;
+    private long maxCollectorNanos;
+    private int syncCursor = 0;
+
+    /** Last results and run counters for one collector. */
+    public static final class CollectorStatus {
+        private final MetricsCollector collector;
+        private final String name;
+        private final SubsystemProfiler.Probe probe;
+        private final Map<String, Double> numericValues = new ConcurrentHashMap<>();
+        // Gauges by key, a subset of numericValues' keys; guarded by itself
+        private final Map<String, Meter> meters = new HashMap<>();
+
+        private volatile long nextRunMillis;
+        private volatile boolean inFlight;
+        private volatile int backoff = 1;
+
+        private volatile Map<String, Object> lastValues = Collections.emptyMap();
+        private volatile long lastCollectedAt;
+        private volatile double lastDurationMs;
+        private volatile String lastError;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder overruns = new LongAdder();
+
+        private CollectorStatus(MetricsCollector collector, String name, SubsystemProfiler.Probe probe) {
+            this.collector = collector;
+            this.name = name;
+            this.probe = probe;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return collector.getDescription();
+        }
+
+        public boolean isAsync() {
+            return collector.isAsync();
+        }
+
+        /** Interval currently applied, including any overrun backoff. */
+        public int getIntervalSeconds() {
+            return intervalSeconds(collector) * backoff;
+        }
+
+        /** Values from the last successful collection, in the order the collector returned them. */
+        public Map<String, Object> getLastValues() {
+            return lastValues;
+        }
+
+        public long getLastCollectedAt() {
+            return lastCollectedAt;
+        }
+
+        public double getLastDurationMs() {
+            return lastDurationMs;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public long getRuns() {
+            return runs.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public long getOverruns() {
+            return overruns.sum();
+        }
+    }
+
+    public CollectorEngine(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (isRunning || !plugin.getConfig().getBoolean("api.collectors.enabled", true)) {
+            return;
+        }
+
+        timeoutMs = Math.max(100L, plugin.getConfig().getLong("api.collectors.timeout_ms", 2000L));
+        mainThreadBudgetNanos = (long) (plugin.getConfig().getDouble("api.collectors.main_thread_budget_ms", 2.0) * 1_000_000L);
+        maxCollectorNanos = (long) (plugin.getConfig().getDouble("api.collectors.max_collector_ms", 5.0) * 1_000_000L);
+
+        workers = IoExecutors.newIoExecutor("XreatOpt-Collector", 2);
+        clock = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "XreatOpt-Collector-Clock");
+            t.setDaemon(true);
+            return t;
+        });
+        clock.scheduleAtFixedRate(this::pollAsync, 1L, 1L, TimeUnit.SECONDS);
+        syncTask = plugin.getSubsystemScheduler().schedule("metrics_collectors", 20L, 0.5, this::pollSync);
+
+        isRunning = true;
+        LoggerUtils.info("Metrics collector engine started.");
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (syncTask != null) {
+            syncTask.cancel();
+            syncTask = null;
+        }
+        if (clock != null) {
+            clock.shutdownNow();
+            clock = null;
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+
+        MetricsRegistry registry = metricsRegistry();
+        synchronized (statuses) {
+            for (CollectorStatus status : statuses.values()) {
+                removeMeters(status, registry);
+            }
+            statuses.clear();
+        }
+        generation.incrementAndGet();
+    }
+
+    /** Clock thread: pick up (un)registered collectors and start every due async collection. */
+    private void pollAsync() {
+        if (!isRunning) return;
+        try {
+            refreshCollectors();
+            long now = System.currentTimeMillis();
+            for (CollectorStatus status : snapshot()) {
+                if (status.collector.isAsync() && !status.inFlight && now >= status.nextRunMillis) {
+                    status.nextRunMillis = now + intervalSeconds(status.collector) * 1000L;
+                    runAsync(status);
+                }
+            }
+        } catch (Exception e) {
+            // An exception would cancel the schedule
+            LoggerUtils.error("Error polling metrics collectors", e);
+        }
+    }
+
+    private void runAsync(CollectorStatus status) {
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicBoolean started = new AtomicBoolean();
+        status.inFlight = true;
+        Future<?> task;
+        try {
+            task = workers.submit(() -> {
+                started.set(true);
+                long start = System.nanoTime();
+                try {
+                    Map<String, Object> values = status.collector.collectMetrics();
+                    if (settled.compareAndSet(false, true)) {
+                        publish(status, values, System.nanoTime() - start);
+                    }
+                } catch (Throwable t) {
+                    if (settled.compareAndSet(false, true)) {
+                        fail(status, t);
+                    }
+                } finally {
+                    status.inFlight = false;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            status.inFlight = false;
+            return;
+        }
+
+        clock.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                task.cancel(true);
+                // A task cancelled before it started never reaches its finally block
+                if (!started.get()) {
+                    status.inFlight = false;
+                }
+                status.timeouts.increment();
+                status.lastError = "Timed out after " + timeoutMs + "ms";
+                generation.incrementAndGet();
+                LoggerUtils.warn("Metrics collector " + status.name + " timed out after " + timeoutMs + "ms");
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Main thread: run due sync collectors until this slot's budget is spent, resuming next slot. */
+    private void pollSync() {
+        if (!isRunning) return;
+        List<CollectorStatus> all = snapshot();
+        if (all.isEmpty()) return;
+
+        long slotStart = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int count = all.size();
+        for (int i = 0; i < count; i++) {
+            CollectorStatus status = all.get((syncCursor + i) % count);
+            if (status.collector.isAsync() || now < status.nextRunMillis) {
+                continue;
+            }
+            if (System.nanoTime() - slotStart >= mainThreadBudgetNanos) {
+                // Start from this collector next slot so everyone gets a turn
+                syncCursor = (syncCursor + i) % count;
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                publish(status, status.collector.collectMetrics(), System.nanoTime() - start);
+            } catch (Throwable t) {
+                fail(status, t);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (elapsed > maxCollectorNanos) {
+                status.overruns.increment();
+                if (status.backoff < MAX_BACKOFF) {
+                    status.backoff *= 2;
+                    LoggerUtils.warn(String.format("Metrics collector %s took %.2fms on the main thread; polling it every %ds",
+                        status.name, elapsed / 1_000_000.0, status.getIntervalSeconds()));
+                }
+            } else {
+                status.backoff = 1;
+            }
+            status.nextRunMillis = now + status.getIntervalSeconds() * 1000L;
+        }
+        syncCursor = 0;
+    }
+
+    private void publish(CollectorStatus status, Map<String, Object> values, long elapsedNanos) {
+        status.runs.increment();
+        status.lastDurationMs = elapsedNanos / 1_000_000.0;
+        if (status.probe != null) {
+            status.probe.record(elapsedNanos);
+        }
+
+        Map<String, Object> kept = new LinkedHashMap<>();
+        Map<String, Double> numeric = new LinkedHashMap<>();
+        if (values != null) {
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                if (entry.getKey() == null || kept.size() >= MAX_VALUES_PER_COLLECTOR) {
+                    continue;
+                }
+                Object value = entry.getValue();
+                kept.put(entry.getKey(), value);
+                if (value instanceof Number) {
+                    numeric.put(entry.getKey(), ((Number) value).doubleValue());
+                } else if (value instanceof Boolean) {
+                    numeric.put(entry.getKey(), (Boolean) value ? 1.0 : 0.0);
+                }
+            }
+        }
+
+        MetricsRegistry registry = metricsRegistry();
+        synchronized (status.meters) {
+            // Keys missing from this result are stale; numeric is capped, so this bounds the gauges too
+            Iterator<Map.Entry<String, Double>> previous = status.numericValues.entrySet().iterator();
+            while (previous.hasNext()) {
+                String key = previous.next().getKey();
+                if (!numeric.containsKey(key)) {
+                    previous.remove();
+                    Meter meter = status.meters.remove(key);
+                    if (meter != null && registry != null) {
+                        registry.removeMeter(meter);
+                    }
+                }
+            }
+            for (Map.Entry<String, Double> entry : numeric.entrySet()) {
+                String key = entry.getKey();
+                status.numericValues.put(key, entry.getValue());
+                if (registry != null && !status.meters.containsKey(key)) {
+                    status.meters.put(key, registry.registerCollectorValue(status.name, key,
+                        () -> status.numericValues.getOrDefault(key, Double.NaN)));
+                }
+            }
+        }
+
+        status.lastValues = Collections.unmodifiableMap(kept);
+        status.lastCollectedAt = System.currentTimeMillis();
+        status.lastError = null;
+        generation.incrementAndGet();
+
+        StatisticsStorage storage = plugin.getStatisticsStorage();
+        if (storage != null && !numeric.isEmpty()) {
+            storage.recordCollectorSample(status.name, status.lastCollectedAt, numeric);
+        }
+    }
+
+    private void fail(CollectorStatus status, Throwable error) {
+        status.failures.increment();
+        status.lastError = error.getClass().getSimpleName() + (error.getMessage() != null ? ": " + error.getMessage() : "");
+        generation.incrementAndGet();
+        LoggerUtils.debug("Metrics collector " + status.name + " failed: " + status.lastError);
+    }
+
+    /** Match the tracked collectors with the ones currently registered through the API. */
+    private void refreshCollectors() {
+        List<MetricsCollector> registered = XreatOptimizerAPI.getMetricsCollectors();
+        MetricsRegistry registry = metricsRegistry();
+        boolean changed = false;
+        synchronized (statuses) {
+            Map<MetricsCollector, Boolean> current = new IdentityHashMap<>();
+            for (MetricsCollector collector : registered) {
+                current.put(collector, Boolean.TRUE);
+                if (!statuses.containsKey(collector)) {
+                    String name = sanitize(collector.getName());
+                    SubsystemProfiler profiler = plugin.getSubsystemProfiler();
+                    statuses.put(collector, new CollectorStatus(collector, name,
+                        profiler != null ? profiler.probe("api_collector", name) : null));
+                    changed = true;
+                }
+            }
+            for (CollectorStatus status : new ArrayList<>(statuses.values())) {
+                if (!current.containsKey(status.collector)) {
+                    statuses.remove(status.collector);
+                    removeMeters(status, registry);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            generation.incrementAndGet();
+        }
+    }
+
+    private static void removeMeters(CollectorStatus status, MetricsRegistry registry) {
+        synchronized (status.meters) {
+            if (registry != null) {
+                for (Meter meter : status.meters.values()) {
+                    registry.removeMeter(meter);
+                }
+            }
+            status.meters.clear();
+            status.numericValues.clear();
+        }
+    }
+
+    private List<CollectorStatus> snapshot() {
+        synchronized (statuses) {
+            return new ArrayList<>(statuses.values());
+        }
+    }
+
+    private MetricsRegistry metricsRegistry() {
+        PrometheusExporter exporter = plugin.getPrometheusExporter();
+        return exporter != null ? exporter.getMetricsRegistry() : null;
+    }
+
+    private static int intervalSeconds(MetricsCollector collector) {
+        return Math.max(1, collector.getCollectionIntervalSeconds());
+    }
+
+    private static String sanitize(String name) {
+        String cleaned = name == null ? "" : name.replaceAll("[^A-Za-z0-9_.-]", "_");
+        return cleaned.isEmpty() ? "collector" : cleaned;
+    }
+
+    public List<CollectorStatus> getStatuses() {
+        return snapshot();
+    }
+
+    /** Changes whenever a collector reports, fails or is (un)registered. */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+}
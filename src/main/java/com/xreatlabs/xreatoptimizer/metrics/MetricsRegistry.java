@@ -1,14 +1,31 @@
 package com.xreatlabs.xreatoptimizer.metrics;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.managers.EntityCountTracker;
+import com.xreatlabs.xreatoptimizer.managers.InstrumentedExecutor;
+import com.xreatlabs.xreatoptimizer.profiling.SubsystemProfiler;
+import com.xreatlabs.xreatoptimizer.profiling.TickClock;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import com.xreatlabs.xreatoptimizer.web.RateLimiter;
 import io.micrometer.core.instrument.*;
 import io.micrometer.prometheus.PrometheusConfig;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import org.bukkit.Bukkit;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 /** Central metrics registry */
 public class MetricsRegistry {
@@ -39,6 +56,13 @@ public class MetricsRegistry {
 
     // Timers
     private Timer optimizationTimer;
+    private Timer tickTimer;
+
+    // Per-world gauges by world name, touched by the exporter's collector thread only
+    private final Map<String, List<Meter>> worldMeters = new HashMap<>();
+
+    // Meters only hold their source weakly, so the limiter lookups are kept alive here
+    private final List<Supplier<RateLimiter>> rateLimiterSources = new CopyOnWriteArrayList<>();
 
     public MetricsRegistry(XreatOptimizer plugin) {
         this.plugin = plugin;
@@ -108,6 +132,42 @@ public class MetricsRegistry {
             .baseUnit("tasks")
             .register(registry);
 
+        // Per-lane executor metrics
+        if (plugin.getThreadPoolManager() != null) {
+            for (InstrumentedExecutor executor : plugin.getThreadPoolManager().getExecutors()) {
+                registerExecutorMetrics(executor);
+            }
+        }
+
+        // Per-subsystem cycle and event handler timings; probes appear as subsystems first run
+        if (plugin.getSubsystemProfiler() != null) {
+            plugin.getSubsystemProfiler().onProbeCreated(this::registerSubsystemMetrics);
+        }
+
+        // The dashboard creates its limiter when it starts, so look it up on each scrape
+        registerRateLimiter("dashboard", () -> plugin.getWebDashboard() != null ? plugin.getWebDashboard().getRateLimiter() : null);
+
+        // Tick duration percentiles per rolling window. The percentile label is not a summary's
+        // quantile: these are precomputed gauges and must not be averaged or summed across series.
+        // The registry appends the base unit, e.g. xreat_tick_time_milliseconds{window,percentile}.
+        for (TickClock.Window window : TickClock.Window.values()) {
+            registerTickGauge(window, "p50", stats -> stats.p50);
+            registerTickGauge(window, "p95", stats -> stats.p95);
+            registerTickGauge(window, "p99", stats -> stats.p99);
+
+            Gauge.builder("xreat_tick_time_mean", () -> tickStats(window).mean)
+                .description("Mean tick duration over the window")
+                .baseUnit("milliseconds")
+                .tag("window", window.getLabel())
+                .register(registry);
+
+            Gauge.builder("xreat_tick_time_max", () -> tickStats(window).max)
+                .description("Longest tick duration over the window")
+                .baseUnit("milliseconds")
+                .tag("window", window.getLabel())
+                .register(registry);
+        }
+
         // Counters
         lagSpikeCounter = Counter.builder("xreat_lag_spikes_total")
             .description("Total number of lag spikes detected")
@@ -138,6 +198,13 @@ public class MetricsRegistry {
             .description("Time taken for optimization runs")
             .register(registry);
 
+        // Buckets around the 50ms budget, so histogram_quantile works across backends
+        tickTimer = Timer.builder("xreat_tick_duration")
+            .description("Server tick duration (MSPT on Paper, tick interval elsewhere)")
+            .serviceLevelObjectives(millis(5), millis(10), millis(20), millis(30), millis(40), millis(50),
+                millis(60), millis(75), millis(100), millis(150), millis(250), millis(500), millis(1000))
+            .register(registry);
+
         // Server info as gauge (constant)
         Gauge.builder("xreat_info", () -> 1)
             .description("XreatOptimizer version info")
@@ -147,6 +214,175 @@ public class MetricsRegistry {
             .register(registry);
     }
 
+    private static Duration millis(long millis) {
+        return Duration.ofMillis(millis);
+    }
+
+    private void registerTickGauge(TickClock.Window window, String percentile,
+                                   ToDoubleFunction<TickClock.TickStats> value) {
+        Gauge.builder("xreat_tick_time", () -> value.applyAsDouble(tickStats(window)))
+            .description("Tick duration percentile over the window")
+            .baseUnit("milliseconds")
+            .tag("window", window.getLabel())
+            .tag("percentile", percentile)
+            .register(registry);
+    }
+
+    private void registerExecutorMetrics(InstrumentedExecutor executor) {
+        String pool = executor.getName();
+        Gauge.builder("xreat_executor_pending", executor, InstrumentedExecutor::getPendingCount)
+            .description("Tasks waiting in the executor lane")
+            .baseUnit("tasks")
+            .tag("pool", pool)
+            .register(registry);
+
+        FunctionCounter.builder("xreat_executor_rejected_total", executor, InstrumentedExecutor::getRejectedCount)
+            .description("Tasks rejected by the executor lane")
+            .tag("pool", pool)
+            .register(registry);
+
+        FunctionCounter.builder("xreat_executor_dropped_total", executor,
+                e -> e.getDroppedCount() + e.getCoalescedCount())
+            .description("Tasks dropped or coalesced away by backpressure")
+            .tag("pool", pool)
+            .register(registry);
+
+        FunctionCounter.builder("xreat_executor_caller_runs_total", executor, InstrumentedExecutor::getCallerRunsCount)
+            .description("Tasks run on the submitting thread by backpressure")
+            .tag("pool", pool)
+            .register(registry);
+
+        for (int percentile : new int[]{50, 99}) {
+            Gauge.builder("xreat_executor_queue_wait", executor, e -> e.getQueueWaitMs(percentile))
+                .description("Time tasks spent queued before running, percentile over the last minute")
+                .baseUnit("milliseconds")
+                .tag("pool", pool)
+                .tag("percentile", "p" + percentile)
+                .register(registry);
+
+            Gauge.builder("xreat_executor_run_time", executor, e -> e.getRunTimeMs(percentile))
+                .description("Task run time, percentile over the last minute")
+                .baseUnit("milliseconds")
+                .tag("pool", pool)
+                .tag("percentile", "p" + percentile)
+                .register(registry);
+        }
+    }
+
+    private void registerSubsystemMetrics(SubsystemProfiler.Probe probe) {
+        Tags tags = Tags.of("subsystem", probe.getSubsystem(), "phase", probe.getPhase());
+        FunctionTimer.builder("xreat_subsystem_duration", probe, SubsystemProfiler.Probe::getCount,
+                SubsystemProfiler.Probe::getTotalNanos, TimeUnit.NANOSECONDS)
+            .description("Time the plugin spent in a subsystem cycle or event handler")
+            .tags(tags)
+            .register(registry);
+
+        // A separate name from the timer above, which Prometheus requires to keep one set of tag keys
+        for (int percentile : new int[]{50, 99}) {
+            Gauge.builder("xreat_subsystem_duration_percentile", probe, p -> p.getPercentileMs(percentile))
+                .description("Subsystem cycle or event handler duration percentile over the last minute")
+                .baseUnit("milliseconds")
+                .tags(tags)
+                .tag("percentile", "p" + percentile)
+                .register(registry);
+        }
+
+        Gauge.builder("xreat_subsystem_duration_max", probe, SubsystemProfiler.Probe::getMaxMs)
+            .description("Longest subsystem cycle or event handler run")
+            .baseUnit("milliseconds")
+            .tags(tags)
+            .register(registry);
+    }
+
+    /**
+     * Register gauges for worlds the tracker has started counting and remove those of worlds that
+     * were unloaded. Gauges read the tracker's atomic counters, so scrapes never touch the main thread.
+     */
+    public synchronized void syncWorldMetrics(EntityCountTracker tracker) {
+        if (tracker == null) {
+            return;
+        }
+        Set<String> worlds = tracker.getTrackedWorlds();
+        Iterator<Map.Entry<String, List<Meter>>> it = worldMeters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, List<Meter>> entry = it.next();
+            if (!worlds.contains(entry.getKey())) {
+                for (Meter meter : entry.getValue()) {
+                    registry.remove(meter);
+                }
+                it.remove();
+            }
+        }
+        for (String world : worlds) {
+            if (!worldMeters.containsKey(world)) {
+                worldMeters.put(world, registerWorldMetrics(tracker, world));
+            }
+        }
+    }
+
+    private List<Meter> registerWorldMetrics(EntityCountTracker tracker, String world) {
+        List<Meter> meters = new ArrayList<>();
+        for (EntityCountTracker.Category category : EntityCountTracker.Category.values()) {
+            meters.add(Gauge.builder("xreat_world_entities", () -> tracker.getWorldCategoryCount(world, category))
+                .description("Entities in the world by category")
+                .baseUnit("entities")
+                .tag("world", world)
+                .tag("category", category.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+        }
+
+        meters.add(Gauge.builder("xreat_world_chunks", () -> tracker.getWorldChunkCount(world))
+            .description("Loaded chunks in the world")
+            .baseUnit("chunks")
+            .tag("world", world)
+            .register(registry));
+        return meters;
+    }
+
+    /** Gauge for one numeric value reported by an API MetricsCollector. */
+    public Meter registerCollectorValue(String collector, String key, Supplier<Number> value) {
+        return Gauge.builder("xreat_collector_value", value)
+            .description("Value reported by a registered metrics collector")
+            .tag("collector", collector)
+            .tag("metric", key)
+            .register(registry);
+    }
+
+    public void removeMeter(Meter meter) {
+        registry.remove(meter);
+    }
+
+    /** Export reject and eviction counters for one HTTP server's limiter, which may be null. */
+    public void registerRateLimiter(String server, Supplier<RateLimiter> limiter) {
+        rateLimiterSources.add(limiter);
+        FunctionCounter.builder("xreat_http_rate_limited_total", limiter, rateLimiterValue(RateLimiter::getRejectedCount))
+            .description("HTTP requests refused by the rate limiter")
+            .tag("server", server)
+            .register(registry);
+
+        FunctionCounter.builder("xreat_http_rate_limit_evictions_total", limiter, rateLimiterValue(RateLimiter::getEvictedCount))
+            .description("Clients dropped from the rate limiter to keep its memory bounded")
+            .tag("server", server)
+            .register(registry);
+
+        Gauge.builder("xreat_http_rate_limit_clients", limiter, rateLimiterValue(RateLimiter::getTrackedClients))
+            .description("Clients currently tracked by the rate limiter")
+            .tag("server", server)
+            .register(registry);
+    }
+
+    private static ToDoubleFunction<Supplier<RateLimiter>> rateLimiterValue(ToDoubleFunction<RateLimiter> value) {
+        return supplier -> {
+            RateLimiter limiter = supplier.get();
+            return limiter != null ? value.applyAsDouble(limiter) : 0;
+        };
+    }
+
+    private TickClock.TickStats tickStats(TickClock.Window window) {
+        TickClock clock = plugin.getTickClock();
+        return clock != null ? clock.getStats(window) : TickClock.EMPTY;
+    }
+
     public void updateTps(double tps) {
         currentTps.set((int) (tps * 100)); // Store as integer (20.00 = 2000)
         minTps.set((int) Math.min(minTps.get(), tps * 100));
@@ -200,6 +436,11 @@ public class MetricsRegistry {
         optimizationRunCounter.increment();
     }
 
+    /** Record one tick duration into the bucketed histogram. Called from TickClock on the main thread. */
+    public void recordTick(long micros) {
+        tickTimer.record(micros, TimeUnit.MICROSECONDS);
+    }
+
     public Timer.Sample startOptimizationTimer() {
         return Timer.start(registry);
     }
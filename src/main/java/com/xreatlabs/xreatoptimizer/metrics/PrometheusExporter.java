@@ -4,25 +4,56 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
+import com.xreatlabs.xreatoptimizer.async.IoExecutors;
+import com.xreatlabs.xreatoptimizer.profiling.TickClock;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
+import com.xreatlabs.xreatoptimizer.web.RateLimiter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
-/** Prometheus metrics exporter */
+/**
+ * Prometheus metrics exporter.
+ *
+ * A collector thread refreshes the gauges and renders the exposition text once per
+ * {@code scrape_interval_seconds}, keeping a plain and a gzip copy; every /metrics request is
+ * served from those bytes, so scrapers never trigger a render or touch the main thread.
+ */
 public class PrometheusExporter {
 
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
     private final XreatOptimizer plugin;
     private final MetricsRegistry metricsRegistry;
+    private final RateLimiter rateLimiter;
     private HttpServer httpServer;
-    private BukkitTask updateTask;
+    private ExecutorService httpExecutor;
+    private ScheduledExecutorService collector;
+    private volatile Scrape lastScrape;
     private boolean enabled;
     private int port;
     private String bindAddress;
+    private int scrapeIntervalSeconds;
+
+    /** One rendered scrape. */
+    private static final class Scrape {
+        final byte[] body;
+        final byte[] gzipped;
+
+        Scrape(byte[] body, byte[] gzipped) {
+            this.body = body;
+            this.gzipped = gzipped;
+        }
+    }
 
     public PrometheusExporter(XreatOptimizer plugin) {
         this.plugin = plugin;
@@ -30,6 +61,9 @@ public class PrometheusExporter {
         this.enabled = plugin.getConfig().getBoolean("metrics.prometheus.enabled", false);
         this.port = plugin.getConfig().getInt("metrics.prometheus.port", 9090);
         this.bindAddress = plugin.getConfig().getString("metrics.prometheus.bind_address", "127.0.0.1");
+        this.scrapeIntervalSeconds = Math.max(1, plugin.getConfig().getInt("metrics.prometheus.scrape_interval_seconds", 5));
+        this.rateLimiter = RateLimiter.fromConfig(plugin.getConfig(), "metrics.prometheus.rate_limit", 120);
+        metricsRegistry.registerRateLimiter("metrics", () -> rateLimiter);
     }
 
     public void start() {
@@ -43,18 +77,24 @@ public class PrometheusExporter {
             httpServer = HttpServer.create(address, 0);
             httpServer.createContext("/metrics", new MetricsHandler());
             httpServer.createContext("/", new MetricsHomeHandler());
-            httpServer.setExecutor(null);
+            httpExecutor = IoExecutors.newIoExecutor("XreatOpt-Metrics", 4);
+            httpServer.setExecutor(httpExecutor);
+
+            collector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "XreatOpt-Metrics-Collector");
+                t.setDaemon(true);
+                return t;
+            });
+            collector.scheduleAtFixedRate(this::collect, 0L, scrapeIntervalSeconds, TimeUnit.SECONDS);
+
+            TickClock tickClock = plugin.getTickClock();
+            if (tickClock != null) {
+                tickClock.setTickObserver(metricsRegistry::recordTick);
+            }
             httpServer.start();
 
             LoggerUtils.info("Prometheus metrics exporter started on " + bindAddress + ":" + port);
             LoggerUtils.info("Metrics available at http://" + bindAddress + ":" + port + "/metrics");
-
-            updateTask = Bukkit.getScheduler().runTaskTimer(
-                plugin,
-                this::updateMetrics,
-                100L,
-                100L
-            );
         } catch (IOException e) {
             LoggerUtils.error("Failed to start Prometheus exporter on " + bindAddress + ":" + port, e);
             LoggerUtils.error("Make sure the port is not already in use and the bind address is valid");
@@ -62,9 +102,13 @@ public class PrometheusExporter {
     }
 
     public void stop() {
-        if (updateTask != null) {
-            updateTask.cancel();
-            updateTask = null;
+        TickClock tickClock = plugin.getTickClock();
+        if (tickClock != null) {
+            tickClock.setTickObserver(null);
+        }
+        if (collector != null) {
+            collector.shutdownNow();
+            collector = null;
         }
 
         if (httpServer != null) {
@@ -72,26 +116,44 @@ public class PrometheusExporter {
             httpServer = null;
             LoggerUtils.info("Prometheus metrics exporter stopped");
         }
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+            httpExecutor = null;
+        }
     }
 
-    private void updateMetrics() {
+    /** Refresh the gauges and render the scrape served until the next run. Collector thread only. */
+    private void collect() {
         try {
-            double tps = plugin.getPerformanceMonitor().getCurrentTPS();
-            metricsRegistry.updateTps(tps);
-
-            long usedMemory = (long) plugin.getPerformanceMonitor().getMetric("used_memory_mb");
-            long maxMemory = (long) plugin.getPerformanceMonitor().getMetric("max_memory_mb");
-            double memoryPercentage = plugin.getPerformanceMonitor().getCurrentMemoryPercentage();
-            metricsRegistry.updateMemory(usedMemory, maxMemory, memoryPercentage);
+            updateMetrics();
+            metricsRegistry.syncWorldMetrics(plugin.getEntityCountTracker());
 
-            int entityCount = plugin.getPerformanceMonitor().getCurrentEntityCount();
-            metricsRegistry.updateEntityCount(entityCount);
+            byte[] body = metricsRegistry.scrape().getBytes(StandardCharsets.UTF_8);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            lastScrape = new Scrape(body, compressed.toByteArray());
+        } catch (Exception e) {
+            // Keep serving the previous scrape; an exception here would also cancel the schedule
+            LoggerUtils.debug("Error collecting Prometheus metrics: " + e.getMessage());
+        }
+    }
 
-            int chunkCount = plugin.getPerformanceMonitor().getCurrentChunkCount();
-            metricsRegistry.updateChunkCount(chunkCount);
+    /** Latest rendered exposition text, or an empty string before the first collection. */
+    private String lastScrapeText() {
+        Scrape scrape = lastScrape;
+        return scrape != null ? new String(scrape.body, StandardCharsets.UTF_8) : "";
+    }
 
-            int playerCount = plugin.getPerformanceMonitor().getCurrentPlayerCount();
-            metricsRegistry.updatePlayerCount(playerCount);
+    private void updateMetrics() {
+        try {
+            MetricsSnapshot snapshot = plugin.getPerformanceMonitor().getSnapshot();
+            metricsRegistry.updateTps(snapshot.getTps());
+            metricsRegistry.updateMemory(snapshot.getUsedMemoryMb(), snapshot.getMaxMemoryMb(), snapshot.getMemoryPercent());
+            metricsRegistry.updateEntityCount(snapshot.getEntityCount());
+            metricsRegistry.updateChunkCount(snapshot.getChunkCount());
+            metricsRegistry.updatePlayerCount(snapshot.getPlayerCount());
 
             if (plugin.getThreadPoolManager() != null) {
                 int activeThreads = plugin.getThreadPoolManager().getActiveThreadCount();
@@ -110,6 +172,7 @@ public class PrometheusExporter {
     private class MetricsHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            if (!checkRateLimit(exchange)) return;
             if (!"GET".equals(exchange.getRequestMethod())) {
                 String response = "Method not allowed";
                 exchange.sendResponseHeaders(405, response.length());
@@ -120,11 +183,28 @@ public class PrometheusExporter {
             }
 
             try {
-                String metrics = metricsRegistry.scrape();
-                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
-                exchange.sendResponseHeaders(200, metrics.length());
+                Scrape scrape = lastScrape;
+                if (scrape == null) {
+                    String response = "Metrics not collected yet";
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    exchange.sendResponseHeaders(503, response.length());
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(response.getBytes(StandardCharsets.UTF_8));
+                    }
+                    return;
+                }
+
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+                byte[] body = gzip ? scrape.gzipped : scrape.body;
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+                if (gzip) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, body.length);
                 try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(metrics.getBytes(StandardCharsets.UTF_8));
+                    os.write(body);
                 }
             } catch (Exception e) {
                 LoggerUtils.error("Error serving metrics", e);
@@ -140,6 +220,7 @@ public class PrometheusExporter {
     private class MetricsHomeHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            if (!checkRateLimit(exchange)) return;
             if (!"GET".equals(exchange.getRequestMethod())) {
                 String response = "Method not allowed";
                 exchange.sendResponseHeaders(405, response.length());
@@ -158,6 +239,20 @@ public class PrometheusExporter {
         }
     }
 
+    private boolean checkRateLimit(HttpExchange exchange) throws IOException {
+        long retryAfterMs = rateLimiter.tryAcquire(exchange.getRemoteAddress().getAddress().getHostAddress());
+        if (retryAfterMs > 0) {
+            String response = "Rate limit exceeded";
+            exchange.getResponseHeaders().set("Retry-After", Long.toString((retryAfterMs + 999) / 1000));
+            exchange.sendResponseHeaders(429, response.length());
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response.getBytes(StandardCharsets.UTF_8));
+            }
+            return false;
+        }
+        return true;
+    }
+
     private String generateMetricsHtml() {
         return "<!doctype html><html><head><meta charset='utf-8'><meta name='viewport' content='width=device-width,initial-scale=1'>" +
             "<title>XreatOptimizer Metrics</title>" +
@@ -171,7 +266,7 @@ public class PrometheusExporter {
             "</style></head><body><div class='wrap'><div class='hero'><div><div class='title'>Prometheus Metrics</div><div class='sub'>Readable entry page for exporters, dashboards, and quick operator checks.</div></div><div class='pill'>/metrics endpoint active</div></div>" +
             "<div class='card'><div><strong>Exporter status:</strong> running on <span class='mono'>" + escapeHtml(bindAddress + ":" + port) + "</span></div>" +
             "<div class='actions'><a class='btn' href='/metrics'>Open raw metrics</a><a class='btn secondary' href='https://prometheus.io/docs/instrumenting/exposition_formats/' target='_blank' rel='noreferrer'>Prometheus format reference</a></div>" +
-            "<div class='section'><div class='sub'>Preview of the current metrics output:</div><div class='mono'>" + escapeHtml(metricsRegistry.scrape()) + "</div></div></div></div></body></html>";
+            "<div class='section'><div class='sub'>Preview of the current metrics output:</div><div class='mono'>" + escapeHtml(lastScrapeText()) + "</div></div></div></div></body></html>";
     }
 
     private String escapeHtml(String value) {
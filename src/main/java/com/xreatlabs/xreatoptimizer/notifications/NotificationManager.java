@@ -1,6 +1,8 @@
 package com.xreatlabs.xreatoptimizer.notifications;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
+import com.xreatlabs.xreatoptimizer.async.VirtualThreads;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
@@ -16,6 +18,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /** Discord webhook notification manager */
 public class NotificationManager {
@@ -51,7 +54,12 @@ public class NotificationManager {
 
     public NotificationManager(XreatOptimizer plugin) {
         this.plugin = plugin;
-        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpClient.Builder builder = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10));
+        ExecutorService virtual = VirtualThreads.newThreadPerTaskExecutor("XreatOpt-Webhook");
+        if (virtual != null) {
+            builder.executor(virtual);
+        }
+        this.httpClient = builder.build();
         scheduleReports();
     }
 
@@ -105,6 +113,7 @@ public class NotificationManager {
 
         com.xreatlabs.xreatoptimizer.managers.PerformanceMonitor monitor = plugin.getPerformanceMonitor();
         if (monitor == null) return;
+        MetricsSnapshot snapshot = monitor.getSnapshot();
 
         String json = buildRichEmbed(
             "📊 Daily Performance Report",
@@ -114,9 +123,9 @@ public class NotificationManager {
             new EmbedField("Average TPS", String.format("%.2f", (monitor.getMinTps() + monitor.getMaxTps()) / 2.0), true),
             new EmbedField("Min TPS", String.format("%.2f", monitor.getMinTps()), true),
             new EmbedField("Max TPS", String.format("%.2f", monitor.getMaxTps()), true),
-            new EmbedField("Current Memory", String.format("%.1f%%", monitor.getCurrentMemoryPercentage()), true),
-            new EmbedField("Entities", String.valueOf(monitor.getCurrentEntityCount()), true),
-            new EmbedField("Chunks", String.valueOf(monitor.getCurrentChunkCount()), true),
+            new EmbedField("Current Memory", String.format("%.1f%%", snapshot.getMemoryPercent()), true),
+            new EmbedField("Entities", String.valueOf(snapshot.getEntityCount()), true),
+            new EmbedField("Chunks", String.valueOf(snapshot.getChunkCount()), true),
             new EmbedField("Profile", plugin.getOptimizationManager().getCurrentProfile().name(), true),
             new EmbedField("Uptime", formatUptime(), true)
         );
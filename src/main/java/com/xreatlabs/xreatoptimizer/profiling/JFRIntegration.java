@@ -144,12 +144,25 @@ public class JFRIntegration {
             plugin.getServer().getScheduler().runTaskLater(
                 plugin,
                 () -> {
-                    try {
-                        stopRecording(lagSpikeRecording, "lagspike-" + System.currentTimeMillis());
-                        lagSpikeRecording = null;
+                    Recording recording = lagSpikeRecording;
+                    lagSpikeRecording = null;
+                    // Dumping writes the whole recording to disk; keep it off the main thread
+                    boolean queued = plugin.getThreadPoolManager().executeIoTask(() -> {
+                        try {
+                            stopRecording(recording, "lagspike-" + System.currentTimeMillis());
+                        } catch (Exception e) {
+                            LoggerUtils.warn("Error stopping lag spike recording: " + e.getMessage());
+                        } finally {
+                            isRecordingLagSpike = false;
+                        }
+                    });
+                    if (!queued) {
+                        // Closing without a dump is cheap; the recording must not keep running
+                        LoggerUtils.warn("IO queue is full; discarded the lag spike recording instead of saving it");
+                        if (recording != null) {
+                            recording.close();
+                        }
                         isRecordingLagSpike = false;
-                    } catch (Exception e) {
-                        LoggerUtils.warn("Error stopping lag spike recording: " + e.getMessage());
                     }
                 },
                 LAG_SPIKE_RECORDING_DURATION.getSeconds() * 20L // Convert to ticks
@@ -0,0 +1,241 @@
+package com.xreatlabs.xreatoptimizer.profiling;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.timeseries.WindowedHistogram;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Wall-clock cost of the plugin's own work, per subsystem and phase.
+ *
+ * Scheduler cycles are timed by SubsystemScheduler; event handlers are timed by registering each
+ * {@code @EventHandler} method through {@link #registerEvents} instead of the plugin manager
+ * directly, and the few tasks and executors set up by hand are wrapped with {@code timed}. A
+ * probe is two nanoTime reads and a histogram update, so it is cheap enough for per-event
+ * handlers such as hopper moves.
+ */
+public class SubsystemProfiler {
+
+    /** Timings for one subsystem phase: a scheduler cycle or a single event handler. */
+    public static final class Probe {
+        private final String subsystem;
+        private final String phase;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        // Microseconds over the last minute, guarded by itself
+        private final WindowedHistogram micros = new WindowedHistogram(1, TimeUnit.MINUTES, 6);
+
+        private Probe(String subsystem, String phase) {
+            this.subsystem = subsystem;
+            this.phase = phase;
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+            synchronized (micros) {
+                micros.record(nanos / 1_000L);
+            }
+        }
+
+        public String getSubsystem() {
+            return subsystem;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public double getMaxMs() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        /** Duration percentile (0-100) over the last minute, in milliseconds. */
+        public double getPercentileMs(double percentile) {
+            synchronized (micros) {
+                return micros.getValueAtPercentile(percentile) / 1000.0;
+            }
+        }
+    }
+
+    private final XreatOptimizer plugin;
+    private final boolean enabled;
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+    private final List<Consumer<Probe>> probeListeners = new CopyOnWriteArrayList<>();
+
+    public SubsystemProfiler(XreatOptimizer plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.getConfig().getBoolean("metrics.subsystem_timing", true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Probe for {@code subsystem}/{@code phase}, created on first use. Null when timing is disabled. */
+    public Probe probe(String subsystem, String phase) {
+        if (!enabled) {
+            return null;
+        }
+        String key = subsystem + '/' + phase;
+        Probe probe = probes.get(key);
+        if (probe != null) {
+            return probe;
+        }
+        Probe created = new Probe(subsystem, phase);
+        probe = probes.putIfAbsent(key, created);
+        if (probe != null) {
+            return probe;
+        }
+        for (Consumer<Probe> listener : probeListeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    /** Call {@code listener} for every existing probe and for each one created later. */
+    public void onProbeCreated(Consumer<Probe> listener) {
+        probeListeners.add(listener);
+        for (Probe probe : probes.values()) {
+            listener.accept(probe);
+        }
+    }
+
+    /**
+     * Register the listener's {@code @EventHandler} methods with each one timed as phase
+     * {@code <method name>} of {@code subsystem}. Only methods declared on the listener's own
+     * class are picked up. Falls back to plain registration when timing is disabled.
+     */
+    @SuppressWarnings("unchecked")
+    public void registerEvents(Listener listener, String subsystem) {
+        if (!enabled) {
+            Bukkit.getPluginManager().registerEvents(listener, plugin);
+            return;
+        }
+
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.isBridge() || method.isSynthetic()) {
+                continue;
+            }
+            Class<?>[] parameters = method.getParameterTypes();
+            if (parameters.length != 1 || !Event.class.isAssignableFrom(parameters[0])) {
+                LoggerUtils.warn("Invalid event handler " + listener.getClass().getSimpleName() + "." + method.getName());
+                continue;
+            }
+            Class<? extends Event> eventClass = (Class<? extends Event>) parameters[0];
+            MethodHandle handle;
+            try {
+                method.setAccessible(true);
+                // Bound to the listener and typed (Event)void, so each call is a plain invokeExact
+                handle = MethodHandles.lookup().unreflect(method).bindTo(listener)
+                    .asType(MethodType.methodType(void.class, Event.class));
+            } catch (IllegalAccessException | RuntimeException e) {
+                LoggerUtils.warn("Cannot register event handler " + listener.getClass().getSimpleName() + "." + method.getName() + ": " + e.getMessage());
+                continue;
+            }
+            Bukkit.getPluginManager().registerEvent(eventClass, listener, handler.priority(),
+                timedExecutor(handle, eventClass, probe(subsystem, method.getName())), plugin, handler.ignoreCancelled());
+        }
+    }
+
+    /** Wrap a task scheduled outside SubsystemScheduler so its runs are timed as {@code subsystem}/{@code phase}. */
+    public Runnable timed(String subsystem, String phase, Runnable task) {
+        Probe probe = probe(subsystem, phase);
+        if (probe == null) {
+            return task;
+        }
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                probe.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /** Wrap an executor registered by hand so its calls are timed as {@code subsystem}/{@code phase}. */
+    public EventExecutor timed(String subsystem, String phase, EventExecutor executor) {
+        Probe probe = probe(subsystem, phase);
+        if (probe == null) {
+            return executor;
+        }
+        return (listener, event) -> {
+            long start = System.nanoTime();
+            try {
+                executor.execute(listener, event);
+            } finally {
+                probe.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static EventExecutor timedExecutor(MethodHandle handle, Class<? extends Event> eventClass, Probe probe) {
+        return (listener, event) -> {
+            // Handlers registered for a parent event class also see its subclasses
+            if (!eventClass.isInstance(event)) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                handle.invokeExact(event);
+            } catch (Throwable t) {
+                throw new EventException(t);
+            } finally {
+                probe.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    public List<Probe> getProbes() {
+        return new ArrayList<>(probes.values());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Probe probe : probes.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", probe.getCount());
+            entry.put("total_ms", String.format("%.1f", probe.getTotalNanos() / 1_000_000.0));
+            entry.put("p50_ms", String.format("%.3f", probe.getPercentileMs(50)));
+            entry.put("p99_ms", String.format("%.3f", probe.getPercentileMs(99)));
+            entry.put("max_ms", String.format("%.3f", probe.getMaxMs()));
+            stats.put(probe.subsystem + "/" + probe.phase, entry);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,263 @@
+package com.xreatlabs.xreatoptimizer.profiling;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.core.SubsystemScheduler;
+import com.xreatlabs.xreatoptimizer.timeseries.DoubleRingBuffer;
+import com.xreatlabs.xreatoptimizer.timeseries.LogHistogram;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Records every tick's duration into sliding-window log histograms.
+ *
+ * On Paper the tick start/end events give the real time spent in each tick (MSPT). Elsewhere a
+ * per-tick scheduler task measures the interval between ticks, which includes idle time and
+ * therefore sits at ~50ms on a healthy server. Recording happens on the main thread without
+ * allocation; percentiles for each window are published once per second for any thread to read.
+ */
+public class TickClock implements Listener {
+
+    private static final String TICK_START_EVENT = "com.destroystokyo.paper.event.server.ServerTickStartEvent";
+    private static final String TICK_END_EVENT = "com.destroystokyo.paper.event.server.ServerTickEndEvent";
+
+    public enum Window {
+        SECONDS_5("5s", 5_000L),
+        MINUTE_1("1m", 60_000L),
+        MINUTES_5("5m", 300_000L),
+        MINUTES_15("15m", 900_000L);
+
+        private final String label;
+        private final long millis;
+
+        Window(String label, long millis) {
+            this.label = label;
+            this.millis = millis;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Immutable per-window summary, all values in milliseconds. */
+    public static class TickStats {
+        public final long count;
+        public final double mean;
+        public final double p50;
+        public final double p95;
+        public final double p99;
+        public final double max;
+
+        TickStats(long count, double mean, double p50, double p95, double p99, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public double getPercentile(double percentile) {
+            if (percentile >= 99.0) return p99;
+            if (percentile >= 95.0) return p95;
+            return p50;
+        }
+    }
+
+    public static final TickStats EMPTY = new TickStats(0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+    // 15 minutes of ticks with headroom for catch-up bursts
+    private static final int SAMPLE_CAPACITY = 15 * 60 * 20 * 5 / 4;
+
+    private final XreatOptimizer plugin;
+    private final long[] sampleTimes = new long[SAMPLE_CAPACITY];
+    private final int[] sampleMicros = new int[SAMPLE_CAPACITY];
+    private long sampleHead = 0;
+    private final long[] windowTails = new long[Window.values().length];
+    private final LogHistogram[] windowHistograms = new LogHistogram[Window.values().length];
+    private volatile TickStats[] published;
+
+    private final DoubleRingBuffer msptSeries;
+    private BukkitTask fallbackTask;
+    private SubsystemScheduler.Registration publishTask;
+    private volatile boolean isRunning = false;
+    private boolean paperTickEvents = false;
+    private long tickStartNanos = 0L;
+    private long lastFallbackNanos = 0L;
+    private volatile LongConsumer tickObserver;
+
+    public TickClock(XreatOptimizer plugin) {
+        this.plugin = plugin;
+        this.msptSeries = plugin.getTimeSeriesStore().series(TimeSeriesStore.MSPT, TimeSeriesStore.TICK_CAPACITY);
+        TickStats[] initial = new TickStats[Window.values().length];
+        for (int i = 0; i < windowHistograms.length; i++) {
+            windowHistograms[i] = new LogHistogram();
+            initial[i] = EMPTY;
+        }
+        this.published = initial;
+    }
+
+    public void start() {
+        if (isRunning) {
+            return;
+        }
+
+        paperTickEvents = registerPaperTickEvents();
+        if (!paperTickEvents) {
+            lastFallbackNanos = System.nanoTime();
+            fallbackTask = Bukkit.getScheduler().runTaskTimer(plugin, this::onFallbackTick, 1L, 1L);
+        }
+
+        publishTask = plugin.getSubsystemScheduler().schedule("tick_clock_publish", 20L, 0.1, this::publish);
+
+        isRunning = true;
+        LoggerUtils.info("Tick clock started (" + (paperTickEvents ? "Paper tick events" : "scheduler interval") + ").");
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (fallbackTask != null) {
+            fallbackTask.cancel();
+            fallbackTask = null;
+        }
+        if (publishTask != null) {
+            publishTask.cancel();
+            publishTask = null;
+        }
+        HandlerList.unregisterAll(this);
+        LoggerUtils.info("Tick clock stopped.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean registerPaperTickEvents() {
+        try {
+            Class<?> start = Class.forName(TICK_START_EVENT);
+            Class<?> end = Class.forName(TICK_END_EVENT);
+            if (!Event.class.isAssignableFrom(start) || !Event.class.isAssignableFrom(end)) {
+                return false;
+            }
+
+            EventExecutor startExecutor = (listener, event) -> tickStartNanos = System.nanoTime();
+            EventExecutor endExecutor = (listener, event) -> {
+                if (tickStartNanos != 0L) {
+                    record(System.currentTimeMillis(), (System.nanoTime() - tickStartNanos) / 1000L);
+                }
+            };
+
+            Bukkit.getPluginManager().registerEvent((Class<? extends Event>) start, this, EventPriority.MONITOR, startExecutor, plugin);
+            Bukkit.getPluginManager().registerEvent((Class<? extends Event>) end, this, EventPriority.MONITOR, endExecutor, plugin);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private void onFallbackTick() {
+        long now = System.nanoTime();
+        record(System.currentTimeMillis(), (now - lastFallbackNanos) / 1000L);
+        lastFallbackNanos = now;
+    }
+
+    /** Record one tick. Main thread only. */
+    private void record(long nowMillis, long micros) {
+        int clamped = (int) Math.min(Integer.MAX_VALUE, Math.max(0L, micros));
+
+        // Make room in the ring by evicting the oldest sample from any window still holding it
+        long oldestKept = sampleHead - SAMPLE_CAPACITY + 1;
+        for (int w = 0; w < windowTails.length; w++) {
+            while (windowTails[w] < oldestKept) {
+                evict(w);
+            }
+        }
+
+        int slot = (int) (sampleHead % SAMPLE_CAPACITY);
+        sampleTimes[slot] = nowMillis;
+        sampleMicros[slot] = clamped;
+        sampleHead++;
+
+        Window[] windows = Window.values();
+        for (int w = 0; w < windows.length; w++) {
+            windowHistograms[w].record(clamped);
+            long cutoff = nowMillis - windows[w].millis;
+            while (windowTails[w] < sampleHead && sampleTimes[(int) (windowTails[w] % SAMPLE_CAPACITY)] < cutoff) {
+                evict(w);
+            }
+        }
+
+        msptSeries.append(nowMillis, clamped / 1000.0);
+
+        LongConsumer observer = tickObserver;
+        if (observer != null) {
+            observer.accept(clamped);
+        }
+    }
+
+    /** Receive every recorded tick duration in microseconds, on the main thread. Null to stop. */
+    public void setTickObserver(LongConsumer observer) {
+        this.tickObserver = observer;
+    }
+
+    private void evict(int window) {
+        int slot = (int) (windowTails[window] % SAMPLE_CAPACITY);
+        windowHistograms[window].remove(sampleMicros[slot]);
+        windowTails[window]++;
+    }
+
+    private void publish() {
+        if (!isRunning) return;
+
+        Window[] windows = Window.values();
+        TickStats[] stats = new TickStats[windows.length];
+        for (int w = 0; w < windows.length; w++) {
+            LogHistogram histogram = windowHistograms[w];
+            if (histogram.getCount() == 0) {
+                stats[w] = EMPTY;
+                continue;
+            }
+            stats[w] = new TickStats(
+                histogram.getCount(),
+                histogram.getMean() / 1000.0,
+                histogram.getValueAtPercentile(50.0) / 1000.0,
+                histogram.getValueAtPercentile(95.0) / 1000.0,
+                histogram.getValueAtPercentile(99.0) / 1000.0,
+                histogram.getMaxValue() / 1000.0
+            );
+        }
+        published = stats;
+    }
+
+    public TickStats getStats(Window window) {
+        return published[window.ordinal()];
+    }
+
+    /** True when samples are real tick durations (Paper) rather than scheduler intervals. */
+    public boolean isMeasuringTickDuration() {
+        return paperTickEvents;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+}
@@ -0,0 +1,50 @@
+package com.xreatlabs.xreatoptimizer.snapshot;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Main-thread actions produced by an off-thread analyzer.
+ *
+ * Analyzers only record what should happen; the pipeline applies the batch on the main thread,
+ * where every command must re-check that its target still exists.
+ */
+public final class CommandBatch {
+
+    private final List<Runnable> commands = new ArrayList<>();
+
+    public void add(Runnable command) {
+        commands.add(command);
+    }
+
+    /** Run an action against a live entity, skipped if it is gone by the time the batch applies. */
+    public void withEntity(UUID entityId, Consumer<Entity> action) {
+        commands.add(() -> {
+            Entity entity = Bukkit.getEntity(entityId);
+            if (entity != null && entity.isValid()) {
+                action.accept(entity);
+            }
+        });
+    }
+
+    public void removeEntity(UUID entityId) {
+        withEntity(entityId, Entity::remove);
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    List<Runnable> getCommands() {
+        return commands;
+    }
+}
@@ -0,0 +1,172 @@
+package com.xreatlabs.xreatoptimizer.snapshot;
+
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.managers.SlicedTask;
+import com.xreatlabs.xreatoptimizer.managers.TickBudgetManager;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Snapshot on the main thread, analyze off it, apply the results back on it.
+ *
+ * The capture is one tight pass per world into {@link WorldSnapshot} arrays, or a sliced task on the
+ * tick budget when it includes tile entities. The analyzer runs on the analytics pool against the
+ * frozen snapshots and records its actions in a {@link CommandBatch}, which is applied through the
+ * tick budget so large batches spread across ticks.
+ */
+public class SnapshotPipeline {
+
+    /** Off-thread analysis step. Must not touch Bukkit; record main-thread work in the batch. */
+    public interface Analyzer {
+        void analyze(List<WorldSnapshot> snapshots, CommandBatch commands) throws Exception;
+    }
+
+    private final XreatOptimizer plugin;
+
+    public SnapshotPipeline(XreatOptimizer plugin) {
+        this.plugin = plugin;
+    }
+
+    /** Run the pipeline over every loaded world. Main thread only. */
+    public CompletableFuture<Integer> submit(String name, int parts, Analyzer analyzer) {
+        return submit(name, Bukkit.getWorlds(), parts, analyzer);
+    }
+
+    /**
+     * Capture the given worlds, analyze them on the analytics pool and apply the resulting batch.
+     * Completes with the number of commands applied. Main thread only.
+     *
+     * Entity and chunk captures happen immediately; when tile entities are requested the captures
+     * run through the tick budget instead and analysis starts once every world is done.
+     */
+    public CompletableFuture<Integer> submit(String name, List<World> worlds, int parts, Analyzer analyzer) {
+        if ((parts & WorldSnapshot.TILE_ENTITIES) == 0) {
+            long captureStart = System.nanoTime();
+            List<WorldSnapshot> snapshots = new ArrayList<>(worlds.size());
+            for (World world : worlds) {
+                snapshots.add(WorldSnapshot.capture(world, parts));
+            }
+            LoggerUtils.debug(String.format("Snapshot '%s' captured %d worlds in %.2fms",
+                name, snapshots.size(), (System.nanoTime() - captureStart) / 1_000_000.0));
+            return analyze(name, snapshots, analyzer);
+        }
+
+        long captureStart = System.currentTimeMillis();
+        List<CompletableFuture<WorldSnapshot>> captures = new ArrayList<>(worlds.size());
+        for (World world : worlds) {
+            captures.add(plugin.getTickBudgetManager()
+                .submitSliced(WorldSnapshot.captureSliced(world, parts), TickBudgetManager.Priority.LOW, "general"));
+        }
+
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        CompletableFuture.allOf(captures.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LoggerUtils.debug("Snapshot '" + name + "' capture failed: " + error.getMessage());
+                result.completeExceptionally(error);
+                return;
+            }
+            List<WorldSnapshot> snapshots = new ArrayList<>(captures.size());
+            for (CompletableFuture<WorldSnapshot> capture : captures) {
+                snapshots.add(capture.join());
+            }
+            LoggerUtils.debug(String.format("Snapshot '%s' captured %d worlds over %dms",
+                name, snapshots.size(), System.currentTimeMillis() - captureStart));
+            analyze(name, snapshots, analyzer).whenComplete((applied, analyzeError) -> {
+                if (analyzeError != null) {
+                    result.completeExceptionally(analyzeError);
+                } else {
+                    result.complete(applied);
+                }
+            });
+        });
+        return result;
+    }
+
+    private CompletableFuture<Integer> analyze(String name, List<WorldSnapshot> snapshots, Analyzer analyzer) {
+        List<WorldSnapshot> frozen = Collections.unmodifiableList(snapshots);
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        try {
+            // A newer snapshot of the same pipeline supersedes one that is still waiting
+            plugin.getThreadPoolManager().submitAnalyticsTask("snapshot_" + name, () -> {
+                CommandBatch batch = new CommandBatch();
+                try {
+                    analyzer.analyze(frozen, batch);
+                } catch (Throwable t) {
+                    LoggerUtils.error("Snapshot analyzer '" + name + "' failed", t);
+                    result.completeExceptionally(t);
+                    return;
+                }
+                applyOnMainThread(name, batch, result);
+            }).whenComplete((ignored, error) -> {
+                if (error != null && !result.isDone()) {
+                    LoggerUtils.debug("Snapshot '" + name + "' superseded before analysis");
+                    result.cancel(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LoggerUtils.debug("Snapshot '" + name + "' skipped: analytics pool is shut down");
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private void applyOnMainThread(String name, CommandBatch batch, CompletableFuture<Integer> result) {
+        if (batch.isEmpty()) {
+            result.complete(0);
+            return;
+        }
+        if (!plugin.isEnabled()) {
+            result.cancel(false);
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, () ->
+            plugin.getTickBudgetManager()
+                .submitSliced(new ApplyBatchTask(name, batch.getCommands()), TickBudgetManager.Priority.NORMAL, "general")
+                .whenComplete((applied, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(applied);
+                    }
+                }));
+    }
+
+    private static class ApplyBatchTask extends SlicedTask<Integer> {
+        private final List<Runnable> commands;
+        private int index = 0;
+
+        ApplyBatchTask(String name, List<Runnable> commands) {
+            super("snapshot_apply_" + name);
+            this.commands = commands;
+        }
+
+        @Override
+        protected boolean step(Deadline deadline) {
+            while (index < commands.size()) {
+                if (deadline.isExpired()) {
+                    setProgress(index, commands.size());
+                    return false;
+                }
+                try {
+                    commands.get(index++).run();
+                } catch (Exception e) {
+                    LoggerUtils.warn("Snapshot command failed: " + e.getMessage());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected Integer getResult() {
+            return commands.size();
+        }
+    }
+}
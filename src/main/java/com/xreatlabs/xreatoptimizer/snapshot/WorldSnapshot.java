@@ -0,0 +1,322 @@
+package com.xreatlabs.xreatoptimizer.snapshot;
+
+import com.xreatlabs.xreatoptimizer.managers.EntityCountTracker;
+import com.xreatlabs.xreatoptimizer.managers.SlicedTask;
+import com.xreatlabs.xreatoptimizer.managers.TickBudgetManager;
+import com.xreatlabs.xreatoptimizer.utils.ProtectedEntities;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Frozen copy of the per-entity and per-chunk fields analyzers need, held in primitive arrays.
+ *
+ * Captured on the main thread, in one pass or, with tile entities, in slices across ticks; afterwards
+ * it never touches Bukkit and is safe to read from any thread. Positions are block coordinates packed
+ * into a long (see {@link #packPosition}).
+ */
+public final class WorldSnapshot {
+
+    public static final int ENTITIES = 1;
+    public static final int CHUNKS = 1 << 1;
+    public static final int TILE_ENTITIES = 1 << 2;
+
+    public static final int FLAG_PLAYER = 1;
+    public static final int FLAG_PROTECTED = 1 << 1;
+    public static final int FLAG_CUSTOM_NAME = 1 << 2;
+    public static final int FLAG_ON_GROUND = 1 << 3;
+
+    public static final int CHUNK_FORCE_LOADED = 1;
+
+    private static final EntityType[] ENTITY_TYPES = EntityType.values();
+    private static final Material[] MATERIALS = Material.values();
+
+    private final String worldName;
+    private final UUID worldId;
+    private final long capturedAt;
+
+    private final int entityCount;
+    private final int[] entityIds;
+    private final long[] uuidMost;
+    private final long[] uuidLeast;
+    private final short[] entityTypes;
+    private final long[] entityPositions;
+    private final int[] entityFlags;
+    private final int[] ticksLived;
+
+    private final int chunkCount;
+    private final long[] chunkKeys;
+    private final int[] chunkFlags;
+
+    private final int tileCount;
+    private final long[] tilePositions;
+    private final int[] tileMaterials;
+
+    private WorldSnapshot(World world, int entityCount, int chunkCount) {
+        this.worldName = world.getName();
+        this.worldId = world.getUID();
+        this.capturedAt = System.currentTimeMillis();
+        this.entityCount = entityCount;
+        this.entityIds = new int[entityCount];
+        this.uuidMost = new long[entityCount];
+        this.uuidLeast = new long[entityCount];
+        this.entityTypes = new short[entityCount];
+        this.entityPositions = new long[entityCount];
+        this.entityFlags = new int[entityCount];
+        this.ticksLived = new int[entityCount];
+        this.chunkCount = chunkCount;
+        this.chunkKeys = new long[chunkCount];
+        this.chunkFlags = new int[chunkCount];
+        this.tileCount = 0;
+        this.tilePositions = new long[0];
+        this.tileMaterials = new int[0];
+    }
+
+    /** Copy of {@code base} with tile entities attached. The other arrays are shared. */
+    private WorldSnapshot(WorldSnapshot base, int tileCount, long[] tilePositions, int[] tileMaterials) {
+        this.worldName = base.worldName;
+        this.worldId = base.worldId;
+        this.capturedAt = base.capturedAt;
+        this.entityCount = base.entityCount;
+        this.entityIds = base.entityIds;
+        this.uuidMost = base.uuidMost;
+        this.uuidLeast = base.uuidLeast;
+        this.entityTypes = base.entityTypes;
+        this.entityPositions = base.entityPositions;
+        this.entityFlags = base.entityFlags;
+        this.ticksLived = base.ticksLived;
+        this.chunkCount = base.chunkCount;
+        this.chunkKeys = base.chunkKeys;
+        this.chunkFlags = base.chunkFlags;
+        this.tileCount = tileCount;
+        this.tilePositions = tilePositions;
+        this.tileMaterials = tileMaterials;
+    }
+
+    /**
+     * Copy the entity and chunk parts of a world in one pass. Main thread only.
+     *
+     * Tile entities cost a chunk lookup each, so they are only captured by {@link #captureSliced}.
+     */
+    public static WorldSnapshot capture(World world, int parts) {
+        if ((parts & TILE_ENTITIES) != 0) {
+            throw new IllegalArgumentException("tile entities are captured with captureSliced");
+        }
+        List<Entity> entities = (parts & ENTITIES) != 0 ? world.getEntities() : null;
+        Chunk[] chunks = (parts & CHUNKS) != 0 ? world.getLoadedChunks() : null;
+
+        WorldSnapshot snapshot = new WorldSnapshot(world,
+            entities != null ? entities.size() : 0,
+            chunks != null ? chunks.length : 0);
+
+        if (entities != null) {
+            Location scratch = new Location(world, 0, 0, 0);
+            for (int i = 0; i < snapshot.entityCount; i++) {
+                Entity entity = entities.get(i);
+                entity.getLocation(scratch);
+                UUID id = entity.getUniqueId();
+
+                int flags = 0;
+                if (entity instanceof Player) flags |= FLAG_PLAYER;
+                if (ProtectedEntities.isProtected(entity)) flags |= FLAG_PROTECTED;
+                if (entity.getCustomName() != null) flags |= FLAG_CUSTOM_NAME;
+                if (entity.isOnGround()) flags |= FLAG_ON_GROUND;
+
+                snapshot.entityIds[i] = entity.getEntityId();
+                snapshot.uuidMost[i] = id.getMostSignificantBits();
+                snapshot.uuidLeast[i] = id.getLeastSignificantBits();
+                snapshot.entityTypes[i] = (short) entity.getType().ordinal();
+                snapshot.entityPositions[i] = packPosition(scratch.getBlockX(), scratch.getBlockY(), scratch.getBlockZ());
+                snapshot.entityFlags[i] = flags;
+                snapshot.ticksLived[i] = entity.getTicksLived();
+            }
+        }
+
+        if (chunks != null) {
+            for (int i = 0; i < chunks.length; i++) {
+                Chunk chunk = chunks[i];
+                snapshot.chunkKeys[i] = EntityCountTracker.chunkKey(chunk.getX(), chunk.getZ());
+                snapshot.chunkFlags[i] = chunk.isForceLoaded() ? CHUNK_FORCE_LOADED : 0;
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Copy the requested parts of a world as a task for {@link TickBudgetManager#submitSliced}.
+     *
+     * Entities and chunks are copied in the first slice; tile entities are then read chunk by chunk
+     * until each slice's deadline, so their positions can be a few ticks newer than the rest.
+     * Chunks that unload before their turn are skipped.
+     */
+    public static SlicedTask<WorldSnapshot> captureSliced(World world, int parts) {
+        return new SlicedCapture(world, parts);
+    }
+
+    private static final class SlicedCapture extends SlicedTask<WorldSnapshot> {
+        private final World world;
+        private final int parts;
+
+        private WorldSnapshot base;
+        private Chunk[] chunks;
+        private int chunkIndex = 0;
+        private int tileCount = 0;
+        private long[] tilePositions = new long[256];
+        private int[] tileMaterials = new int[256];
+
+        SlicedCapture(World world, int parts) {
+            super("snapshot_capture_" + world.getName());
+            this.world = world;
+            this.parts = parts;
+        }
+
+        @Override
+        protected boolean step(Deadline deadline) {
+            if (base == null) {
+                base = capture(world, parts & ~TILE_ENTITIES);
+                if ((parts & TILE_ENTITIES) == 0) {
+                    return true;
+                }
+                chunks = world.getLoadedChunks();
+            }
+
+            while (chunkIndex < chunks.length) {
+                if (deadline.isExpired()) {
+                    setProgress(chunkIndex, chunks.length);
+                    return false;
+                }
+                Chunk chunk = chunks[chunkIndex++];
+                // Reading an unloaded chunk's tile entities would load it again
+                if (!chunk.isLoaded()) continue;
+                for (BlockState state : chunk.getTileEntities()) {
+                    add(packPosition(state.getX(), state.getY(), state.getZ()), state.getType().ordinal());
+                }
+            }
+            return true;
+        }
+
+        private void add(long position, int material) {
+            if (tileCount == tilePositions.length) {
+                tilePositions = Arrays.copyOf(tilePositions, tileCount * 2);
+                tileMaterials = Arrays.copyOf(tileMaterials, tileCount * 2);
+            }
+            tilePositions[tileCount] = position;
+            tileMaterials[tileCount] = material;
+            tileCount++;
+        }
+
+        @Override
+        protected WorldSnapshot getResult() {
+            if ((parts & TILE_ENTITIES) == 0) {
+                return base;
+            }
+            return new WorldSnapshot(base, tileCount,
+                Arrays.copyOf(tilePositions, tileCount), Arrays.copyOf(tileMaterials, tileCount));
+        }
+    }
+
+    /** Pack block coordinates as 26 bits x, 26 bits z, 12 bits y. */
+    public static long packPosition(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    // Entities
+
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    public int getEntityId(int index) {
+        return entityIds[index];
+    }
+
+    public UUID getEntityUuid(int index) {
+        return new UUID(uuidMost[index], uuidLeast[index]);
+    }
+
+    public EntityType getEntityType(int index) {
+        return ENTITY_TYPES[entityTypes[index]];
+    }
+
+    public long getEntityPosition(int index) {
+        return entityPositions[index];
+    }
+
+    public int getEntityChunkX(int index) {
+        return unpackX(entityPositions[index]) >> 4;
+    }
+
+    public int getEntityChunkZ(int index) {
+        return unpackZ(entityPositions[index]) >> 4;
+    }
+
+    public boolean hasEntityFlag(int index, int flag) {
+        return (entityFlags[index] & flag) != 0;
+    }
+
+    public int getTicksLived(int index) {
+        return ticksLived[index];
+    }
+
+    // Chunks
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public long getChunkKey(int index) {
+        return chunkKeys[index];
+    }
+
+    public boolean hasChunkFlag(int index, int flag) {
+        return (chunkFlags[index] & flag) != 0;
+    }
+
+    // Tile entities
+
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    public long getTilePosition(int index) {
+        return tilePositions[index];
+    }
+
+    public Material getTileMaterial(int index) {
+        return MATERIALS[tileMaterials[index]];
+    }
+}
@@ -0,0 +1,122 @@
+package com.xreatlabs.xreatoptimizer.storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Append-only CSV log of the values reported by API metrics collectors.
+ *
+ * One file per collector per UTC day ({@code <collector>-<yyyy-MM-dd>.csv}) holding
+ * {@code timestamp,metric,value} rows, so a collector can add or drop keys between runs without
+ * breaking the file. Samples are queued and appended by {@link #flush()}; retention deletes whole
+ * day files.
+ */
+final class CollectorSampleLog {
+
+    private static final String SUFFIX = ".csv";
+
+    private final File directory;
+    private final Queue<Sample> pending = new ConcurrentLinkedQueue<>();
+
+    private static final class Sample {
+        final String collector;
+        final long timestamp;
+        final Map<String, Double> values;
+
+        Sample(String collector, long timestamp, Map<String, Double> values) {
+            this.collector = collector;
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+    }
+
+    CollectorSampleLog(File directory) {
+        this.directory = directory;
+    }
+
+    void add(String collector, long timestamp, Map<String, Double> values) {
+        pending.add(new Sample(collector, timestamp, values));
+    }
+
+    /** Append every queued sample, one open file per collector and day. Single caller at a time. */
+    void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        Map<String, StringBuilder> rowsByFile = new LinkedHashMap<>();
+        Sample sample;
+        while ((sample = pending.poll()) != null) {
+            String fileName = sample.collector + "-" + day(sample.timestamp) + SUFFIX;
+            StringBuilder rows = rowsByFile.computeIfAbsent(fileName, k -> new StringBuilder());
+            for (Map.Entry<String, Double> entry : sample.values.entrySet()) {
+                rows.append(sample.timestamp).append(',').append(csv(entry.getKey())).append(',')
+                    .append(entry.getValue()).append('\n');
+            }
+        }
+
+        for (Map.Entry<String, StringBuilder> entry : rowsByFile.entrySet()) {
+            File file = new File(directory, entry.getKey());
+            boolean created = !file.exists();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
+                if (created) {
+                    writer.write("timestamp,metric,value\n");
+                }
+                writer.write(entry.getValue().toString());
+            }
+        }
+    }
+
+    /** Delete day files that end before {@code cutoffMillis}. Returns the number removed. */
+    int dropBefore(long cutoffMillis) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return 0;
+        }
+        LocalDate cutoff = Instant.ofEpochMilli(cutoffMillis).atZone(ZoneOffset.UTC).toLocalDate();
+        int removed = 0;
+        for (File file : files) {
+            String name = file.getName();
+            int dash = name.length() - SUFFIX.length() - 10;
+            if (dash <= 0) {
+                continue;
+            }
+            try {
+                LocalDate date = LocalDate.parse(name.substring(dash, name.length() - SUFFIX.length()));
+                if (date.isBefore(cutoff) && file.delete()) {
+                    removed++;
+                }
+            } catch (DateTimeParseException ignored) {
+                // Not one of ours
+            }
+        }
+        return removed;
+    }
+
+    private static String day(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC).toLocalDate().toString();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
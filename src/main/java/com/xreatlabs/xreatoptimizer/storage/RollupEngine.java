@@ -0,0 +1,613 @@
+package com.xreatlabs.xreatoptimizer.storage;
+
+import com.xreatlabs.xreatoptimizer.timeseries.LogHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Multi-resolution rollups of the per-second server samples.
+ *
+ * Every sample feeds the open bucket of each tier (1 minute, 1 hour, 1 day). When a bucket closes,
+ * its count and per-metric min, max, average and p95 become one row. Rows are kept in a bounded
+ * in-memory ring per tier and appended to a compact fixed-width file, so history survives
+ * restarts. Range queries pick the coarsest tier that still gives useful resolution: 30 days
+ * reads about 720 hourly rows instead of millions of raw samples.
+ */
+public class RollupEngine {
+
+    public enum Metric { TPS, MEMORY, ENTITIES, CHUNKS, PLAYERS }
+
+    public enum Tier {
+        MINUTE("1m", 60_000L, 7 * 1440),
+        HOUR("1h", 3_600_000L, 90 * 24),
+        DAY("1d", 86_400_000L, 5 * 365);
+
+        private final String label;
+        private final long durationMs;
+        private final int capacity;
+
+        Tier(String label, long durationMs, int capacity) {
+            this.label = label;
+            this.durationMs = durationMs;
+            this.capacity = capacity;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /** Rows kept in memory and on disk after compaction. */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /** Finest tier that covers the range in at most {@link #MAX_QUERY_ROWS} rows. */
+        public static Tier forRange(long rangeMs) {
+            for (Tier tier : values()) {
+                if (rangeMs / tier.durationMs <= MAX_QUERY_ROWS) {
+                    return tier;
+                }
+            }
+            return DAY;
+        }
+
+        /** Like {@link #forRange}, but skips tiers whose retention no longer reaches back to {@code from}. */
+        public static Tier forWindow(long from, long to, long now) {
+            for (Tier tier : values()) {
+                boolean retained = now - from <= tier.durationMs * tier.capacity;
+                if (retained && (to - from) / tier.durationMs <= MAX_QUERY_ROWS) {
+                    return tier;
+                }
+            }
+            return DAY;
+        }
+    }
+
+    public static final int MAX_QUERY_ROWS = 1500;
+
+    private static final int METRICS = Metric.values().length;
+    private static final int STATS = 4; // min, max, avg, p95
+    private static final int MAGIC = 0x58525455; // "XRTU"
+    private static final short VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 16;
+    private static final int ROW_SIZE = 8 + 4 + METRICS * STATS * 4;
+    private static final double HISTOGRAM_SCALE = 100.0;
+
+    private final File directory;
+    private final Logger logger;
+    private final TierState[] tiers = new TierState[Tier.values().length];
+
+    public RollupEngine(File directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+        for (Tier tier : Tier.values()) {
+            tiers[tier.ordinal()] = new TierState(tier);
+        }
+    }
+
+    /** Load every tier from disk, compacting files that grew past twice their capacity. */
+    public synchronized void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        for (TierState state : tiers) {
+            try {
+                state.load();
+            } catch (IOException e) {
+                logger.warning("Could not load " + state.tier.label + " rollups: " + e.getMessage());
+                state.resetFile();
+            }
+        }
+    }
+
+    /**
+     * Feed one sample; {@code values} is indexed by {@link Metric#ordinal()}. Returns true when a
+     * bucket closed, meaning there are rows to {@link #persist()}.
+     */
+    public synchronized boolean record(long timestamp, double[] values) {
+        boolean closed = false;
+        for (TierState state : tiers) {
+            closed |= state.record(timestamp, values);
+        }
+        return closed;
+    }
+
+    /** Write closed rows that are not on disk yet. */
+    public synchronized void persist() {
+        for (TierState state : tiers) {
+            try {
+                state.persist();
+            } catch (IOException e) {
+                logger.warning("Could not write " + state.tier.label + " rollups: " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized boolean hasUnpersistedRows() {
+        for (TierState state : tiers) {
+            if (state.unpersisted > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Write every closed row and the partial open buckets; a restart merges into those rows. */
+    public synchronized void close() {
+        for (TierState state : tiers) {
+            state.flushOpenBucket();
+        }
+        persist();
+        for (TierState state : tiers) {
+            state.closeFile();
+        }
+    }
+
+    /** Rows of one tier whose bucket starts in [from, to), oldest first, including the open bucket. */
+    public synchronized List<Row> query(Tier tier, long from, long to) {
+        return tiers[tier.ordinal()].query(from, to);
+    }
+
+    /** Rows for [from, to) from the tier chosen by {@link Tier#forRange}. */
+    public List<Row> query(long from, long to) {
+        return query(Tier.forRange(to - from), from, to);
+    }
+
+    /** Combine the rows covering [from, to) into one summary. */
+    public Summary summarize(long from, long to) {
+        return Summary.of(query(from, to));
+    }
+
+    public synchronized int getRowCount(Tier tier) {
+        return tiers[tier.ordinal()].size;
+    }
+
+    /** One bucket of one tier. */
+    public static final class Row {
+        private final long start;
+        private final int count;
+        private final float[] stats;
+
+        Row(long start, int count, float[] stats) {
+            this.start = start;
+            this.count = count;
+            this.stats = stats;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getMin(Metric metric) {
+            return stats[metric.ordinal() * STATS];
+        }
+
+        public double getMax(Metric metric) {
+            return stats[metric.ordinal() * STATS + 1];
+        }
+
+        public double getAverage(Metric metric) {
+            return stats[metric.ordinal() * STATS + 2];
+        }
+
+        public double getP95(Metric metric) {
+            return stats[metric.ordinal() * STATS + 3];
+        }
+    }
+
+    /**
+     * Rows combined over a range. Min, max, average and count are exact; p95 is the count-weighted
+     * 95th percentile of the row p95 values, which is close for the steady series we store.
+     */
+    public static final class Summary {
+        private final long count;
+        private final double[] min = new double[METRICS];
+        private final double[] max = new double[METRICS];
+        private final double[] average = new double[METRICS];
+        private final double[] p95 = new double[METRICS];
+
+        private Summary(long count) {
+            this.count = count;
+        }
+
+        public static Summary of(List<Row> rows) {
+            long total = 0;
+            for (Row row : rows) {
+                total += row.count;
+            }
+            Summary summary = new Summary(total);
+            if (total == 0) {
+                return summary;
+            }
+
+            for (Metric metric : Metric.values()) {
+                int m = metric.ordinal();
+                double min = Double.MAX_VALUE;
+                double max = -Double.MAX_VALUE;
+                double weighted = 0.0;
+                double[][] p95ByCount = new double[rows.size()][];
+                for (int i = 0; i < rows.size(); i++) {
+                    Row row = rows.get(i);
+                    min = Math.min(min, row.getMin(metric));
+                    max = Math.max(max, row.getMax(metric));
+                    weighted += row.getAverage(metric) * row.count;
+                    p95ByCount[i] = new double[]{row.getP95(metric), row.count};
+                }
+                Arrays.sort(p95ByCount, (a, b) -> Double.compare(a[0], b[0]));
+                double rank = 0.95 * total;
+                double seen = 0.0;
+                double p95 = p95ByCount[p95ByCount.length - 1][0];
+                for (double[] entry : p95ByCount) {
+                    seen += entry[1];
+                    if (seen >= rank) {
+                        p95 = entry[0];
+                        break;
+                    }
+                }
+
+                summary.min[m] = min;
+                summary.max[m] = max;
+                summary.average[m] = weighted / total;
+                summary.p95[m] = p95;
+            }
+            return summary;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMin(Metric metric) {
+            return min[metric.ordinal()];
+        }
+
+        public double getMax(Metric metric) {
+            return max[metric.ordinal()];
+        }
+
+        public double getAverage(Metric metric) {
+            return average[metric.ordinal()];
+        }
+
+        public double getP95(Metric metric) {
+            return p95[metric.ordinal()];
+        }
+    }
+
+    /** Ring of closed rows plus the open bucket for one tier. */
+    private final class TierState {
+        final Tier tier;
+        final File file;
+        final long[] starts;
+        final int[] counts;
+        final float[] stats;
+        int head = 0; // index of the oldest row
+        int size = 0;
+        int unpersisted = 0;
+        FileChannel channel;
+
+        // Open bucket
+        long bucketStart = Long.MIN_VALUE;
+        int bucketCount = 0;
+        final double[] bucketMin = new double[METRICS];
+        final double[] bucketMax = new double[METRICS];
+        final double[] bucketSum = new double[METRICS];
+        final LogHistogram[] bucketHistograms = new LogHistogram[METRICS];
+
+        TierState(Tier tier) {
+            this.tier = tier;
+            this.file = new File(directory, tier.label + ".xrt");
+            this.starts = new long[tier.capacity];
+            this.counts = new int[tier.capacity];
+            this.stats = new float[tier.capacity * METRICS * STATS];
+            for (int m = 0; m < METRICS; m++) {
+                bucketHistograms[m] = new LogHistogram();
+            }
+        }
+
+        boolean record(long timestamp, double[] values) {
+            boolean closed = false;
+            long start = timestamp - Math.floorMod(timestamp, tier.durationMs);
+            if (start != bucketStart) {
+                if (bucketCount > 0 && start > bucketStart) {
+                    closeBucket();
+                    closed = true;
+                } else if (bucketCount > 0) {
+                    // Clock stepped backwards; keep filling the open bucket
+                    start = bucketStart;
+                }
+                if (start != bucketStart) {
+                    openBucket(start);
+                }
+            }
+
+            for (int m = 0; m < METRICS; m++) {
+                double value = values[m];
+                bucketMin[m] = Math.min(bucketMin[m], value);
+                bucketMax[m] = Math.max(bucketMax[m], value);
+                bucketSum[m] += value;
+                bucketHistograms[m].record(Math.round(value * HISTOGRAM_SCALE));
+            }
+            bucketCount++;
+            return closed;
+        }
+
+        private void openBucket(long start) {
+            bucketStart = start;
+            bucketCount = 0;
+            Arrays.fill(bucketMin, Double.MAX_VALUE);
+            Arrays.fill(bucketMax, -Double.MAX_VALUE);
+            Arrays.fill(bucketSum, 0.0);
+            for (LogHistogram histogram : bucketHistograms) {
+                histogram.clear();
+            }
+        }
+
+        private float[] bucketStats() {
+            float[] row = new float[METRICS * STATS];
+            for (int m = 0; m < METRICS; m++) {
+                row[m * STATS] = (float) bucketMin[m];
+                row[m * STATS + 1] = (float) bucketMax[m];
+                row[m * STATS + 2] = (float) (bucketSum[m] / bucketCount);
+                // Histogram buckets are ~3% wide; clamp so p95 never leaves the observed range
+                double p95 = bucketHistograms[m].getValueAtPercentile(95.0) / HISTOGRAM_SCALE;
+                row[m * STATS + 3] = (float) Math.max(bucketMin[m], Math.min(bucketMax[m], p95));
+            }
+            return row;
+        }
+
+        private void closeBucket() {
+            float[] rowStats = bucketStats();
+            int last = size - 1;
+            if (size > 0 && starts[slotOf(last)] == bucketStart) {
+                // Bucket was flushed partially before a restart; merge into that row
+                int slot = slotOf(last);
+                mergeStats(stats, slot * METRICS * STATS, counts[slot], rowStats, bucketCount);
+                counts[slot] += bucketCount;
+                // The merged row is appended again and replaces the partial one on load
+                if (unpersisted == 0) {
+                    unpersisted = 1;
+                }
+            } else {
+                addRow(bucketStart, bucketCount, rowStats);
+                unpersisted = Math.min(unpersisted + 1, tier.capacity);
+            }
+            bucketCount = 0;
+        }
+
+        void flushOpenBucket() {
+            if (bucketCount > 0) {
+                closeBucket();
+                bucketStart = Long.MIN_VALUE;
+            }
+        }
+
+        private void addRow(long start, int count, float[] rowStats) {
+            int slot;
+            if (size < tier.capacity) {
+                slot = (head + size) % tier.capacity;
+                size++;
+            } else {
+                slot = head;
+                head = (head + 1) % tier.capacity;
+            }
+            starts[slot] = start;
+            counts[slot] = count;
+            System.arraycopy(rowStats, 0, stats, slot * METRICS * STATS, METRICS * STATS);
+        }
+
+        private int slotOf(int index) {
+            return (head + index) % tier.capacity;
+        }
+
+        private Row rowAt(int index) {
+            int slot = slotOf(index);
+            float[] rowStats = Arrays.copyOfRange(stats, slot * METRICS * STATS, (slot + 1) * METRICS * STATS);
+            return new Row(starts[slot], counts[slot], rowStats);
+        }
+
+        List<Row> query(long from, long to) {
+            List<Row> result = new ArrayList<>();
+
+            // First row starting at or after 'from'
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[slotOf(mid)] < from) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            for (int i = lo; i < size && starts[slotOf(i)] < to; i++) {
+                result.add(rowAt(i));
+            }
+
+            if (bucketCount > 0 && bucketStart >= from && bucketStart < to) {
+                Row last = result.isEmpty() ? null : result.get(result.size() - 1);
+                if (last != null && last.start == bucketStart) {
+                    mergeStats(last.stats, 0, last.count, bucketStats(), bucketCount);
+                    result.set(result.size() - 1, new Row(bucketStart, last.count + bucketCount, last.stats));
+                } else {
+                    result.add(new Row(bucketStart, bucketCount, bucketStats()));
+                }
+            }
+            return result;
+        }
+
+        void load() throws IOException {
+            if (!file.exists()) {
+                openFile();
+                return;
+            }
+
+            long rowsOnDisk;
+            try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+                readFully(in, header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC || header.getShort() != VERSION
+                        || header.getShort() != METRICS || header.getInt() != ROW_SIZE) {
+                    throw new IOException("unknown rollup format");
+                }
+
+                rowsOnDisk = (in.size() - FILE_HEADER_SIZE) / ROW_SIZE;
+                long firstRow = Math.max(0, rowsOnDisk - tier.capacity);
+                int toRead = (int) (rowsOnDisk - firstRow);
+                ByteBuffer rows = ByteBuffer.allocate(toRead * ROW_SIZE);
+                readFully(in, rows, FILE_HEADER_SIZE + firstRow * ROW_SIZE);
+                rows.flip();
+                float[] rowStats = new float[METRICS * STATS];
+                for (int i = 0; i < toRead; i++) {
+                    long start = rows.getLong();
+                    int count = rows.getInt();
+                    for (int s = 0; s < rowStats.length; s++) {
+                        rowStats[s] = rows.getFloat();
+                    }
+                    if (size == 0 || start > starts[slotOf(size - 1)]) {
+                        addRow(start, count, rowStats);
+                    } else if (start == starts[slotOf(size - 1)]) {
+                        // Later copy of a merged partial row
+                        int slot = slotOf(size - 1);
+                        counts[slot] = count;
+                        System.arraycopy(rowStats, 0, stats, slot * METRICS * STATS, rowStats.length);
+                    }
+                }
+            }
+
+            if (rowsOnDisk > 2L * tier.capacity) {
+                rewriteFile();
+            }
+            openFile();
+        }
+
+        /** Rewrite the file with only the rows kept in memory. */
+        private void rewriteFile() throws IOException {
+            File temp = new File(directory, tier.label + ".xrt.tmp");
+            try (FileChannel out = FileChannel.open(temp.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(out);
+                writeRows(out, 0, size);
+                out.force(false);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void openFile() throws IOException {
+            boolean created = !file.exists();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (created || channel.size() < FILE_HEADER_SIZE) {
+                channel.truncate(0);
+                writeHeader(channel);
+            }
+        }
+
+        void resetFile() {
+            closeFile();
+            head = 0;
+            size = 0;
+            unpersisted = 0;
+            File broken = new File(directory, tier.label + ".xrt.broken");
+            if (!file.renameTo(broken)) {
+                file.delete();
+            }
+            try {
+                openFile();
+            } catch (IOException e) {
+                logger.warning("Could not create " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        void persist() throws IOException {
+            if (unpersisted == 0 || channel == null) {
+                return;
+            }
+            writeRows(channel, size - unpersisted, size);
+            unpersisted = 0;
+        }
+
+        private void writeHeader(FileChannel out) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) METRICS);
+            header.putInt(ROW_SIZE);
+            header.putInt(0);
+            header.flip();
+            writeFully(out, header, 0);
+        }
+
+        /** Append rows [fromIndex, toIndex) at the end of the file. */
+        private void writeRows(FileChannel out, int fromIndex, int toIndex) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate((toIndex - fromIndex) * ROW_SIZE);
+            for (int i = fromIndex; i < toIndex; i++) {
+                int slot = slotOf(i);
+                buffer.putLong(starts[slot]);
+                buffer.putInt(counts[slot]);
+                int base = slot * METRICS * STATS;
+                for (int s = 0; s < METRICS * STATS; s++) {
+                    buffer.putFloat(stats[base + s]);
+                }
+            }
+            buffer.flip();
+            writeFully(out, buffer, out.size());
+        }
+
+        void closeFile() {
+            if (channel != null) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                channel = null;
+            }
+        }
+    }
+
+    /** Fold a row of {@code count} samples into the row at {@code base}. P95 keeps the larger value. */
+    private static void mergeStats(float[] target, int base, int existing, float[] rowStats, int count) {
+        for (int m = 0; m < METRICS; m++) {
+            int i = base + m * STATS;
+            target[i] = Math.min(target[i], rowStats[m * STATS]);
+            target[i + 1] = Math.max(target[i + 1], rowStats[m * STATS + 1]);
+            target[i + 2] = (target[i + 2] * existing + rowStats[m * STATS + 2] * count) / (existing + count);
+            target[i + 3] = Math.max(target[i + 3], rowStats[m * STATS + 3]);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of file");
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
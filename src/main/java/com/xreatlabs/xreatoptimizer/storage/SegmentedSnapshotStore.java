@@ -0,0 +1,504 @@
+package com.xreatlabs.xreatoptimizer.storage;
+
+import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage.PerformanceSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Append-only, segment-based binary store for performance snapshots.
+ *
+ * The active segment holds a fixed-size header and up to {@link #SEGMENT_CAPACITY} fixed-width
+ * records. Timestamps are stored as offsets from the segment base, TPS and memory as fixed-point
+ * deltas from the segment's first record. Records are appended through the FileChannel and read
+ * through a memory mapping of the whole file. When a segment is sealed it is rewritten as one
+ * {@link SnapshotBlockCodec} block, which takes a few bytes per snapshot and is decoded as a
+ * stream. Segments are time-ordered; range queries binary search the segment list and then scan
+ * the matching segments. Retention deletes whole segments.
+ */
+public class SegmentedSnapshotStore {
+
+    static final int SEGMENT_CAPACITY = 65_536;
+    static final long MAX_SEGMENT_SPAN_MS = 24L * 60 * 60 * 1000;
+
+    private static final int MAGIC = 0x58535453; // "XSTS"
+    private static final short VERSION = 3;
+    private static final String SUFFIX = ".xst";
+    private static final String COMPRESSED_SUFFIX = ".xsc";
+
+    // Header: magic(4) version(2) recordSize(2) baseTimestamp(8) count(4) baseTps(2) baseMemory(2) capacity(4) reserved(4)
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 16;
+
+    // Record: timeDelta(4) tpsDelta(2) memoryDelta(2) entities(4) chunks(4) profile(1) reserved(1) msptMicros(4)
+    // Version 2 stored mspt as a 0.01ms short, which clamps at 327.67ms; version 1 stops before mspt
+    private static final int RECORD_SIZE = 22;
+    private static final int RECORD_SIZE_V2 = 20;
+    private static final int RECORD_SIZE_V1 = 18;
+
+    private final File directory;
+    private final Logger logger;
+    private final List<StoredSegment> segments = new ArrayList<>();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final ByteBuffer countBuffer = ByteBuffer.allocate(4);
+
+    public SegmentedSnapshotStore(File directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+    }
+
+    /** Map every existing segment and compress raw segments left over from earlier runs. */
+    public synchronized void open() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX) || name.endsWith(COMPRESSED_SUFFIX));
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                StoredSegment segment;
+                if (name.endsWith(COMPRESSED_SUFFIX)) {
+                    segment = CompressedSegment.open(file);
+                } else if (new File(directory, baseName(name) + COMPRESSED_SUFFIX).exists()) {
+                    // Compressed copy was written but the raw file was not deleted
+                    deleteFile(file);
+                    continue;
+                } else {
+                    segment = RawSegment.open(file);
+                }
+                if (segment.count == 0) {
+                    segment.close();
+                    deleteFile(file);
+                    continue;
+                }
+                segments.add(segment);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warning("Skipping unreadable statistics segment " + name + ": " + e.getMessage());
+            }
+        }
+        segments.sort((a, b) -> Long.compare(a.baseTimestamp, b.baseTimestamp));
+
+        // Only the newest segment stays writable
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (segments.get(i) instanceof RawSegment) {
+                sealAndCompress(i);
+            }
+        }
+    }
+
+    public synchronized void append(PerformanceSnapshot snapshot) throws IOException {
+        StoredSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        long timestamp = snapshot.getTimestamp();
+
+        // Keep segments time-ordered even if the clock steps backwards
+        if (last != null && last.count > 0) {
+            timestamp = Math.max(timestamp, last.lastTimestamp());
+        }
+
+        RawSegment active = last instanceof RawSegment ? (RawSegment) last : null;
+        if (active == null || active.isSealed() || active.count >= active.capacity
+                || timestamp - active.baseTimestamp > MAX_SEGMENT_SPAN_MS) {
+            if (active != null) {
+                sealAndCompress(segments.size() - 1);
+            }
+            active = RawSegment.create(new File(directory, "segment-" + timestamp + SUFFIX), timestamp,
+                fixedPoint(snapshot.getTps()), fixedPoint(snapshot.getMemoryPercent()));
+            segments.add(active);
+        }
+
+        recordBuffer.clear();
+        recordBuffer.putInt((int) (timestamp - active.baseTimestamp));
+        recordBuffer.putShort((short) (fixedPoint(snapshot.getTps()) - active.baseTps));
+        recordBuffer.putShort((short) (fixedPoint(snapshot.getMemoryPercent()) - active.baseMemory));
+        recordBuffer.putInt(snapshot.getEntityCount());
+        recordBuffer.putInt(snapshot.getChunkCount());
+        recordBuffer.put(SnapshotBlockCodec.profileIndex(snapshot.getProfile()));
+        recordBuffer.put((byte) 0);
+        recordBuffer.putInt(micros(snapshot.getMspt()));
+        recordBuffer.flip();
+        writeFully(active.channel, recordBuffer, HEADER_SIZE + (long) active.count * RECORD_SIZE);
+
+        // Publish the record by bumping the header count after the record bytes are written
+        countBuffer.clear();
+        countBuffer.putInt(active.count + 1);
+        countBuffer.flip();
+        writeFully(active.channel, countBuffer, COUNT_OFFSET);
+        active.count++;
+    }
+
+    /**
+     * Seal the raw segment at {@code index} and replace it with a compressed copy. On failure the
+     * raw segment stays in place, sealed.
+     */
+    private void sealAndCompress(int index) {
+        RawSegment raw = (RawSegment) segments.get(index);
+        raw.seal();
+
+        File target = new File(directory, baseName(raw.file.getName()) + COMPRESSED_SUFFIX);
+        File temp = new File(directory, target.getName() + ".tmp");
+        try {
+            SnapshotBlockCodec.Encoder encoder = new SnapshotBlockCodec.Encoder();
+            raw.scan(Long.MIN_VALUE, Long.MAX_VALUE, encoder::add);
+            byte[] block = encoder.finish();
+            try (FileChannel out = FileChannel.open(temp.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(out, ByteBuffer.wrap(block), 0);
+                out.force(false);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            segments.set(index, CompressedSegment.open(target));
+            raw.close();
+            deleteFile(raw.file);
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not compress statistics segment " + raw.file.getName() + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    /** Snapshots with {@code from <= timestamp < to}, oldest first. */
+    public synchronized List<PerformanceSnapshot> query(long from, long to) {
+        List<PerformanceSnapshot> result = new ArrayList<>();
+        forEach(from, to, result::add);
+        return result;
+    }
+
+    /** Stream snapshots with {@code from <= timestamp < to}, oldest first, without collecting them. */
+    public synchronized void forEach(long from, long to, Consumer<PerformanceSnapshot> action) {
+        if (segments.isEmpty() || from >= to) {
+            return;
+        }
+
+        // Last segment starting at or before 'from'; earlier ones end before it
+        int lo = 0;
+        int hi = segments.size() - 1;
+        int first = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments.get(mid).baseTimestamp <= from) {
+                first = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        for (int s = first; s < segments.size(); s++) {
+            StoredSegment segment = segments.get(s);
+            if (segment.baseTimestamp >= to) {
+                break;
+            }
+            segment.scan(from, to, action);
+        }
+    }
+
+    /** Delete every segment whose newest record is older than the cutoff. Returns segments removed. */
+    public synchronized int dropSegmentsBefore(long cutoff) {
+        int removed = 0;
+        // Never drop the active segment
+        while (segments.size() > 1 && segments.get(0).lastTimestamp() < cutoff) {
+            StoredSegment segment = segments.remove(0);
+            segment.close();
+            deleteFile(segment.file);
+            removed++;
+        }
+        return removed;
+    }
+
+    public synchronized void force() throws IOException {
+        if (!segments.isEmpty()) {
+            StoredSegment last = segments.get(segments.size() - 1);
+            if (last instanceof RawSegment && !((RawSegment) last).isSealed()) {
+                ((RawSegment) last).channel.force(false);
+            }
+        }
+    }
+
+    public synchronized void close() {
+        for (StoredSegment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    public synchronized long getRecordCount() {
+        long total = 0;
+        for (StoredSegment segment : segments) {
+            total += segment.count;
+        }
+        return total;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** Bytes used by all segments on disk. */
+    public synchronized long getDiskBytes() {
+        long total = 0;
+        for (StoredSegment segment : segments) {
+            total += segment.file.length();
+        }
+        return total;
+    }
+
+    private static short fixedPoint(double value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, SnapshotBlockCodec.fixedPoint(value)));
+    }
+
+    private static int micros(double millis) {
+        return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, Math.round(millis * 1000.0)));
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void deleteFile(File file) {
+        if (!file.delete()) {
+            // Still mapped on some platforms; retry when the JVM exits
+            file.deleteOnExit();
+        }
+    }
+
+    private abstract static class StoredSegment {
+        final File file;
+        final long baseTimestamp;
+        int count;
+
+        StoredSegment(File file, long baseTimestamp, int count) {
+            this.file = file;
+            this.baseTimestamp = baseTimestamp;
+            this.count = count;
+        }
+
+        abstract long lastTimestamp();
+
+        /** Feed records with {@code from <= timestamp < to} to the action, oldest first. */
+        abstract void scan(long from, long to, Consumer<PerformanceSnapshot> action);
+
+        abstract void close();
+    }
+
+    /** The writable fixed-width segment, or a raw segment that could not be compressed. */
+    private static final class RawSegment extends StoredSegment {
+        final short baseTps;
+        final short baseMemory;
+        final int capacity;
+        final short version;
+        final int recordSize;
+        final MappedByteBuffer mapped;
+        FileChannel channel;
+
+        private RawSegment(File file, FileChannel channel, MappedByteBuffer mapped) {
+            super(file, mapped.getLong(8), mapped.getInt(COUNT_OFFSET));
+            this.channel = channel;
+            this.mapped = mapped;
+            this.version = mapped.getShort(4);
+            this.recordSize = mapped.getShort(6);
+            this.baseTps = mapped.getShort(20);
+            this.baseMemory = mapped.getShort(22);
+            this.capacity = mapped.getInt(24);
+        }
+
+        static RawSegment create(File file, long baseTimestamp, short baseTps, short baseMemory) throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC);
+                header.putShort(VERSION);
+                header.putShort((short) RECORD_SIZE);
+                header.putLong(baseTimestamp);
+                header.putInt(0);
+                header.putShort(baseTps);
+                header.putShort(baseMemory);
+                header.putInt(SEGMENT_CAPACITY);
+                header.putInt(0);
+                header.flip();
+                writeFully(channel, header, 0);
+
+                long size = HEADER_SIZE + (long) SEGMENT_CAPACITY * RECORD_SIZE;
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return new RawSegment(file, channel, mapped);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        static RawSegment open(File file) throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException("truncated header");
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                short version = mapped.getShort(4);
+                short recordSize = mapped.getShort(6);
+                if (mapped.getInt(0) != MAGIC
+                        || !(version == 1 && recordSize == RECORD_SIZE_V1 || version == 2 && recordSize == RECORD_SIZE_V2
+                            || version == VERSION && recordSize == RECORD_SIZE)) {
+                    throw new IOException("unknown segment format");
+                }
+                RawSegment segment = new RawSegment(file, channel, mapped);
+                long available = (channel.size() - HEADER_SIZE) / recordSize;
+                segment.count = (int) Math.max(0, Math.min(segment.count, Math.min(segment.capacity, available)));
+                if (version != VERSION) {
+                    // Older record layout: readable, but never appended to
+                    segment.seal();
+                }
+                return segment;
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        boolean isSealed() {
+            return channel == null;
+        }
+
+        /** Stop writing; the mapping stays valid after the channel is closed. */
+        void seal() {
+            close();
+        }
+
+        @Override
+        void close() {
+            if (channel != null) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                channel = null;
+            }
+        }
+
+        long timestampAt(int index) {
+            return baseTimestamp + mapped.getInt(HEADER_SIZE + index * recordSize);
+        }
+
+        @Override
+        long lastTimestamp() {
+            return count > 0 ? timestampAt(count - 1) : baseTimestamp;
+        }
+
+        int firstIndexAtOrAfter(long timestamp) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (timestampAt(mid) < timestamp) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        @Override
+        void scan(long from, long to, Consumer<PerformanceSnapshot> action) {
+            for (int i = firstIndexAtOrAfter(from); i < count; i++) {
+                if (timestampAt(i) >= to) {
+                    break;
+                }
+                action.accept(read(i));
+            }
+        }
+
+        PerformanceSnapshot read(int index) {
+            int offset = HEADER_SIZE + index * recordSize;
+            return new PerformanceSnapshot(
+                baseTimestamp + mapped.getInt(offset),
+                (baseTps + mapped.getShort(offset + 4)) / 100.0,
+                (baseMemory + mapped.getShort(offset + 6)) / 100.0,
+                mapped.getInt(offset + 8),
+                mapped.getInt(offset + 12),
+                SnapshotBlockCodec.profileName(mapped.get(offset + 16)),
+                readMspt(offset)
+            );
+        }
+
+        private double readMspt(int offset) {
+            switch (version) {
+                case 1:
+                    return 0.0;
+                case 2:
+                    return mapped.getShort(offset + 18) / 100.0;
+                default:
+                    return mapped.getInt(offset + 18) / 1000.0;
+            }
+        }
+    }
+
+    /** A sealed segment stored as one compressed block. */
+    private static final class CompressedSegment extends StoredSegment {
+        final MappedByteBuffer mapped;
+        final long lastTimestamp;
+
+        private CompressedSegment(File file, MappedByteBuffer mapped) {
+            super(file, SnapshotBlockCodec.readFirstTimestamp(mapped), SnapshotBlockCodec.readCount(mapped));
+            this.mapped = mapped;
+            this.lastTimestamp = SnapshotBlockCodec.readLastTimestamp(mapped);
+        }
+
+        static CompressedSegment open(File file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return new CompressedSegment(file, mapped);
+            }
+        }
+
+        @Override
+        long lastTimestamp() {
+            return lastTimestamp;
+        }
+
+        @Override
+        void scan(long from, long to, Consumer<PerformanceSnapshot> action) {
+            if (lastTimestamp < from) {
+                return;
+            }
+            SnapshotBlockCodec.Decoder decoder = new SnapshotBlockCodec.Decoder(mapped);
+            while (decoder.hasNext()) {
+                PerformanceSnapshot snapshot = decoder.next();
+                if (snapshot.getTimestamp() >= to) {
+                    break;
+                }
+                if (snapshot.getTimestamp() >= from) {
+                    action.accept(snapshot);
+                }
+            }
+        }
+
+        @Override
+        void close() {
+            // Mapping is released by the GC; nothing to close
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.xreatlabs.xreatoptimizer.storage;
+
+import com.xreatlabs.xreatoptimizer.managers.OptimizationManager.OptimizationProfile;
+import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage.PerformanceSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compressed block encoding for performance snapshots, after Facebook's Gorilla format.
+ *
+ * Timestamps are stored as delta-of-delta in variable-width buckets, so a steady sampling interval
+ * costs one bit. TPS and memory are stored at the same 0.01 fixed-point precision as the segment
+ * records and MSPT in whole microseconds like them; each is XOR-encoded against the previous
+ * value, reusing the previous meaningful-bit window when it fits. Entity and chunk counts are
+ * zig-zag varint deltas behind a one-bit "unchanged" flag, and the profile is a one-bit
+ * "unchanged" flag or a 3-bit index. A steady server costs a few bytes per sample instead of the
+ * 22-byte fixed record. Version 1 blocks, which held MSPT at 0.01, still decode.
+ *
+ * Blocks are immutable: encode with {@link Encoder}, then iterate with {@link Decoder}, which
+ * decodes one snapshot per {@code next()} and never builds a list.
+ */
+public final class SnapshotBlockCodec {
+
+    private static final int MAGIC = 0x58534342; // "XSCB"
+    private static final short VERSION = 2;
+
+    // Header: magic(4) version(2) reserved(2) count(4) firstTimestamp(8) lastTimestamp(8) dataLength(4)
+    public static final int HEADER_SIZE = 32;
+
+    private static final int VALUES = 3; // tps, memory, mspt
+    private static final double FIXED_POINT = 100.0;
+    private static final double MICROS = 1000.0;
+    private static final OptimizationProfile[] PROFILES = OptimizationProfile.values();
+
+    private SnapshotBlockCodec() {
+    }
+
+    /** Number of snapshots in the block starting at the buffer's position. */
+    public static int readCount(ByteBuffer block) {
+        checkHeader(block);
+        return block.getInt(block.position() + 8);
+    }
+
+    public static long readFirstTimestamp(ByteBuffer block) {
+        checkHeader(block);
+        return block.getLong(block.position() + 12);
+    }
+
+    public static long readLastTimestamp(ByteBuffer block) {
+        checkHeader(block);
+        return block.getLong(block.position() + 20);
+    }
+
+    private static void checkHeader(ByteBuffer block) {
+        int base = block.position();
+        if (block.remaining() < HEADER_SIZE || block.getInt(base) != MAGIC
+            || block.getShort(base + 4) < 1 || block.getShort(base + 4) > VERSION) {
+            throw new IllegalArgumentException("not a snapshot block");
+        }
+    }
+
+    static long fixedPoint(double value) {
+        return Math.round(value * FIXED_POINT);
+    }
+
+    static long micros(double millis) {
+        return Math.round(millis * MICROS);
+    }
+
+    static byte profileIndex(String profile) {
+        for (int i = 0; i < PROFILES.length; i++) {
+            if (PROFILES[i].name().equals(profile)) {
+                return (byte) i;
+            }
+        }
+        return -1;
+    }
+
+    static String profileName(int index) {
+        return index >= 0 && index < PROFILES.length ? PROFILES[index].name() : "UNKNOWN";
+    }
+
+    /** Streaming encoder. Snapshots must be added in timestamp order. */
+    public static final class Encoder {
+        private final BitWriter out = new BitWriter();
+        private int count = 0;
+        private long firstTimestamp;
+        private long previousTimestamp;
+        private long previousDelta;
+        private final long[] previousValues = new long[VALUES];
+        private final int[] previousLeading = new int[VALUES];
+        private final int[] previousTrailing = new int[VALUES];
+        private int previousEntities;
+        private int previousChunks;
+        private int previousProfile;
+
+        public Encoder() {
+            Arrays.fill(previousLeading, -1);
+        }
+
+        public void add(PerformanceSnapshot snapshot) {
+            long timestamp = snapshot.getTimestamp();
+            if (count == 0) {
+                firstTimestamp = timestamp;
+                previousTimestamp = timestamp;
+            } else {
+                if (timestamp < previousTimestamp) {
+                    throw new IllegalArgumentException("snapshots must be added in timestamp order");
+                }
+                long delta = timestamp - previousTimestamp;
+                writeDeltaOfDelta(delta - previousDelta);
+                previousDelta = delta;
+                previousTimestamp = timestamp;
+            }
+
+            writeValue(0, fixedPoint(snapshot.getTps()));
+            writeValue(1, fixedPoint(snapshot.getMemoryPercent()));
+            writeValue(2, micros(snapshot.getMspt()));
+
+            previousEntities = writeCount(previousEntities, snapshot.getEntityCount());
+            previousChunks = writeCount(previousChunks, snapshot.getChunkCount());
+
+            int profile = profileIndex(snapshot.getProfile()) + 1; // 0 = unknown
+            if (count > 0 && profile == previousProfile) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                out.writeBits(profile, 3);
+                previousProfile = profile;
+            }
+            count++;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                out.writeBit(false);
+            } else if (dod >= -64 && dod < 64) {
+                out.writeBits(0b10, 2);
+                out.writeBits(dod, 7);
+            } else if (dod >= -256 && dod < 256) {
+                out.writeBits(0b110, 3);
+                out.writeBits(dod, 9);
+            } else if (dod >= -2048 && dod < 2048) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(dod, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(dod, 64);
+            }
+        }
+
+        private void writeValue(int index, long value) {
+            long xor = value ^ previousValues[index];
+            previousValues[index] = value;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+
+            int leading = Math.min(63, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading[index] >= 0 && leading >= previousLeading[index] && trailing >= previousTrailing[index]) {
+                // Fits in the previous window
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing[index], 64 - previousLeading[index] - previousTrailing[index]);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 6);
+                out.writeBits(meaningful - 1, 6);
+                out.writeBits(xor >>> trailing, meaningful);
+                previousLeading[index] = leading;
+                previousTrailing[index] = trailing;
+            }
+        }
+
+        private int writeCount(int previous, int value) {
+            if (value == previous) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                long delta = (long) value - previous;
+                out.writeVarint((delta << 1) ^ (delta >> 63));
+            }
+            return value;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /** Encoded size so far, header included. */
+        public int size() {
+            return HEADER_SIZE + out.byteLength();
+        }
+
+        public byte[] finish() {
+            int dataLength = out.byteLength();
+            ByteBuffer block = ByteBuffer.allocate(HEADER_SIZE + dataLength);
+            block.putInt(MAGIC);
+            block.putShort(VERSION);
+            block.putShort((short) 0);
+            block.putInt(count);
+            block.putLong(firstTimestamp);
+            block.putLong(previousTimestamp);
+            block.putInt(dataLength);
+            block.put(out.data, 0, dataLength);
+            return block.array();
+        }
+    }
+
+    /** Streaming decoder over a block; the buffer is read with absolute gets and never modified. */
+    public static final class Decoder implements Iterator<PerformanceSnapshot> {
+        private final ByteBuffer block;
+        private final int dataStart;
+        private final long bitLimit;
+        private long bitPosition = 0;
+        private final int count;
+        private final double msptScale;
+        private int index = 0;
+
+        private long previousTimestamp;
+        private long previousDelta;
+        private final long[] previousValues = new long[VALUES];
+        private final int[] previousLeading = new int[VALUES];
+        private final int[] previousTrailing = new int[VALUES];
+        private int previousEntities;
+        private int previousChunks;
+        private int previousProfile;
+
+        public Decoder(ByteBuffer block) {
+            checkHeader(block);
+            int base = block.position();
+            this.block = block;
+            this.count = block.getInt(base + 8);
+            this.previousTimestamp = block.getLong(base + 12);
+            this.msptScale = block.getShort(base + 4) == 1 ? FIXED_POINT : MICROS;
+            int dataLength = block.getInt(base + 28);
+            this.dataStart = base + HEADER_SIZE;
+            this.bitLimit = (long) dataLength * 8;
+            if (dataStart + dataLength > block.limit()) {
+                throw new IllegalArgumentException("truncated snapshot block");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public PerformanceSnapshot next() {
+            if (index >= count) {
+                throw new NoSuchElementException();
+            }
+
+            if (index > 0) {
+                previousDelta += readDeltaOfDelta();
+                previousTimestamp += previousDelta;
+            }
+
+            double tps = readValue(0) / FIXED_POINT;
+            double memory = readValue(1) / FIXED_POINT;
+            double mspt = readValue(2) / msptScale;
+
+            if (readBit()) {
+                previousEntities += (int) zigZagDecode(readVarint());
+            }
+            if (readBit()) {
+                previousChunks += (int) zigZagDecode(readVarint());
+            }
+            if (readBit()) {
+                previousProfile = (int) readBits(3);
+            }
+            index++;
+
+            return new PerformanceSnapshot(previousTimestamp, tps, memory, previousEntities, previousChunks,
+                profileName(previousProfile - 1), mspt);
+        }
+
+        private long readDeltaOfDelta() {
+            if (!readBit()) {
+                return 0;
+            }
+            if (!readBit()) {
+                return signExtend(readBits(7), 7);
+            }
+            if (!readBit()) {
+                return signExtend(readBits(9), 9);
+            }
+            if (!readBit()) {
+                return signExtend(readBits(12), 12);
+            }
+            return readBits(64);
+        }
+
+        private long readValue(int index) {
+            if (!readBit()) {
+                return previousValues[index];
+            }
+            long xor;
+            if (!readBit()) {
+                int meaningful = 64 - previousLeading[index] - previousTrailing[index];
+                xor = readBits(meaningful) << previousTrailing[index];
+            } else {
+                int leading = (int) readBits(6);
+                int meaningful = (int) readBits(6) + 1;
+                int trailing = 64 - leading - meaningful;
+                xor = readBits(meaningful) << trailing;
+                previousLeading[index] = leading;
+                previousTrailing[index] = trailing;
+            }
+            previousValues[index] ^= xor;
+            return previousValues[index];
+        }
+
+        private long readVarint() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                long b = readBits(8);
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        private boolean readBit() {
+            return readBits(1) != 0;
+        }
+
+        private long readBits(int bits) {
+            if (bitPosition + bits > bitLimit) {
+                throw new IllegalStateException("snapshot block ended early");
+            }
+            long result = 0;
+            while (bits > 0) {
+                int current = block.get(dataStart + (int) (bitPosition >>> 3)) & 0xFF;
+                int available = 8 - (int) (bitPosition & 7);
+                int take = Math.min(available, bits);
+                int chunk = (current >>> (available - take)) & ((1 << take) - 1);
+                result = (result << take) | chunk;
+                bitPosition += take;
+                bits -= take;
+            }
+            return result;
+        }
+
+        private static long signExtend(long value, int bits) {
+            return (value << (64 - bits)) >> (64 - bits);
+        }
+
+        private static long zigZagDecode(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /** Big-endian bit stream into a growing byte array. */
+    private static final class BitWriter {
+        private byte[] data = new byte[1024];
+        private long bitPosition = 0;
+
+        void writeBit(boolean bit) {
+            writeBits(bit ? 1 : 0, 1);
+        }
+
+        /** Write the low {@code bits} bits of {@code value}, most significant first. */
+        void writeBits(long value, int bits) {
+            while (bits > 0) {
+                int byteIndex = (int) (bitPosition >>> 3);
+                if (byteIndex >= data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                int free = 8 - (int) (bitPosition & 7);
+                int take = Math.min(free, bits);
+                int chunk = (int) ((value >>> (bits - take)) & ((1 << take) - 1));
+                data[byteIndex] |= (byte) (chunk << (free - take));
+                bitPosition += take;
+                bits -= take;
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeBits((value & 0x7F) | 0x80, 8);
+                value >>>= 7;
+            }
+            writeBits(value, 8);
+        }
+
+        int byteLength() {
+            return (int) ((bitPosition + 7) >>> 3);
+        }
+    }
+}
@@ -1,191 +1,328 @@
 package com.xreatlabs.xreatoptimizer.storage;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
-
-/** Persistent statistics storage */
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent statistics storage.
+ *
+ * Snapshots are appended to a {@link SegmentedSnapshotStore} under statistics/. Appends are
+ * queued and written on the IO pool; if the pool refuses a flush, the queue waits for the next
+ * one or {@link #close()}. Snapshot queries read the store and the still-queued snapshots
+ * together, so they see every recorded snapshot without writing anything on the caller's thread.
+ * A legacy statistics.yml is imported once and renamed.
+ *
+ * Per-second samples also feed a {@link RollupEngine} under rollups/, which keeps 1-minute,
+ * 1-hour and 1-day summaries. Reports and long-range history read those instead of raw snapshots.
+ * Values from API metrics collectors go to a {@link CollectorSampleLog} under collectors/.
+ */
 public class StatisticsStorage {
 
     private final XreatOptimizer plugin;
-    private final File statsFile;
-    private FileConfiguration statsConfig;
-
-    // In-memory cache for quick access
-    private final Deque<PerformanceSnapshot> recentSnapshots = new ConcurrentLinkedDeque<>();
-    private static final int MAX_IN_MEMORY_SNAPSHOTS = 1000;
+    private final File legacyStatsFile;
+    private final SegmentedSnapshotStore store;
+    private volatile boolean storeOpen = false;
+    private final RollupEngine rollups;
+    private volatile boolean rollupsOpen = false;
+    // Set when the IO lane refused a rollup persist; the next sample asks again
+    private boolean rollupPersistRefused = false;
+    private final double[] sampleValues = new double[RollupEngine.Metric.values().length];
+
+    private final Queue<PerformanceSnapshot> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final CollectorSampleLog collectorLog;
+    private final AtomicBoolean collectorFlushScheduled = new AtomicBoolean(false);
+    private long lastRetentionCheck = 0L;
+
+    private static final long RETENTION_CHECK_INTERVAL_MS = 60L * 60 * 1000;
 
     public StatisticsStorage(XreatOptimizer plugin) {
         this.plugin = plugin;
-        this.statsFile = new File(plugin.getDataFolder(), "statistics.yml");
+        this.legacyStatsFile = new File(plugin.getDataFolder(), "statistics.yml");
+        this.store = new SegmentedSnapshotStore(new File(plugin.getDataFolder(), "statistics"), plugin.getLogger());
+        this.rollups = new RollupEngine(new File(plugin.getDataFolder(), "rollups"), plugin.getLogger());
+        this.collectorLog = new CollectorSampleLog(new File(plugin.getDataFolder(), "collectors"));
         loadStatistics();
     }
 
     public void loadStatistics() {
-        if (!statsFile.exists()) {
-            try {
-                statsFile.getParentFile().mkdirs();
-                statsFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().warning("Could not create statistics file: " + e.getMessage());
-                return;
-            }
+        try {
+            rollups.open();
+            rollupsOpen = true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not open statistics rollups: " + e.getMessage());
+        }
+
+        try {
+            store.open();
+            storeOpen = true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not open statistics store: " + e.getMessage());
+            return;
         }
 
-        statsConfig = YamlConfiguration.loadConfiguration(statsFile);
+        migrateLegacyFile();
+        applyRetention();
+        backfillRollups();
 
-        // Load recent snapshots into memory
-        if (statsConfig.contains("snapshots")) {
-            List<Map<?, ?>> snapshots = statsConfig.getMapList("snapshots");
-            for (Map<?, ?> snapshotData : snapshots) {
-                try {
-                    PerformanceSnapshot snapshot = PerformanceSnapshot.fromMap(snapshotData);
-                    recentSnapshots.add(snapshot);
-                } catch (Exception e) {
-                    plugin.getLogger().warning("Failed to load snapshot: " + e.getMessage());
-                }
+        plugin.getLogger().info("Mapped " + store.getRecordCount() + " performance snapshots in "
+            + store.getSegmentCount() + " segments (" + (store.getDiskBytes() / 1024) + " KB)");
+    }
+
+    /** One-time import of the old YAML snapshot list. */
+    private void migrateLegacyFile() {
+        if (!legacyStatsFile.exists()) {
+            return;
+        }
+
+        FileConfiguration legacy = YamlConfiguration.loadConfiguration(legacyStatsFile);
+        int imported = 0;
+        for (Map<?, ?> snapshotData : legacy.getMapList("snapshots")) {
+            try {
+                store.append(PerformanceSnapshot.fromMap(snapshotData));
+                imported++;
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to import snapshot: " + e.getMessage());
             }
         }
 
-        plugin.getLogger().info("Loaded " + recentSnapshots.size() + " performance snapshots from disk");
+        File migrated = new File(plugin.getDataFolder(), "statistics.yml.migrated");
+        if (!legacyStatsFile.renameTo(migrated)) {
+            legacyStatsFile.delete();
+        }
+        plugin.getLogger().info("Imported " + imported + " snapshots from statistics.yml");
     }
 
-    public void saveStatistics() {
-        if (statsConfig == null) {
+    /** Seed empty rollups from the stored snapshots so reports cover history from before the upgrade. */
+    private void backfillRollups() {
+        if (!rollupsOpen || store.getRecordCount() == 0
+                || rollups.getRowCount(RollupEngine.Tier.MINUTE) > 0 || rollups.getRowCount(RollupEngine.Tier.HOUR) > 0) {
             return;
         }
 
-        // Convert snapshots to map format for YAML
-        List<Map<String, Object>> snapshotMaps = new ArrayList<>();
-        for (PerformanceSnapshot snapshot : recentSnapshots) {
-            snapshotMaps.add(snapshot.toMap());
-        }
+        double[] values = new double[RollupEngine.Metric.values().length];
+        store.forEach(Long.MIN_VALUE, Long.MAX_VALUE, snapshot -> {
+            values[RollupEngine.Metric.TPS.ordinal()] = snapshot.getTps();
+            values[RollupEngine.Metric.MEMORY.ordinal()] = snapshot.getMemoryPercent();
+            values[RollupEngine.Metric.ENTITIES.ordinal()] = snapshot.getEntityCount();
+            values[RollupEngine.Metric.CHUNKS.ordinal()] = snapshot.getChunkCount();
+            values[RollupEngine.Metric.PLAYERS.ordinal()] = 0;
+            rollups.record(snapshot.getTimestamp(), values);
+        });
+        rollups.persist();
+        plugin.getLogger().info("Built statistics rollups from " + store.getRecordCount() + " stored snapshots");
+    }
 
-        statsConfig.set("snapshots", snapshotMaps);
-        statsConfig.set("last_save", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    /** Write queued snapshots and force the active segment to disk. */
+    public void saveStatistics() {
+        if (!storeOpen) {
+            return;
+        }
 
+        flushPending();
         try {
-            statsConfig.save(statsFile);
+            store.force();
         } catch (IOException e) {
             plugin.getLogger().warning("Could not save statistics: " + e.getMessage());
         }
     }
 
+    public void close() {
+        saveStatistics();
+        flushCollectorSamples();
+        synchronized (pendingWrites) {
+            storeOpen = false;
+            store.close();
+        }
+        if (rollupsOpen) {
+            rollupsOpen = false;
+            rollups.close();
+        }
+    }
+
+    /** Feed the rollups with one per-second sample. Closed buckets are written on the IO pool. */
+    public void recordSample(long timestamp, double tps, double memoryPercent, int entityCount,
+                             int chunkCount, int playerCount) {
+        if (!rollupsOpen) {
+            return;
+        }
+
+        sampleValues[RollupEngine.Metric.TPS.ordinal()] = tps;
+        sampleValues[RollupEngine.Metric.MEMORY.ordinal()] = memoryPercent;
+        sampleValues[RollupEngine.Metric.ENTITIES.ordinal()] = entityCount;
+        sampleValues[RollupEngine.Metric.CHUNKS.ordinal()] = chunkCount;
+        sampleValues[RollupEngine.Metric.PLAYERS.ordinal()] = playerCount;
+        // Closed rows stay marked unpersisted until a persist runs, so a refused one is retried next sample
+        if (rollups.record(timestamp, sampleValues) || rollupPersistRefused) {
+            rollupPersistRefused = !plugin.getThreadPoolManager().executeIoTask(rollups::persist);
+        }
+    }
+
+    public RollupEngine getRollups() {
+        return rollups;
+    }
+
+    /** Rollup summary of the last {@code hours} hours, read from the tier that fits the range. */
+    public RollupEngine.Summary getSummary(int hours) {
+        long now = System.currentTimeMillis();
+        return rollups.summarize(now - hours * 3600000L, now + 1);
+    }
+
     public void recordSnapshot(double tps, double memoryPercent, int entityCount, int chunkCount, String profile) {
-        PerformanceSnapshot snapshot = new PerformanceSnapshot(
+        recordSnapshot(tps, memoryPercent, entityCount, chunkCount, profile, 0.0);
+    }
+
+    public void recordSnapshot(double tps, double memoryPercent, int entityCount, int chunkCount,
+                               String profile, double mspt) {
+        if (!storeOpen) {
+            return;
+        }
+
+        pendingWrites.add(new PerformanceSnapshot(
             System.currentTimeMillis(),
             tps,
             memoryPercent,
             entityCount,
             chunkCount,
-            profile
-        );
+            profile,
+            mspt
+        ));
+
+        // If the IO lane refuses the flush, the snapshot stays queued for the next one or close()
+        if (flushScheduled.compareAndSet(false, true)
+            && !plugin.getThreadPoolManager().executeIoTask(this::flushPending)) {
+            flushScheduled.set(false);
+        }
+    }
 
-        recentSnapshots.addLast(snapshot);
+    /** Queue the numeric values one API metrics collector reported. Written on the IO pool. */
+    public void recordCollectorSample(String collector, long timestamp, Map<String, Double> values) {
+        collectorLog.add(collector, timestamp, values);
+        if (collectorFlushScheduled.compareAndSet(false, true)
+            && !plugin.getThreadPoolManager().executeIoTask(this::flushCollectorSamples)) {
+            collectorFlushScheduled.set(false);
+        }
+    }
 
-        // Maintain size limit
-        if (recentSnapshots.size() > MAX_IN_MEMORY_SNAPSHOTS) {
-            recentSnapshots.removeFirst();
+    private void flushCollectorSamples() {
+        collectorFlushScheduled.set(false);
+        synchronized (collectorLog) {
+            try {
+                collectorLog.flush();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write collector samples: " + e.getMessage());
+            }
         }
     }
 
-    public List<PerformanceSnapshot> getSnapshotsFromLastHours(int hours) {
-        long cutoffTime = System.currentTimeMillis() - (hours * 3600000L);
-        List<PerformanceSnapshot> result = new ArrayList<>();
+    private void flushPending() {
+        flushScheduled.set(false);
+        // Single drainer at a time keeps appends in recording order
+        synchronized (pendingWrites) {
+            if (!storeOpen) {
+                return;
+            }
+            PerformanceSnapshot snapshot;
+            while ((snapshot = pendingWrites.poll()) != null) {
+                try {
+                    store.append(snapshot);
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not write statistics snapshot: " + e.getMessage());
+                }
+            }
 
-        for (PerformanceSnapshot snapshot : recentSnapshots) {
-            if (snapshot.getTimestamp() >= cutoffTime) {
-                result.add(snapshot);
+            if (System.currentTimeMillis() - lastRetentionCheck >= RETENTION_CHECK_INTERVAL_MS) {
+                applyRetention();
             }
         }
+    }
 
-        return result;
+    private void applyRetention() {
+        lastRetentionCheck = System.currentTimeMillis();
+        int days = Math.max(1, plugin.getConfig().getInt("statistics.retention_days", 7));
+        int removed = store.dropSegmentsBefore(lastRetentionCheck - days * 86400000L);
+        if (removed > 0) {
+            LoggerUtils.debug("Dropped " + removed + " statistics segments older than " + days + " days");
+        }
+        int removedLogs = collectorLog.dropBefore(lastRetentionCheck - days * 86400000L);
+        if (removedLogs > 0) {
+            LoggerUtils.debug("Dropped " + removedLogs + " collector sample files older than " + days + " days");
+        }
     }
 
-    public double getAverageTPS(int hours) {
-        List<PerformanceSnapshot> snapshots = getSnapshotsFromLastHours(hours);
-        if (snapshots.isEmpty()) {
-            return 20.0;
+    public List<PerformanceSnapshot> getSnapshotsFromLastHours(int hours) {
+        long cutoff = System.currentTimeMillis() - hours * 3600000L;
+        // Held so a concurrent flush cannot move a snapshot from the queue to the store mid-read
+        synchronized (pendingWrites) {
+            if (!storeOpen) {
+                return new ArrayList<>();
+            }
+            List<PerformanceSnapshot> result = store.query(cutoff, Long.MAX_VALUE);
+            for (PerformanceSnapshot snapshot : pendingWrites) {
+                if (snapshot.getTimestamp() >= cutoff) {
+                    result.add(snapshot);
+                }
+            }
+            return result;
         }
+    }
 
-        return snapshots.stream()
-            .mapToDouble(PerformanceSnapshot::getTps)
-            .average()
-            .orElse(20.0);
+    public double getAverageTPS(int hours) {
+        RollupEngine.Summary summary = getSummary(hours);
+        return summary.getCount() > 0 ? summary.getAverage(RollupEngine.Metric.TPS) : 20.0;
     }
 
     public double getPeakMemory(int hours) {
-        List<PerformanceSnapshot> snapshots = getSnapshotsFromLastHours(hours);
-        if (snapshots.isEmpty()) {
-            return 0.0;
-        }
-
-        return snapshots.stream()
-            .mapToDouble(PerformanceSnapshot::getMemoryPercent)
-            .max()
-            .orElse(0.0);
+        RollupEngine.Summary summary = getSummary(hours);
+        return summary.getCount() > 0 ? summary.getMax(RollupEngine.Metric.MEMORY) : 0.0;
     }
 
     public double getMinTPS(int hours) {
-        List<PerformanceSnapshot> snapshots = getSnapshotsFromLastHours(hours);
-        if (snapshots.isEmpty()) {
-            return 20.0;
-        }
-
-        return snapshots.stream()
-            .mapToDouble(PerformanceSnapshot::getTps)
-            .min()
-            .orElse(20.0);
+        RollupEngine.Summary summary = getSummary(hours);
+        return summary.getCount() > 0 ? summary.getMin(RollupEngine.Metric.TPS) : 20.0;
     }
 
     public String generateReport(int hours) {
-        List<PerformanceSnapshot> snapshots = getSnapshotsFromLastHours(hours);
+        RollupEngine.Summary summary = getSummary(hours);
 
-        if (snapshots.isEmpty()) {
+        if (summary.getCount() == 0) {
             return "No performance data available for the last " + hours + " hours.";
         }
 
-        double avgTPS = snapshots.stream().mapToDouble(PerformanceSnapshot::getTps).average().orElse(20.0);
-        double minTPS = snapshots.stream().mapToDouble(PerformanceSnapshot::getTps).min().orElse(20.0);
-        double maxTPS = snapshots.stream().mapToDouble(PerformanceSnapshot::getTps).max().orElse(20.0);
-
-        double avgMemory = snapshots.stream().mapToDouble(PerformanceSnapshot::getMemoryPercent).average().orElse(0.0);
-        double peakMemory = snapshots.stream().mapToDouble(PerformanceSnapshot::getMemoryPercent).max().orElse(0.0);
-
-        int avgEntities = (int) snapshots.stream().mapToInt(PerformanceSnapshot::getEntityCount).average().orElse(0);
-        int maxEntities = snapshots.stream().mapToInt(PerformanceSnapshot::getEntityCount).max().orElse(0);
-
         StringBuilder report = new StringBuilder();
         report.append("=== Performance Report (Last ").append(hours).append(" Hours) ===\n");
-        report.append("Snapshots Analyzed: ").append(snapshots.size()).append("\n\n");
+        report.append("Samples Analyzed: ").append(summary.getCount()).append(" (")
+            .append(RollupEngine.Tier.forRange(hours * 3600000L).getLabel()).append(" rollups)\n\n");
 
         report.append("TPS Statistics:\n");
-        report.append("  Average: ").append(String.format("%.2f", avgTPS)).append("\n");
-        report.append("  Minimum: ").append(String.format("%.2f", minTPS)).append("\n");
-        report.append("  Maximum: ").append(String.format("%.2f", maxTPS)).append("\n\n");
+        report.append("  Average: ").append(String.format("%.2f", summary.getAverage(RollupEngine.Metric.TPS))).append("\n");
+        report.append("  Minimum: ").append(String.format("%.2f", summary.getMin(RollupEngine.Metric.TPS))).append("\n");
+        report.append("  Maximum: ").append(String.format("%.2f", summary.getMax(RollupEngine.Metric.TPS))).append("\n\n");
 
         report.append("Memory Statistics:\n");
-        report.append("  Average: ").append(String.format("%.1f%%", avgMemory)).append("\n");
-        report.append("  Peak: ").append(String.format("%.1f%%", peakMemory)).append("\n\n");
+        report.append("  Average: ").append(String.format("%.1f%%", summary.getAverage(RollupEngine.Metric.MEMORY))).append("\n");
+        report.append("  95th Percentile: ").append(String.format("%.1f%%", summary.getP95(RollupEngine.Metric.MEMORY))).append("\n");
+        report.append("  Peak: ").append(String.format("%.1f%%", summary.getMax(RollupEngine.Metric.MEMORY))).append("\n\n");
 
         report.append("Entity Statistics:\n");
-        report.append("  Average: ").append(avgEntities).append("\n");
-        report.append("  Maximum: ").append(maxEntities).append("\n");
+        report.append("  Average: ").append((int) summary.getAverage(RollupEngine.Metric.ENTITIES)).append("\n");
+        report.append("  Maximum: ").append((int) summary.getMax(RollupEngine.Metric.ENTITIES)).append("\n");
 
         return report.toString();
     }
 
+    /** Drops whole segments, so snapshots up to a segment's span newer than the cutoff may remain. */
     public void clearOldSnapshots(int days) {
-        long cutoffTime = System.currentTimeMillis() - (days * 86400000L);
-        recentSnapshots.removeIf(snapshot -> snapshot.getTimestamp() < cutoffTime);
-        plugin.getLogger().info("Cleared snapshots older than " + days + " days");
+        int removed = store.dropSegmentsBefore(System.currentTimeMillis() - (days * 86400000L));
+        plugin.getLogger().info("Cleared " + removed + " statistics segments older than " + days + " days");
     }
 
     public static class PerformanceSnapshot {
@@ -195,15 +332,22 @@ public class StatisticsStorage {
         private final int entityCount;
         private final int chunkCount;
         private final String profile;
+        private final double mspt;
 
         public PerformanceSnapshot(long timestamp, double tps, double memoryPercent,
                                  int entityCount, int chunkCount, String profile) {
+            this(timestamp, tps, memoryPercent, entityCount, chunkCount, profile, 0.0);
+        }
+
+        public PerformanceSnapshot(long timestamp, double tps, double memoryPercent,
+                                 int entityCount, int chunkCount, String profile, double mspt) {
             this.timestamp = timestamp;
             this.tps = tps;
             this.memoryPercent = memoryPercent;
             this.entityCount = entityCount;
             this.chunkCount = chunkCount;
             this.profile = profile;
+            this.mspt = mspt;
         }
 
         public long getTimestamp() { return timestamp; }
@@ -212,6 +356,7 @@ public class StatisticsStorage {
         public int getEntityCount() { return entityCount; }
         public int getChunkCount() { return chunkCount; }
         public String getProfile() { return profile; }
+        public double getMspt() { return mspt; }
 
         public Map<String, Object> toMap() {
             Map<String, Object> map = new HashMap<>();
@@ -221,6 +366,7 @@ public class StatisticsStorage {
             map.put("entities", entityCount);
             map.put("chunks", chunkCount);
             map.put("profile", profile);
+            map.put("mspt", mspt);
             return map;
         }
 
@@ -231,7 +377,8 @@ public class StatisticsStorage {
                 ((Number) map.get("memory")).doubleValue(),
                 ((Number) map.get("entities")).intValue(),
                 ((Number) map.get("chunks")).intValue(),
-                (String) map.get("profile")
+                (String) map.get("profile"),
+                map.get("mspt") instanceof Number ? ((Number) map.get("mspt")).doubleValue() : 0.0
             );
         }
     }
@@ -0,0 +1,240 @@
+package com.xreatlabs.xreatoptimizer.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity ring of timestamped double samples.
+ *
+ * One writer thread appends; any thread may read without locking. Appends are O(1) and
+ * allocation-free. The backing arrays carry a small guard region past the logical capacity, so a
+ * reader walking a window can tell whether the writer lapped it and retry instead of returning
+ * torn data. Windows are given as sample counts ending at the newest sample.
+ */
+public class DoubleRingBuffer {
+
+    private static final int MAX_READ_ATTEMPTS = 4;
+
+    private final String name;
+    private final int capacity;
+    private final int length;
+    private final long[] timestamps;
+    private final double[] values;
+    private volatile long writeCount = 0;
+
+    public DoubleRingBuffer(String name, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.length = capacity + Math.max(16, capacity / 8);
+        this.timestamps = new long[length];
+        this.values = new double[length];
+    }
+
+    /** Append a sample. Single writer only. */
+    public void append(long timestamp, double value) {
+        long count = writeCount;
+        int slot = (int) (count % length);
+        timestamps[slot] = timestamp;
+        values[slot] = value;
+        writeCount = count + 1;
+    }
+
+    public void append(double value) {
+        append(System.currentTimeMillis(), value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(writeCount, capacity);
+    }
+
+    public boolean isEmpty() {
+        return writeCount == 0;
+    }
+
+    public long totalAppended() {
+        return writeCount;
+    }
+
+    /** Newest value, or fallback when empty. */
+    public double latest(double fallback) {
+        return valueAgo(0, fallback);
+    }
+
+    public long latestTimestamp() {
+        long count = writeCount;
+        return count == 0 ? 0L : timestamps[(int) ((count - 1) % length)];
+    }
+
+    /** Value {@code samplesAgo} samples before the newest (0 = newest), or fallback if not retained. */
+    public double valueAgo(int samplesAgo, double fallback) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            if (samplesAgo < 0 || samplesAgo >= Math.min(count, capacity)) {
+                return fallback;
+            }
+            double value = values[(int) ((count - 1 - samplesAgo) % length)];
+            if (isStable(count, samplesAgo + 1)) {
+                return value;
+            }
+        }
+        return fallback;
+    }
+
+    /** Number of retained samples with timestamp >= fromTimestamp. */
+    public int countSince(long fromTimestamp) {
+        long count = writeCount;
+        int size = (int) Math.min(count, capacity);
+        int lo = 0;
+        int hi = size;
+        // Binary search on age: samples are appended in timestamp order
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long ts = timestamps[(int) ((count - 1 - mid) % length)];
+            if (ts >= fromTimestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public double min(int window) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            int n = clampWindow(window, count);
+            if (n == 0) return 0.0;
+            double min = Double.MAX_VALUE;
+            for (long i = count - n; i < count; i++) {
+                min = Math.min(min, values[(int) (i % length)]);
+            }
+            if (isStable(count, n)) return min;
+        }
+        return 0.0;
+    }
+
+    public double max(int window) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            int n = clampWindow(window, count);
+            if (n == 0) return 0.0;
+            double max = -Double.MAX_VALUE;
+            for (long i = count - n; i < count; i++) {
+                max = Math.max(max, values[(int) (i % length)]);
+            }
+            if (isStable(count, n)) return max;
+        }
+        return 0.0;
+    }
+
+    public double average(int window) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            int n = clampWindow(window, count);
+            if (n == 0) return 0.0;
+            double sum = 0.0;
+            for (long i = count - n; i < count; i++) {
+                sum += values[(int) (i % length)];
+            }
+            if (isStable(count, n)) return sum / n;
+        }
+        return 0.0;
+    }
+
+    /** Population variance over the window. */
+    public double variance(int window) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            int n = clampWindow(window, count);
+            if (n == 0) return 0.0;
+            double sum = 0.0;
+            double sumSq = 0.0;
+            for (long i = count - n; i < count; i++) {
+                double v = values[(int) (i % length)];
+                sum += v;
+                sumSq += v * v;
+            }
+            if (isStable(count, n)) {
+                double mean = sum / n;
+                return Math.max(0.0, sumSq / n - mean * mean);
+            }
+        }
+        return 0.0;
+    }
+
+    public double stdDev(int window) {
+        return Math.sqrt(variance(window));
+    }
+
+    /** Samples in the window strictly below threshold. */
+    public int countBelow(int window, double threshold) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            int n = clampWindow(window, count);
+            int below = 0;
+            for (long i = count - n; i < count; i++) {
+                if (values[(int) (i % length)] < threshold) below++;
+            }
+            if (isStable(count, n)) return below;
+        }
+        return 0;
+    }
+
+    /** Percentile (0-100) over the window. Copies and sorts the window, so keep it off per-tick paths. */
+    public double percentile(int window, double percentile) {
+        double[] copy = new double[Math.min(Math.max(window, 0), capacity)];
+        int n = copyLast(window, null, copy);
+        if (n == 0) return 0.0;
+        Arrays.sort(copy, 0, n);
+        int rank = (int) Math.ceil(Math.max(0.0, Math.min(100.0, percentile)) / 100.0 * n) - 1;
+        return copy[Math.max(0, Math.min(n - 1, rank))];
+    }
+
+    /**
+     * Copy up to {@code window} newest samples into the destination arrays, oldest first.
+     * Either array may be null. Returns the number of samples copied.
+     */
+    public int copyLast(int window, long[] timestampsOut, double[] valuesOut) {
+        int limit = window;
+        if (timestampsOut != null) limit = Math.min(limit, timestampsOut.length);
+        if (valuesOut != null) limit = Math.min(limit, valuesOut.length);
+
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long count = writeCount;
+            int n = clampWindow(limit, count);
+            long start = count - n;
+            for (int j = 0; j < n; j++) {
+                int slot = (int) ((start + j) % length);
+                if (timestampsOut != null) timestampsOut[j] = timestamps[slot];
+                if (valuesOut != null) valuesOut[j] = values[slot];
+            }
+            if (isStable(count, n)) return n;
+        }
+        return 0;
+    }
+
+    public void clear() {
+        writeCount = 0;
+    }
+
+    private int clampWindow(int window, long count) {
+        return (int) Math.max(0, Math.min(Math.min(window, capacity), count));
+    }
+
+    /** True if the writer has not overwritten any of the n samples read ending at count. */
+    private boolean isStable(long count, int n) {
+        long oldestRead = count - n;
+        long oldestIntact = writeCount + 1 - length;
+        return oldestRead >= oldestIntact;
+    }
+}
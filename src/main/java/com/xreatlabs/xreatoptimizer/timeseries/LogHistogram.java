@@ -0,0 +1,130 @@
+package com.xreatlabs.xreatoptimizer.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear bucketed histogram of non-negative long values (HdrHistogram-style).
+ *
+ * Each power of two is split into 32 linear sub-buckets, giving roughly 3% relative precision
+ * from 0 up to 2^31. Recording and removal are O(1) and allocation-free; percentile queries scan
+ * the fixed bucket array. Values can be removed again, so a histogram can back a sliding window.
+ * Not thread-safe.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 30;
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long totalSum = 0;
+
+    public static int bucketIndex(long value) {
+        long v = Math.max(0L, Math.min(MAX_VALUE, value));
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) ((v >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    public static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub)) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public static long bucketWidth(int index) {
+        if (index < SUB_BUCKETS) {
+            return 1L;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return 1L << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /** Representative value of a bucket (its midpoint). */
+    public static long bucketValue(int index) {
+        return bucketLowerBound(index) + (bucketWidth(index) >> 1);
+    }
+
+    public void record(long value) {
+        counts[bucketIndex(value)]++;
+        totalCount++;
+        totalSum += Math.max(0L, Math.min(MAX_VALUE, value));
+    }
+
+    /** Remove a value previously recorded. */
+    public void remove(long value) {
+        int index = bucketIndex(value);
+        if (counts[index] > 0) {
+            counts[index]--;
+            totalCount--;
+            totalSum -= Math.max(0L, Math.min(MAX_VALUE, value));
+        }
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public double getMean() {
+        return totalCount > 0 ? (double) totalSum / totalCount : 0.0;
+    }
+
+    /** Value at the given percentile (0-100), or 0 when empty. */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0L;
+        }
+        double p = Math.max(0.0, Math.min(100.0, percentile));
+        long rank = Math.max(1L, (long) Math.ceil(p / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return getMaxValue();
+    }
+
+    /** Representative value of the highest non-empty bucket. */
+    public long getMaxValue() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return bucketValue(i);
+            }
+        }
+        return 0L;
+    }
+
+    public void add(LogHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalSum += other.totalSum;
+    }
+
+    /** Remove every value of {@code other}, which must have been added to this histogram before. */
+    public void subtract(LogHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] -= other.counts[i];
+        }
+        totalCount -= other.totalCount;
+        totalSum -= other.totalSum;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0;
+        totalSum = 0;
+    }
+}
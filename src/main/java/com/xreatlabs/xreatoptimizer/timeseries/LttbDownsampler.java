@@ -0,0 +1,68 @@
+package com.xreatlabs.xreatoptimizer.timeseries;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013).
+ *
+ * Splits the series into equal buckets and keeps, from each bucket, the point forming the largest
+ * triangle with the point kept from the previous bucket and the average of the next bucket. Unlike
+ * averaging, this keeps the spikes and dips that matter on a TPS chart. The first and last points
+ * are always kept. Runs in O(n) and allocates only the index array.
+ */
+public final class LttbDownsampler {
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * Indices of the points to keep, ascending. Returns every index when {@code threshold} is at
+     * least {@code count} or below 3. Timestamps must be ascending.
+     */
+    public static int[] select(long[] timestamps, double[] values, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        long origin = timestamps[0];
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+
+        int a = 0;
+        selected[0] = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third triangle point
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, count);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += timestamps[i] - origin;
+                avgY += values[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            avgX /= nextLength;
+            avgY /= nextLength;
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double ax = timestamps[a] - origin;
+            double ay = values[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (values[i] - ay) - (ax - (timestamps[i] - origin)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[bucket + 1] = chosen;
+            a = chosen;
+        }
+        selected[threshold - 1] = count - 1;
+        return selected;
+    }
+}
@@ -0,0 +1,57 @@
+package com.xreatlabs.xreatoptimizer.timeseries;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named ring-buffer series shared by every monitor.
+ *
+ * The per-second server samples are written once by PerformanceMonitor and read by the alert,
+ * trend and dashboard subsystems; per-tick samples are written by LagSpikeDetector and TickClock.
+ */
+public class TimeSeriesStore {
+
+    public static final String TPS = "tps";
+    public static final String MEMORY_PERCENT = "memory_percent";
+    public static final String MEMORY_USED_MB = "memory_used_mb";
+    public static final String MEMORY_MAX_MB = "memory_max_mb";
+    public static final String ENTITIES = "entities";
+    public static final String CHUNKS = "chunks";
+    public static final String PLAYERS = "players";
+    public static final String TICK_MS = "tick_ms";
+    public static final String MSPT = "mspt";
+
+    /** One hour of per-second samples. */
+    public static final int SECOND_CAPACITY = 3600;
+    /** 30 seconds of per-tick samples. */
+    public static final int TICK_CAPACITY = 600;
+
+    private final Map<String, DoubleRingBuffer> series = new ConcurrentHashMap<>();
+
+    public TimeSeriesStore() {
+        series(TPS, SECOND_CAPACITY);
+        series(MEMORY_PERCENT, SECOND_CAPACITY);
+        series(MEMORY_USED_MB, SECOND_CAPACITY);
+        series(MEMORY_MAX_MB, SECOND_CAPACITY);
+        series(ENTITIES, SECOND_CAPACITY);
+        series(CHUNKS, SECOND_CAPACITY);
+        series(PLAYERS, SECOND_CAPACITY);
+        series(TICK_MS, TICK_CAPACITY);
+        series(MSPT, TICK_CAPACITY);
+    }
+
+    /** Get a series, creating it with the given capacity if it does not exist yet. */
+    public DoubleRingBuffer series(String name, int capacity) {
+        return series.computeIfAbsent(name, k -> new DoubleRingBuffer(k, capacity));
+    }
+
+    /** Get an existing series, or null. */
+    public DoubleRingBuffer get(String name) {
+        return series.get(name);
+    }
+
+    public Map<String, DoubleRingBuffer> getAll() {
+        return Collections.unmodifiableMap(series);
+    }
+}
@@ -0,0 +1,88 @@
+package com.xreatlabs.xreatoptimizer.timeseries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogHistogram over a sliding time window, so percentiles follow recent behaviour instead of
+ * everything since startup.
+ *
+ * The window is split into a ring of equal slots. Values go into the current slot and into a
+ * running total; when the clock moves past a slot, the oldest slot is subtracted from the total
+ * and reused. Recording stays O(1) and allocation-free, queries read the total directly, and the
+ * window is accurate to one slot. Not thread-safe.
+ */
+public class WindowedHistogram {
+
+    private final LogHistogram[] slots;
+    private final LogHistogram total = new LogHistogram();
+    private final long slotNanos;
+    private long currentSlot;
+    private int current = 0;
+
+    public WindowedHistogram(long window, TimeUnit unit, int slotCount) {
+        if (window <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("window and slot count must be positive");
+        }
+        this.slots = new LogHistogram[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new LogHistogram();
+        }
+        this.slotNanos = Math.max(1L, unit.toNanos(window) / slotCount);
+        this.currentSlot = Math.floorDiv(System.nanoTime(), slotNanos);
+    }
+
+    public void record(long value) {
+        rotate();
+        slots[current].record(value);
+        total.record(value);
+    }
+
+    /** Values recorded over the window. Backed by this histogram, so read it before recording again. */
+    public LogHistogram getWindow() {
+        rotate();
+        return total;
+    }
+
+    public long getCount() {
+        return getWindow().getCount();
+    }
+
+    public double getMean() {
+        return getWindow().getMean();
+    }
+
+    /** Value at the given percentile (0-100) over the window, or 0 when empty. */
+    public long getValueAtPercentile(double percentile) {
+        return getWindow().getValueAtPercentile(percentile);
+    }
+
+    public long getMaxValue() {
+        return getWindow().getMaxValue();
+    }
+
+    public void clear() {
+        for (LogHistogram slot : slots) {
+            slot.clear();
+        }
+        total.clear();
+    }
+
+    /** Expire the slots the clock has moved past. */
+    private void rotate() {
+        long slot = Math.floorDiv(System.nanoTime(), slotNanos);
+        long elapsed = slot - currentSlot;
+        if (elapsed <= 0) {
+            return;
+        }
+        currentSlot = slot;
+        if (elapsed >= slots.length) {
+            clear();
+            return;
+        }
+        for (long i = 0; i < elapsed; i++) {
+            current = (current + 1) % slots.length;
+            total.subtract(slots[current]);
+            slots[current].clear();
+        }
+    }
+}
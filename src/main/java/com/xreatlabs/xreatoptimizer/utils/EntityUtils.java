@@ -1,5 +1,6 @@
 package com.xreatlabs.xreatoptimizer.utils;
 
+import com.xreatlabs.xreatoptimizer.XreatOptimizer;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
@@ -35,6 +36,11 @@ public class EntityUtils {
     }
     
     public static int getTotalEntityCount() {
+        XreatOptimizer plugin = XreatOptimizer.getInstance();
+        if (plugin != null && plugin.getEntityCountTracker() != null && plugin.getEntityCountTracker().isRunning()) {
+            return plugin.getEntityCountTracker().getTotalEntityCount();
+        }
+
         try {
             if (Bukkit.isPrimaryThread()) {
                 int count = 0;
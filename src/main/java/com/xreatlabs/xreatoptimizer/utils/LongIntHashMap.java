@@ -0,0 +1,168 @@
+package com.xreatlabs.xreatoptimizer.utils;
+
+import java.util.Arrays;
+
+/** Open-addressing long -> int map without boxing. Not thread-safe. */
+public class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeAt;
+    private int mask;
+
+    public LongIntHashMap() {
+        this(64);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int get(long key) {
+        int slot = indexOf(key);
+        return slot >= 0 ? values[slot] : 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public void put(long key, int value) {
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /** Add delta to the value for key; entries reaching zero or below are removed. Returns the new value. */
+    public int addTo(long key, int delta) {
+        int slot = indexOf(key);
+        if (slot < 0) {
+            if (delta > 0) {
+                put(key, delta);
+                return delta;
+            }
+            return 0;
+        }
+
+        int updated = values[slot] + delta;
+        if (updated <= 0) {
+            removeSlot(slot);
+            return 0;
+        }
+        values[slot] = updated;
+        return updated;
+    }
+
+    public int remove(long key) {
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int previous = values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+
+    /** Backward-shift deletion keeps probe chains intact without tombstones. */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        keys[gap] = 0L;
+        values[gap] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(used, false);
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,253 @@
+package com.xreatlabs.xreatoptimizer.web;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Sent Events fan-out for the dashboard.
+ *
+ * Each event is encoded once into a frame and stored in a shared ring of the last
+ * {@link #BUFFER_FRAMES} frames. Subscribers only keep a cursor into that ring, and a writer task
+ * per subscriber copies frames from its cursor to the socket. A subscriber that falls a full ring
+ * behind is dropped, so a slow client costs at most one blocked writer and never holds up the
+ * publisher or other clients. The exchange has no write timeout, so a dropped subscriber keeps
+ * its slot until its writer returns; {@link #MAX_SUBSCRIBERS} therefore also bounds the writers
+ * stuck on dead sockets, and a fixed writer pool of that size cannot run out of threads.
+ * Reconnecting browsers send Last-Event-ID and resume from the ring when their position is still
+ * in it.
+ */
+final class EventStream {
+
+    static final int MAX_SUBSCRIBERS = 32;
+    private static final int BUFFER_FRAMES = 512;
+    private static final byte[] PREAMBLE = "retry: 5000\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Executor writers;
+    private final byte[][] frames = new byte[BUFFER_FRAMES][];
+    private volatile long published = 0; // written under 'frames'
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Subscribers plus dropped ones whose writer has not returned yet
+    private final AtomicInteger slots = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    private final LongAdder framesPublished = new LongAdder();
+    private final LongAdder slowDropped = new LongAdder();
+
+    EventStream(Executor writers) {
+        this.writers = writers;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Dropped subscribers whose writer is still blocked on the socket. */
+    int getBlockedWriterCount() {
+        return Math.max(0, slots.get() - subscribers.size());
+    }
+
+    long getFramesPublished() {
+        return framesPublished.sum();
+    }
+
+    long getSlowDroppedCount() {
+        return slowDropped.sum();
+    }
+
+    /**
+     * Queue one event for every subscriber. {@code data} must be single-line JSON. Frames are kept
+     * in the ring even with no subscribers, so a lone dashboard that reconnects still resumes.
+     */
+    void publish(String event, byte[] data) {
+        if (closed) {
+            return;
+        }
+
+        long head;
+        synchronized (frames) {
+            long sequence = published;
+            frames[(int) (sequence % BUFFER_FRAMES)] = encodeFrame(sequence, event, data);
+            head = sequence + 1;
+            published = head;
+        }
+        framesPublished.increment();
+
+        for (Subscriber subscriber : subscribers) {
+            if (head - subscriber.cursor > BUFFER_FRAMES) {
+                slowDropped.increment();
+                subscriber.drop();
+            } else {
+                subscriber.signal();
+            }
+        }
+    }
+
+    /**
+     * Turn the exchange into an event stream. Returns false without touching the exchange when the
+     * stream is closed or every slot is taken, including slots held by blocked writers.
+     */
+    boolean subscribe(HttpExchange exchange) throws IOException {
+        if (closed || !reserveSlot()) {
+            return false;
+        }
+
+        Subscriber subscriber = new Subscriber(exchange);
+        try {
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "text/event-stream; charset=UTF-8");
+            headers.set("Cache-Control", "no-cache");
+            headers.set("X-Accel-Buffering", "no");
+            exchange.sendResponseHeaders(200, 0);
+            subscriber.out.write(PREAMBLE);
+            subscriber.out.flush();
+        } catch (IOException | RuntimeException e) {
+            subscriber.release();
+            throw e;
+        }
+
+        long lastEventId = parseLastEventId(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        synchronized (frames) {
+            long head = published;
+            long resumeFrom = lastEventId + 1;
+            subscriber.cursor = lastEventId >= 0 && resumeFrom <= head && head - resumeFrom < BUFFER_FRAMES
+                ? resumeFrom
+                : head;
+        }
+        subscribers.add(subscriber);
+        if (subscriber.cursor < published) {
+            subscriber.signal();
+        }
+        return true;
+    }
+
+    /** Drop every subscriber; their writers close the exchanges. */
+    void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.drop();
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int taken = slots.get();
+            if (taken >= MAX_SUBSCRIBERS) {
+                return false;
+            }
+            if (slots.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static long parseLastEventId(String header) {
+        if (header == null || header.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] encodeFrame(long sequence, String event, byte[] data) {
+        byte[] head = ("id: " + sequence + "\nevent: " + event + "\ndata: ").getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[head.length + data.length + 2];
+        System.arraycopy(head, 0, frame, 0, head.length);
+        System.arraycopy(data, 0, frame, head.length, data.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        return frame;
+    }
+
+    private final class Subscriber {
+        final HttpExchange exchange;
+        final OutputStream out;
+        volatile long cursor;
+        volatile boolean dropped = false;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Subscriber(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
+
+        void signal() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    dropped = true;
+                    subscribers.remove(this);
+                    release();
+                }
+            }
+        }
+
+        void drop() {
+            dropped = true;
+            subscribers.remove(this);
+            // A running writer sees the flag after its current write and only then frees the slot
+            signal();
+        }
+
+        /** Close the exchange and give the slot back. Runs once, after the writer is done with it. */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                slots.decrementAndGet();
+                exchange.close();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!dropped) {
+                    byte[] frame;
+                    synchronized (frames) {
+                        if (cursor >= published) {
+                            break;
+                        }
+                        frame = published - cursor > BUFFER_FRAMES ? null : frames[(int) (cursor % BUFFER_FRAMES)];
+                    }
+                    if (frame == null) {
+                        slowDropped.increment();
+                        dropped = true;
+                        break;
+                    }
+                    out.write(frame);
+                    cursor++;
+                }
+                if (!dropped) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Client went away
+                dropped = true;
+            } finally {
+                scheduled.set(false);
+            }
+
+            if (dropped) {
+                subscribers.remove(this);
+                release();
+            } else if (cursor < published) {
+                // Published while this writer was flushing
+                signal();
+            }
+        }
+    }
+}
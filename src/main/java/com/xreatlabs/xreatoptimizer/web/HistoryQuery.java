@@ -0,0 +1,200 @@
+package com.xreatlabs.xreatoptimizer.web;
+
+import com.xreatlabs.xreatoptimizer.storage.RollupEngine;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parsed /api/history parameters.
+ *
+ * A request names either a preset {@code range} (recent, hourly, daily) or an explicit
+ * {@code from}/{@code to} window in epoch milliseconds. The window decides the source: the
+ * per-second series while they still hold it, otherwise the finest rollup tier that does.
+ * {@code metrics} picks the columns, always returned in {@link Metric} order, {@code maxPoints}
+ * the downsampling target (0 for none) and {@code format} one of json, columns or csv.
+ */
+final class HistoryQuery {
+
+    static final int DEFAULT_MAX_POINTS = 1000;
+    static final int MAX_POINTS = 5000;
+
+    private static final long RECENT_RANGE_MS = 300_000L;
+    private static final long HOURLY_RANGE_MS = 24L * 60 * 60 * 1000;
+    private static final long DAILY_RANGE_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final long SECOND_RETENTION_MS = TimeSeriesStore.SECOND_CAPACITY * 1000L;
+
+    enum Metric {
+        TPS("tps", 2, RollupEngine.Metric.TPS),
+        MEM("mem", 1, RollupEngine.Metric.MEMORY),
+        ENT("ent", 0, RollupEngine.Metric.ENTITIES),
+        CHUNKS("chunks", 0, RollupEngine.Metric.CHUNKS),
+        PLAYERS("players", 0, RollupEngine.Metric.PLAYERS);
+
+        final String key;
+        final int decimals;
+        final RollupEngine.Metric rollupMetric;
+
+        Metric(String key, int decimals, RollupEngine.Metric rollupMetric) {
+            this.key = key;
+            this.decimals = decimals;
+            this.rollupMetric = rollupMetric;
+        }
+
+        static Metric byKey(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equals(key)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown metric: " + key);
+        }
+    }
+
+    enum Format {
+        JSON("application/json; charset=UTF-8"),
+        COLUMNS("application/json; charset=UTF-8"),
+        CSV("text/csv; charset=UTF-8");
+
+        final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * Cache key for preset ranges at the default or full resolution; null for explicit windows and
+     * custom {@code maxPoints}, which are rendered per request.
+     */
+    final String cacheKey;
+    final long from;
+    final long to;
+    /** Rollup tier to read, or null for the per-second series. */
+    final RollupEngine.Tier tier;
+    final List<Metric> metrics;
+    final int maxPoints;
+    final Format format;
+
+    private HistoryQuery(String cacheKey, long from, long to, RollupEngine.Tier tier,
+                         List<Metric> metrics, int maxPoints, Format format) {
+        this.cacheKey = cacheKey;
+        this.from = from;
+        this.to = to;
+        this.tier = tier;
+        this.metrics = metrics;
+        this.maxPoints = maxPoints;
+        this.format = format;
+    }
+
+    String getResolution() {
+        return tier != null ? tier.getLabel() : "1s";
+    }
+
+    /** Parse a raw query string. Throws IllegalArgumentException with a client-facing message. */
+    static HistoryQuery parse(String rawQuery, long now) {
+        String fromParam = param(rawQuery, "from");
+        String toParam = param(rawQuery, "to");
+        String range = null;
+        long from;
+        long to;
+        if (fromParam != null) {
+            from = parseLong("from", fromParam);
+            to = toParam != null ? parseLong("to", toParam) : now;
+            if (from >= to) {
+                throw new IllegalArgumentException("'from' must be before 'to'");
+            }
+        } else {
+            range = param(rawQuery, "range");
+            range = range == null ? "recent" : range;
+            to = now;
+            switch (range) {
+                case "hourly":
+                    from = now - HOURLY_RANGE_MS;
+                    break;
+                case "daily":
+                    from = now - DAILY_RANGE_MS;
+                    break;
+                default:
+                    range = "recent";
+                    from = now - RECENT_RANGE_MS;
+                    break;
+            }
+        }
+
+        List<Metric> metrics;
+        String metricsParam = param(rawQuery, "metrics");
+        if (metricsParam == null || metricsParam.isEmpty()) {
+            metrics = Collections.unmodifiableList(Arrays.asList(Metric.values()));
+        } else {
+            Set<Metric> picked = EnumSet.noneOf(Metric.class);
+            for (String key : metricsParam.split(",")) {
+                picked.add(Metric.byKey(key.trim()));
+            }
+            // Enum order, so the same columns asked in any order share one cache entry
+            metrics = Collections.unmodifiableList(new ArrayList<>(picked));
+        }
+
+        int maxPoints = DEFAULT_MAX_POINTS;
+        String maxPointsParam = param(rawQuery, "maxPoints");
+        if (maxPointsParam != null) {
+            long requested = parseLong("maxPoints", maxPointsParam);
+            // 0 asks for every stored point; anything else is kept to a sane chart size
+            maxPoints = requested == 0 ? 0 : (int) Math.max(3, Math.min(MAX_POINTS, requested));
+        }
+
+        Format format;
+        String formatParam = param(rawQuery, "format");
+        if (formatParam == null || formatParam.equals("json")) {
+            format = Format.JSON;
+        } else if (formatParam.equals("columns")) {
+            format = Format.COLUMNS;
+        } else if (formatParam.equals("csv")) {
+            format = Format.CSV;
+        } else {
+            throw new IllegalArgumentException("Unknown format: " + formatParam);
+        }
+
+        RollupEngine.Tier tier = now - from <= SECOND_RETENTION_MS ? null : RollupEngine.Tier.forWindow(from, to, now);
+
+        String cacheKey = null;
+        if (range != null && (maxPoints == DEFAULT_MAX_POINTS || maxPoints == 0)) {
+            StringBuilder key = new StringBuilder("history-").append(range).append('-').append(format.name());
+            for (Metric metric : metrics) {
+                key.append('-').append(metric.key);
+            }
+            cacheKey = key.append('-').append(maxPoints).toString();
+        }
+        return new HistoryQuery(cacheKey, from, to, tier, metrics, maxPoints, format);
+    }
+
+    private static long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + name + "' must be a number");
+        }
+    }
+
+    private static String param(String query, String key) {
+        if (query == null || query.isEmpty()) return null;
+        for (String part : query.split("&")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2 && key.equals(kv[0])) {
+                try {
+                    return URLDecoder.decode(kv[1], "UTF-8");
+                } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                    return kv[1];
+                }
+            }
+        }
+        return null;
+    }
+}
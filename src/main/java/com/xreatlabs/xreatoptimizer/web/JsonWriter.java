@@ -0,0 +1,260 @@
+package com.xreatlabs.xreatoptimizer.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Minimal streaming JSON writer for the dashboard APIs.
+ *
+ * Writes UTF-8 straight into a small buffer in front of the target stream and tracks commas
+ * itself, so rendering a response allocates no intermediate strings. Numbers are written with a
+ * fixed number of decimals without going through String.format. Not thread-safe.
+ */
+public final class JsonWriter {
+
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_DECIMALS = 9;
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private final byte[] digits = new byte[20];
+    private int position = 0;
+
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push();
+        writeByte('{');
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push();
+        writeByte('[');
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /** Write a number rounded half-up to {@code decimals} places; NaN and infinity become null. */
+    public JsonWriter value(double value, int decimals) throws IOException {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeBytes(NULL);
+            return this;
+        }
+
+        int places = Math.max(0, Math.min(MAX_DECIMALS, decimals));
+        long scale = POWERS_OF_TEN[places];
+        double scaledAbs = Math.abs(value) * scale;
+        if (scaledAbs >= 9.0e18) {
+            writeAscii(Double.toString(value));
+            return this;
+        }
+
+        long scaled = Math.round(scaledAbs);
+        if (value < 0 && scaled != 0) {
+            writeByte('-');
+        }
+        writeLong(scaled / scale);
+        if (places > 0) {
+            writeByte('.');
+            long fraction = scaled % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                writeByte('0' + (int) (fraction / p % 10));
+            }
+        }
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    /** Push buffered bytes to the underlying stream. Does not close it. */
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private void push() {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        hasElements[depth++] = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        separator();
+    }
+
+    private void separator() throws IOException {
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                writeByte(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (length > 0) {
+            writeByte(digits[--length]);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writeByte('\\');
+                    writeByte('"');
+                    break;
+                case '\\':
+                    writeByte('\\');
+                    writeByte('\\');
+                    break;
+                case '\n':
+                    writeByte('\\');
+                    writeByte('n');
+                    break;
+                case '\r':
+                    writeByte('\\');
+                    writeByte('r');
+                    break;
+                case '\t':
+                    writeByte('\\');
+                    writeByte('t');
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        writeByte('\\');
+                        writeByte('u');
+                        writeByte(HEX[(c >> 12) & 0xF]);
+                        writeByte(HEX[(c >> 8) & 0xF]);
+                        writeByte(HEX[(c >> 4) & 0xF]);
+                        writeByte(HEX[c & 0xF]);
+                    } else if (c < 0x80) {
+                        writeByte(c);
+                    } else if (c < 0x800) {
+                        writeByte(0xC0 | (c >> 6));
+                        writeByte(0x80 | (c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        writeByte(0xF0 | (codePoint >> 18));
+                        writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                        writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                        writeByte(0x80 | (codePoint & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        writeByte('?');
+                    } else {
+                        writeByte(0xE0 | (c >> 12));
+                        writeByte(0x80 | ((c >> 6) & 0x3F));
+                        writeByte(0x80 | (c & 0x3F));
+                    }
+                    break;
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+}
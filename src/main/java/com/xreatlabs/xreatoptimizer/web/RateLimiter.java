@@ -0,0 +1,135 @@
+package com.xreatlabs.xreatoptimizer.web;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client token bucket with a fixed memory bound, shared by the dashboard and the metrics
+ * exporter.
+ *
+ * Each bucket is a single AtomicLong holding its theoretical arrival time (the GCRA form of a token
+ * bucket), so admitting a request is one lock-free CAS. Buckets live in striped LRU maps whose
+ * total size never exceeds {@code maxClients}; the least recently seen client is forgotten first,
+ * and clients idle long enough to have refilled are dropped whenever their stripe is touched.
+ * Forgetting a full bucket loses nothing, so a scanner cycling through addresses costs one entry
+ * per address until it is evicted, never unbounded memory.
+ */
+public final class RateLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final int maxPerStripe;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param requestsPerMinute sustained rate per client
+     * @param burst             requests a client can make at once after being idle
+     * @param maxClients        clients tracked at once across all stripes
+     */
+    public RateLimiter(int requestsPerMinute, int burst, int maxClients) {
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        // A bucket idle this long is full again, so dropping it is lossless
+        this.idleNanos = burstNanos;
+        this.maxPerStripe = Math.max(1, (maxClients + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /** Build from a {@code rate_limit} config section: requests_per_minute, burst and max_clients. */
+    public static RateLimiter fromConfig(FileConfiguration config, String path, int defaultPerMinute) {
+        int perMinute = config.getInt(path + ".requests_per_minute", defaultPerMinute);
+        int burst = config.getInt(path + ".burst", perMinute);
+        int maxClients = config.getInt(path + ".max_clients", 1024);
+        return new RateLimiter(perMinute, burst, maxClients);
+    }
+
+    /** Take one token for {@code key}. Returns 0 when admitted, otherwise milliseconds until the next token. */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now - burstNanos) + intervalNanos;
+            if (next > now) {
+                rejected.increment();
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - now));
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            AtomicLong bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                stripe.expireIdle(now);
+                // Starts full: the first request lands exactly a burst's worth of tokens back
+                bucket = new AtomicLong(now - burstNanos);
+                stripe.buckets.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    /** Requests refused since startup. */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /** Clients forgotten to stay within {@code maxClients}, or because they went idle. */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    public int getTrackedClients() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.buckets.size();
+            }
+        }
+        return total;
+    }
+
+    /** Access-ordered map, so iteration starts at the least recently seen client. */
+    private final class Stripe {
+        final LinkedHashMap<String, AtomicLong> buckets = new LinkedHashMap<String, AtomicLong>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AtomicLong> eldest) {
+                if (size() > maxPerStripe) {
+                    evicted.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        void expireIdle(long now) {
+            Iterator<AtomicLong> it = buckets.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().get() < idleNanos) {
+                    break;
+                }
+                it.remove();
+                evicted.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.xreatlabs.xreatoptimizer.web;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rendered dashboard responses, shared between requests until their data generation changes.
+ *
+ * Each key (endpoint plus normalized parameters) holds one rendered body. A request with the same
+ * generation gets the same byte[] back, so any number of polling clients cost one render per
+ * change. Responses carry an ETag built from the generation and answer If-None-Match with 304;
+ * a gzip copy is built once per entry for clients that accept it. At most {@link #MAX_ENTRIES}
+ * keys are kept; once full, new keys are rendered per request until the cache is cleared.
+ */
+final class ResponseCache {
+
+    /** Writes one response body. */
+    interface Renderer {
+        void render(OutputStream out) throws IOException;
+    }
+
+    // Small bodies are not worth the gzip header and CPU
+    private static final int GZIP_MIN_BYTES = 1024;
+    static final int MAX_ENTRIES = 256;
+
+    // Distinguishes ETags from a previous plugin run whose counters started from the same values
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Object> renderLocks = new ConcurrentHashMap<>();
+
+    /** Cached response for {@code key} at {@code generation}, rendering it if missing or stale. */
+    Entry get(String key, long generation, Renderer renderer) throws IOException {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation == generation) {
+            return entry;
+        }
+
+        if (entry == null && renderLocks.size() >= MAX_ENTRIES && !renderLocks.containsKey(key)) {
+            return render(key, generation, renderer);
+        }
+
+        // One render per key and generation, even when many clients miss at once
+        synchronized (renderLocks.computeIfAbsent(key, k -> new Object())) {
+            entry = entries.get(key);
+            if (entry != null && entry.generation == generation) {
+                return entry;
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream(entry != null ? entry.body.length + 256 : 1024);
+            renderer.render(body);
+            entry = new Entry(generation, body.toByteArray(),
+                "\"" + instanceTag + "-" + key + "-" + Long.toString(generation, 36) + "\"");
+            entries.put(key, entry);
+            return entry;
+        }
+    }
+
+    /** Render an entry without storing it, for one-off responses that still want an ETag. */
+    Entry render(String key, long generation, Renderer renderer) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        renderer.render(body);
+        return new Entry(generation, body.toByteArray(),
+            "\"" + instanceTag + "-" + key + "-" + Long.toString(generation, 36) + "\"");
+    }
+
+    void clear() {
+        entries.clear();
+        renderLocks.clear();
+    }
+
+    /** Send the entry as a 200, or a 304 when the client already has this version. */
+    static void send(HttpExchange exchange, Entry entry, String contentType) throws IOException {
+        byte[] gzipped = acceptsGzip(exchange) ? entry.gzipped() : null;
+        String etag = gzipped != null ? entry.gzipEtag : entry.etag;
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        headers.set("Cache-Control", "no-cache");
+        headers.set("Vary", "Accept-Encoding");
+        headers.set("ETag", etag);
+
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), entry)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = gzipped != null ? gzipped : entry.body;
+        if (gzipped != null) {
+            headers.set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return accept != null && accept.contains("gzip");
+    }
+
+    private static boolean matches(String ifNoneMatch, Entry entry) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(entry.etag) || tag.equals(entry.gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class Entry {
+        final long generation;
+        final byte[] body;
+        final String etag;
+        final String gzipEtag;
+        private volatile byte[] gzipped;
+        private volatile boolean gzipChecked;
+
+        Entry(long generation, byte[] body, String etag) {
+            this.generation = generation;
+            this.body = body;
+            this.etag = etag;
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+
+        /** Gzip copy of the body, or null when the body is too small to bother. */
+        byte[] gzipped() throws IOException {
+            if (!gzipChecked) {
+                synchronized (this) {
+                    if (!gzipChecked) {
+                        if (body.length >= GZIP_MIN_BYTES) {
+                            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+                            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                                gzip.write(body);
+                            }
+                            gzipped = compressed.toByteArray();
+                        }
+                        gzipChecked = true;
+                    }
+                }
+            }
+            return gzipped;
+        }
+    }
+}
@@ -1,38 +1,56 @@
 package com.xreatlabs.xreatoptimizer.web;
 
 import com.xreatlabs.xreatoptimizer.XreatOptimizer;
+import com.xreatlabs.xreatoptimizer.api.MetricsSnapshot;
+import com.xreatlabs.xreatoptimizer.async.IoExecutors;
+import com.xreatlabs.xreatoptimizer.managers.EntityCountTracker;
+import com.xreatlabs.xreatoptimizer.metrics.CollectorEngine;
+import com.xreatlabs.xreatoptimizer.storage.RollupEngine;
+import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage;
+import com.xreatlabs.xreatoptimizer.timeseries.DoubleRingBuffer;
+import com.xreatlabs.xreatoptimizer.timeseries.LttbDownsampler;
+import com.xreatlabs.xreatoptimizer.timeseries.TimeSeriesStore;
 import com.xreatlabs.xreatoptimizer.utils.LoggerUtils;
-import com.xreatlabs.xreatoptimizer.utils.MemoryUtils;
 import com.xreatlabs.xreatoptimizer.utils.TPSUtils;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.bukkit.Bukkit;
-import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitTask;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
-import java.util.concurrent.Executors;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class WebDashboard {
+public class WebDashboard implements Listener {
 
     private final XreatOptimizer plugin;
     private HttpServer server;
+    private ExecutorService httpExecutor;
+    private ExecutorService streamExecutor;
+    private volatile EventStream eventStream;
     private boolean running = false;
 
-    private final LinkedList<DataPoint> recentHistory = new LinkedList<>();
-    private static final int MAX_RECENT_HISTORY = 300;
-
-    private final LinkedList<DataPoint> hourlyHistory = new LinkedList<>();
-    private static final int MAX_HOURLY_HISTORY = 1440;
-
-    private final LinkedList<DataPoint> dailyHistory = new LinkedList<>();
-    private static final int MAX_DAILY_HISTORY = 720;
+    // Last hour at one-second resolution; longer windows come from the statistics rollups
+    private final HistoryTier recentHistory;
 
     private final LinkedList<LagSpikeRecord> lagSpikes = new LinkedList<>();
     private static final int MAX_LAG_SPIKES = 100;
@@ -40,21 +58,27 @@ public class WebDashboard {
     private final LinkedList<LogEntry> logEntries = new LinkedList<>();
     private static final int MAX_LOG_ENTRIES = 100;
 
-    private volatile String cachedSystemJson = "{}";
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final String HTML = "text/html; charset=UTF-8";
+
+    // API responses are rendered once per data generation and shared between clients
+    private final ResponseCache responseCache = new ResponseCache();
+    private final AtomicLong lagSpikeGeneration = new AtomicLong();
+    private final AtomicLong logGeneration = new AtomicLong();
+    private final AtomicLong configGeneration = new AtomicLong();
+    private final AtomicLong systemGeneration = new AtomicLong();
+
+    // JVM, server and plugin details; rebuilt only when a plugin is enabled or disabled
+    private volatile SystemInfo systemInfo;
     private String authToken = "";
     private boolean authEnabled = false;
 
-    private final java.util.concurrent.ConcurrentHashMap<String, long[]> rateLimitMap = new java.util.concurrent.ConcurrentHashMap<>();
-    private static final int RATE_LIMIT_MAX = 60;
-    private static final long RATE_LIMIT_WINDOW = 60_000;
-
-    private BukkitTask recentHistoryTask;
-    private BukkitTask hourlyAggregationTask;
-    private BukkitTask dailyAggregationTask;
-    private BukkitTask cachedSystemTask;
+    private volatile RateLimiter rateLimiter;
 
     public WebDashboard(XreatOptimizer plugin) {
         this.plugin = plugin;
+        TimeSeriesStore store = plugin.getTimeSeriesStore();
+        this.recentHistory = new HistoryTier(store, TimeSeriesStore.SECOND_CAPACITY);
     }
 
     public void start() {
@@ -74,6 +98,8 @@ public class WebDashboard {
             LoggerUtils.warn("Web dashboard has NO authentication. Set web_dashboard.auth_token in config.yml!");
         }
 
+        rateLimiter = RateLimiter.fromConfig(plugin.getConfig(), "web_dashboard.rate_limit", 60);
+
         try {
             server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
             server.createContext("/", new DashboardHandler());
@@ -82,12 +108,19 @@ public class WebDashboard {
             server.createContext("/api/config", new ConfigApiHandler());
             server.createContext("/api/system", new SystemApiHandler());
             server.createContext("/api/logs", new LogsApiHandler());
-            server.setExecutor(Executors.newFixedThreadPool(4));
+            server.createContext("/api/stream", new StreamApiHandler());
+            server.createContext("/api/collectors", new CollectorsApiHandler());
+            httpExecutor = IoExecutors.newIoExecutor("XreatOpt-Web", 4);
+            server.setExecutor(httpExecutor);
+            // Stream writers block on slow sockets, so they get their own threads
+            streamExecutor = IoExecutors.newIoExecutor("XreatOpt-SSE", EventStream.MAX_SUBSCRIBERS);
+            eventStream = new EventStream(streamExecutor);
             server.start();
 
             running = true;
-            cachedSystemJson = buildSystemJsonSync();
-            startDataCollection();
+            systemInfo = SystemInfo.capture(null);
+            systemGeneration.incrementAndGet();
+            plugin.getSubsystemProfiler().registerEvents(this, "web_dashboard");
 
             LoggerUtils.info("Web dashboard started on http://" + bindAddress + ":" + port);
         } catch (IOException e) {
@@ -98,136 +131,39 @@ public class WebDashboard {
     public void stop() {
         running = false;
 
-        if (recentHistoryTask != null) recentHistoryTask.cancel();
-        if (hourlyAggregationTask != null) hourlyAggregationTask.cancel();
-        if (dailyAggregationTask != null) dailyAggregationTask.cancel();
-        if (cachedSystemTask != null) cachedSystemTask.cancel();
-        recentHistoryTask = null;
-        hourlyAggregationTask = null;
-        dailyAggregationTask = null;
-        cachedSystemTask = null;
+        HandlerList.unregisterAll(this);
 
+        if (eventStream != null) {
+            eventStream.close();
+            eventStream = null;
+        }
         if (server != null) {
             server.stop(0);
             server = null;
             LoggerUtils.info("Web dashboard stopped");
         }
-    }
-
-    private void startDataCollection() {
-        recentHistoryTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (!running) return;
-
-            DataPoint point = new DataPoint();
-            point.timestamp = System.currentTimeMillis();
-            point.tps = TPSUtils.getTPS();
-            point.memoryPercent = MemoryUtils.getMemoryUsagePercentage();
-            point.memoryUsed = MemoryUtils.getUsedMemoryMB();
-            point.memoryMax = MemoryUtils.getMaxMemoryMB();
-            point.entities = plugin.getPerformanceMonitor() != null ? plugin.getPerformanceMonitor().getCurrentEntityCount() : 0;
-            point.chunks = plugin.getPerformanceMonitor() != null ? plugin.getPerformanceMonitor().getCurrentChunkCount() : 0;
-            point.players = plugin.getPerformanceMonitor() != null ? plugin.getPerformanceMonitor().getCurrentPlayerCount() : Bukkit.getOnlinePlayers().size();
-
-            synchronized (recentHistory) {
-                recentHistory.addLast(point);
-                while (recentHistory.size() > MAX_RECENT_HISTORY) {
-                    recentHistory.removeFirst();
-                }
-            }
-        }, 20L, 20L);
-
-        hourlyAggregationTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (!running) return;
-            aggregateToHourlyHistory();
-        }, 1200L, 1200L);
-
-        dailyAggregationTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (!running) return;
-            aggregateToDailyHistory();
-        }, 72000L, 72000L);
-
-        cachedSystemTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            if (!running) return;
-            cachedSystemJson = buildSystemJsonSync();
-        }, 20L, 40L);
-    }
-
-    private void aggregateToHourlyHistory() {
-        synchronized (recentHistory) {
-            if (recentHistory.isEmpty()) return;
-
-            double avgTps = 0, avgMemory = 0;
-            long avgMemoryUsed = 0, avgMemoryMax = 0;
-            int avgEntities = 0, avgChunks = 0, avgPlayers = 0;
-            int count = Math.min(60, recentHistory.size());
-
-            for (int i = recentHistory.size() - count; i < recentHistory.size(); i++) {
-                DataPoint p = recentHistory.get(i);
-                avgTps += p.tps;
-                avgMemory += p.memoryPercent;
-                avgMemoryUsed += p.memoryUsed;
-                avgMemoryMax += p.memoryMax;
-                avgEntities += p.entities;
-                avgChunks += p.chunks;
-                avgPlayers += p.players;
-            }
-
-            DataPoint aggregated = new DataPoint();
-            aggregated.timestamp = System.currentTimeMillis();
-            aggregated.tps = avgTps / count;
-            aggregated.memoryPercent = avgMemory / count;
-            aggregated.memoryUsed = avgMemoryUsed / count;
-            aggregated.memoryMax = avgMemoryMax / count;
-            aggregated.entities = avgEntities / count;
-            aggregated.chunks = avgChunks / count;
-            aggregated.players = avgPlayers / count;
-
-            synchronized (hourlyHistory) {
-                hourlyHistory.addLast(aggregated);
-                while (hourlyHistory.size() > MAX_HOURLY_HISTORY) {
-                    hourlyHistory.removeFirst();
-                }
-            }
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+            httpExecutor = null;
         }
+        if (streamExecutor != null) {
+            streamExecutor.shutdown();
+            streamExecutor = null;
+        }
+        responseCache.clear();
     }
 
-    private void aggregateToDailyHistory() {
-        synchronized (hourlyHistory) {
-            if (hourlyHistory.isEmpty()) return;
-
-            double avgTps = 0, avgMemory = 0;
-            long avgMemoryUsed = 0, avgMemoryMax = 0;
-            int avgEntities = 0, avgChunks = 0, avgPlayers = 0;
-            int count = Math.min(60, hourlyHistory.size());
-
-            for (int i = hourlyHistory.size() - count; i < hourlyHistory.size(); i++) {
-                DataPoint p = hourlyHistory.get(i);
-                avgTps += p.tps;
-                avgMemory += p.memoryPercent;
-                avgMemoryUsed += p.memoryUsed;
-                avgMemoryMax += p.memoryMax;
-                avgEntities += p.entities;
-                avgChunks += p.chunks;
-                avgPlayers += p.players;
-            }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        systemInfo = SystemInfo.capture(null);
+        systemGeneration.incrementAndGet();
+    }
 
-            DataPoint aggregated = new DataPoint();
-            aggregated.timestamp = System.currentTimeMillis();
-            aggregated.tps = avgTps / count;
-            aggregated.memoryPercent = avgMemory / count;
-            aggregated.memoryUsed = avgMemoryUsed / count;
-            aggregated.memoryMax = avgMemoryMax / count;
-            aggregated.entities = avgEntities / count;
-            aggregated.chunks = avgChunks / count;
-            aggregated.players = avgPlayers / count;
-
-            synchronized (dailyHistory) {
-                dailyHistory.addLast(aggregated);
-                while (dailyHistory.size() > MAX_DAILY_HISTORY) {
-                    dailyHistory.removeFirst();
-                }
-            }
-        }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        // Fired while the plugin still reports itself enabled
+        systemInfo = SystemInfo.capture(event.getPlugin());
+        systemGeneration.incrementAndGet();
     }
 
     public void recordLagSpike(double peakMs, String cause) {
@@ -243,6 +179,12 @@ public class WebDashboard {
                 lagSpikes.removeLast();
             }
         }
+        lagSpikeGeneration.incrementAndGet();
+
+        EventStream stream = eventStream;
+        if (stream != null) {
+            stream.publish("spike", toJsonBytes(out -> writeLagSpike(new JsonWriter(out), record, true)));
+        }
     }
 
     public void addLogEntry(String level, String message) {
@@ -257,88 +199,154 @@ public class WebDashboard {
                 logEntries.removeLast();
             }
         }
+        logGeneration.incrementAndGet();
+
+        EventStream stream = eventStream;
+        if (stream != null) {
+            stream.publish("log", toJsonBytes(out -> writeLogEntry(new JsonWriter(out), entry, true)));
+        }
+    }
+
+    /** Push one per-second sample to stream subscribers. Called by PerformanceMonitor. */
+    public void publishSample(long timestamp, double tps, double memory, long usedMemory, long maxMemory,
+                              int entities, int chunks, int players) {
+        EventStream stream = eventStream;
+        if (stream == null) {
+            return;
+        }
+        String profile = plugin.getOptimizationManager() != null ? plugin.getOptimizationManager().getCurrentProfile().name() : "AUTO";
+        stream.publish("sample", toJsonBytes(out -> {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("t").value(timestamp);
+            json.name("tps").value(tps, 2);
+            json.name("memory").value(memory, 1);
+            json.name("memoryUsed").value(usedMemory);
+            json.name("memoryMax").value(maxMemory);
+            json.name("entities").value(entities);
+            json.name("chunks").value(chunks);
+            json.name("players").value(players);
+            json.name("profile").value(profile);
+            json.endObject();
+            json.flush();
+        }));
+    }
+
+    /** Null until the dashboard has started. */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
     }
 
     public boolean isRunning() {
         return running;
     }
 
+    /** Called after config.yml is reloaded so /api/config is rendered again. */
+    public void onConfigReloaded() {
+        configGeneration.incrementAndGet();
+    }
+
+    /** Changes whenever PerformanceMonitor appends a per-second sample. */
+    private long sampleGeneration() {
+        return recentHistory.tps.totalAppended();
+    }
+
     private class DashboardHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!checkAuth(exchange) || !checkRateLimit(exchange)) return;
-            String response = generateDashboardHtml();
-            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
-            }
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            // Static for the lifetime of the server
+            ResponseCache.send(exchange, responseCache.get("dashboard", 0L,
+                out -> out.write(generateDashboardHtml().getBytes(StandardCharsets.UTF_8))), HTML);
         }
     }
 
     private class StatsApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!checkAuth(exchange) || !checkRateLimit(exchange)) return;
-            String response = generateStatsJson();
-            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
-            }
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            ResponseCache.send(exchange, responseCache.get("stats", sampleGeneration(),
+                out -> writeStatsJson(new JsonWriter(out))), JSON);
         }
     }
 
     private class HistoryApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!checkAuth(exchange) || !checkRateLimit(exchange)) return;
-            String range = getQueryParam(exchange.getRequestURI().getQuery(), "range", "recent");
-            String response = generateHistoryJson(range);
-            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            HistoryQuery query;
+            try {
+                query = HistoryQuery.parse(rawQuery, System.currentTimeMillis());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+
+            // Both counters only grow, so their sum changes when either does
+            long generation = sampleGeneration() + lagSpikeGeneration.get();
+            ResponseCache.Renderer renderer = out -> writeHistory(out, query);
+            // Explicit windows and custom point counts are one-off requests, so they are not kept in the cache
+            ResponseCache.Entry entry = query.cacheKey != null
+                ? responseCache.get(query.cacheKey, generation, renderer)
+                : responseCache.render("history-q" + Integer.toHexString(rawQuery.hashCode()), generation, renderer);
+            if (query.format == HistoryQuery.Format.CSV) {
+                exchange.getResponseHeaders().set("Content-Disposition",
+                    "attachment; filename=\"xreatoptimizer-history-" + query.from + "-" + query.to + ".csv\"");
             }
+            ResponseCache.send(exchange, entry, query.format.contentType);
         }
     }
 
     private class ConfigApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!checkAuth(exchange) || !checkRateLimit(exchange)) return;
-            String response = generateConfigJson();
-            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
-            }
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            ResponseCache.send(exchange, responseCache.get("config", configGeneration.get(),
+                out -> writeConfigJson(new JsonWriter(out))), JSON);
         }
     }
 
     private class SystemApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!checkAuth(exchange) || !checkRateLimit(exchange)) return;
-            String response = generateSystemJson();
-            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            // World figures move every second; both counters only grow
+            long generation = systemGeneration.get() + sampleGeneration();
+            ResponseCache.send(exchange, responseCache.get("system", generation,
+                out -> writeSystemJson(new JsonWriter(out))), JSON);
+        }
+    }
+
+    private class CollectorsApiHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            CollectorEngine engine = plugin.getCollectorEngine();
+            ResponseCache.send(exchange, responseCache.get("collectors", engine != null ? engine.getGeneration() : 0L,
+                out -> writeCollectorsJson(new JsonWriter(out), engine)), JSON);
+        }
+    }
+
+    private class StreamApiHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            EventStream stream = eventStream;
+            if (stream == null || !stream.subscribe(exchange)) {
+                exchange.getResponseHeaders().set("Retry-After", "30");
+                sendError(exchange, 503, "Too many stream subscribers");
             }
+            // On success the exchange stays open; the stream's writer owns it
         }
     }
 
     private class LogsApiHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!checkAuth(exchange) || !checkRateLimit(exchange)) return;
-            String response = generateLogsJson();
-            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
-            }
+            if (!checkRateLimit(exchange) || !checkAuth(exchange)) return;
+            ResponseCache.send(exchange, responseCache.get("logs", logGeneration.get(),
+                out -> writeLogsJson(new JsonWriter(out))), JSON);
         }
     }
 
@@ -366,170 +374,357 @@ public class WebDashboard {
     }
 
     private boolean checkRateLimit(HttpExchange exchange) throws IOException {
-        String ip = exchange.getRemoteAddress().getAddress().getHostAddress();
-        long now = System.currentTimeMillis();
-        long[] bucket = rateLimitMap.computeIfAbsent(ip, k -> new long[]{now, 0});
-
-        if (now - bucket[0] > RATE_LIMIT_WINDOW) {
-            bucket[0] = now;
-            bucket[1] = 1;
-            return true;
-        }
-
-        bucket[1]++;
-        if (bucket[1] > RATE_LIMIT_MAX) {
-            String body = "{\"error\":\"Rate limit exceeded\"}";
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(429, body.getBytes(StandardCharsets.UTF_8).length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(body.getBytes(StandardCharsets.UTF_8));
-            }
+        RateLimiter limiter = rateLimiter;
+        if (limiter == null) return true;
+        long retryAfterMs = limiter.tryAcquire(exchange.getRemoteAddress().getAddress().getHostAddress());
+        if (retryAfterMs > 0) {
+            exchange.getResponseHeaders().set("Retry-After", Long.toString((retryAfterMs + 999) / 1000));
+            sendError(exchange, 429, "Rate limit exceeded");
             return false;
         }
         return true;
     }
 
-    private String generateStatsJson() {
-        double tps = TPSUtils.getTPS();
-        double memory = MemoryUtils.getMemoryUsagePercentage();
-        long memoryUsed = MemoryUtils.getUsedMemoryMB();
-        long memoryMax = MemoryUtils.getMaxMemoryMB();
-        int entities = plugin.getPerformanceMonitor() != null ? plugin.getPerformanceMonitor().getCurrentEntityCount() : 0;
-        int chunks = plugin.getPerformanceMonitor() != null ? plugin.getPerformanceMonitor().getCurrentChunkCount() : 0;
-        int players = plugin.getPerformanceMonitor() != null ? plugin.getPerformanceMonitor().getCurrentPlayerCount() : Bukkit.getOnlinePlayers().size();
+    private void writeStatsJson(JsonWriter json) throws IOException {
+        // One sample for every field, so the numbers agree with each other and with /api/stream
+        MetricsSnapshot snapshot = plugin.getPerformanceMonitor() != null
+            ? plugin.getPerformanceMonitor().getSnapshot() : MetricsSnapshot.EMPTY;
         String profile = plugin.getOptimizationManager() != null ? plugin.getOptimizationManager().getCurrentProfile().name() : "AUTO";
 
-        return String.format(
-            "{\"tps\":%.2f,\"memory\":%.1f,\"memoryUsed\":%d,\"memoryMax\":%d," +
-            "\"entities\":%d,\"chunks\":%d,\"players\":%d,\"profile\":\"%s\",\"timestamp\":%d}",
-            tps, memory, memoryUsed, memoryMax, entities, chunks, players, profile, System.currentTimeMillis()
-        );
+        json.beginObject();
+        json.name("tps").value(snapshot.getTps(), 2);
+        json.name("memory").value(snapshot.getMemoryPercent(), 1);
+        json.name("memoryUsed").value(snapshot.getUsedMemoryMb());
+        json.name("memoryMax").value(snapshot.getMaxMemoryMb());
+        json.name("entities").value(snapshot.getEntityCount());
+        json.name("chunks").value(snapshot.getChunkCount());
+        json.name("players").value(snapshot.getPlayerCount());
+        json.name("profile").value(profile);
+        json.name("timestamp").value(System.currentTimeMillis());
+        json.endObject();
+        json.flush();
     }
 
-    private String generateHistoryJson(String range) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"history\":[");
-
-        LinkedList<DataPoint> dataSource;
-        synchronized (recentHistory) {
-            switch (range) {
-                case "hourly":
-                    synchronized (hourlyHistory) {
-                        dataSource = new LinkedList<>(hourlyHistory);
-                    }
-                    break;
-                case "daily":
-                    synchronized (dailyHistory) {
-                        dataSource = new LinkedList<>(dailyHistory);
-                    }
-                    break;
-                case "recent":
-                default:
-                    dataSource = new LinkedList<>(recentHistory);
-                    break;
-            }
+    private void writeHistory(OutputStream out, HistoryQuery query) throws IOException {
+        HistoryColumns columns = query.tier != null ? loadRollupHistory(query) : loadRecentHistory(query);
+        int[] keep = columns.count > 0
+            ? LttbDownsampler.select(columns.timestamps, columns.values[0], columns.count,
+                query.maxPoints == 0 ? columns.count : query.maxPoints)
+            : new int[0];
+
+        switch (query.format) {
+            case CSV:
+                writeHistoryCsv(out, query, columns, keep);
+                break;
+            case COLUMNS:
+                writeHistoryColumns(new JsonWriter(out), query, columns, keep);
+                break;
+            case JSON:
+            default:
+                writeHistoryJson(new JsonWriter(out), query, columns, keep);
+                break;
         }
+    }
 
-        boolean first = true;
-        for (DataPoint point : dataSource) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append(String.format("{\"t\":%d,\"tps\":%.2f,\"mem\":%.1f,\"ent\":%d,\"chunks\":%d,\"players\":%d}",
-                point.timestamp, point.tps, point.memoryPercent, point.entities, point.chunks, point.players));
+    private void writeHistoryJson(JsonWriter json, HistoryQuery query, HistoryColumns columns, int[] keep) throws IOException {
+        json.beginObject();
+        writeHistoryHeader(json, query, keep.length);
+        json.name("history").beginArray();
+        for (int index : keep) {
+            json.beginObject();
+            json.name("t").value(columns.timestamps[index]);
+            for (int m = 0; m < query.metrics.size(); m++) {
+                HistoryQuery.Metric metric = query.metrics.get(m);
+                json.name(metric.key).value(columns.values[m][index], metric.decimals);
+            }
+            json.endObject();
         }
+        json.endArray();
 
-        sb.append("],\"lagSpikes\":[");
+        json.name("lagSpikes").beginArray();
         synchronized (lagSpikes) {
-            first = true;
             for (LagSpikeRecord spike : lagSpikes) {
-                if (!first) sb.append(",");
-                first = false;
-                sb.append(String.format("{\"t\":%d,\"peak\":%.1f,\"cause\":\"%s\",\"tps\":%.2f}",
-                    spike.timestamp, spike.peakMs, escapeJson(spike.cause), spike.tps));
+                writeLagSpike(json, spike, false);
+            }
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /** One array per column instead of one object per point, for long-range exports. */
+    private void writeHistoryColumns(JsonWriter json, HistoryQuery query, HistoryColumns columns, int[] keep) throws IOException {
+        json.beginObject();
+        writeHistoryHeader(json, query, keep.length);
+        json.name("t").beginArray();
+        for (int index : keep) {
+            json.value(columns.timestamps[index]);
+        }
+        json.endArray();
+        for (int m = 0; m < query.metrics.size(); m++) {
+            HistoryQuery.Metric metric = query.metrics.get(m);
+            json.name(metric.key).beginArray();
+            for (int index : keep) {
+                json.value(columns.values[m][index], metric.decimals);
             }
+            json.endArray();
+        }
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeHistoryHeader(JsonWriter json, HistoryQuery query, int points) throws IOException {
+        json.name("from").value(query.from);
+        json.name("to").value(query.to);
+        json.name("resolution").value(query.getResolution());
+        json.name("points").value(points);
+    }
+
+    private void writeHistoryCsv(OutputStream out, HistoryQuery query, HistoryColumns columns, int[] keep) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        writer.write("t");
+        for (HistoryQuery.Metric metric : query.metrics) {
+            writer.write(',');
+            writer.write(metric.key);
+        }
+        writer.write('\n');
+        for (int index : keep) {
+            writer.write(Long.toString(columns.timestamps[index]));
+            for (int m = 0; m < query.metrics.size(); m++) {
+                writer.write(',');
+                writer.write(formatCsvValue(columns.values[m][index], query.metrics.get(m).decimals));
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static String formatCsvValue(double value, int decimals) {
+        if (decimals == 0) {
+            return Long.toString(Math.round(value));
+        }
+        double scale = Math.pow(10, decimals);
+        return Double.toString(Math.round(value * scale) / scale);
+    }
+
+    /** Per-second samples inside the query window. */
+    private HistoryColumns loadRecentHistory(HistoryQuery query) {
+        int window = TimeSeriesStore.SECOND_CAPACITY;
+        long[] timestamps = new long[window];
+        double[][] values = new double[query.metrics.size()][window];
+        int count = recentHistory.tps.copyLast(window, timestamps, null);
+        for (int m = 0; m < values.length; m++) {
+            count = Math.min(count, recentHistory.series(query.metrics.get(m)).copyLast(count, null, values[m]));
         }
-        sb.append("]}");
-        return sb.toString();
-    }
-
-    private String generateConfigJson() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"features\":{");
-        sb.append("\"entity_limiter\":").append(plugin.getConfig().getBoolean("entity_limiter.enabled", false)).append(",");
-        sb.append("\"auto_clear\":").append(plugin.getConfig().getBoolean("auto_clear.enabled", false)).append(",");
-        sb.append("\"hibernate\":").append(plugin.getConfig().getBoolean("hibernate.enabled", false)).append(",");
-        sb.append("\"redstone_hopper\":").append(plugin.getConfig().getBoolean("redstone_hopper_optimization.enabled", false)).append(",");
-        sb.append("\"empty_server\":").append(plugin.getConfig().getBoolean("empty_server.enabled", true)).append(",");
-        sb.append("\"stack_fusion\":").append(plugin.getConfig().getBoolean("enable_stack_fusion", true)).append(",");
-        sb.append("\"notifications\":").append(plugin.getConfig().getBoolean("notifications.enabled", false)).append(",");
-        sb.append("\"web_dashboard\":").append(plugin.getConfig().getBoolean("web_dashboard.enabled", false));
-        sb.append("},\"thresholds\":{");
-        sb.append("\"tps_light\":").append(plugin.getConfig().getDouble("optimization.tps_thresholds.light", 19.5)).append(",");
-        sb.append("\"tps_normal\":").append(plugin.getConfig().getDouble("optimization.tps_thresholds.normal", 18.0)).append(",");
-        sb.append("\"tps_aggressive\":").append(plugin.getConfig().getDouble("optimization.tps_thresholds.aggressive", 16.0)).append(",");
-        sb.append("\"memory_reclaim\":").append(plugin.getConfig().getInt("memory_reclaim_threshold_percent", 80));
-        sb.append("},\"limits\":{");
-        sb.append("\"passive\":").append(plugin.getConfig().getInt("optimization.entity_limits.passive", 200)).append(",");
-        sb.append("\"hostile\":").append(plugin.getConfig().getInt("optimization.entity_limits.hostile", 150)).append(",");
-        sb.append("\"item\":").append(plugin.getConfig().getInt("optimization.entity_limits.item", 1000));
-        sb.append("}};");
-        return sb.toString().replace("};", "}");
-    }
-
-    private String generateSystemJson() {
-        return cachedSystemJson;
-    }
-
-    private String buildSystemJsonSync() {
-        Runtime runtime = Runtime.getRuntime();
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        sb.append("\"java_version\":\"").append(escapeJson(System.getProperty("java.version"))).append("\",");
-        sb.append("\"java_vendor\":\"").append(escapeJson(System.getProperty("java.vendor"))).append("\",");
-        sb.append("\"os\":\"").append(escapeJson(System.getProperty("os.name"))).append("\",");
-        sb.append("\"os_arch\":\"").append(escapeJson(System.getProperty("os.arch"))).append("\",");
-        sb.append("\"processors\":").append(runtime.availableProcessors()).append(",");
-        sb.append("\"server_version\":\"").append(escapeJson(Bukkit.getVersion())).append("\",");
-        sb.append("\"bukkit_version\":\"").append(escapeJson(Bukkit.getBukkitVersion())).append("\",");
-        sb.append("\"server_name\":\"").append(escapeJson(Bukkit.getServer().getName())).append("\",");
-        sb.append("\"max_players\":").append(Bukkit.getMaxPlayers()).append(",");
-        sb.append("\"worlds\":[");
-        boolean first = true;
-        for (World world : Bukkit.getWorlds()) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append("{\"name\":\"").append(escapeJson(world.getName())).append("\",");
-            sb.append("\"entities\":").append(world.getEntities().size()).append(",");
-            sb.append("\"chunks\":").append(world.getLoadedChunks().length).append(",");
-            sb.append("\"players\":").append(world.getPlayers().size()).append("}");
-        }
-        sb.append("],\"plugins\":[");
-        first = true;
-        for (Plugin p : Bukkit.getPluginManager().getPlugins()) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append("{\"name\":\"").append(escapeJson(p.getName())).append("\",");
-            sb.append("\"version\":\"").append(escapeJson(p.getDescription().getVersion())).append("\",");
-            sb.append("\"enabled\":").append(p.isEnabled()).append("}");
-        }
-        sb.append("]}");
-        return sb.toString();
-    }
-
-    private String generateLogsJson() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"logs\":[");
+
+        int start = 0;
+        while (start < count && timestamps[start] < query.from) {
+            start++;
+        }
+        int end = count;
+        while (end > start && timestamps[end - 1] > query.to) {
+            end--;
+        }
+        if (start > 0) {
+            System.arraycopy(timestamps, start, timestamps, 0, end - start);
+            for (double[] column : values) {
+                System.arraycopy(column, start, column, 0, end - start);
+            }
+        }
+        return new HistoryColumns(timestamps, values, end - start);
+    }
+
+    /** Bucket averages of the query's rollup tier, timestamped at the bucket start. */
+    private HistoryColumns loadRollupHistory(HistoryQuery query) {
+        StatisticsStorage storage = plugin.getStatisticsStorage();
+        List<RollupEngine.Row> rows = storage != null
+            ? storage.getRollups().query(query.tier, query.from, query.to + 1)
+            : Collections.emptyList();
+
+        long[] timestamps = new long[rows.size()];
+        double[][] values = new double[query.metrics.size()][rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            RollupEngine.Row row = rows.get(i);
+            timestamps[i] = row.getStart();
+            for (int m = 0; m < values.length; m++) {
+                values[m][i] = row.getAverage(query.metrics.get(m).rollupMetric);
+            }
+        }
+        return new HistoryColumns(timestamps, values, rows.size());
+    }
+
+    private void writeConfigJson(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("features").beginObject();
+        json.name("entity_limiter").value(plugin.getConfig().getBoolean("entity_limiter.enabled", false));
+        json.name("auto_clear").value(plugin.getConfig().getBoolean("auto_clear.enabled", false));
+        json.name("hibernate").value(plugin.getConfig().getBoolean("hibernate.enabled", false));
+        json.name("redstone_hopper").value(plugin.getConfig().getBoolean("redstone_hopper_optimization.enabled", false));
+        json.name("empty_server").value(plugin.getConfig().getBoolean("empty_server.enabled", true));
+        json.name("stack_fusion").value(plugin.getConfig().getBoolean("enable_stack_fusion", true));
+        json.name("notifications").value(plugin.getConfig().getBoolean("notifications.enabled", false));
+        json.name("web_dashboard").value(plugin.getConfig().getBoolean("web_dashboard.enabled", false));
+        json.endObject();
+        json.name("thresholds").beginObject();
+        json.name("tps_light").value(plugin.getConfig().getDouble("optimization.tps_thresholds.light", 19.5), 2);
+        json.name("tps_normal").value(plugin.getConfig().getDouble("optimization.tps_thresholds.normal", 18.0), 2);
+        json.name("tps_aggressive").value(plugin.getConfig().getDouble("optimization.tps_thresholds.aggressive", 16.0), 2);
+        json.name("memory_reclaim").value(plugin.getConfig().getInt("memory_reclaim_threshold_percent", 80));
+        json.endObject();
+        json.name("limits").beginObject();
+        json.name("passive").value(plugin.getConfig().getInt("optimization.entity_limits.passive", 200));
+        json.name("hostile").value(plugin.getConfig().getInt("optimization.entity_limits.hostile", 150));
+        json.name("item").value(plugin.getConfig().getInt("optimization.entity_limits.item", 1000));
+        json.endObject();
+        json.endObject();
+        json.flush();
+    }
+
+    /** Static details from {@link SystemInfo} plus per-world figures from the entity counter. */
+    private void writeSystemJson(JsonWriter json) throws IOException {
+        SystemInfo info = systemInfo;
+        json.beginObject();
+        json.name("java_version").value(info.javaVersion);
+        json.name("java_vendor").value(info.javaVendor);
+        json.name("os").value(info.os);
+        json.name("os_arch").value(info.osArch);
+        json.name("processors").value(info.processors);
+        json.name("server_version").value(info.serverVersion);
+        json.name("bukkit_version").value(info.bukkitVersion);
+        json.name("server_name").value(info.serverName);
+        json.name("max_players").value(info.maxPlayers);
+        List<String> worldNames = new ArrayList<>();
+        List<int[]> worldCounts = new ArrayList<>();
+        EntityCountTracker tracker = plugin.getEntityCountTracker();
+        if (tracker != null) {
+            tracker.forEachWorld((world, entities, chunks, players) -> {
+                worldNames.add(world);
+                worldCounts.add(new int[]{entities, chunks, players});
+            });
+        }
+        json.name("worlds").beginArray();
+        for (int i = 0; i < worldNames.size(); i++) {
+            int[] counts = worldCounts.get(i);
+            json.beginObject();
+            json.name("name").value(worldNames.get(i));
+            json.name("entities").value(counts[0]);
+            json.name("chunks").value(counts[1]);
+            json.name("players").value(counts[2]);
+            json.endObject();
+        }
+        json.endArray();
+        json.name("plugins").beginArray();
+        for (int i = 0; i < info.pluginNames.length; i++) {
+            json.beginObject();
+            json.name("name").value(info.pluginNames[i]);
+            json.name("version").value(info.pluginVersions[i]);
+            json.name("enabled").value(info.pluginEnabled[i]);
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private void writeLogsJson(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("logs").beginArray();
         synchronized (logEntries) {
-            boolean first = true;
             for (LogEntry entry : logEntries) {
-                if (!first) sb.append(",");
-                first = false;
-                sb.append(String.format("{\"t\":%d,\"level\":\"%s\",\"msg\":\"%s\"}",
-                    entry.timestamp, entry.level, escapeJson(entry.message)));
+                writeLogEntry(json, entry, false);
             }
         }
-        sb.append("]}");
-        return sb.toString();
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeCollectorsJson(JsonWriter json, CollectorEngine engine) throws IOException {
+        json.beginObject();
+        json.name("collectors").beginArray();
+        if (engine != null) {
+            for (CollectorEngine.CollectorStatus status : engine.getStatuses()) {
+                json.beginObject();
+                json.name("name").value(status.getName());
+                json.name("description").value(status.getDescription());
+                json.name("async").value(status.isAsync());
+                json.name("interval_s").value(status.getIntervalSeconds());
+                json.name("last_collected").value(status.getLastCollectedAt());
+                json.name("duration_ms").value(status.getLastDurationMs(), 3);
+                json.name("runs").value(status.getRuns());
+                json.name("failures").value(status.getFailures());
+                json.name("timeouts").value(status.getTimeouts());
+                json.name("overruns").value(status.getOverruns());
+                json.name("error");
+                if (status.getLastError() != null) {
+                    json.value(status.getLastError());
+                } else {
+                    json.nullValue();
+                }
+                json.name("values").beginObject();
+                for (Map.Entry<String, Object> entry : status.getLastValues().entrySet()) {
+                    json.name(entry.getKey());
+                    Object value = entry.getValue();
+                    if (value instanceof Number) {
+                        json.value(((Number) value).doubleValue(), 3);
+                    } else if (value instanceof Boolean) {
+                        json.value((Boolean) value);
+                    } else if (value == null) {
+                        json.nullValue();
+                    } else {
+                        json.value(value.toString());
+                    }
+                }
+                json.endObject();
+                json.endObject();
+            }
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeLagSpike(JsonWriter json, LagSpikeRecord spike, boolean flush) throws IOException {
+        json.beginObject();
+        json.name("t").value(spike.timestamp);
+        json.name("peak").value(spike.peakMs, 1);
+        json.name("cause").value(spike.cause != null ? spike.cause : "");
+        json.name("tps").value(spike.tps, 2);
+        json.endObject();
+        if (flush) json.flush();
+    }
+
+    private static void writeLogEntry(JsonWriter json, LogEntry entry, boolean flush) throws IOException {
+        json.beginObject();
+        json.name("t").value(entry.timestamp);
+        json.name("level").value(entry.level);
+        json.name("msg").value(entry.message != null ? entry.message : "");
+        json.endObject();
+        if (flush) json.flush();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = toJsonBytes(out -> {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject().name("error").value(message).endObject();
+            json.flush();
+        });
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static byte[] toJsonBytes(ResponseCache.Renderer renderer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            renderer.render(out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
     }
 
     private String escapeJson(String text) {
@@ -564,8 +759,8 @@ public class WebDashboard {
             "<div class='card'><div class='label'>Chunks</div><div id='chunks' class='value'>--</div><div id='playersSub' class='sub'>Players: --</div></div>" +
             "</div>" +
             "<div class='panel-grid section'>" +
-            "<div class='card history'><h3 class='section-title'>Recent TPS history</h3><div id='chart' class='chart'></div><div class='small'>Bars show the most recent samples from /api/history.</div></div>" +
-            "<div class='card'><h3 class='section-title'>Current profile</h3><div id='profile' class='value'>--</div><div class='sub'>Active optimization profile</div><div class='section'><h3 class='section-title'>Endpoints</h3><div class='list small mono'><div>/api/stats</div><div>/api/history?range=recent</div><div>/api/config</div><div>/api/system</div><div>/api/logs</div></div></div></div>" +
+            "<div class='card history'><h3 class='section-title'>Recent TPS history</h3><div id='chart' class='chart'></div><div class='small'>Bars show the most recent samples, streamed live from /api/stream.</div></div>" +
+            "<div class='card'><h3 class='section-title'>Current profile</h3><div id='profile' class='value'>--</div><div class='sub'>Active optimization profile</div><div class='section'><h3 class='section-title'>Endpoints</h3><div class='list small mono'><div>/api/stats</div><div>/api/history?range=recent</div><div>/api/history?from=&amp;to=&amp;maxPoints=&amp;format=csv</div><div>/api/config</div><div>/api/system</div><div>/api/logs</div><div>/api/stream</div></div></div></div>" +
             "</div>" +
             "<div class='panel-grid section'>" +
             "<div class='card'><h3 class='section-title'>System overview</h3><div id='system' class='list small'>Loading…</div></div>" +
@@ -578,15 +773,28 @@ public class WebDashboard {
             "<div class='footer'>This dashboard is read-only and built from the plugin's live monitoring data.</div>" +
             "</div>" +
             "<script>" +
-            "const qs=location.search||'';const auth=qs?qs:'';const withToken=u=>u+auth;" +
+            "const qs=location.search||'';const withToken=u=>qs?u+(u.includes('?')?'&'+qs.substring(1):qs):u;" +
             "const fmt=n=>new Intl.NumberFormat().format(n);const fmtTime=t=>new Date(t).toLocaleTimeString();" +
+            "let points=[],spikeList=[],logList=[];" +
             "function setStatus(el,v,good,warn){el.textContent=v;el.className='value '+(v>=good?'good':v>=warn?'warn':'bad')}" +
-            "async function loadStats(){const r=await fetch(withToken('/api/stats'));const d=await r.json();setStatus(document.getElementById('tps'),d.tps,19,15);document.getElementById('tpsSub').textContent='Profile '+d.profile;document.getElementById('memory').textContent=d.memory.toFixed(1)+'%';document.getElementById('memory').className='value '+(d.memory<70?'good':d.memory<85?'warn':'bad');document.getElementById('memorySub').textContent=fmt(d.memoryUsed)+' MB / '+fmt(d.memoryMax)+' MB';document.getElementById('entities').textContent=fmt(d.entities);document.getElementById('chunks').textContent=fmt(d.chunks);document.getElementById('playersSub').textContent='Players: '+fmt(d.players);document.getElementById('profile').textContent=d.profile;}" +
-            "async function loadHistory(){const r=await fetch(withToken('/api/history?range=recent'));const d=await r.json();const chart=document.getElementById('chart');chart.innerHTML='';const points=(d.history||[]).slice(-50);for(const p of points){const h=Math.max(8,Math.min(220,(p.tps/20)*220));const bar=document.createElement('div');bar.className='bar';bar.style.height=h+'px';bar.title='TPS '+p.tps.toFixed(2)+' @ '+fmtTime(p.t);chart.appendChild(bar);}const spikes=document.getElementById('spikes');spikes.innerHTML='';const recentSpikes=(d.lagSpikes||[]).slice(0,5);if(!recentSpikes.length){spikes.innerHTML='<div class=small>No recent lag spikes recorded.</div>';}else{for(const s of recentSpikes){const row=document.createElement('div');row.className='row';row.innerHTML='<div><strong>'+s.peak.toFixed(1)+'ms</strong><div class=small>'+s.cause+'</div></div><div class=small>'+fmtTime(s.t)+'</div>';spikes.appendChild(row);}}}" +
+            "function renderStats(d){setStatus(document.getElementById('tps'),d.tps,19,15);document.getElementById('tpsSub').textContent='Profile '+d.profile;document.getElementById('memory').textContent=d.memory.toFixed(1)+'%';document.getElementById('memory').className='value '+(d.memory<70?'good':d.memory<85?'warn':'bad');document.getElementById('memorySub').textContent=fmt(d.memoryUsed)+' MB / '+fmt(d.memoryMax)+' MB';document.getElementById('entities').textContent=fmt(d.entities);document.getElementById('chunks').textContent=fmt(d.chunks);document.getElementById('playersSub').textContent='Players: '+fmt(d.players);document.getElementById('profile').textContent=d.profile;}" +
+            "function renderChart(){const chart=document.getElementById('chart');chart.innerHTML='';for(const p of points){const h=Math.max(8,Math.min(220,(p.tps/20)*220));const bar=document.createElement('div');bar.className='bar';bar.style.height=h+'px';bar.title='TPS '+p.tps.toFixed(2)+' @ '+fmtTime(p.t);chart.appendChild(bar);}}" +
+            "function renderSpikes(){const spikes=document.getElementById('spikes');spikes.innerHTML='';if(!spikeList.length){spikes.innerHTML='<div class=small>No recent lag spikes recorded.</div>';return;}for(const s of spikeList){const row=document.createElement('div');row.className='row';row.innerHTML='<div><strong>'+s.peak.toFixed(1)+'ms</strong><div class=small>'+s.cause+'</div></div><div class=small>'+fmtTime(s.t)+'</div>';spikes.appendChild(row);}}" +
+            "function renderLogs(){const el=document.getElementById('logs');el.innerHTML='';if(!logList.length){el.innerHTML='<div class=small>No dashboard logs available.</div>';return;}for(const l of logList){const row=document.createElement('div');row.className='row';row.innerHTML='<div><strong>'+l.level+'</strong><div class=small>'+l.msg+'</div></div><div class=small>'+fmtTime(l.t)+'</div>';el.appendChild(row);}}" +
+            "async function loadStats(){const r=await fetch(withToken('/api/stats'));renderStats(await r.json());}" +
+            "async function loadHistory(){const r=await fetch(withToken('/api/history?range=recent&metrics=tps'));const d=await r.json();points=(d.history||[]).slice(-50);spikeList=(d.lagSpikes||[]).slice(0,5);renderChart();renderSpikes();}" +
             "async function loadConfig(){const r=await fetch(withToken('/api/config'));const d=await r.json();const f=document.getElementById('features');f.innerHTML='';for(const [k,v] of Object.entries(d.features||{})){const row=document.createElement('div');row.className='row';row.innerHTML='<div>'+k.replace(/_/g,' ')+'</div><div class='+(v?'good':'small')+'>'+(v?'enabled':'disabled')+'</div>';f.appendChild(row);}}" +
             "async function loadSystem(){const r=await fetch(withToken('/api/system'));const d=await r.json();const el=document.getElementById('system');el.innerHTML='';const items=[['Java',d.java_version],['OS',d.os+' ('+d.os_arch+')'],['Processors',d.processors],['Server',d.server_name],['Bukkit',d.bukkit_version],['Max players',d.max_players]];for(const [k,v] of items){const row=document.createElement('div');row.className='row';row.innerHTML='<div>'+k+'</div><div>'+v+'</div>';el.appendChild(row);}}" +
-            "async function loadLogs(){const r=await fetch(withToken('/api/logs'));const d=await r.json();const el=document.getElementById('logs');el.innerHTML='';const logs=(d.logs||[]).slice(0,6);if(!logs.length){el.innerHTML='<div class=small>No dashboard logs available.</div>';return;}for(const l of logs){const row=document.createElement('div');row.className='row';row.innerHTML='<div><strong>'+l.level+'</strong><div class=small>'+l.msg+'</div></div><div class=small>'+fmtTime(l.t)+'</div>';el.appendChild(row);}}" +
-            "async function refresh(){try{await Promise.all([loadStats(),loadHistory(),loadConfig(),loadSystem(),loadLogs()]);}catch(e){console.error(e);}}refresh();setInterval(refresh,4000);" +
+            "async function loadLogs(){const r=await fetch(withToken('/api/logs'));const d=await r.json();logList=(d.logs||[]).slice(0,6);renderLogs();}" +
+            "async function refresh(){try{await Promise.all([loadStats(),loadHistory(),loadConfig(),loadSystem(),loadLogs()]);}catch(e){console.error(e);}}" +
+            "let poller=null;function startPolling(){if(!poller)poller=setInterval(refresh,4000);}function stopPolling(){if(poller){clearInterval(poller);poller=null;}}" +
+            "function connect(){if(!window.EventSource){startPolling();return;}const es=new EventSource(withToken('/api/stream'));" +
+            "es.onopen=()=>{stopPolling();};" +
+            "es.addEventListener('sample',e=>{const d=JSON.parse(e.data);renderStats(d);points.push({t:d.t,tps:d.tps});if(points.length>50)points.shift();renderChart();});" +
+            "es.addEventListener('spike',e=>{spikeList.unshift(JSON.parse(e.data));spikeList=spikeList.slice(0,5);renderSpikes();});" +
+            "es.addEventListener('log',e=>{logList.unshift(JSON.parse(e.data));logList=logList.slice(0,6);renderLogs();});" +
+            "es.onerror=()=>{if(es.readyState===EventSource.CLOSED){startPolling();setTimeout(connect,15000);}};}" +
+            "refresh().then(connect);setInterval(()=>{loadConfig().catch(console.error);loadSystem().catch(console.error);},60000);" +
             "</script></body></html>";
     }
 
@@ -602,15 +810,86 @@ public class WebDashboard {
         return defaultValue;
     }
 
-    private static class DataPoint {
-        long timestamp;
-        double tps;
-        double memoryPercent;
-        long memoryUsed;
-        long memoryMax;
-        int entities;
-        int chunks;
-        int players;
+    /** Per-second dashboard history, as a set of ring-buffer series in the shared store. */
+    private static class HistoryTier {
+        final DoubleRingBuffer tps;
+        final DoubleRingBuffer memoryPercent;
+        final DoubleRingBuffer memoryUsed;
+        final DoubleRingBuffer memoryMax;
+        final DoubleRingBuffer entities;
+        final DoubleRingBuffer chunks;
+        final DoubleRingBuffer players;
+
+        HistoryTier(TimeSeriesStore store, int capacity) {
+            tps = store.series(TimeSeriesStore.TPS, capacity);
+            memoryPercent = store.series(TimeSeriesStore.MEMORY_PERCENT, capacity);
+            memoryUsed = store.series(TimeSeriesStore.MEMORY_USED_MB, capacity);
+            memoryMax = store.series(TimeSeriesStore.MEMORY_MAX_MB, capacity);
+            entities = store.series(TimeSeriesStore.ENTITIES, capacity);
+            chunks = store.series(TimeSeriesStore.CHUNKS, capacity);
+            players = store.series(TimeSeriesStore.PLAYERS, capacity);
+        }
+
+        DoubleRingBuffer series(HistoryQuery.Metric metric) {
+            switch (metric) {
+                case MEM:
+                    return memoryPercent;
+                case ENT:
+                    return entities;
+                case CHUNKS:
+                    return chunks;
+                case PLAYERS:
+                    return players;
+                case TPS:
+                default:
+                    return tps;
+            }
+        }
+    }
+
+    /** Column-major history: one timestamp array and one value array per requested metric. */
+    private static final class HistoryColumns {
+        final long[] timestamps;
+        final double[][] values;
+        final int count;
+
+        HistoryColumns(long[] timestamps, double[][] values, int count) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.count = count;
+        }
+    }
+
+    /** Details that only change when plugins come and go. Captured on the main thread. */
+    private static final class SystemInfo {
+        final String javaVersion = System.getProperty("java.version");
+        final String javaVendor = System.getProperty("java.vendor");
+        final String os = System.getProperty("os.name");
+        final String osArch = System.getProperty("os.arch");
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final String serverVersion = Bukkit.getVersion();
+        final String bukkitVersion = Bukkit.getBukkitVersion();
+        final String serverName = Bukkit.getServer().getName();
+        final int maxPlayers = Bukkit.getMaxPlayers();
+        final String[] pluginNames;
+        final String[] pluginVersions;
+        final boolean[] pluginEnabled;
+
+        private SystemInfo(Plugin[] plugins, Plugin disabling) {
+            pluginNames = new String[plugins.length];
+            pluginVersions = new String[plugins.length];
+            pluginEnabled = new boolean[plugins.length];
+            for (int i = 0; i < plugins.length; i++) {
+                pluginNames[i] = plugins[i].getName();
+                pluginVersions[i] = plugins[i].getDescription().getVersion();
+                pluginEnabled[i] = plugins[i] != disabling && plugins[i].isEnabled();
+            }
+        }
+
+        /** @param disabling plugin about to be disabled, reported as disabled; may be null */
+        static SystemInfo capture(Plugin disabling) {
+            return new SystemInfo(Bukkit.getPluginManager().getPlugins(), disabling);
+        }
     }
 
     private static class LagSpikeRecord {
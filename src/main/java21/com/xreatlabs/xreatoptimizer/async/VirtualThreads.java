@@ -0,0 +1,25 @@
+package com.xreatlabs.xreatoptimizer.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread support for blocking IO work.
+ *
+ * Java 21+ build of this class, packaged under META-INF/versions/21 of the multi-release jar. It
+ * must keep the same public API as the Java 11 copy in src/main/java.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return true;
+    }
+
+    /** Executor that starts one virtual thread per task, or null when virtual threads are unavailable. */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix + "-", 0).factory());
+    }
+}
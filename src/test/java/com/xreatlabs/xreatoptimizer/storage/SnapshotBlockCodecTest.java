@@ -0,0 +1,223 @@
+package com.xreatlabs.xreatoptimizer.storage;
+
+import com.xreatlabs.xreatoptimizer.storage.StatisticsStorage.PerformanceSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotBlockCodecTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void roundTripsMixedSeries() {
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        samples.add(snapshot(START, 20.0, 41.5, 1200, 300, "NORMAL", 12.34));
+        // Shorter interval than the last one: negative delta-of-delta in the 7-bit bucket
+        samples.add(snapshot(START + 5_000, 19.98, 41.6, 1150, 300, "NORMAL", 13.0));
+        samples.add(snapshot(START + 9_950, 19.5, 42.0, 1150, 280, "AGGRESSIVE", 55.5));
+        // 9-bit and 12-bit buckets
+        samples.add(snapshot(START + 15_100, 18.25, 43.25, 900, 250, "AGGRESSIVE", 80.0));
+        samples.add(snapshot(START + 21_900, 17.0, 44.0, 0, 250, "EMERGENCY", 120.75));
+        // Counts going up again and the profile changing back
+        samples.add(snapshot(START + 26_900, 20.0, 30.0, 2_000_000, 90_000, "LIGHT", 0.0));
+        samples.add(snapshot(START + 31_900, 20.0, 30.0, 2_000_000, 90_000, "LIGHT", 0.0));
+        // Sub-hundredth MSPT survives
+        samples.add(snapshot(START + 36_900, 20.0, 30.0, 2_000_000, 90_000, "LIGHT", 0.125));
+        samples.add(snapshot(START + 41_900, 20.0, 30.0, 2_000_000, 90_000, "LIGHT", 2500.001));
+
+        assertSameSeries(samples, decode(encode(samples)));
+    }
+
+    @Test
+    void decodesVersionOneMsptAsHundredths() {
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        samples.add(snapshot(START, 20.0, 40.0, 1, 1, "NORMAL", 0.5));
+        byte[] block = encode(samples);
+        // A version 1 block holds the same bits with MSPT at 0.01, so 500 reads as 5.00
+        block[5] = 1;
+
+        List<PerformanceSnapshot> decoded = decode(block);
+        assertEquals(5.0, decoded.get(0).getMspt(), 1e-9);
+        assertEquals(20.0, decoded.get(0).getTps(), 1e-9);
+    }
+
+    @Test
+    void roundTripsGapsInTheSixtyFourBitBucket() {
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        samples.add(snapshot(START, 20.0, 40.0, 10, 10, "NORMAL", 5.0));
+        samples.add(snapshot(START + 5_000, 20.0, 40.0, 10, 10, "NORMAL", 5.0));
+        // Server was down for three days, then back to five-second samples
+        samples.add(snapshot(START + 5_000 + 3 * 86_400_000L, 20.0, 40.0, 10, 10, "NORMAL", 5.0));
+        samples.add(snapshot(START + 10_000 + 3 * 86_400_000L, 20.0, 40.0, 10, 10, "NORMAL", 5.0));
+        // Two samples in the same millisecond
+        samples.add(snapshot(START + 10_000 + 3 * 86_400_000L, 19.0, 40.0, 10, 10, "NORMAL", 5.0));
+
+        byte[] block = encode(samples);
+        assertSameSeries(samples, decode(block));
+        assertEquals(START, SnapshotBlockCodec.readFirstTimestamp(ByteBuffer.wrap(block)));
+        assertEquals(START + 10_000 + 3 * 86_400_000L, SnapshotBlockCodec.readLastTimestamp(ByteBuffer.wrap(block)));
+        assertEquals(samples.size(), SnapshotBlockCodec.readCount(ByteBuffer.wrap(block)));
+    }
+
+    @Test
+    void reusesXorWindowForRepeatingChanges() {
+        // 20.00 ^ 19.98 in fixed point has 4 meaningful bits; once the window is known each change
+        // costs 1 + 1 + 4 bits, and every other field one "unchanged" bit
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(snapshot(START + i * 5_000L, i % 2 == 0 ? 20.0 : 19.98, 40.0, 500, 200, "NORMAL", 8.0));
+        }
+
+        byte[] block = encode(samples);
+        assertSameSeries(samples, decode(block));
+
+        double bitsPerSample = (block.length - SnapshotBlockCodec.HEADER_SIZE) * 8.0 / samples.size();
+        // 12 bits with window reuse, 18 if every change wrote a new window
+        assertTrue(bitsPerSample < 12.5, "bits per sample: " + bitsPerSample);
+    }
+
+    @Test
+    void unknownProfileDecodesAsUnknown() {
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        samples.add(snapshot(START, 20.0, 40.0, 1, 1, "NORMAL", 1.0));
+        samples.add(snapshot(START + 5_000, 20.0, 40.0, 1, 1, "SOMETHING_ELSE", 1.0));
+        samples.add(snapshot(START + 10_000, 20.0, 40.0, 1, 1, "NORMAL", 1.0));
+
+        List<PerformanceSnapshot> decoded = decode(encode(samples));
+        assertEquals("NORMAL", decoded.get(0).getProfile());
+        assertEquals("UNKNOWN", decoded.get(1).getProfile());
+        assertEquals("NORMAL", decoded.get(2).getProfile());
+    }
+
+    @Test
+    void compressesRealisticDayWellBelowFixedRecord() {
+        Random random = new Random(42);
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        long timestamp = START;
+        double memory = 35.0;
+        int entities = 1800;
+        int chunks = 900;
+        String profile = "NORMAL";
+        for (int i = 0; i < 17_280; i++) {
+            // Five-second snapshots with scheduler jitter
+            timestamp += 5_000 + random.nextInt(21) - 10;
+            double tps = random.nextInt(10) == 0 ? 19.0 + random.nextInt(100) / 100.0 : 20.0;
+            memory = Math.max(10.0, Math.min(95.0, memory + (random.nextInt(41) - 20) / 100.0));
+            if (random.nextInt(4) == 0) {
+                entities = Math.max(0, entities + random.nextInt(61) - 30);
+            }
+            if (random.nextInt(20) == 0) {
+                chunks = Math.max(0, chunks + random.nextInt(21) - 10);
+            }
+            if (random.nextInt(2000) == 0) {
+                profile = profile.equals("NORMAL") ? "LIGHT" : "NORMAL";
+            }
+            double mspt = 8.0 + random.nextInt(400) / 100.0;
+            samples.add(snapshot(timestamp, tps, memory, entities, chunks, profile, mspt));
+        }
+
+        byte[] block = encode(samples);
+        assertSameSeries(samples, decode(block));
+
+        double bytesPerSample = (double) block.length / samples.size();
+        // About 5.6 bytes with this seed, against 40 for the same fields stored as raw primitives
+        assertTrue(bytesPerSample < 6.0, "bytes per sample: " + bytesPerSample);
+    }
+
+    @Test
+    void rejectsOutOfOrderSnapshots() {
+        SnapshotBlockCodec.Encoder encoder = new SnapshotBlockCodec.Encoder();
+        encoder.add(snapshot(START, 20.0, 40.0, 1, 1, "NORMAL", 1.0));
+        assertThrows(IllegalArgumentException.class,
+            () -> encoder.add(snapshot(START - 1, 20.0, 40.0, 1, 1, "NORMAL", 1.0)));
+    }
+
+    @Test
+    void rejectsCorruptBlocks() {
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        samples.add(snapshot(START, 20.0, 40.0, 1, 1, "NORMAL", 1.0));
+        samples.add(snapshot(START + 5_000, 19.0, 41.0, 2, 2, "LIGHT", 2.0));
+        byte[] block = encode(samples);
+
+        byte[] badMagic = block.clone();
+        badMagic[0] ^= 0x01;
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotBlockCodec.Decoder(ByteBuffer.wrap(badMagic)));
+
+        byte[] truncated = java.util.Arrays.copyOf(block, block.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotBlockCodec.Decoder(ByteBuffer.wrap(truncated)));
+    }
+
+    @Test
+    void decodesFromBufferPosition() {
+        List<PerformanceSnapshot> samples = new ArrayList<>();
+        samples.add(snapshot(START, 20.0, 40.0, 1, 1, "NORMAL", 1.0));
+        samples.add(snapshot(START + 5_000, 19.0, 41.0, 2, 2, "LIGHT", 2.0));
+        byte[] block = encode(samples);
+
+        ByteBuffer buffer = ByteBuffer.allocate(block.length + 16);
+        buffer.position(16);
+        buffer.put(block);
+        buffer.position(16);
+
+        SnapshotBlockCodec.Decoder decoder = new SnapshotBlockCodec.Decoder(buffer);
+        List<PerformanceSnapshot> decoded = new ArrayList<>();
+        while (decoder.hasNext()) {
+            decoded.add(decoder.next());
+        }
+        assertFalse(decoder.hasNext());
+        assertSameSeries(samples, decoded);
+        assertEquals(16, buffer.position());
+    }
+
+    private static PerformanceSnapshot snapshot(long timestamp, double tps, double memory, int entities,
+                                                int chunks, String profile, double mspt) {
+        return new PerformanceSnapshot(timestamp, tps, memory, entities, chunks, profile, mspt);
+    }
+
+    private static byte[] encode(List<PerformanceSnapshot> samples) {
+        SnapshotBlockCodec.Encoder encoder = new SnapshotBlockCodec.Encoder();
+        for (PerformanceSnapshot sample : samples) {
+            encoder.add(sample);
+        }
+        assertEquals(samples.size(), encoder.getCount());
+        byte[] block = encoder.finish();
+        assertEquals(encoder.size(), block.length);
+        return block;
+    }
+
+    private static List<PerformanceSnapshot> decode(byte[] block) {
+        List<PerformanceSnapshot> decoded = new ArrayList<>();
+        SnapshotBlockCodec.Decoder decoder = new SnapshotBlockCodec.Decoder(ByteBuffer.wrap(block));
+        while (decoder.hasNext()) {
+            decoded.add(decoder.next());
+        }
+        return decoded;
+    }
+
+    private static void assertSameSeries(List<PerformanceSnapshot> expected, List<PerformanceSnapshot> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            PerformanceSnapshot want = expected.get(i);
+            PerformanceSnapshot got = actual.get(i);
+            String at = "sample " + i;
+            assertEquals(want.getTimestamp(), got.getTimestamp(), at);
+            // TPS and memory are stored at 0.01 fixed point, MSPT in microseconds
+            assertEquals(want.getTps(), got.getTps(), 0.005, at);
+            assertEquals(want.getMemoryPercent(), got.getMemoryPercent(), 0.005, at);
+            assertEquals(want.getMspt(), got.getMspt(), 0.0005, at);
+            assertEquals(want.getEntityCount(), got.getEntityCount(), at);
+            assertEquals(want.getChunkCount(), got.getChunkCount(), at);
+            String profile = SnapshotBlockCodec.profileIndex(want.getProfile()) >= 0 ? want.getProfile() : "UNKNOWN";
+            assertEquals(profile, got.getProfile(), at);
+        }
+    }
+}